@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.destination;
+
+import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a batch of audit events to a destination in chunks, with up to maxInFlight chunks being sent at a time.
+ *
+ * Chunk size adapts to the latency of the destination: it grows while chunks are sent within the target latency,
+ * and is halved when a chunk takes longer or fails. When maxInFlight chunks are being sent, the caller waits for
+ * one of them to complete; this holds up the audit queue feeding the destination, instead of piling up requests.
+ *
+ * send() returns after all chunks of the batch are sent, and returns false if any chunk failed - so that the caller
+ * can spool the batch, as it would on failure of a single request. Destinations use the event-id as document-id,
+ * hence resending chunks that were sent successfully doesn't create duplicates.
+ */
+public class AuditBatchSender {
+    private static final Logger LOG = LoggerFactory.getLogger(AuditBatchSender.class);
+
+    public static final String PROP_MAX_IN_FLIGHT        = "pipeline.max.inflight";
+    public static final String PROP_MIN_CHUNK_SIZE       = "pipeline.chunk.size.min";
+    public static final String PROP_MAX_CHUNK_SIZE       = "pipeline.chunk.size.max";
+    public static final String PROP_TARGET_LATENCY_MS    = "pipeline.target.latency.ms";
+    public static final int    DEFAULT_MAX_IN_FLIGHT     = 1;
+    public static final int    DEFAULT_MIN_CHUNK_SIZE    = 100;
+    public static final int    DEFAULT_MAX_CHUNK_SIZE    = 1000;
+    public static final int    DEFAULT_TARGET_LATENCY_MS = 1000;
+
+    private final String          name;
+    private final int             maxInFlight;
+    private final int             minChunkSize;
+    private final int             maxChunkSize;
+    private final long            targetLatencyMs;
+    private final Semaphore       inFlight;
+    private final ExecutorService executor;
+    private final AtomicInteger   chunkSize;
+    private final AtomicLong      chunkCount       = new AtomicLong();
+    private final AtomicLong      failedChunkCount = new AtomicLong();
+    private final AtomicLong      sendTimeMs       = new AtomicLong();
+    private final AtomicLong      waitTimeMs       = new AtomicLong();
+
+    public interface ChunkSender {
+        boolean send(Collection<AuditEventBase> events);
+    }
+
+    AuditBatchSender(String name, int maxInFlight, int minChunkSize, int maxChunkSize, long targetLatencyMs) {
+        this.name            = name;
+        this.maxInFlight     = maxInFlight;
+        this.minChunkSize    = Math.max(1, minChunkSize);
+        this.maxChunkSize    = Math.max(this.minChunkSize, maxChunkSize);
+        this.targetLatencyMs = targetLatencyMs;
+        this.inFlight        = new Semaphore(maxInFlight);
+        this.executor        = Executors.newFixedThreadPool(maxInFlight, new ThreadFactoryBuilder().setNameFormat("AuditBatchSender-" + name + "-%d").setDaemon(true).build());
+        this.chunkSize       = new AtomicInteger(this.minChunkSize);
+
+        LOG.info("AuditBatchSender(name={}, maxInFlight={}, minChunkSize={}, maxChunkSize={}, targetLatencyMs={})", name, maxInFlight, this.minChunkSize, this.maxChunkSize, targetLatencyMs);
+    }
+
+    /**
+     * @return sender configured for the destination; null if at most 1 request is to be in flight, in which case
+     * the destination sends each batch in a single request
+     */
+    public static AuditBatchSender create(Properties props, String propPrefix, String name) {
+        int maxInFlight = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT);
+
+        final AuditBatchSender ret;
+
+        if (maxInFlight > 1) {
+            int minChunkSize    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_MIN_CHUNK_SIZE, DEFAULT_MIN_CHUNK_SIZE);
+            int maxChunkSize    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_MAX_CHUNK_SIZE, DEFAULT_MAX_CHUNK_SIZE);
+            int targetLatencyMs = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_TARGET_LATENCY_MS, DEFAULT_TARGET_LATENCY_MS);
+
+            ret = new AuditBatchSender(name, maxInFlight, minChunkSize, maxChunkSize, targetLatencyMs);
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    public boolean send(Collection<AuditEventBase> events, ChunkSender chunkSender) {
+        List<AuditEventBase>  eventList = events instanceof List ? (List<AuditEventBase>) events : new ArrayList<>(events);
+        List<Future<Boolean>> results   = new ArrayList<>();
+        boolean               ret       = true;
+
+        for (int from = 0; from < eventList.size(); ) {
+            int                        to    = Math.min(eventList.size(), from + chunkSize.get());
+            final List<AuditEventBase> chunk = new ArrayList<>(eventList.subList(from, to));
+
+            acquireInFlight();
+
+            try {
+                results.add(executor.submit(() -> sendChunk(chunk, chunkSender)));
+            } catch (RuntimeException excp) { // rejected, after stop()
+                inFlight.release();
+
+                throw excp;
+            }
+
+            from = to;
+        }
+
+        for (Future<Boolean> result : results) {
+            if (!getResult(result)) {
+                ret = false;
+            }
+        }
+
+        return ret;
+    }
+
+    public void stop() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("AuditBatchSender(name={}): chunks still being sent after 30 seconds", name);
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+
+        LOG.info("Stopped {}", this);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getChunkSize() {
+        return chunkSize.get();
+    }
+
+    public long getChunkCount() {
+        return chunkCount.get();
+    }
+
+    public long getFailedChunkCount() {
+        return failedChunkCount.get();
+    }
+
+    public long getSendTimeMs() {
+        return sendTimeMs.get();
+    }
+
+    public long getWaitTimeMs() {
+        return waitTimeMs.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AuditBatchSender={name=" + name + ", maxInFlight=" + maxInFlight + ", chunkSize=" + chunkSize + ", chunkCount=" + chunkCount + ", failedChunkCount=" + failedChunkCount + ", sendTimeMs=" + sendTimeMs + ", waitTimeMs=" + waitTimeMs + "}";
+    }
+
+    private boolean sendChunk(Collection<AuditEventBase> chunk, ChunkSender chunkSender) {
+        long    startTime = System.currentTimeMillis();
+        boolean ret       = false;
+
+        try {
+            ret = chunkSender.send(chunk);
+        } catch (Throwable t) {
+            LOG.error("AuditBatchSender(name={}): failed to send {} events", name, chunk.size(), t);
+        } finally {
+            inFlight.release();
+        }
+
+        long elapsedMs = System.currentTimeMillis() - startTime;
+
+        chunkCount.incrementAndGet();
+        sendTimeMs.addAndGet(elapsedMs);
+
+        if (!ret) {
+            failedChunkCount.incrementAndGet();
+        }
+
+        updateChunkSize(ret && elapsedMs <= targetLatencyMs);
+
+        return ret;
+    }
+
+    // additive increase while the destination keeps up; halve when it doesn't
+    private void updateChunkSize(boolean isWithinTarget) {
+        int newSize = chunkSize.updateAndGet(size -> isWithinTarget ? Math.min(maxChunkSize, size + minChunkSize) : Math.max(minChunkSize, size / 2));
+
+        LOG.debug("AuditBatchSender(name={}): isWithinTarget={}, chunkSize={}", name, isWithinTarget, newSize);
+    }
+
+    // the audit queue interrupts its consumer thread to wake it up; hence wait without being interrupted
+    private void acquireInFlight() {
+        if (!inFlight.tryAcquire()) {
+            long startTime = System.currentTimeMillis();
+
+            inFlight.acquireUninterruptibly();
+
+            waitTimeMs.addAndGet(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private boolean getResult(Future<Boolean> result) {
+        boolean ret           = false;
+        boolean isInterrupted = false;
+
+        while (true) {
+            try {
+                ret = result.get();
+
+                break;
+            } catch (InterruptedException excp) {
+                isInterrupted = true;
+            } catch (ExecutionException excp) {
+                LOG.error("AuditBatchSender(name={}): failed to send events", name, excp);
+
+                break;
+            }
+        }
+
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return ret;
+    }
+}
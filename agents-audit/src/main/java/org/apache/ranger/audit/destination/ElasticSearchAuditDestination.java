@@ -87,6 +87,8 @@ public class ElasticSearchAuditDestination extends AuditDestination {
     private String  hosts;
     private Subject subject;
 
+    private AuditBatchSender batchSender;
+
     public ElasticSearchAuditDestination() {
         propPrefix = CONFIG_PREFIX;
     }
@@ -147,12 +149,18 @@ public void init(Properties props, String propPrefix) {
         LOG.info("Connecting to ElasticSearch: {}", connectionString());
 
         getClient(); // Initialize client
+
+        batchSender = AuditBatchSender.create(props, propPrefix, getName());
     }
 
     @Override
     public void stop() {
         super.stop();
 
+        if (batchSender != null) {
+            batchSender.stop();
+        }
+
         logStatus();
     }
 
@@ -168,12 +176,23 @@ public void flush() {
 
     @Override
     public boolean log(Collection<AuditEventBase> events) {
+        logStatusIfRequired();
+        addTotalCount(events.size());
+
+        return batchSender != null ? batchSender.send(events, this::sendEvents) : sendEvents(events);
+    }
+
+    public boolean isAsync() {
+        return true;
+    }
+
+    /*
+     * called concurrently, for chunks of a batch, when batchSender is enabled
+     */
+    boolean sendEvents(Collection<AuditEventBase> events) {
         boolean ret = false;
 
         try {
-            logStatusIfRequired();
-            addTotalCount(events.size());
-
             RestHighLevelClient client = getClient();
 
             if (null == client) {
@@ -232,10 +251,6 @@ public boolean log(Collection<AuditEventBase> events) {
         return ret;
     }
 
-    public boolean isAsync() {
-        return true;
-    }
-
     synchronized RestHighLevelClient getClient() {
         RestHighLevelClient client = clientRef.get();
 
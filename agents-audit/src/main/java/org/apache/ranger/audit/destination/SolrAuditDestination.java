@@ -76,8 +76,9 @@ public class SolrAuditDestination extends AuditDestination {
     public static final String DEFAULT_COLLECTION_NAME                  = "ranger_audits";
     public static final String PROP_JAVA_SECURITY_AUTH_LOGIN_CONFIG     = "java.security.auth.login.config";
 
-    private volatile SolrClient   solrClient;
-    private volatile KerberosUser kerberosUser;
+    private volatile SolrClient       solrClient;
+    private volatile KerberosUser     kerberosUser;
+    private          AuditBatchSender batchSender;
 
     public SolrAuditDestination() {
     }
@@ -90,12 +91,18 @@ public void init(Properties props, String propPrefix) {
 
         init();
         connect();
+
+        batchSender = AuditBatchSender.create(props, propPrefix, getName());
     }
 
     @Override
     public void stop() {
         LOG.info("SolrAuditDestination.stop() called..");
 
+        if (batchSender != null) {
+            batchSender.stop();
+        }
+
         logStatus();
 
         SolrClient solrClient = this.solrClient;
@@ -134,12 +141,23 @@ public void flush() {
 
     @Override
     public boolean log(Collection<AuditEventBase> events) {
+        logStatusIfRequired();
+        addTotalCount(events.size());
+
+        return batchSender != null ? batchSender.send(events, this::sendEvents) : sendEvents(events);
+    }
+
+    public boolean isAsync() {
+        return true;
+    }
+
+    /*
+     * called concurrently, for chunks of a batch, when batchSender is enabled
+     */
+    boolean sendEvents(Collection<AuditEventBase> events) {
         boolean ret = false;
 
         try {
-            logStatusIfRequired();
-            addTotalCount(events.size());
-
             SolrClient solrClient = this.solrClient;
 
             if (solrClient == null) {
@@ -191,10 +209,6 @@ public boolean log(Collection<AuditEventBase> events) {
         return ret;
     }
 
-    public boolean isAsync() {
-        return true;
-    }
-
     synchronized void connect() {
         SolrClient me = solrClient;
 
@@ -28,6 +28,7 @@
 import org.apache.ranger.audit.provider.hdfs.HdfsAuditProvider;
 import org.apache.ranger.audit.provider.kafka.KafkaAuditProvider;
 import org.apache.ranger.audit.provider.solr.SolrAuditProvider;
+import org.apache.ranger.audit.queue.AuditAggregationQueue;
 import org.apache.ranger.audit.queue.AuditAsyncQueue;
 import org.apache.ranger.audit.queue.AuditBatchQueue;
 import org.apache.ranger.audit.queue.AuditFileQueue;
@@ -227,7 +228,7 @@ public synchronized void init(Properties props, String appType) {
             AuditHandler consumer = providers.get(0);
 
             // Possible pipeline is:
-            // async_queue -> summary_queue -> multidestination -> batch_queue
+            // async_queue -> aggregation_queue -> summary_queue -> multidestination -> batch_queue
             // -> hdfs_destination
             // -> batch_queue -> solr_destination
             // -> batch_queue -> kafka_destination
@@ -264,6 +265,21 @@ public synchronized void init(Properties props, String appType) {
                 LOG.info("AuditSummaryQueue is disabled");
             }
 
+            // Let's see if aggregation is enabled, then roll up repeated events before sending them downstream
+            boolean aggregationEnabled = MiscUtil.getBooleanProperty(props, propPrefix + "." + "aggregation" + "." + "enabled", false);
+
+            if (aggregationEnabled) {
+                LOG.info("AuditAggregationQueue is enabled");
+
+                AuditAggregationQueue aggregationQueue = new AuditAggregationQueue(consumer);
+
+                aggregationQueue.init(props, propPrefix + "." + "aggregation");
+
+                consumer = aggregationQueue;
+            } else {
+                LOG.info("AuditAggregationQueue is disabled");
+            }
+
             if (!isAuditFileCacheProviderEnabled) {
                 // Create the AsysnQueue
                 AuditAsyncQueue asyncQueue = new AuditAsyncQueue(consumer);
@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Rolls up authz audit events that have the same value for the configured key fields, in windows of
+ * aggregation.interval.ms, and sends one event per key to the consumer at the end of the window. The sent event is the
+ * first event of the key in the window, with eventCount set to the number of events rolled up, and eventDurationMS set
+ * to the time between the first and the last event.
+ *
+ * The resource path in the key can be truncated to the first aggregation.resource.path.depth elements, so that
+ * accesses to files under a directory are rolled up into one event for the directory.
+ *
+ * Events are accumulated in a concurrent map by the threads that log them, without locks: the count of a key is
+ * updated with a CAS, and is sealed by the consumer thread at the end of the window, after which a new accumulator is
+ * created for the key. When the number of keys in a window reaches aggregation.max.keys, events of new keys are sent to
+ * the consumer as they are. Events other than authz audit events are sent as they are as well.
+ */
+public class AuditAggregationQueue extends AuditQueue implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditAggregationQueue.class);
+
+    public static final String PROP_AGGREGATION_INTERVAL      = "interval.ms";
+    public static final String PROP_AGGREGATION_KEY_FIELDS    = "key.fields";
+    public static final String PROP_RESOURCE_PATH_DEPTH       = "resource.path.depth";
+    public static final String PROP_AGGREGATION_MAX_KEYS      = "max.keys";
+    public static final String DEFAULT_AGGREGATION_KEY_FIELDS = "repo,user,resource,resourceType,access,action,result,policyId,enforcer,clientIP,agentHost,zone";
+
+    static final String DEFAULT_NAME  = "aggregation";
+    static final char   KEY_SEPARATOR = '\u0001';
+    static       int    threadCount;
+
+    private static final long SEALED = -1;
+
+    private static final Map<String, Function<AuthzAuditEvent, Object>> KEY_FIELD_ACCESSORS = getKeyFieldAccessors();
+
+    final ConcurrentHashMap<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    Thread consumerThread;
+
+    private final LongAdder receivedCount = new LongAdder();
+    private final LongAdder sentCount     = new LongAdder();
+
+    private int                                     aggregationIntervalMs = 5000;
+    private int                                     resourcePathDepth;
+    private int                                     maxKeys               = 100000;
+    private List<Function<AuthzAuditEvent, Object>> keyFieldAccessors;
+    private int                                     resourceFieldIndex;
+
+    public AuditAggregationQueue(AuditHandler consumer) {
+        super(consumer);
+
+        setName(DEFAULT_NAME);
+        setKeyFields(DEFAULT_AGGREGATION_KEY_FIELDS);
+    }
+
+    @Override
+    public void init(Properties props, String propPrefix) {
+        super.init(props, propPrefix);
+
+        aggregationIntervalMs = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_AGGREGATION_INTERVAL, aggregationIntervalMs);
+        resourcePathDepth     = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_RESOURCE_PATH_DEPTH, resourcePathDepth);
+        maxKeys               = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_AGGREGATION_MAX_KEYS, maxKeys);
+
+        setKeyFields(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_AGGREGATION_KEY_FIELDS, DEFAULT_AGGREGATION_KEY_FIELDS));
+
+        logger.info("aggregationInterval={}, resourcePathDepth={}, maxKeys={}, name={}", aggregationIntervalMs, resourcePathDepth, maxKeys, getName());
+    }
+
+    @Override
+    public boolean log(AuditEventBase event) {
+        boolean ret;
+
+        if (isDrain() || !(event instanceof AuthzAuditEvent)) {
+            ret = consumer.log(event);
+        } else {
+            AuthzAuditEvent authzEvent = (AuthzAuditEvent) event;
+            long            count      = authzEvent.getEventCount() > 0 ? authzEvent.getEventCount() : 1;
+
+            receivedCount.add(count);
+
+            ret = aggregate(getAggregationKey(authzEvent), authzEvent, count) || consumer.log(event);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean log(Collection<AuditEventBase> events) {
+        boolean ret = true;
+
+        for (AuditEventBase event : events) {
+            ret = log(event);
+
+            if (!ret) {
+                break;
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void start() {
+        if (consumer != null) {
+            consumer.start();
+        }
+
+        consumerThread = new Thread(this, this.getClass().getName() + (threadCount++));
+
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        logger.info("Stop called. name={}", getName());
+
+        setDrain(true);
+
+        try {
+            if (consumerThread != null) {
+                logger.info("Interrupting consumerThread. name={}, consumer={}", getName(), (consumer == null ? null : consumer.getName()));
+
+                consumerThread.interrupt();
+            }
+        } catch (Throwable t) {
+            // ignore any exception
+        }
+
+        consumerThread = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            //This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
+            MDC.clear();
+            runLogAudit();
+        } catch (Throwable t) {
+            logger.error("Exited thread without abnormaly. queue={}", getName(), t);
+        }
+    }
+
+    public void runLogAudit() {
+        while (!isDrain()) {
+            try {
+                Thread.sleep(aggregationIntervalMs);
+            } catch (InterruptedException e) {
+                logger.info("Caught exception in consumer thread. Shutdown might be in progress");
+            }
+
+            try {
+                sendAggregates();
+            } catch (Throwable t) {
+                logger.error("Caught error during processing request.", t);
+            }
+        }
+
+        // events logged after drain is set are sent to the consumer as they are; send the ones accumulated until then
+        sendAggregates();
+
+        logger.info("Exiting polling loop. name={}", getName());
+
+        try {
+            // Call stop on the consumer
+            logger.info("Calling to stop consumer. name={}, consumer.name={}", getName(), consumer.getName());
+
+            consumer.stop();
+        } catch (Throwable t) {
+            logger.error("Error while calling stop on consumer.", t);
+        }
+
+        logger.info("Exiting consumerThread.run() method. name={}", getName());
+    }
+
+    @Override
+    public void logStatus() {
+        super.logStatus();
+
+        logger.info("AuditAggregationQueue status: name={}, receivedCount={}, sentCount={}, keyCount={}", getName(), receivedCount.sum(), sentCount.sum(), aggregates.size());
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    void setKeyFields(String keyFields) {
+        List<Function<AuthzAuditEvent, Object>> accessors = new ArrayList<>();
+        int                                     resIndex  = -1;
+
+        for (String keyField : StringUtils.split(keyFields, ',')) {
+            String                            fieldName = keyField.trim();
+            Function<AuthzAuditEvent, Object> accessor  = KEY_FIELD_ACCESSORS.get(fieldName);
+
+            if (accessor == null) {
+                logger.warn("Ignoring unknown aggregation key field {}. name={}, supported fields={}", fieldName, getName(), KEY_FIELD_ACCESSORS.keySet());
+            } else {
+                if (fieldName.equals("resource")) {
+                    resIndex = accessors.size();
+                }
+
+                accessors.add(accessor);
+            }
+        }
+
+        keyFieldAccessors  = accessors;
+        resourceFieldIndex = resIndex;
+    }
+
+    void setResourcePathDepth(int resourcePathDepth) {
+        this.resourcePathDepth = resourcePathDepth;
+    }
+
+    void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    String getAggregationKey(AuthzAuditEvent event) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < keyFieldAccessors.size(); i++) {
+            Object value = keyFieldAccessors.get(i).apply(event);
+
+            if (i == resourceFieldIndex) {
+                value = truncateResourcePath((String) value);
+            }
+
+            if (i > 0) {
+                sb.append(KEY_SEPARATOR);
+            }
+
+            sb.append(value);
+        }
+
+        return sb.toString();
+    }
+
+    String truncateResourcePath(String resourcePath) {
+        String ret = resourcePath;
+
+        if (resourcePathDepth > 0 && resourcePath != null) {
+            int depth = 0;
+
+            for (int i = 1; i < resourcePath.length(); i++) {
+                if (resourcePath.charAt(i) == '/' && ++depth == resourcePathDepth) {
+                    ret = resourcePath.substring(0, i);
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * sends aggregates of the window to the consumer; aggregates are sealed first, so that events logged from now on are
+     * accumulated in new aggregates
+     */
+    void sendAggregates() {
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            long      count     = aggregate.seal();
+
+            aggregates.remove(entry.getKey(), aggregate); // the entry might have been replaced by a new aggregate already
+
+            if (count > 0) {
+                AuthzAuditEvent event = aggregate.getEvent(count);
+
+                sentCount.increment();
+
+                if (!consumer.log(event)) {
+                    logFailedEvent(event);
+                }
+            }
+        }
+    }
+
+    /*
+     * returns false if the event was not aggregated, because max keys is reached
+     */
+    private boolean aggregate(String key, AuthzAuditEvent event, long count) {
+        boolean ret = false;
+
+        while (!ret) {
+            Aggregate aggregate = aggregates.get(key);
+
+            if (aggregate == null) {
+                if (aggregates.size() >= maxKeys) {
+                    break;
+                }
+
+                aggregate = new Aggregate(event);
+
+                Aggregate existing = aggregates.putIfAbsent(key, aggregate);
+
+                if (existing != null) {
+                    aggregate = existing;
+                }
+            }
+
+            ret = aggregate.add(event, count);
+
+            if (!ret) { // sealed by the consumer thread; the entry will be replaced by a new aggregate
+                aggregates.remove(key, aggregate);
+            }
+        }
+
+        return ret;
+    }
+
+    private static Map<String, Function<AuthzAuditEvent, Object>> getKeyFieldAccessors() {
+        Map<String, Function<AuthzAuditEvent, Object>> ret = new HashMap<>();
+
+        ret.put("repo", AuthzAuditEvent::getRepositoryName);
+        ret.put("repoType", AuthzAuditEvent::getRepositoryType);
+        ret.put("user", AuthzAuditEvent::getUser);
+        ret.put("resource", AuthzAuditEvent::getResourcePath);
+        ret.put("resourceType", AuthzAuditEvent::getResourceType);
+        ret.put("access", AuthzAuditEvent::getAccessType);
+        ret.put("action", AuthzAuditEvent::getAction);
+        ret.put("result", AuthzAuditEvent::getAccessResult);
+        ret.put("reason", AuthzAuditEvent::getResultReason);
+        ret.put("policyId", AuthzAuditEvent::getPolicyId);
+        ret.put("policyVersion", AuthzAuditEvent::getPolicyVersion);
+        ret.put("enforcer", AuthzAuditEvent::getAclEnforcer);
+        ret.put("clientIP", AuthzAuditEvent::getClientIP);
+        ret.put("clientType", AuthzAuditEvent::getClientType);
+        ret.put("sessionId", AuthzAuditEvent::getSessionId);
+        ret.put("agentHost", AuthzAuditEvent::getAgentHostname);
+        ret.put("cluster", AuthzAuditEvent::getClusterName);
+        ret.put("zone", AuthzAuditEvent::getZoneName);
+
+        return ret;
+    }
+
+    class Aggregate {
+        final AuthzAuditEvent event;
+        final AtomicLong      count     = new AtomicLong();
+        final AtomicLong      startTime = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong      endTime   = new AtomicLong(Long.MIN_VALUE);
+
+        Aggregate(AuthzAuditEvent event) {
+            this.event = event;
+        }
+
+        /*
+         * returns false if the aggregate is sealed
+         */
+        boolean add(AuthzAuditEvent event, long eventCount) {
+            Date eventTime = event.getEventTime();
+
+            if (eventTime != null) {
+                long time = eventTime.getTime();
+
+                startTime.accumulateAndGet(time, Math::min);
+                endTime.accumulateAndGet(time + Math.max(event.getEventDurationMS(), 0), Math::max);
+            }
+
+            boolean ret = false;
+
+            for (long current = count.get(); current != SEALED && !ret; current = count.get()) {
+                ret = count.compareAndSet(current, current + eventCount);
+            }
+
+            return ret;
+        }
+
+        long seal() {
+            return count.getAndSet(SEALED);
+        }
+
+        AuthzAuditEvent getEvent(long eventCount) {
+            if (eventCount > 1) {
+                long duration = endTime.get() - startTime.get();
+
+                event.setEventCount(eventCount);
+                event.setEventDurationMS(duration > 0 ? duration : 1);
+
+                if (resourceFieldIndex != -1) {
+                    event.setResourcePath(truncateResourcePath(event.getResourcePath()));
+                }
+            }
+
+            return event;
+        }
+    }
+}
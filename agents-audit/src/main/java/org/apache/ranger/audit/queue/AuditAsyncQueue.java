@@ -27,6 +27,8 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
@@ -39,8 +41,8 @@ public class AuditAsyncQueue extends AuditQueue implements Runnable {
     static final String DEFAULT_NAME = "async";
     static       int    threadCount;
 
-    LinkedBlockingQueue<AuditEventBase> queue          = new LinkedBlockingQueue<>();
-    Thread                              consumerThread;
+    BlockingQueue<AuditEventBase> queue          = new LinkedBlockingQueue<>();
+    Thread                        consumerThread;
 
     public AuditAsyncQueue(AuditHandler consumer) {
         super(consumer);
@@ -62,23 +64,36 @@ public boolean log(AuditEventBase event) {
         addTotalCount(1);
 
         // Add to the queue and return ASAP
-        if (queue.size() >= getMaxQueueSize()) {
+        if (queue.size() >= getMaxQueueSize() || !queue.offer(event)) {
             addFailedCount(1);
 
             return false;
         }
 
-        queue.add(event);
-
         return true;
     }
 
+    @Override
+    public void init(Properties props, String basePropertyName) {
+        super.init(props, basePropertyName);
+
+        if (isRingBufferQueue()) {
+            logger.info("Creating AuditRingBufferQueue with maxSize={}", getMaxQueueSize());
+
+            queue = new AuditRingBufferQueue<>(getMaxQueueSize());
+        }
+    }
+
     @Override
     public void logStatus() {
         super.logStatus();
 
         if (isStatusLogEnabled()) {
             logger.info("AuditAsyncQueue.log(name={}): totalCount={}, currentQueueLength={}", getName(), getTotalCount(), queue.size());
+
+            if (queue instanceof AuditRingBufferQueue) {
+                logger.info("AuditAsyncQueue.log(name={}): {}", getName(), queue);
+            }
         }
     }
 
@@ -68,6 +68,15 @@ public boolean log(AuditEventBase event) {
         return true;
     }
 
+    @Override
+    public void logStatus() {
+        super.logStatus();
+
+        if (isStatusLogEnabled() && queue instanceof AuditRingBufferQueue) {
+            logger.info("AuditBatchQueue.log(name={}): {}", getName(), queue);
+        }
+    }
+
     @Override
     public boolean log(Collection<AuditEventBase> events) {
         boolean ret = true;
@@ -96,9 +105,15 @@ public synchronized void start() {
             return;
         }
 
-        logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
+        if (isRingBufferQueue()) {
+            logger.info("Creating AuditRingBufferQueue with maxSize={}", getMaxQueueSize());
+
+            queue = new AuditRingBufferQueue<>(getMaxQueueSize());
+        } else {
+            logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
 
-        queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+            queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+        }
 
         // Start the consumer first
         consumer.start();
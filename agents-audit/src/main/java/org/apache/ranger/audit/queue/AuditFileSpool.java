@@ -35,11 +35,15 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -48,6 +52,11 @@
 /**
  * This class temporarily stores logs in file system if the destination is
  * overloaded or down
+ *
+ * Logs are stored as json lines by default. With filespool.format=binary, logs are stored in the format of
+ * {@link AuditSpoolFile}: producers encode (and optionally compress) events without holding the spool monitor,
+ * spool files are replayed from memory-mapped windows, and progress is appended to the index file instead of
+ * rewriting the whole index after each batch.
  */
 public class AuditFileSpool implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(AuditFileSpool.class);
@@ -60,6 +69,13 @@ public class AuditFileSpool implements Runnable {
     public static final String PROP_FILE_SPOOL_FILE_ROLLOVER           = "filespool.file.rollover.sec";
     public static final String PROP_FILE_SPOOL_INDEX_FILE              = "filespool.index.filename";
     public static final String PROP_FILE_SPOOL_DEST_RETRY_MS           = "filespool.destination.retry.ms";
+    public static final String PROP_FILE_SPOOL_FORMAT                  = "filespool.format";
+    public static final String PROP_FILE_SPOOL_COMPRESSION             = "filespool.compression";
+    public static final String PROP_FILE_SPOOL_INDEX_MAX_APPENDS       = "filespool.index.max.appends";
+    public static final String FILE_SPOOL_FORMAT_JSON                  = "json";
+    public static final String FILE_SPOOL_FORMAT_BINARY                = "binary";
+    public static final String FILE_SPOOL_COMPRESSION_NONE             = "none";
+    public static final String FILE_SPOOL_COMPRESSION_DEFLATE          = "deflate";
     public static final String CONSUMER                                = ", consumer=";
 
     AuditQueue                      queueProvider;
@@ -79,26 +95,37 @@ public class AuditFileSpool implements Runnable {
     int    fileRolloverSec    = 24 * 60 * 60; // In seconds
     int    maxArchiveFiles    = 100;
 
+    // binary format
+    boolean isBinaryFormat;
+    boolean isCompressed;
+    int     indexMaxAppends  = 1000; // index file is rewritten after these many records are appended to it
+    int     indexAppendCount;
+
     int  errorLogIntervalMS = 30 * 1000; // Every 30 seconds
     long lastErrorLogMS;
 
     List<AuditIndexRecord> indexRecords = new ArrayList<>();
 
-    boolean isPending;
-    long    lastAttemptTime;
+    volatile boolean isPending;
+    long             lastAttemptTime;
     boolean initDone;
 
     PrintWriter      logWriter;
     AuditIndexRecord currentWriterIndexRecord;
     AuditIndexRecord currentConsumerIndexRecord;
 
+    // spoolWriter and spoolRolloverTimeMs are guarded by writerLock, instead of the spool monitor
+    final Object          writerLock = new Object();
+    AuditSpoolFile.Writer spoolWriter;
+    long                  spoolRolloverTimeMs;
+
     BufferedReader logReader;
 
     Thread destinationThread;
 
-    boolean isWriting  = true;
-    boolean isDrain;
-    boolean isDestDown;
+    volatile boolean isWriting = true;
+    volatile boolean isDrain;
+    volatile boolean isDestDown;
 
     public AuditFileSpool(AuditQueue queueProvider, AuditHandler consumerProvider) {
         this.queueProvider    = queueProvider;
@@ -132,10 +159,14 @@ public boolean init(Properties props, String basePropertyName) {
             retryDestinationMS = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_DEST_RETRY_MS, retryDestinationMS);
             fileRolloverSec    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_ROLLOVER, fileRolloverSec);
             maxArchiveFiles    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
+            isBinaryFormat     = FILE_SPOOL_FORMAT_BINARY.equalsIgnoreCase(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FORMAT, FILE_SPOOL_FORMAT_JSON));
+            isCompressed       = FILE_SPOOL_COMPRESSION_DEFLATE.equalsIgnoreCase(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_COMPRESSION, FILE_SPOOL_COMPRESSION_NONE));
+            indexMaxAppends    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_INDEX_MAX_APPENDS, indexMaxAppends);
 
             logger.info("retryDestinationMS={}, queueName={}", retryDestinationMS, queueProvider.getName());
             logger.info("fileRolloverSec={}, queueName={}", fileRolloverSec, queueProvider.getName());
             logger.info("maxArchiveFiles={}, queueName={}", maxArchiveFiles, queueProvider.getName());
+            logger.info("isBinaryFormat={}, isCompressed={}, indexMaxAppends={}, queueName={}", isBinaryFormat, isCompressed, indexMaxAppends, queueProvider.getName());
 
             if (logFolderProp == null || logFolderProp.isEmpty()) {
                 logger.error("Audit spool folder is not configured. Please set {}.{}.queueName={}", propPrefix, PROP_FILE_SPOOL_LOCAL_DIR, queueProvider.getName());
@@ -234,9 +265,19 @@ public boolean init(Properties props, String basePropertyName) {
                 }
 
                 if (auditIndexRecord.getStatus().equals(SPOOL_FILE_STATUS.write_inprogress)) {
-                    currentWriterIndexRecord = auditIndexRecord;
+                    File writerFile = new File(auditIndexRecord.getFilePath());
+
+                    if (writerFile.length() > 0 && AuditSpoolFile.isSpoolFile(writerFile) != isBinaryFormat) {
+                        // spool format has been changed since the file was written; don't append to it
+                        logger.info("Closing file written in another format. queueName={}, fileName={}", queueProvider.getName(), writerFile);
 
-                    logger.info("currentWriterIndexRecord={}, queueName={}", currentWriterIndexRecord.getFilePath(), queueProvider.getName());
+                        auditIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
+                        auditIndexRecord.setWriteCompleteTime(new Date());
+                    } else {
+                        currentWriterIndexRecord = auditIndexRecord;
+
+                        logger.info("currentWriterIndexRecord={}, queueName={}", currentWriterIndexRecord.getFilePath(), queueProvider.getName());
+                    }
                 }
 
                 if (auditIndexRecord.getStatus().equals(SPOOL_FILE_STATUS.read_inprogress)) {
@@ -298,6 +339,20 @@ public void stop() {
 
         flush();
 
+        synchronized (writerLock) {
+            if (spoolWriter != null) {
+                try {
+                    logger.info("Closing open spool file, queueName={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
+
+                    spoolWriter.close();
+                } catch (Throwable t) {
+                    logger.debug("Error closing spool out file.", t);
+                }
+
+                spoolWriter = null;
+            }
+        }
+
         PrintWriter out = getOpenLogFileStream();
 
         if (out != null) {
@@ -378,7 +433,39 @@ public long getLastAttemptTimeDelta() {
         return System.currentTimeMillis() - lastAttemptTime;
     }
 
-    public synchronized void stashLogs(AuditEventBase event) {
+    public void stashLogs(AuditEventBase event) {
+        if (isBinaryFormat) {
+            stashLogsBinary(Collections.singletonList(event));
+        } else {
+            stashLogsJson(event);
+        }
+    }
+
+    public void stashLogs(Collection<AuditEventBase> events) {
+        if (isBinaryFormat) {
+            stashLogsBinary(events);
+        } else {
+            stashLogsJson(events);
+        }
+    }
+
+    public void stashLogsString(String event) {
+        if (isBinaryFormat) {
+            stashLogsStringBinary(Collections.singletonList(event));
+        } else {
+            stashLogsStringJson(event);
+        }
+    }
+
+    public void stashLogsString(Collection<String> events) {
+        if (isBinaryFormat) {
+            stashLogsStringBinary(events);
+        } else {
+            stashLogsStringJson(events);
+        }
+    }
+
+    synchronized void stashLogsJson(AuditEventBase event) {
         if (isDrain) {
             // Stop has been called, so this method shouldn't be called
             logger.error("stashLogs() is called after stop is called. event={}", event);
@@ -402,15 +489,15 @@ public synchronized void stashLogs(AuditEventBase event) {
         }
     }
 
-    public synchronized void stashLogs(Collection<AuditEventBase> events) {
+    synchronized void stashLogsJson(Collection<AuditEventBase> events) {
         for (AuditEventBase event : events) {
-            stashLogs(event);
+            stashLogsJson(event);
         }
 
         flush();
     }
 
-    public synchronized void stashLogsString(String event) {
+    synchronized void stashLogsStringJson(String event) {
         if (isDrain) {
             // Stop has been called, so this method shouldn't be called
             logger.error("stashLogs() is called after stop is called. event={}", event);
@@ -430,14 +517,63 @@ public synchronized void stashLogsString(String event) {
         }
     }
 
-    public synchronized void stashLogsString(Collection<String> events) {
+    synchronized void stashLogsStringJson(Collection<String> events) {
         for (String event : events) {
-            stashLogsString(event);
+            stashLogsStringJson(event);
         }
 
         flush();
     }
 
+    void stashLogsBinary(Collection<AuditEventBase> events) {
+        List<String> jsonStrs = new ArrayList<>(events.size());
+
+        for (AuditEventBase event : events) {
+            try {
+                jsonStrs.add(MiscUtil.stringify(event)); // Convert event to json
+            } catch (Exception ex) {
+                logger.error("Error converting to json. event={}", event, ex);
+            }
+        }
+
+        stashLogsStringBinary(jsonStrs);
+    }
+
+    /*
+     * events are encoded before writerLock is acquired; the spool monitor is acquired only to update the index,
+     * when the current file is rolled over or a new file is started
+     */
+    void stashLogsStringBinary(Collection<String> events) {
+        if (isDrain) {
+            // Stop has been called, so this method shouldn't be called
+            logger.error("stashLogs() is called after stop is called. eventCount={}", events.size());
+
+            return;
+        }
+
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            ByteBuffer block = AuditSpoolFile.encodeBlock(events, isCompressed);
+
+            synchronized (writerLock) {
+                isWriting = true;
+
+                try {
+                    getSpoolFileWriter().write(block);
+                } finally {
+                    isWriting = false;
+                }
+            }
+
+            isPending = true;
+        } catch (Exception ex) {
+            logger.error("Error writing to file. eventCount={}", events.size(), ex);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -476,7 +612,7 @@ public void runLogAudit() {
                 }
 
                 if (currentConsumerIndexRecord == null) {
-                    closeFileIfNeeded();
+                    rollOverFileIfNeeded();
 
                     continue;
                 }
@@ -491,40 +627,11 @@ public void runLogAudit() {
 
                     isRemoveIndex = true;
                 } else {
-                    // Let's open the file to write
-                    try (BufferedReader br = new BufferedReader(new FileReader(currentConsumerIndexRecord.getFilePath()))) {
-                        int          startLine = currentConsumerIndexRecord.getLinePosition();
-                        int          currLine  = 0;
-                        List<String> lines     = new ArrayList<>();
-
-                        for (String line = br.readLine(); line != null; line = br.readLine()) {
-                            currLine++;
-
-                            if (currLine < startLine) {
-                                continue;
-                            }
-
-                            lines.add(line);
-
-                            if (lines.size() == queueProvider.getMaxBatchSize()) {
-                                boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
-
-                                if (!ret) {
-                                    throw new Exception("Destination down");
-                                }
-
-                                lines.clear();
-                            }
-                        }
-
-                        if (!lines.isEmpty()) {
-                            boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
-
-                            if (!ret) {
-                                throw new Exception("Destination down");
-                            }
-
-                            lines.clear();
+                    try {
+                        if (AuditSpoolFile.isSpoolFile(consumerFile)) {
+                            sendSpoolFile(consumerFile);
+                        } else {
+                            sendLogFile(consumerFile);
                         }
 
                         logger.info("Done reading file. file={}, queueName={}, consumer={}", currentConsumerIndexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
@@ -547,7 +654,7 @@ public void runLogAudit() {
                         currentConsumerIndexRecord.setFailedAttemptCount(currentConsumerIndexRecord.getFailedAttemptCount() + 1);
                         currentConsumerIndexRecord.setLastAttempt(false);
 
-                        saveIndexFile();
+                        saveIndexRecord(currentConsumerIndexRecord);
                     }
                 }
 
@@ -557,7 +664,7 @@ public void runLogAudit() {
 
                     currentConsumerIndexRecord = null;
 
-                    closeFileIfNeeded();
+                    rollOverFileIfNeeded();
                 }
             } catch (InterruptedException e) {
                 logger.info("Caught exception in consumer thread. Shutdown might be in progress");
@@ -580,15 +687,19 @@ void loadIndexFile() throws IOException {
         logger.info("Loading index file. fileName={}", indexFile.getPath());
 
         try (BufferedReader br = new BufferedReader(new FileReader(indexFile))) {
-            indexRecords.clear();
+            Map<String, AuditIndexRecord> records = new LinkedHashMap<>();
 
             for (String line = br.readLine(); line != null; line = br.readLine()) {
                 if (!line.isEmpty() && !line.startsWith("#")) {
                     AuditIndexRecord record = MiscUtil.fromJson(line, AuditIndexRecord.class);
 
-                    indexRecords.add(record);
+                    // a record appended by saveIndexRecord() replaces the earlier record having the same id
+                    records.put(record.getId(), record);
                 }
             }
+
+            indexRecords.clear();
+            indexRecords.addAll(records.values());
         }
     }
 
@@ -632,6 +743,24 @@ synchronized void saveIndexFile() throws IOException {
                 out.println(MiscUtil.stringify(auditIndexRecord));
             }
         }
+
+        indexAppendCount = 0;
+    }
+
+    /*
+     * in binary format, the updated record is appended to the index file; the index file is rewritten only after
+     * indexMaxAppends records are appended to it
+     */
+    synchronized void saveIndexRecord(AuditIndexRecord indexRecord) throws IOException {
+        if (isBinaryFormat && indexAppendCount < indexMaxAppends) {
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(indexFile, true)))) {
+                out.println(MiscUtil.stringify(indexRecord));
+            }
+
+            indexAppendCount++;
+        } else {
+            saveIndexFile();
+        }
     }
 
     void appendToDoneFile(AuditIndexRecord indexRecord) throws IOException {
@@ -745,33 +874,10 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
         // over
         if (currentWriterIndexRecord == null) {
             // Create a new file
-            Date   currentTime = new Date();
-            String fileName    = MiscUtil.replaceTokens(logFileNameFormat, currentTime.getTime());
-            String newFileName = fileName;
-            File   outLogFile;
-            int    i           = 0;
-
-            while (true) {
-                outLogFile = new File(logFolder, newFileName);
-
-                File archiveLogFile = new File(archiveFolder, newFileName);
-
-                if (!outLogFile.exists() && !archiveLogFile.exists()) {
-                    break;
-                }
-
-                i++;
+            Date currentTime = new Date();
+            File outLogFile  = getNewLogFile(currentTime);
 
-                int    lastDot   = fileName.lastIndexOf('.');
-                String baseName  = fileName.substring(0, lastDot);
-                String extension = fileName.substring(lastDot);
-
-                newFileName = baseName + "." + i + extension;
-            }
-
-            fileName = newFileName;
-
-            logger.info("Creating new file. queueName={}, filename={}", queueProvider.getName(), fileName);
+            logger.info("Creating new file. queueName={}, filename={}", queueProvider.getName(), outLogFile.getName());
 
             // Open the file
             logWriter = new PrintWriter(new BufferedWriter(new FileWriter(outLogFile)));
@@ -788,7 +894,7 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
 
             indexRecords.add(currentWriterIndexRecord);
 
-            saveIndexFile();
+            saveIndexRecord(currentWriterIndexRecord);
         } else {
             if (logWriter == null) {
                 // This means the process just started. We need to open the file
@@ -801,6 +907,33 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
         return logWriter;
     }
 
+    private File getNewLogFile(Date currentTime) {
+        String fileName    = MiscUtil.replaceTokens(logFileNameFormat, currentTime.getTime());
+        String newFileName = fileName;
+        File   outLogFile;
+        int    i           = 0;
+
+        while (true) {
+            outLogFile = new File(logFolder, newFileName);
+
+            File archiveLogFile = new File(archiveFolder, newFileName);
+
+            if (!outLogFile.exists() && !archiveLogFile.exists()) {
+                break;
+            }
+
+            i++;
+
+            int    lastDot   = fileName.lastIndexOf('.');
+            String baseName  = fileName.substring(0, lastDot);
+            String extension = fileName.substring(lastDot);
+
+            newFileName = baseName + "." + i + extension;
+        }
+
+        return outLogFile;
+    }
+
     private synchronized void closeFileIfNeeded() throws IOException {
         // Is there file open to write or there are no pending file, then close the active file
         if (currentWriterIndexRecord != null) {
@@ -826,10 +959,16 @@ private synchronized void closeFileIfNeeded() throws IOException {
                     logWriter = null;
                 }
 
+                if (spoolWriter != null) {
+                    spoolWriter.close();
+
+                    spoolWriter = null;
+                }
+
                 currentWriterIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
                 currentWriterIndexRecord.setWriteCompleteTime(new Date());
 
-                saveIndexFile();
+                saveIndexRecord(currentWriterIndexRecord);
 
                 logger.info("Adding file to queue. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
 
@@ -840,6 +979,154 @@ private synchronized void closeFileIfNeeded() throws IOException {
         }
     }
 
+    /**
+     * Must be called with writerLock held. The spool monitor is acquired only when the current file is due for
+     * rollover, or when there is no open file; the consumer thread closes the file when it is the only one in the index.
+     *
+     * @return writer of the current spool file
+     * @throws Exception
+     */
+    private AuditSpoolFile.Writer getSpoolFileWriter() throws Exception {
+        if (spoolWriter != null && System.currentTimeMillis() > spoolRolloverTimeMs) {
+            closeFileIfNeeded();
+        }
+
+        if (spoolWriter == null) {
+            synchronized (this) {
+                closeFileIfNeeded();
+
+                if (currentWriterIndexRecord == null) {
+                    Date currentTime = new Date();
+                    File outLogFile  = getNewLogFile(currentTime);
+
+                    logger.info("Creating new spool file. queueName={}, filename={}", queueProvider.getName(), outLogFile.getName());
+
+                    spoolWriter = new AuditSpoolFile.Writer(outLogFile);
+
+                    AuditIndexRecord tmpIndexRecord = new AuditIndexRecord();
+
+                    tmpIndexRecord.setId(MiscUtil.generateUniqueId());
+                    tmpIndexRecord.setFilePath(outLogFile.getPath());
+                    tmpIndexRecord.setStatus(SPOOL_FILE_STATUS.write_inprogress);
+                    tmpIndexRecord.setFileCreateTime(currentTime);
+                    tmpIndexRecord.setLastAttempt(true);
+
+                    currentWriterIndexRecord = tmpIndexRecord;
+
+                    indexRecords.add(currentWriterIndexRecord);
+
+                    saveIndexRecord(currentWriterIndexRecord);
+                } else {
+                    // This means the process just started. We need to open the file in append mode.
+                    logger.info("Opening existing spool file for append. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+                    spoolWriter = new AuditSpoolFile.Writer(new File(currentWriterIndexRecord.getFilePath()));
+                }
+
+                spoolRolloverTimeMs = currentWriterIndexRecord.getFileCreateTime().getTime() + fileRolloverSec * 1000L;
+            }
+        }
+
+        return spoolWriter;
+    }
+
+    /*
+     * the spool file is closed under writerLock, so that it isn't closed while a producer writes to it
+     */
+    private void rollOverFileIfNeeded() throws IOException {
+        synchronized (writerLock) {
+            closeFileIfNeeded();
+        }
+    }
+
+    private void sendLogFile(File logFile) throws Exception {
+        try (BufferedReader br = new BufferedReader(new FileReader(logFile))) {
+            int          startLine = currentConsumerIndexRecord.getLinePosition();
+            int          currLine  = 0;
+            List<String> lines     = new ArrayList<>();
+
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                currLine++;
+
+                if (currLine < startLine) {
+                    continue;
+                }
+
+                lines.add(line);
+
+                if (lines.size() == queueProvider.getMaxBatchSize()) {
+                    boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
+
+                    if (!ret) {
+                        throw new Exception("Destination down");
+                    }
+
+                    lines.clear();
+                }
+            }
+
+            if (!lines.isEmpty()) {
+                boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
+
+                if (!ret) {
+                    throw new Exception("Destination down");
+                }
+
+                lines.clear();
+            }
+        }
+    }
+
+    /*
+     * linePosition of the index record is the number of events already sent from the spool file;
+     * blocks having only such events are skipped without being read
+     */
+    private void sendSpoolFile(File spoolFile) throws Exception {
+        try (AuditSpoolFile.Reader reader = new AuditSpoolFile.Reader(spoolFile)) {
+            int          sentCount = currentConsumerIndexRecord.getLinePosition();
+            int          currCount = 0;
+            List<String> lines     = new ArrayList<>();
+
+            for (int blockCount = reader.nextBlock(); blockCount >= 0; blockCount = reader.nextBlock()) {
+                if (currCount + blockCount <= sentCount) {
+                    currCount += blockCount;
+
+                    continue;
+                }
+
+                for (String line : reader.getEvents()) {
+                    currCount++;
+
+                    if (currCount <= sentCount) {
+                        continue;
+                    }
+
+                    lines.add(line);
+
+                    if (lines.size() == queueProvider.getMaxBatchSize()) {
+                        boolean ret = sendEvent(lines, currentConsumerIndexRecord, currCount);
+
+                        if (!ret) {
+                            throw new Exception("Destination down");
+                        }
+
+                        lines.clear();
+                    }
+                }
+            }
+
+            if (!lines.isEmpty()) {
+                boolean ret = sendEvent(lines, currentConsumerIndexRecord, currCount);
+
+                if (!ret) {
+                    throw new Exception("Destination down");
+                }
+
+                lines.clear();
+            }
+        }
+    }
+
     private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int currLine) {
         boolean ret = true;
 
@@ -856,7 +1143,7 @@ private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int
                 indexRecord.setLastSuccessTime(new Date());
                 indexRecord.setLastAttempt(true);
 
-                saveIndexFile();
+                saveIndexRecord(indexRecord);
 
                 if (isDestDown) {
                     isDestDown = false;
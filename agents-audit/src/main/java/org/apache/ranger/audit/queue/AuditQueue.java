@@ -38,6 +38,9 @@ public abstract class AuditQueue extends BaseAuditHandler {
     public static final String PROP_QUEUE                          = "queue";
     public static final String PROP_BATCH_SIZE                     = "batch.size";
     public static final String PROP_QUEUE_SIZE                     = "queue.size";
+    public static final String PROP_QUEUE_TYPE                     = "queue.type";
+    public static final String QUEUE_TYPE_BLOCKING                 = "blocking";
+    public static final String QUEUE_TYPE_RING_BUFFER              = "ringbuffer";
     public static final String PROP_BATCH_INTERVAL                 = "batch.interval.ms";
     public static final String PROP_FILE_SPOOL_ENABLE              = "filespool.enable";
     public static final String PROP_FILE_SPOOL_WAIT_FOR_FULL_DRAIN = "filespool.drain.full.wait.ms";
@@ -57,6 +60,7 @@ public abstract class AuditQueue extends BaseAuditHandler {
     private int     maxQueueSize     = AUDIT_MAX_QUEUE_SIZE_DEFAULT;
     private int     maxBatchInterval = AUDIT_BATCH_INTERVAL_DEFAULT_MS;
     private int     maxBatchSize     = AUDIT_BATCH_SIZE_DEFAULT;
+    private boolean isRingBufferQueue;
     private boolean isDrain;
 
     /**
@@ -84,6 +88,7 @@ public void init(Properties props, String basePropertyName) {
         setMaxBatchSize(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_SIZE, getMaxBatchSize()));
         setMaxQueueSize(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_QUEUE_SIZE, getMaxQueueSize()));
         setMaxBatchInterval(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_INTERVAL, getMaxBatchInterval()));
+        setRingBufferQueue(QUEUE_TYPE_RING_BUFFER.equalsIgnoreCase(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_QUEUE_TYPE, QUEUE_TYPE_BLOCKING)));
 
         fileSpoolerEnabled = MiscUtil.getBooleanProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ENABLE, false);
 
@@ -182,6 +187,17 @@ public void setMaxBatchSize(int maxBatchSize) {
         this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * @return true if events are to be queued in {@link AuditRingBufferQueue}, instead of a queue that uses locks
+     */
+    public boolean isRingBufferQueue() {
+        return isRingBufferQueue;
+    }
+
+    public void setRingBufferQueue(boolean isRingBufferQueue) {
+        this.isRingBufferQueue = isRingBufferQueue;
+    }
+
     /*
      * (non-Javadoc)
      *
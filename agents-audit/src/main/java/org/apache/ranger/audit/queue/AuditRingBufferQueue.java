@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free queue for many producers and a single consumer, backed by a ring of preallocated slots.
+ *
+ * A producer claims the next sequence with a CAS on the tail and publishes the element to the slot of the sequence;
+ * producers don't block each other, nor the consumer. The consumer reads published slots in order of sequence and
+ * frees a batch of slots with a single update of the head. Only one thread must take elements from the queue
+ * (poll/take/drainTo); size/isEmpty/peek can be called from any thread.
+ *
+ * Tracks count of elements dropped because the queue was full, time producers waited for free slots in put(), and the
+ * maximum depth seen by the consumer.
+ */
+public class AuditRingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final int  PRODUCER_SPIN_COUNT     = 100;
+    private static final long PRODUCER_PARK_NANOS     = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long CONSUMER_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final    int                     capacity;
+    private final    int                     mask;
+    private final    AtomicReferenceArray<E> slots;
+    private final    AtomicLong              tail                  = new AtomicLong(); // next sequence to be claimed by a producer
+    private final    AtomicLong              head                  = new AtomicLong(); // next sequence to be read by the consumer
+    private final    AtomicLong              dropCount             = new AtomicLong();
+    private final    AtomicLong              producerWaitCount     = new AtomicLong();
+    private final    AtomicLong              producerWaitTimeNanos = new AtomicLong();
+    private volatile long                    maxDepth;
+    private volatile Thread                  waitingConsumer;
+
+    public AuditRingBufferQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        int slotCount = Integer.highestOneBit(capacity);
+
+        if (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+
+        this.capacity = capacity;
+        this.mask     = slotCount - 1;
+        this.slots    = new AtomicReferenceArray<>(slotCount);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        long    seq = claim(e);
+        boolean ret = seq >= 0;
+
+        if (ret) {
+            publish(seq, e);
+        } else {
+            dropCount.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long seq = claim(e);
+
+        if (seq < 0) {
+            seq = waitToClaim(e, true, System.nanoTime() + unit.toNanos(timeout));
+        }
+
+        boolean ret = seq >= 0;
+
+        if (ret) {
+            publish(seq, e);
+        } else {
+            dropCount.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        long seq = claim(e);
+
+        if (seq < 0) {
+            seq = waitToClaim(e, false, 0);
+        }
+
+        publish(seq, e);
+    }
+
+    @Override
+    public E poll() {
+        long h   = head.get();
+        int  idx = (int) (h & mask);
+        E    ret = slots.get(idx);
+
+        if (ret != null) {
+            slots.lazySet(idx, null);
+            head.lazySet(h + 1);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E ret = poll();
+
+        if (ret == null) {
+            ret = waitToPoll(true, System.nanoTime() + unit.toNanos(timeout));
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E ret = poll();
+
+        if (ret == null) {
+            ret = waitToPoll(false, 0);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E peek() {
+        return slots.get((int) (head.get() & mask));
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        long start = head.get();
+        long h     = start;
+        int  ret   = 0;
+
+        updateMaxDepth(tail.get() - start);
+
+        while (ret < maxElements) {
+            int idx = (int) (h & mask);
+            E   e   = slots.get(idx);
+
+            if (e == null) { // end of queue, or not yet published by the producer that claimed it
+                break;
+            }
+
+            slots.lazySet(idx, null);
+            c.add(e);
+
+            h++;
+            ret++;
+        }
+
+        if (ret > 0) {
+            head.lazySet(h);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int size() {
+        long h    = head.get(); // read before tail, so that the size isn't negative
+        long size = tail.get() - h;
+
+        return (int) Math.min(size, capacity);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * @return weakly consistent iterator over elements published at the time of the call; doesn't support remove()
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> elements = new ArrayList<>();
+        long    h        = head.get();
+        long    t        = tail.get();
+
+        for (long seq = h; seq < t; seq++) {
+            E e = slots.get((int) (seq & mask));
+
+            if (e != null) {
+                elements.add(e);
+            }
+        }
+
+        return Collections.unmodifiableList(elements).iterator();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDropCount() {
+        return dropCount.get();
+    }
+
+    public long getProducerWaitCount() {
+        return producerWaitCount.get();
+    }
+
+    public long getProducerWaitTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(producerWaitTimeNanos.get());
+    }
+
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditRingBufferQueue={capacity=" + capacity + ", size=" + size() + ", maxDepth=" + maxDepth + ", dropCount=" + dropCount + ", producerWaitCount=" + producerWaitCount + ", producerWaitTimeMs=" + getProducerWaitTimeMs() + "}";
+    }
+
+    /*
+     * returns the claimed sequence; -1 if the queue is full
+     */
+    private long claim(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        long ret;
+
+        do {
+            ret = tail.get();
+
+            if (ret - head.get() >= capacity) {
+                ret = -1;
+
+                break;
+            }
+        } while (!tail.compareAndSet(ret, ret + 1));
+
+        return ret;
+    }
+
+    private long waitToClaim(E e, boolean isTimed, long deadlineNanos) throws InterruptedException {
+        long startTime = System.nanoTime();
+        long ret       = -1;
+
+        producerWaitCount.incrementAndGet();
+
+        try {
+            for (int i = 0; ret < 0; i++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+
+                long remaining = isTimed ? deadlineNanos - System.nanoTime() : PRODUCER_PARK_NANOS;
+
+                if (remaining <= 0) {
+                    break;
+                }
+
+                if (i < PRODUCER_SPIN_COUNT) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, Math.min(PRODUCER_PARK_NANOS, remaining));
+                }
+
+                ret = claim(e);
+            }
+        } finally {
+            producerWaitTimeNanos.addAndGet(System.nanoTime() - startTime);
+        }
+
+        return ret;
+    }
+
+    private void publish(long seq, E e) {
+        slots.set((int) (seq & mask), e);
+
+        Thread consumer = waitingConsumer;
+
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private E waitToPoll(boolean isTimed, long deadlineNanos) throws InterruptedException {
+        E ret = null;
+
+        waitingConsumer = Thread.currentThread();
+
+        try {
+            while (ret == null) {
+                ret = poll(); // check after waitingConsumer is set, so that a producer publishing now will unpark this thread
+
+                if (ret == null) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+
+                    long remaining = isTimed ? deadlineNanos - System.nanoTime() : CONSUMER_MAX_PARK_NANOS;
+
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    LockSupport.parkNanos(this, Math.min(remaining, CONSUMER_MAX_PARK_NANOS));
+                }
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+
+        return ret;
+    }
+
+    private void updateMaxDepth(long depth) {
+        if (depth > maxDepth) {
+            maxDepth = depth; // updated only by the consumer
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary format of audit spool files. The file starts with a header, followed by blocks of events; a block holds
+ * the events stashed in one call, as length-prefixed UTF-8 json strings, deflate-compressed when enabled:
+ * <pre>
+ *   header:  magic(int) version(byte)
+ *   block:   storedLength(int) eventCount(int) rawLength(int) payload(storedLength bytes)
+ *   payload: (length(int) json(length bytes))*, deflated when storedLength != rawLength
+ * </pre>
+ * Blocks are read from memory-mapped windows of the file. A block left incomplete by a crash ends the file: readers
+ * ignore it and a writer reopening the file truncates it.
+ */
+final class AuditSpoolFile {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpoolFile.class);
+
+    static final int  MAGIC               = 0x52415346; // "RASF"
+    static final byte VERSION             = 1;
+    static final int  HEADER_LENGTH       = 5;
+    static final int  BLOCK_HEADER_LENGTH = 12;
+    static final int  MAP_WINDOW_SIZE     = 64 * 1024 * 1024;
+
+    private AuditSpoolFile() {
+    }
+
+    /**
+     * @return true if the file is in spool file format; false for empty files and for files in json-lines format
+     */
+    static boolean isSpoolFile(File file) {
+        boolean ret = false;
+
+        if (file.length() >= HEADER_LENGTH) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                ret = in.readInt() == MAGIC;
+            } catch (IOException excp) {
+                logger.warn("isSpoolFile(file={}): failed to read header", file, excp);
+            }
+        }
+
+        return ret;
+    }
+
+    static ByteBuffer encodeBlock(Collection<String> events, boolean compress) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream      out   = new DataOutputStream(bytes);
+
+        for (String event : events) {
+            byte[] eventBytes = event.getBytes(StandardCharsets.UTF_8);
+
+            out.writeInt(eventBytes.length);
+            out.write(eventBytes);
+        }
+
+        out.flush();
+
+        byte[] payload      = bytes.toByteArray();
+        int    rawLength    = payload.length;
+        int    storedLength = rawLength;
+
+        if (compress && rawLength > 0) {
+            Deflater deflater   = new Deflater(Deflater.BEST_SPEED);
+            byte[]   compressed = new byte[rawLength];
+            int      length     = 0;
+
+            try {
+                deflater.setInput(payload);
+                deflater.finish();
+
+                while (!deflater.finished() && length < compressed.length) {
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+
+                // keep the events uncompressed when compression doesn't reduce the size
+                if (deflater.finished() && length < rawLength) {
+                    payload      = compressed;
+                    storedLength = length;
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        ByteBuffer ret = ByteBuffer.allocate(BLOCK_HEADER_LENGTH + storedLength);
+
+        ret.putInt(storedLength);
+        ret.putInt(events.size());
+        ret.putInt(rawLength);
+        ret.put(payload, 0, storedLength);
+        ret.flip();
+
+        return ret;
+    }
+
+    /**
+     * @return length of the header and the complete blocks in the file
+     */
+    static long getValidLength(File file) throws IOException {
+        try (Reader reader = new Reader(file)) {
+            while (reader.nextBlock() >= 0) {
+                // skip to the end of complete blocks
+            }
+
+            return reader.position;
+        }
+    }
+
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+
+        /**
+         * Opens the file to append blocks; a new file is created with the header.
+         */
+        Writer(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+            try {
+                long size = channel.size();
+
+                if (size == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+
+                    header.putInt(MAGIC);
+                    header.put(VERSION);
+                    header.flip();
+
+                    write(header);
+                } else {
+                    long validLength = getValidLength(file);
+
+                    if (validLength < size) {
+                        logger.warn("Truncating incomplete block at the end of spool file. file={}, size={}, validLength={}", file, size, validLength);
+
+                        channel.truncate(validLength);
+                    }
+
+                    channel.position(validLength);
+                }
+            } catch (IOException excp) {
+                channel.close();
+
+                throw excp;
+            }
+        }
+
+        void write(ByteBuffer block) throws IOException {
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final File        file;
+        private final FileChannel channel;
+        private final long        size;
+        private MappedByteBuffer  window;
+        private long              windowStart;
+        private long              position = HEADER_LENGTH; // of the next block
+        private long              payloadPosition;
+        private int               storedLength;
+        private int               rawLength;
+        private int               eventCount;
+
+        Reader(File file) throws IOException {
+            this.file    = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.size    = channel.size();
+
+            try {
+                ByteBuffer header = size >= HEADER_LENGTH ? map(0, HEADER_LENGTH) : null;
+
+                if (header == null || header.getInt() != MAGIC) {
+                    throw new IOException(file + ": not an audit spool file");
+                } else if (header.get() != VERSION) {
+                    throw new IOException(file + ": unsupported audit spool file version");
+                }
+            } catch (IOException excp) {
+                channel.close();
+
+                throw excp;
+            }
+        }
+
+        /**
+         * Moves to the next block; events in the block are read only if getEvents() is called.
+         *
+         * @return number of events in the block; -1 at the end of file, or at a block left incomplete by a crash
+         */
+        int nextBlock() throws IOException {
+            int ret = -1;
+
+            if (position + BLOCK_HEADER_LENGTH <= size) {
+                ByteBuffer blockHeader = map(position, BLOCK_HEADER_LENGTH);
+                int        stored      = blockHeader.getInt();
+                int        count       = blockHeader.getInt();
+                int        raw         = blockHeader.getInt();
+
+                if (stored >= 0 && raw >= stored && count >= 0 && position + BLOCK_HEADER_LENGTH + stored <= size) {
+                    payloadPosition = position + BLOCK_HEADER_LENGTH;
+                    storedLength    = stored;
+                    rawLength       = raw;
+                    eventCount      = count;
+                    position        = payloadPosition + stored;
+                    ret             = count;
+                } else {
+                    logger.warn("Ignoring incomplete block at the end of spool file. file={}, position={}, size={}", file, position, size);
+                }
+            }
+
+            return ret;
+        }
+
+        List<String> getEvents() throws IOException {
+            ByteBuffer   payload = map(payloadPosition, storedLength);
+            List<String> ret     = new ArrayList<>(eventCount);
+
+            if (storedLength != rawLength) {
+                payload = ByteBuffer.wrap(inflate(payload));
+            }
+
+            for (int i = 0; i < eventCount; i++) {
+                byte[] eventBytes = new byte[payload.getInt()];
+
+                payload.get(eventBytes);
+
+                ret.add(new String(eventBytes, StandardCharsets.UTF_8));
+            }
+
+            return ret;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+
+            channel.close();
+        }
+
+        private byte[] inflate(ByteBuffer payload) throws IOException {
+            byte[]   compressed = new byte[storedLength];
+            byte[]   ret        = new byte[rawLength];
+            Inflater inflater   = new Inflater();
+
+            payload.get(compressed);
+
+            try {
+                inflater.setInput(compressed);
+
+                for (int length = 0; !inflater.finished(); ) {
+                    int count = inflater.inflate(ret, length, ret.length - length);
+
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary() || length == ret.length)) {
+                        throw new IOException(file + ": corrupt block at position " + payloadPosition);
+                    }
+
+                    length += count;
+                }
+            } catch (DataFormatException excp) {
+                throw new IOException(file + ": corrupt block at position " + payloadPosition, excp);
+            } finally {
+                inflater.end();
+            }
+
+            return ret;
+        }
+
+        // maps a window of the file that includes the given range, unless the current window includes it
+        private ByteBuffer map(long start, int length) throws IOException {
+            if (window == null || start < windowStart || start + length > windowStart + window.capacity()) {
+                window      = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Math.max((long) MAP_WINDOW_SIZE, length)));
+                windowStart = start;
+            }
+
+            ByteBuffer ret = window.duplicate();
+
+            ret.position((int) (start - windowStart));
+            ret.limit((int) (start - windowStart) + length);
+
+            return ret.slice();
+        }
+    }
+}
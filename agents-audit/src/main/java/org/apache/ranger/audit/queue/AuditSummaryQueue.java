@@ -20,6 +20,7 @@
 package org.apache.ranger.audit.queue;
 
 import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.slf4j.Logger;
@@ -198,20 +199,28 @@ public void runLogAudit() {
                 // Add to hash map
                 String       key          = event.getEventKey();
                 AuditSummary auditSummary = summaryMap.get(key);
+                long         eventCount   = getEventCount(event);
+                Date         endTime      = getEventEndTime(event);
 
                 if (auditSummary == null) {
                     auditSummary = new AuditSummary();
 
                     auditSummary.event     = event;
                     auditSummary.startTime = event.getEventTime();
-                    auditSummary.endTime   = event.getEventTime();
-                    auditSummary.count     = 1;
+                    auditSummary.endTime   = endTime;
+                    auditSummary.count     = eventCount;
 
                     summaryMap.put(key, auditSummary);
                 } else {
-                    auditSummary.endTime = event.getEventTime();
+                    if (event.getEventTime().before(auditSummary.startTime)) {
+                        auditSummary.startTime = event.getEventTime();
+                    }
+
+                    if (endTime.after(auditSummary.endTime)) {
+                        auditSummary.endTime = endTime;
+                    }
 
-                    auditSummary.count++;
+                    auditSummary.count += eventCount;
                 }
             }
 
@@ -265,10 +274,27 @@ public void runLogAudit() {
         logger.info("Exiting consumerThread.run() method. name={}", getName());
     }
 
+    /*
+     * events from an upstream AuditAggregationQueue already stand for eventCount accesses, over eventDurationMS
+     */
+    private static long getEventCount(AuditEventBase event) {
+        return event instanceof AuthzAuditEvent ? Math.max(1, ((AuthzAuditEvent) event).getEventCount()) : 1;
+    }
+
+    private static Date getEventEndTime(AuditEventBase event) {
+        Date ret = event.getEventTime();
+
+        if (event instanceof AuthzAuditEvent && ((AuthzAuditEvent) event).getEventDurationMS() > 0) {
+            ret = new Date(ret.getTime() + ((AuthzAuditEvent) event).getEventDurationMS());
+        }
+
+        return ret;
+    }
+
     static class AuditSummary {
         Date           startTime;
         Date           endTime;
-        int            count;
+        long           count;
         AuditEventBase event;
     }
 }
@@ -30,6 +30,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.orc.CompressionKind;
+import org.apache.orc.OrcConf;
 import org.apache.orc.OrcFile;
 import org.apache.orc.OrcFile.WriterOptions;
 import org.apache.orc.TypeDescription;
@@ -42,15 +43,25 @@
 import java.lang.reflect.Field;
 import java.text.Format;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 public class ORCFileUtil {
     private static final Logger logger = LoggerFactory.getLogger(ORCFileUtil.class);
 
+    // accessors of AuthzAuditEvent fields in the audit schema, to avoid reflection for every value written; shared with ParquetFileUtil
+    static final Map<String, ToLongFunction<AuthzAuditEvent>> LONG_FIELD_ACCESSORS   = getLongFieldAccessors();
+    static final Map<String, Function<AuthzAuditEvent, ?>>    STRING_FIELD_ACCESSORS = getStringFieldAccessors();
+
     private static volatile ORCFileUtil me;
 
     protected CompressionKind    defaultCompression = CompressionKind.SNAPPY;
@@ -64,6 +75,11 @@ public class ORCFileUtil {
     protected Map<String, ColumnVector> vectorizedRowBatchMap = new HashMap<>();
     protected int                       orcBufferSize;
     protected long                      orcStripeSize;
+    protected int                       orcRowIndexStride;                // 0: ORC default
+    protected double                    orcDictionaryKeyThreshold = -1;   // negative: ORC default
+    protected String                    orcDirectEncodingColumns;         // columns not to be dictionary encoded
+    protected List<ColumnWriter>        columnWriters             = new ArrayList<>();
+    protected DateTimeFormatter         dateFormatter;
 
     public static ORCFileUtil getInstance() {
         ORCFileUtil orcFileUtil = me;
@@ -126,20 +142,42 @@ protected static Collection<AuthzAuditEvent> getTestEvent() {
     }
 
     public void init(int orcBufferSize, long orcStripeSize, String compression) throws Exception {
+        init(orcBufferSize, orcStripeSize, compression, 0, -1, null);
+    }
+
+    /**
+     * @param orcRowIndexStride rows between entries in the row index; 0 for ORC default
+     * @param orcDictionaryKeyThreshold ratio of distinct to total values in a string column above which dictionary
+     *                                  encoding is not used; negative for ORC default. Low cardinality columns, like
+     *                                  accessType and action, are dictionary encoded below this threshold
+     * @param orcDirectEncodingColumns comma separated columns, like eventId and resourcePath, to be encoded without
+     *                                 dictionary; saves building a dictionary that would be dropped for high
+     *                                 cardinality columns
+     */
+    public void init(int orcBufferSize, long orcStripeSize, String compression, int orcRowIndexStride, double orcDictionaryKeyThreshold, String orcDirectEncodingColumns) throws Exception {
         logger.debug("==> ORCFileUtil.init()");
 
-        this.orcBufferSize   = orcBufferSize;
-        this.orcStripeSize   = orcStripeSize;
-        this.compressionKind = getORCCompression(compression);
+        this.orcBufferSize             = orcBufferSize;
+        this.orcStripeSize             = orcStripeSize;
+        this.compressionKind           = getORCCompression(compression);
+        this.orcRowIndexStride         = orcRowIndexStride;
+        this.orcDictionaryKeyThreshold = orcDictionaryKeyThreshold;
+        this.orcDirectEncodingColumns  = orcDirectEncodingColumns;
 
         initORCAuditSchema();
 
-        logger.debug("<== ORCFileUtil.init() : orcBufferSize: {} stripeSize: {} compression: {}", orcBufferSize, orcStripeSize, compression);
+        logger.debug("<== ORCFileUtil.init() : orcBufferSize: {} stripeSize: {} compression: {} rowIndexStride: {} dictionaryKeyThreshold: {} directEncodingColumns: {}", orcBufferSize, orcStripeSize, compression, orcRowIndexStride, orcDictionaryKeyThreshold, orcDirectEncodingColumns);
     }
 
     public Writer createWriter(Configuration conf, FileSystem fs, String path) throws Exception {
         logger.debug("==> ORCFileUtil.createWriter()");
 
+        if (orcDictionaryKeyThreshold >= 0) {
+            conf = new Configuration(conf);
+
+            OrcConf.DICTIONARY_KEY_SIZE_THRESHOLD.setDouble(conf, orcDictionaryKeyThreshold);
+        }
+
         WriterOptions writeOptions = OrcFile.writerOptions(conf)
                 .fileSystem(fs)
                 .setSchema(schema)
@@ -147,6 +185,14 @@ public Writer createWriter(Configuration conf, FileSystem fs, String path) throw
                 .stripeSize(orcStripeSize)
                 .compress(compressionKind);
 
+        if (orcRowIndexStride > 0) {
+            writeOptions.rowIndexStride(orcRowIndexStride);
+        }
+
+        if (orcDirectEncodingColumns != null && !orcDirectEncodingColumns.trim().isEmpty()) {
+            writeOptions.directEncodingColumns(orcDirectEncodingColumns.trim());
+        }
+
         Writer ret = OrcFile.createWriter(new Path(path), writeOptions);
 
         logger.debug("<== ORCFileUtil.createWriter()");
@@ -171,15 +217,8 @@ public void log(Writer writer, Collection<AuthzAuditEvent> events) throws Except
             for (AuthzAuditEvent event : events) {
                 int row = batch.size++;
 
-                for (String fieldName : schemaFields) {
-                    SchemaInfo   schemaInfo   = getFieldValue(event, fieldName);
-                    ColumnVector columnVector = vectorizedRowBatchMap.get(fieldName);
-
-                    if (columnVector instanceof LongColumnVector) {
-                        ((LongColumnVector) columnVector).vector[row] = castLongObject(schemaInfo.getValue());
-                    } else if (columnVector instanceof BytesColumnVector) {
-                        ((BytesColumnVector) columnVector).setVal(row, getBytesValues(castStringObject(schemaInfo.getValue())));
-                    }
+                for (ColumnWriter columnWriter : columnWriters) {
+                    columnWriter.write(event, row);
                 }
 
                 if (batch.size == orcBufferSize) {
@@ -216,9 +255,17 @@ protected byte[] getBytesValues(String val) {
     }
 
     protected String getDateString(Date date) {
-        Format formatter = new SimpleDateFormat(dateFormat);
+        final String ret;
 
-        return formatter.format(date);
+        if (dateFormatter != null) {
+            ret = dateFormatter.format(date.toInstant());
+        } else {
+            Format formatter = new SimpleDateFormat(dateFormat);
+
+            ret = formatter.format(date);
+        }
+
+        return ret;
     }
 
     protected void initORCAuditSchema() throws Exception {
@@ -228,8 +275,9 @@ protected void initORCAuditSchema() throws Exception {
 
         Map<String, String> schemaFieldTypeMap = getSchemaFieldTypeMap();
 
-        schema = TypeDescription.fromString(auditSchema);
-        batch  = schema.createRowBatch(orcBufferSize);
+        schema        = TypeDescription.fromString(auditSchema);
+        batch         = schema.createRowBatch(orcBufferSize);
+        dateFormatter = DateTimeFormatter.ofPattern(dateFormat).withZone(ZoneId.systemDefault());
 
         buildVectorRowBatch(schemaFieldTypeMap);
 
@@ -258,6 +306,8 @@ protected Map<String, String> getSchemaFieldTypeMap() {
     }
 
     protected void buildVectorRowBatch(Map<String, String> schemaFieldTypeMap) throws Exception {
+        columnWriters = new ArrayList<>();
+
         for (int i = 0; i < schemaFields.size(); i++) {
             String       fld          = schemaFields.get(i);
             String       fieldType    = schemaFieldTypeMap.get(fld);
@@ -265,8 +315,12 @@ protected void buildVectorRowBatch(Map<String, String> schemaFieldTypeMap) throw
 
             if (columnVector instanceof LongColumnVector) {
                 vectorizedRowBatchMap.put(fld, batch.cols[i]);
+
+                columnWriters.add(new LongColumnWriter(fld, (LongColumnVector) batch.cols[i]));
             } else if (columnVector instanceof BytesColumnVector) {
                 vectorizedRowBatchMap.put(fld, batch.cols[i]);
+
+                columnWriters.add(new BytesColumnWriter(fld, (BytesColumnVector) batch.cols[i]));
             } else if (columnVector instanceof DecimalColumnVector) {
                 vectorizedRowBatchMap.put(fld, batch.cols[i]);
             }
@@ -456,6 +510,96 @@ protected CompressionKind getORCCompression(String compression) {
         return ret;
     }
 
+    private static Map<String, ToLongFunction<AuthzAuditEvent>> getLongFieldAccessors() {
+        Map<String, ToLongFunction<AuthzAuditEvent>> ret = new HashMap<>();
+
+        ret.put("repositoryType", AuthzAuditEvent::getRepositoryType);
+        ret.put("policyId", AuthzAuditEvent::getPolicyId);
+        ret.put("seqNum", AuthzAuditEvent::getSeqNum);
+        ret.put("eventCount", AuthzAuditEvent::getEventCount);
+        ret.put("eventDurationMS", AuthzAuditEvent::getEventDurationMS);
+
+        return Collections.unmodifiableMap(ret);
+    }
+
+    private static Map<String, Function<AuthzAuditEvent, ?>> getStringFieldAccessors() {
+        Map<String, Function<AuthzAuditEvent, ?>> ret = new HashMap<>();
+
+        ret.put("repositoryName", AuthzAuditEvent::getRepositoryName);
+        ret.put("user", AuthzAuditEvent::getUser);
+        ret.put("eventTime", AuthzAuditEvent::getEventTime);
+        ret.put("accessType", AuthzAuditEvent::getAccessType);
+        ret.put("resourcePath", AuthzAuditEvent::getResourcePath);
+        ret.put("resourceType", AuthzAuditEvent::getResourceType);
+        ret.put("action", AuthzAuditEvent::getAction);
+        ret.put("accessResult", event -> Short.toString(event.getAccessResult()));
+        ret.put("agentId", AuthzAuditEvent::getAgentId);
+        ret.put("resultReason", AuthzAuditEvent::getResultReason);
+        ret.put("aclEnforcer", AuthzAuditEvent::getAclEnforcer);
+        ret.put("sessionId", AuthzAuditEvent::getSessionId);
+        ret.put("clientType", AuthzAuditEvent::getClientType);
+        ret.put("clientIP", AuthzAuditEvent::getClientIP);
+        ret.put("requestData", AuthzAuditEvent::getRequestData);
+        ret.put("agentHostname", AuthzAuditEvent::getAgentHostname);
+        ret.put("logType", AuthzAuditEvent::getLogType);
+        ret.put("eventId", AuthzAuditEvent::getEventId);
+        ret.put("additionalInfo", AuthzAuditEvent::getAdditionalInfo);
+        ret.put("clusterName", AuthzAuditEvent::getClusterName);
+        ret.put("zoneName", AuthzAuditEvent::getZoneName);
+
+        return Collections.unmodifiableMap(ret);
+    }
+
+    /*
+     * writes a field of events to a column of the batch; fields without an accessor, in a schema overridden by a
+     * subclass, are read using reflection
+     */
+    protected abstract class ColumnWriter {
+        protected final String fieldName;
+
+        ColumnWriter(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        abstract void write(AuthzAuditEvent event, int row);
+    }
+
+    protected class LongColumnWriter extends ColumnWriter {
+        private final LongColumnVector               column;
+        private final ToLongFunction<AuthzAuditEvent> accessor;
+
+        LongColumnWriter(String fieldName, LongColumnVector column) {
+            super(fieldName);
+
+            this.column   = column;
+            this.accessor = LONG_FIELD_ACCESSORS.get(fieldName);
+        }
+
+        @Override
+        void write(AuthzAuditEvent event, int row) {
+            column.vector[row] = accessor != null ? accessor.applyAsLong(event) : castLongObject(getFieldValue(event, fieldName).getValue());
+        }
+    }
+
+    protected class BytesColumnWriter extends ColumnWriter {
+        private final BytesColumnVector            column;
+        private final Function<AuthzAuditEvent, ?> accessor;
+
+        BytesColumnWriter(String fieldName, BytesColumnVector column) {
+            super(fieldName);
+
+            this.column   = column;
+            this.accessor = STRING_FIELD_ACCESSORS.get(fieldName);
+        }
+
+        @Override
+        void write(AuthzAuditEvent event, int row) {
+            Object value = accessor != null ? accessor.apply(event) : getFieldValue(event, fieldName).getValue();
+
+            column.setVal(row, getBytesValues(castStringObject(value)));
+        }
+    }
+
     static class SchemaInfo {
         String field;
         String type;
@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes AuthzAuditEvent to Parquet files, with the same columns as the ORC audit files: int and long fields are
+ * written as INT32 and INT64 columns, other fields as UTF8 strings; dates are formatted as in ORC files.
+ */
+public class ParquetFileUtil {
+    private static final Logger logger = LoggerFactory.getLogger(ParquetFileUtil.class);
+
+    public static final String AUDIT_SCHEMA_NAME = "ranger_audit_event";
+
+    private static volatile ParquetFileUtil me;
+
+    protected CompressionCodecName defaultCompression = CompressionCodecName.GZIP;
+    protected CompressionCodecName compressionCodec   = CompressionCodecName.UNCOMPRESSED;
+    protected String               dateFormat         = "yyyy-MM-dd HH:mm:ss";
+
+    protected MessageType        schema;
+    protected List<ColumnWriter> columnWriters = new ArrayList<>();
+    protected DateTimeFormatter  dateFormatter;
+    protected long               parquetRowGroupSize;            // 0: Parquet default
+    protected int                parquetPageSize;                // 0: Parquet default
+    protected boolean            parquetDictionaryEncoding;
+    protected String             parquetDirectEncodingColumns;   // columns not to be dictionary encoded
+
+    public static ParquetFileUtil getInstance() {
+        ParquetFileUtil parquetFileUtil = me;
+
+        if (parquetFileUtil == null) {
+            synchronized (ParquetFileUtil.class) {
+                parquetFileUtil = me;
+
+                if (parquetFileUtil == null) {
+                    parquetFileUtil = new ParquetFileUtil();
+                    me              = parquetFileUtil;
+                }
+            }
+        }
+
+        return parquetFileUtil;
+    }
+
+    /**
+     * @param parquetRowGroupSize size in bytes of a row group, buffered in memory before being written; 0 for Parquet default
+     * @param parquetPageSize size in bytes of a page in a column chunk; 0 for Parquet default
+     * @param compression one of none, snappy, gzip, zstd, lz4_raw; null for gzip, which needs no native library
+     * @param parquetDictionaryEncoding false to write all columns without dictionary
+     * @param parquetDirectEncodingColumns comma separated columns, like eventId and resourcePath, to be encoded without
+     *                                     dictionary; low cardinality columns, like accessType and action, benefit
+     *                                     from the dictionary
+     */
+    public void init(long parquetRowGroupSize, int parquetPageSize, String compression, boolean parquetDictionaryEncoding, String parquetDirectEncodingColumns) {
+        logger.debug("==> ParquetFileUtil.init()");
+
+        this.parquetRowGroupSize          = parquetRowGroupSize;
+        this.parquetPageSize              = parquetPageSize;
+        this.compressionCodec             = getParquetCompression(compression);
+        this.parquetDictionaryEncoding    = parquetDictionaryEncoding;
+        this.parquetDirectEncodingColumns = parquetDirectEncodingColumns;
+
+        initParquetAuditSchema();
+
+        logger.debug("<== ParquetFileUtil.init() : rowGroupSize: {} pageSize: {} compression: {} dictionaryEncoding: {} directEncodingColumns: {}", parquetRowGroupSize, parquetPageSize, compressionCodec, parquetDictionaryEncoding, parquetDirectEncodingColumns);
+    }
+
+    public ParquetWriter<AuthzAuditEvent> createWriter(Configuration conf, FileSystem fs, String path) throws Exception {
+        logger.debug("==> ParquetFileUtil.createWriter()");
+
+        Path               filePath = fs != null ? fs.makeQualified(new Path(path)) : new Path(path);
+        AuditWriterBuilder builder  = new AuditWriterBuilder(HadoopOutputFile.fromPath(filePath, conf));
+
+        builder.withConf(conf)
+                .withWriteMode(ParquetFileWriter.Mode.CREATE)
+                .withCompressionCodec(compressionCodec)
+                .withDictionaryEncoding(parquetDictionaryEncoding);
+
+        if (parquetRowGroupSize > 0) {
+            builder.withRowGroupSize(parquetRowGroupSize);
+        }
+
+        if (parquetPageSize > 0) {
+            builder.withPageSize(parquetPageSize);
+        }
+
+        if (parquetDictionaryEncoding && parquetDirectEncodingColumns != null) {
+            for (String column : parquetDirectEncodingColumns.split(",")) {
+                if (!column.trim().isEmpty()) {
+                    builder.withDictionaryEncoding(column.trim(), false);
+                }
+            }
+        }
+
+        ParquetWriter<AuthzAuditEvent> ret = builder.build();
+
+        logger.debug("<== ParquetFileUtil.createWriter()");
+
+        return ret;
+    }
+
+    public void close(ParquetWriter<AuthzAuditEvent> writer) throws Exception {
+        logger.debug("==> ParquetFileUtil.close()");
+
+        writer.close();
+
+        logger.debug("<== ParquetFileUtil.close()");
+    }
+
+    public void log(ParquetWriter<AuthzAuditEvent> writer, Collection<AuthzAuditEvent> events) throws Exception {
+        int eventBatchSize = events.size();
+
+        logger.debug("==> ParquetFileUtil.log() : EventSize: {}", eventBatchSize);
+
+        try {
+            for (AuthzAuditEvent event : events) {
+                writer.write(event);
+            }
+        } catch (Exception e) {
+            logger.error("Error while writing into Parquet File:", e);
+
+            throw e;
+        }
+
+        logger.debug("<== ParquetFileUtil.log(): EventSize = {}", eventBatchSize);
+    }
+
+    public MessageType getSchema() {
+        return schema;
+    }
+
+    protected void initParquetAuditSchema() {
+        logger.debug("==> ParquetFileUtil.initParquetAuditSchema()");
+
+        Types.MessageTypeBuilder schemaBuilder = Types.buildMessage();
+        List<ColumnWriter>       writers       = new ArrayList<>();
+
+        for (Field fld : AuthzAuditEvent.class.getDeclaredFields()) {
+            if (!fld.isAnnotationPresent(JsonProperty.class)) {
+                continue;
+            }
+
+            String fieldName = fld.getName();
+            int    index     = writers.size();
+
+            switch (fld.getType().getName()) {
+                case "int":
+                    schemaBuilder.required(PrimitiveTypeName.INT32).named(fieldName);
+
+                    writers.add(new IntColumnWriter(fieldName, index));
+                    break;
+                case "long":
+                    schemaBuilder.required(PrimitiveTypeName.INT64).named(fieldName);
+
+                    writers.add(new LongColumnWriter(fieldName, index));
+                    break;
+                case "java.lang.String":
+                case "short":
+                case "java.util.Date":
+                    schemaBuilder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(fieldName);
+
+                    writers.add(new StringColumnWriter(fieldName, index));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        schema        = schemaBuilder.named(AUDIT_SCHEMA_NAME);
+        columnWriters = Collections.unmodifiableList(writers);
+        dateFormatter = DateTimeFormatter.ofPattern(dateFormat).withZone(ZoneId.systemDefault());
+
+        logger.debug("<== ParquetFileUtil.initParquetAuditSchema() AuditSchema: {}", schema);
+    }
+
+    protected CompressionCodecName getParquetCompression(String compression) {
+        final CompressionCodecName ret;
+
+        if (compression == null) {
+            compression = defaultCompression.name().toLowerCase();
+        }
+
+        switch (compression) {
+            case "snappy":
+                ret = CompressionCodecName.SNAPPY;
+                break;
+            case "gzip":
+                ret = CompressionCodecName.GZIP;
+                break;
+            case "zstd":
+                ret = CompressionCodecName.ZSTD;
+                break;
+            case "lz4_raw":
+                ret = CompressionCodecName.LZ4_RAW;
+                break;
+            case "none":
+                ret = CompressionCodecName.UNCOMPRESSED;
+                break;
+            default:
+                ret = defaultCompression;
+                break;
+        }
+
+        return ret;
+    }
+
+    protected Object getFieldValue(AuthzAuditEvent event, String fieldName) {
+        Object ret = null;
+
+        try {
+            Field fld = AuthzAuditEvent.class.getDeclaredField(fieldName);
+
+            fld.setAccessible(true);
+
+            ret = fld.get(event);
+        } catch (Exception e) {
+            logger.error("Error while writing into Parquet File:", e);
+        }
+
+        return ret;
+    }
+
+    protected String castStringObject(Object object) {
+        final String ret;
+
+        if (object instanceof Date) {
+            ret = dateFormatter.format(((Date) object).toInstant());
+        } else if (object != null) {
+            ret = object.toString();
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /*
+     * writes a field of an event to its column; accessors shared with ORCFileUtil avoid reflection for every value
+     * written, fields without an accessor are read using reflection
+     */
+    protected abstract class ColumnWriter {
+        protected final String fieldName;
+        protected final int    index;
+
+        ColumnWriter(String fieldName, int index) {
+            this.fieldName = fieldName;
+            this.index     = index;
+        }
+
+        abstract void write(AuthzAuditEvent event, RecordConsumer consumer);
+    }
+
+    protected class IntColumnWriter extends ColumnWriter {
+        private final ToLongFunction<AuthzAuditEvent> accessor;
+
+        IntColumnWriter(String fieldName, int index) {
+            super(fieldName, index);
+
+            this.accessor = ORCFileUtil.LONG_FIELD_ACCESSORS.get(fieldName);
+        }
+
+        @Override
+        void write(AuthzAuditEvent event, RecordConsumer consumer) {
+            int value = accessor != null ? (int) accessor.applyAsLong(event) : ((Number) getFieldValue(event, fieldName)).intValue();
+
+            consumer.startField(fieldName, index);
+            consumer.addInteger(value);
+            consumer.endField(fieldName, index);
+        }
+    }
+
+    protected class LongColumnWriter extends ColumnWriter {
+        private final ToLongFunction<AuthzAuditEvent> accessor;
+
+        LongColumnWriter(String fieldName, int index) {
+            super(fieldName, index);
+
+            this.accessor = ORCFileUtil.LONG_FIELD_ACCESSORS.get(fieldName);
+        }
+
+        @Override
+        void write(AuthzAuditEvent event, RecordConsumer consumer) {
+            long value = accessor != null ? accessor.applyAsLong(event) : ((Number) getFieldValue(event, fieldName)).longValue();
+
+            consumer.startField(fieldName, index);
+            consumer.addLong(value);
+            consumer.endField(fieldName, index);
+        }
+    }
+
+    protected class StringColumnWriter extends ColumnWriter {
+        private final Function<AuthzAuditEvent, ?> accessor;
+
+        StringColumnWriter(String fieldName, int index) {
+            super(fieldName, index);
+
+            this.accessor = ORCFileUtil.STRING_FIELD_ACCESSORS.get(fieldName);
+        }
+
+        @Override
+        void write(AuthzAuditEvent event, RecordConsumer consumer) {
+            String value = castStringObject(accessor != null ? accessor.apply(event) : getFieldValue(event, fieldName));
+
+            if (value != null) { // null values are left out of optional columns
+                consumer.startField(fieldName, index);
+                consumer.addBinary(Binary.fromString(value));
+                consumer.endField(fieldName, index);
+            }
+        }
+    }
+
+    protected class AuditWriteSupport extends WriteSupport<AuthzAuditEvent> {
+        private RecordConsumer consumer;
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, Collections.emptyMap());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(AuthzAuditEvent event) {
+            consumer.startMessage();
+
+            for (ColumnWriter columnWriter : columnWriters) {
+                columnWriter.write(event, consumer);
+            }
+
+            consumer.endMessage();
+        }
+    }
+
+    protected class AuditWriterBuilder extends ParquetWriter.Builder<AuthzAuditEvent, AuditWriterBuilder> {
+        AuditWriterBuilder(HadoopOutputFile outputFile) {
+            super(outputFile);
+        }
+
+        @Override
+        protected AuditWriterBuilder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<AuthzAuditEvent> getWriteSupport(Configuration conf) {
+            return new AuditWriteSupport();
+        }
+    }
+}
@@ -29,6 +29,7 @@
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -50,6 +51,13 @@ public class RangerORCAuditWriter extends AbstractRangerAuditWriter {
     protected int    defaultbufferSize  = 100000;
     protected long   orcStripeSize;
     protected long   defaultStripeSize  = 100000L;
+    protected int    orcRowIndexStride;
+    protected double orcDictionaryKeyThreshold;
+    protected String orcDirectEncodingColumns;
+    protected long   orcMaxRowsPerFile;            // 0: a file per batch
+
+    // events of batches acknowledged to the caller, but not yet in a closed ORC file
+    protected final List<AuthzAuditEvent> orcEventsNotClosed = new ArrayList<>();
 
     @Override
     public void init(Properties props, String propPrefix, String auditProviderName, Map<String, String> auditConfigs) {
@@ -64,13 +72,22 @@ public void init(Properties props, String propPrefix, String auditProviderName,
 
     @Override
     public void flush() {
-        //For HDFSAuditDestionation with ORC format each file is flushed immediately after writing the ORC batch.
-        //So nothing to flush.
+        //For HDFSAuditDestionation with ORC format each file is flushed immediately after writing the ORC batch,
+        //or when it reaches orc.max.rows.per.file. So nothing to flush.
     }
 
+    /*
+     * Writes the events to the current ORC file. The file is closed after every batch, unless orc.max.rows.per.file
+     * is set: then batches are written to the same file, in fewer and larger stripes, until the file has the max rows
+     * or is due for rollover. Events in an open ORC file are not readable until the file is closed.
+     *
+     * With orc.max.rows.per.file, a batch is acknowledged once written to the open file. Its events are kept until the
+     * file is closed: if a later batch fails, the file is closed best-effort; if that fails too, the kept events are
+     * written again to the next file. Events in the open file are lost if the process exits without stop() - i.e. up to
+     * orc.max.rows.per.file events, written since the file was opened or the last rollover.
+     */
     public synchronized boolean logAuditAsORC(final Collection<AuthzAuditEvent> events) throws Exception {
-        boolean ret = false;
-        Writer  out = null;
+        Writer out;
 
         try {
             if (logger.isDebugEnabled()) {
@@ -78,38 +95,55 @@ public synchronized boolean logAuditAsORC(final Collection<AuthzAuditEvent> even
             }
 
             out = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<Writer>) () -> {
-                Writer out1 = getORCFileWrite();
+                boolean isNewFile = orcLogWriter == null;
+                Writer  out1      = getORCFileWrite();
+
+                if (isNewFile && !orcEventsNotClosed.isEmpty()) {
+                    logger.info("Writing {} events of batches from the failed ORC file to {}", orcEventsNotClosed.size(), currentFileName);
+
+                    orcFileUtil.log(out1, orcEventsNotClosed);
+                }
 
                 orcFileUtil.log(out1, events);
 
                 return out1;
             });
         } catch (Exception e) {
-            orcLogWriter = null;
-
             logger.error("Error while writing into ORC FileWriter", e);
 
+            closeAfterFailure();
+
             throw e;
-        } finally {
-            logger.debug("Flushing HDFS audit in ORC Format. Event Size:{}", events.size());
+        }
 
-            if (out != null) {
-                try {
-                    //flush and close the ORC batch file
-                    orcFileUtil.close(out);
+        logger.debug("Flushing HDFS audit in ORC Format. Event Size:{}", events.size());
 
-                    ret = true;
-                } catch (Exception e) {
-                    logger.error("Error while closing the ORC FileWriter", e);
+        boolean isRollOverDue = nextRollOverTime != null && System.currentTimeMillis() >= nextRollOverTime.getTime();
 
-                    throw e;
-                }
+        if (orcMaxRowsPerFile <= 0 || orcEventsNotClosed.size() + events.size() >= orcMaxRowsPerFile || isRollOverDue) {
+            try {
+                //flush and close the ORC batch file
+                orcFileUtil.close(out);
+            } catch (Exception e) {
+                logger.error("Error while closing the ORC FileWriter", e);
+
+                orcLogWriter = null; // events of earlier batches are written again to the next file
 
-                orcLogWriter = null;
+                throw e;
             }
+
+            orcLogWriter = null;
+
+            orcEventsNotClosed.clear();
+
+            if (isRollOverDue) {
+                setNextRollOverTime();
+            }
+        } else {
+            orcEventsNotClosed.addAll(events);
         }
 
-        return ret;
+        return true;
     }
 
     @Override
@@ -132,12 +166,20 @@ public synchronized void stop() {
         if (orcLogWriter != null) {
             try {
                 orcFileUtil.close(orcLogWriter);
+
+                orcEventsNotClosed.clear();
             } catch (Throwable t) {
                 logger.error("Error on closing log ORC Writer. Exception will be ignored. name={}, fileName={}", auditProviderName, currentFileName);
             }
 
             orcLogWriter = null;
         }
+
+        if (!orcEventsNotClosed.isEmpty()) {
+            logger.error("{} audit events written to failed ORC files are lost. name={}", orcEventsNotClosed.size(), auditProviderName);
+
+            orcEventsNotClosed.clear();
+        }
     }
 
     public boolean logAsORC(Collection<String> events) throws Exception {
@@ -168,17 +210,52 @@ public void init(Properties props, String propPrefix, String auditProviderName)
         orcBufferSize = MiscUtil.getIntProperty(props, propPrefix + "." + fileType + ".buffersize", defaultbufferSize);
         orcStripeSize = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".stripesize", defaultStripeSize);
 
+        orcRowIndexStride         = MiscUtil.getIntProperty(props, propPrefix + "." + fileType + ".rowindex.stride", 0);
+        orcDirectEncodingColumns  = MiscUtil.getStringProperty(props, propPrefix + "." + fileType + ".direct.encoding.columns");
+        orcMaxRowsPerFile         = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".max.rows.per.file", 0L);
+        orcDictionaryKeyThreshold = -1;
+
+        String dictionaryKeyThreshold = MiscUtil.getStringProperty(props, propPrefix + "." + fileType + ".dictionary.key.threshold");
+
+        if (dictionaryKeyThreshold != null && !dictionaryKeyThreshold.trim().isEmpty()) {
+            try {
+                orcDictionaryKeyThreshold = Double.parseDouble(dictionaryKeyThreshold.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value {} for {}.{}.dictionary.key.threshold. Using ORC default", dictionaryKeyThreshold, propPrefix, fileType);
+            }
+        }
+
         setFileExtension(ORC_FILE_EXTENSION);
 
         try {
             orcFileUtil = ORCFileUtil.getInstance();
 
-            orcFileUtil.init(orcBufferSize, orcStripeSize, compression);
+            orcFileUtil.init(orcBufferSize, orcStripeSize, compression, orcRowIndexStride, orcDictionaryKeyThreshold, orcDirectEncodingColumns);
         } catch (Exception e) {
             logger.error("Error while doing ORCWriter.init() ", e);
         }
     }
 
+    /*
+     * closes the current file after a failed write. Events of earlier batches in the file are safe once the file is
+     * closed; otherwise they are kept in orcEventsNotClosed, to be written to the next file.
+     */
+    private void closeAfterFailure() {
+        Writer out = orcLogWriter;
+
+        orcLogWriter = null;
+
+        if (out != null) {
+            try {
+                orcFileUtil.close(out);
+
+                orcEventsNotClosed.clear();
+            } catch (Throwable t) {
+                logger.error("Error while closing the failed ORC FileWriter. {} events of earlier batches will be written to the next file", orcEventsNotClosed.size(), t);
+            }
+        }
+    }
+
     // Creates ORC Write file
     protected synchronized Writer getORCFileWrite() throws Exception {
         logger.debug("==> RangerORCAuditWriter.getORCFileWrite()");
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * This class writes the Ranger audits to HDFS as Parquet files.
+ * Enabled with xasecure.audit.destination.hdfs.batch.filequeue.filetype=parquet; the writer is configured with
+ * properties under xasecure.audit.destination.hdfs.parquet, like the ORC writer.
+ */
+public class RangerParquetAuditWriter extends AbstractRangerAuditWriter {
+    private static final Logger logger = LoggerFactory.getLogger(RangerParquetAuditWriter.class);
+
+    protected static final String PARQUET_FILE_EXTENSION = ".parquet";
+
+    protected volatile ParquetFileUtil parquetFileUtil;
+
+    protected ParquetWriter<AuthzAuditEvent> parquetLogWriter;
+    protected String                         fileType                  = "parquet";
+    protected String                         compression;
+    protected long                           parquetRowGroupSize;         // 0: Parquet default
+    protected int                            parquetPageSize;             // 0: Parquet default
+    protected boolean                        parquetDictionaryEncoding;
+    protected String                         parquetDirectEncodingColumns;
+    protected long                           parquetMaxRowsPerFile;       // 0: a file per batch
+
+    // events of batches acknowledged to the caller, but not yet in a closed Parquet file
+    protected final List<AuthzAuditEvent> parquetEventsNotClosed = new ArrayList<>();
+
+    @Override
+    public void init(Properties props, String propPrefix, String auditProviderName, Map<String, String> auditConfigs) {
+        logger.debug("==> RangerParquetAuditWriter.init()");
+
+        init(props, propPrefix, auditProviderName);
+
+        super.init(props, propPrefix, auditProviderName, auditConfigs);
+
+        logger.debug("<== RangerParquetAuditWriter.init()");
+    }
+
+    @Override
+    public void flush() {
+        //Each Parquet file is flushed when it is closed: after every batch, or when it reaches parquet.max.rows.per.file.
+        //So nothing to flush.
+    }
+
+    /*
+     * Writes the events to the current Parquet file. The file is closed after every batch, unless
+     * parquet.max.rows.per.file is set: then batches are written to the same file, in fewer and larger row groups,
+     * until the file has the max rows or is due for rollover. Events in an open Parquet file are not readable until
+     * the file is closed.
+     *
+     * With parquet.max.rows.per.file, a batch is acknowledged once written to the open file. Its events are kept until
+     * the file is closed: if a later batch fails, the file is closed best-effort; if that fails too, the kept events are
+     * written again to the next file. Events in the open file are lost if the process exits without stop() - i.e. up to
+     * parquet.max.rows.per.file events, written since the file was opened or the last rollover.
+     */
+    public synchronized boolean logAuditAsParquet(final Collection<AuthzAuditEvent> events) throws Exception {
+        ParquetWriter<AuthzAuditEvent> out;
+
+        try {
+            if (logger.isDebugEnabled()) {
+                logger.debug("UGI={}. Will write to HDFS file={}", MiscUtil.getUGILoginUser(), currentFileName);
+            }
+
+            out = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<ParquetWriter<AuthzAuditEvent>>) () -> {
+                boolean                        isNewFile = parquetLogWriter == null;
+                ParquetWriter<AuthzAuditEvent> out1      = getParquetFileWrite();
+
+                if (isNewFile && !parquetEventsNotClosed.isEmpty()) {
+                    logger.info("Writing {} events of batches from the failed Parquet file to {}", parquetEventsNotClosed.size(), currentFileName);
+
+                    parquetFileUtil.log(out1, parquetEventsNotClosed);
+                }
+
+                parquetFileUtil.log(out1, events);
+
+                return out1;
+            });
+        } catch (Exception e) {
+            logger.error("Error while writing into Parquet FileWriter", e);
+
+            closeAfterFailure();
+
+            throw e;
+        }
+
+        logger.debug("Flushing HDFS audit in Parquet Format. Event Size:{}", events.size());
+
+        boolean isRollOverDue = nextRollOverTime != null && System.currentTimeMillis() >= nextRollOverTime.getTime();
+
+        if (parquetMaxRowsPerFile <= 0 || parquetEventsNotClosed.size() + events.size() >= parquetMaxRowsPerFile || isRollOverDue) {
+            try {
+                //flush and close the Parquet file
+                parquetFileUtil.close(out);
+            } catch (Exception e) {
+                logger.error("Error while closing the Parquet FileWriter", e);
+
+                parquetLogWriter = null; // events of earlier batches are written again to the next file
+
+                throw e;
+            }
+
+            parquetLogWriter = null;
+
+            parquetEventsNotClosed.clear();
+
+            if (isRollOverDue) {
+                setNextRollOverTime();
+            }
+        } else {
+            parquetEventsNotClosed.addAll(events);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean log(Collection<String> events) throws Exception {
+        return logAsParquet(events);
+    }
+
+    @Override
+    public boolean logFile(File file) throws Exception {
+        return false;
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do here. We will open the file when the first log request comes
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (parquetLogWriter != null) {
+            try {
+                parquetFileUtil.close(parquetLogWriter);
+
+                parquetEventsNotClosed.clear();
+            } catch (Throwable t) {
+                logger.error("Error on closing log Parquet Writer. Exception will be ignored. name={}, fileName={}", auditProviderName, currentFileName);
+            }
+
+            parquetLogWriter = null;
+        }
+
+        if (!parquetEventsNotClosed.isEmpty()) {
+            logger.error("{} audit events written to failed Parquet files are lost. name={}", parquetEventsNotClosed.size(), auditProviderName);
+
+            parquetEventsNotClosed.clear();
+        }
+    }
+
+    public boolean logAsParquet(Collection<String> events) throws Exception {
+        Collection<AuthzAuditEvent> authzAuditEvents = getAuthzAuditEvents(events);
+
+        return logAuditAsParquet(authzAuditEvents);
+    }
+
+    public Collection<AuthzAuditEvent> getAuthzAuditEvents(Collection<String> events) {
+        Collection<AuthzAuditEvent> ret = new ArrayList<>();
+
+        for (String event : events) {
+            try {
+                AuthzAuditEvent authzAuditEvent = MiscUtil.fromJson(event, AuthzAuditEvent.class);
+
+                ret.add(authzAuditEvent);
+            } catch (Exception e) {
+                logger.error("Error converting to From JSON to AuthzAuditEvent={}", event);
+
+                throw e;
+            }
+        }
+        return ret;
+    }
+
+    public void init(Properties props, String propPrefix, String auditProviderName) {
+        compression                  = MiscUtil.getStringProperty(props, propPrefix + "." + fileType + ".compression");
+        parquetRowGroupSize          = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".rowgroup.size", 0L);
+        parquetPageSize              = MiscUtil.getIntProperty(props, propPrefix + "." + fileType + ".page.size", 0);
+        parquetDictionaryEncoding    = MiscUtil.getBooleanProperty(props, propPrefix + "." + fileType + ".dictionary.encoding", true);
+        parquetDirectEncodingColumns = MiscUtil.getStringProperty(props, propPrefix + "." + fileType + ".direct.encoding.columns");
+        parquetMaxRowsPerFile        = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".max.rows.per.file", 0L);
+
+        setFileExtension(PARQUET_FILE_EXTENSION);
+
+        try {
+            parquetFileUtil = ParquetFileUtil.getInstance();
+
+            parquetFileUtil.init(parquetRowGroupSize, parquetPageSize, compression, parquetDictionaryEncoding, parquetDirectEncodingColumns);
+        } catch (Exception e) {
+            logger.error("Error while doing ParquetWriter.init() ", e);
+        }
+    }
+
+    /*
+     * closes the current file after a failed write. Events of earlier batches in the file are safe once the file is
+     * closed; otherwise they are kept in parquetEventsNotClosed, to be written to the next file.
+     */
+    private void closeAfterFailure() {
+        ParquetWriter<AuthzAuditEvent> out = parquetLogWriter;
+
+        parquetLogWriter = null;
+
+        if (out != null) {
+            try {
+                parquetFileUtil.close(out);
+
+                parquetEventsNotClosed.clear();
+            } catch (Throwable t) {
+                logger.error("Error while closing the failed Parquet FileWriter. {} events of earlier batches will be written to the next file", parquetEventsNotClosed.size(), t);
+            }
+        }
+    }
+
+    // Creates Parquet Write file
+    protected synchronized ParquetWriter<AuthzAuditEvent> getParquetFileWrite() throws Exception {
+        logger.debug("==> RangerParquetAuditWriter.getParquetFileWrite()");
+
+        if (parquetLogWriter == null) {
+            // Create the file to write
+            createFileSystemFolders();
+
+            logger.info("Creating new log file. hdfPath={}", fullPath);
+
+            parquetLogWriter = parquetFileUtil.createWriter(conf, fileSystem, fullPath);
+            currentFileName  = fullPath;
+        }
+
+        logger.debug("<== RangerParquetAuditWriter.getParquetFileWrite()");
+
+        return parquetLogWriter;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.destination;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuditBatchSenderTest {
+    @Test
+    public void testDisabledByDefault() {
+        assertNull(AuditBatchSender.create(new Properties(), "xasecure.audit.destination.solr", "solr"));
+    }
+
+    @Test
+    public void testSendInChunks() {
+        AuditBatchSender                      sender      = new AuditBatchSender("test", 4, 10, 100, 60000);
+        ConcurrentLinkedQueue<AuditEventBase> sent        = new ConcurrentLinkedQueue<>();
+        AtomicInteger                         maxInFlight = new AtomicInteger();
+        AtomicInteger                         inFlight    = new AtomicInteger();
+
+        try {
+            List<AuditEventBase> events = createEvents(1000);
+
+            assertTrue(sender.send(events, chunk -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+                sleep(5);
+
+                sent.addAll(chunk);
+                inFlight.decrementAndGet();
+
+                return true;
+            }));
+
+            assertEquals(events.size(), sent.size());
+            assertTrue(sent.containsAll(events));
+            assertTrue(maxInFlight.get() <= 4);
+            assertTrue(sender.getChunkCount() > 1);
+            assertTrue(sender.getChunkSize() > 10); // grows while chunks are sent within target latency
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test
+    public void testFailedChunk() {
+        AuditBatchSender sender = new AuditBatchSender("test", 2, 10, 10, 60000);
+        AtomicInteger    count  = new AtomicInteger();
+
+        try {
+            assertFalse(sender.send(createEvents(100), chunk -> count.incrementAndGet() != 3));
+            assertEquals(10, count.get()); // all chunks are sent, even after a failure
+            assertEquals(1, sender.getFailedChunkCount());
+            assertTrue(sender.send(createEvents(100), chunk -> true));
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test
+    public void testChunkSizeShrinksOnSlowResponse() {
+        AuditBatchSender sender = new AuditBatchSender("test", 2, 10, 100, 50);
+
+        try {
+            Collection<AuditEventBase> events = createEvents(200);
+
+            assertTrue(sender.send(events, chunk -> true));
+
+            int chunkSize = sender.getChunkSize();
+
+            assertTrue(chunkSize > 10);
+
+            assertTrue(sender.send(events, chunk -> {
+                sleep(100);
+
+                return true;
+            }));
+
+            assertTrue(sender.getChunkSize() < chunkSize);
+        } finally {
+            sender.stop();
+        }
+    }
+
+    private static List<AuditEventBase> createEvents(int count) {
+        List<AuditEventBase> ret = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setEventId("event-" + i);
+
+            ret.add(event);
+        }
+
+        return ret;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
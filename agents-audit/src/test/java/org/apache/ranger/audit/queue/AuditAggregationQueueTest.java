@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class AuditAggregationQueueTest {
+    private final ConcurrentLinkedQueue<AuthzAuditEvent> sent     = new ConcurrentLinkedQueue<>();
+    private final AuditHandler                           consumer = createConsumer(sent);
+
+    @Test
+    public void testAggregate() {
+        AuditAggregationQueue queue = new AuditAggregationQueue(consumer);
+
+        queue.setResourcePathDepth(2);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.log(createEvent("user" + (i % 2), "/data/sales/file-" + i, 1000L + i)));
+        }
+
+        assertTrue(queue.log(createEvent("user0", "/tmp", 5000L)));
+        assertTrue(sent.isEmpty());
+
+        queue.sendAggregates();
+
+        Map<String, AuthzAuditEvent> sentByKey = new HashMap<>();
+
+        for (AuthzAuditEvent event : sent) {
+            sentByKey.put(event.getUser() + ":" + event.getResourcePath(), event);
+        }
+
+        assertEquals(3, sent.size());
+        assertEquals(50, sentByKey.get("user0:/data/sales").getEventCount());
+        assertEquals(98, sentByKey.get("user0:/data/sales").getEventDurationMS());
+        assertEquals(50, sentByKey.get("user1:/data/sales").getEventCount());
+        assertEquals(1, sentByKey.get("user0:/tmp").getEventCount());
+        assertEquals(101, queue.getReceivedCount());
+        assertEquals(3, queue.getSentCount());
+        assertTrue(queue.aggregates.isEmpty());
+    }
+
+    @Test
+    public void testMaxKeys() {
+        AuditAggregationQueue queue = new AuditAggregationQueue(consumer);
+
+        queue.setMaxKeys(2);
+
+        assertTrue(queue.log(createEvent("user1", "/data/1", 1000L)));
+        assertTrue(queue.log(createEvent("user2", "/data/2", 1000L)));
+        assertTrue(queue.log(createEvent("user1", "/data/1", 1000L)));
+        assertTrue(sent.isEmpty());
+        assertTrue(queue.log(createEvent("user3", "/data/3", 1000L))); // sent as it is
+
+        assertEquals(1, sent.size());
+        assertEquals("user3", sent.peek().getUser());
+
+        queue.sendAggregates();
+
+        assertEquals(3, sent.size());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentCountsAreExact() throws InterruptedException {
+        final int             threadCount = 8;
+        final int             eventCount  = 20000;
+        AuditAggregationQueue queue       = new AuditAggregationQueue(consumer);
+        AtomicBoolean         done        = new AtomicBoolean();
+        List<Thread>          producers   = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < eventCount; i++) {
+                    queue.log(createEvent("user" + (i % 4), "/data/" + (i % 8), i));
+                }
+            });
+
+            producer.start();
+            producers.add(producer);
+        }
+
+        Thread sender = new Thread(() -> {
+            while (!done.get()) {
+                queue.sendAggregates(); // windows end while producers are logging
+            }
+        });
+
+        sender.start();
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        done.set(true);
+        sender.join();
+
+        queue.sendAggregates();
+
+        long total = 0;
+
+        for (AuthzAuditEvent event : sent) {
+            total += event.getEventCount();
+        }
+
+        assertEquals((long) threadCount * eventCount, total);
+        assertEquals(sent.size(), queue.getSentCount());
+    }
+
+    private static AuthzAuditEvent createEvent(String user, String resourcePath, long eventTime) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryName("hdfsdev");
+        ret.setUser(user);
+        ret.setResourcePath(resourcePath);
+        ret.setAccessType("read");
+        ret.setAccessResult((short) 1);
+        ret.setPolicyId(1);
+        ret.setEventTime(new Date(eventTime));
+        ret.setEventCount(1);
+
+        return ret;
+    }
+
+    private static AuditHandler createConsumer(ConcurrentLinkedQueue<AuthzAuditEvent> sent) {
+        AuditHandler ret = mock(AuditHandler.class);
+
+        doAnswer(invocation -> {
+            AuditEventBase event = invocation.getArgument(0);
+
+            sent.add((AuthzAuditEvent) event);
+
+            return true;
+        }).when(ret).log(any(AuditEventBase.class));
+
+        return ret;
+    }
+}
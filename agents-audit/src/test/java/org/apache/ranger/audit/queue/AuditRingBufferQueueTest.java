@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuditRingBufferQueueTest {
+    @Test
+    public void testOfferAndPoll() {
+        AuditRingBufferQueue<Integer> queue = new AuditRingBufferQueue<>(3); // not a power of 2
+
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(1, queue.getDropCount());
+        assertEquals(3, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+        assertEquals(Integer.valueOf(1), queue.peek());
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertTrue(queue.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(Arrays.asList(2, 3), drained);
+        assertEquals(Integer.valueOf(5), queue.poll());
+        assertNull(queue.poll());
+        assertEquals(3, queue.getMaxDepth());
+    }
+
+    @Test
+    public void testPollTimeout() throws InterruptedException {
+        AuditRingBufferQueue<Integer> queue = new AuditRingBufferQueue<>(4);
+
+        assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i, 50, TimeUnit.MILLISECONDS));
+        }
+
+        assertFalse(queue.offer(4, 50, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.getDropCount());
+        assertEquals(1, queue.getProducerWaitCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testTakeWaitsForProducer() throws InterruptedException {
+        AuditRingBufferQueue<Integer> queue    = new AuditRingBufferQueue<>(4);
+        Thread                        producer = new Thread(() -> {
+            sleep(100);
+
+            queue.offer(1);
+        });
+
+        producer.start();
+
+        assertEquals(Integer.valueOf(1), queue.take());
+
+        producer.join();
+    }
+
+    @Test(timeout = 30000)
+    public void testMultipleProducers() throws InterruptedException {
+        final int                     producerCount = 8;
+        final int                     eventCount    = 100000;
+        AuditRingBufferQueue<Integer> queue         = new AuditRingBufferQueue<>(1024);
+        CountDownLatch                done          = new CountDownLatch(producerCount);
+        int[]                         lastSeen      = new int[producerCount];
+        List<Integer>                 batch         = new ArrayList<>();
+        int                           receivedCount = 0;
+
+        for (int p = 0; p < producerCount; p++) {
+            final int producerId = p;
+
+            new Thread(() -> {
+                try {
+                    for (int i = 1; i <= eventCount; i++) {
+                        queue.put(i * producerCount + producerId);
+                    }
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        while (receivedCount < producerCount * eventCount) {
+            Integer event = queue.poll(1, TimeUnit.SECONDS);
+
+            assertTrue(event != null);
+
+            batch.clear();
+            batch.add(event);
+
+            queue.drainTo(batch, 1000);
+
+            for (Integer e : batch) {
+                int producerId = e % producerCount;
+                int seq        = e / producerCount;
+
+                assertEquals(lastSeen[producerId] + 1, seq); // each event exactly once, in order for the producer
+
+                lastSeen[producerId] = seq;
+            }
+
+            receivedCount += batch.size();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getDropCount());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
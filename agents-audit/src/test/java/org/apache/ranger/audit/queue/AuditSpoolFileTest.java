@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuditSpoolFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File         file    = folder.newFile("spool.log");
+        List<String> block1  = Arrays.asList("{\"id\":1}", "{\"id\":2,\"resource\":\"/tmp/é\"}");
+        List<String> block2  = createEvents(0, 100);
+
+        try (AuditSpoolFile.Writer writer = new AuditSpoolFile.Writer(file)) {
+            writer.write(AuditSpoolFile.encodeBlock(block1, false));
+            writer.write(AuditSpoolFile.encodeBlock(block2, true));
+        }
+
+        assertTrue(AuditSpoolFile.isSpoolFile(file));
+        assertEquals(file.length(), AuditSpoolFile.getValidLength(file));
+        assertEquals(Arrays.asList(block1, block2), readBlocks(file));
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        List<String> events = createEvents(0, 100);
+
+        assertTrue(AuditSpoolFile.encodeBlock(events, true).remaining() < AuditSpoolFile.encodeBlock(events, false).remaining());
+    }
+
+    @Test
+    public void testIncompleteBlockIsTruncated() throws IOException {
+        File         file   = folder.newFile("spool.log");
+        List<String> block1 = createEvents(0, 10);
+        List<String> block2 = createEvents(10, 20);
+
+        try (AuditSpoolFile.Writer writer = new AuditSpoolFile.Writer(file)) {
+            writer.write(AuditSpoolFile.encodeBlock(block1, true));
+        }
+
+        long validLength = file.length();
+
+        try (FileOutputStream out = new FileOutputStream(file, true)) { // block cut short by a crash
+            out.write(new byte[] {0, 0, 1, 0, 0, 0});
+        }
+
+        assertEquals(validLength, AuditSpoolFile.getValidLength(file));
+        assertEquals(Collections.singletonList(block1), readBlocks(file));
+
+        try (AuditSpoolFile.Writer writer = new AuditSpoolFile.Writer(file)) {
+            writer.write(AuditSpoolFile.encodeBlock(block2, false));
+        }
+
+        assertEquals(Arrays.asList(block1, block2), readBlocks(file));
+    }
+
+    @Test
+    public void testJsonFileIsNotSpoolFile() throws IOException {
+        File file = folder.newFile("spool.log");
+
+        assertFalse(AuditSpoolFile.isSpoolFile(file));
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("{\"id\":1}\n".getBytes());
+        }
+
+        assertFalse(AuditSpoolFile.isSpoolFile(file));
+    }
+
+    @Test
+    public void testBinaryStashWithoutSpoolMonitor() throws Exception {
+        AuditFileSpool  spool    = createSpool(folder.newFolder("spool"));
+        List<String>    block1   = createEvents(0, 10);
+        List<String>    block2   = createEvents(10, 20);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        spool.stashLogsString(block1); // starts a new file
+
+        try {
+            synchronized (spool) { // held by the consumer thread while it updates the index
+                Future<?> future = executor.submit(() -> spool.stashLogsString(block2));
+
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        File file = new File(spool.currentWriterIndexRecord.getFilePath());
+
+        spool.stop();
+
+        assertEquals(Arrays.asList(block1, block2), readBlocks(file));
+    }
+
+    @Test
+    public void testBinaryStashRollsOverFile() throws Exception {
+        AuditFileSpool spool = createSpool(folder.newFolder("spool"));
+
+        spool.fileRolloverSec = 0;
+
+        spool.stashLogsString(createEvents(0, 10));
+
+        String firstFile = spool.currentWriterIndexRecord.getFilePath();
+
+        Thread.sleep(10);
+
+        spool.stashLogsString(createEvents(10, 20));
+
+        assertNotEquals(firstFile, spool.currentWriterIndexRecord.getFilePath());
+        assertEquals(1, spool.indexQueue.size());
+        assertEquals(firstFile, spool.indexQueue.peek().getFilePath());
+
+        spool.stop();
+    }
+
+    private static AuditFileSpool createSpool(File dir) {
+        AuditQueue   queue    = mock(AuditQueue.class);
+        AuditHandler consumer = mock(AuditHandler.class);
+        Properties   props    = new Properties();
+
+        when(queue.getName()).thenReturn("test");
+        when(consumer.getName()).thenReturn("test");
+
+        props.setProperty("xasecure.audit.test." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR, dir.getAbsolutePath());
+        props.setProperty("xasecure.audit.test." + AuditFileSpool.PROP_FILE_SPOOL_FORMAT, AuditFileSpool.FILE_SPOOL_FORMAT_BINARY);
+
+        AuditFileSpool ret = new AuditFileSpool(queue, consumer);
+
+        assertTrue(ret.init(props, "xasecure.audit.test"));
+
+        return ret;
+    }
+
+    private static List<String> createEvents(int from, int to) {
+        List<String> ret = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            ret.add("{\"id\":\"event-" + i + "\",\"resource\":\"/data/projects/ranger/audit\",\"result\":1}");
+        }
+
+        return ret;
+    }
+
+    private static List<List<String>> readBlocks(File file) throws IOException {
+        List<List<String>> ret = new ArrayList<>();
+
+        try (AuditSpoolFile.Reader reader = new AuditSpoolFile.Reader(file)) {
+            for (int count = reader.nextBlock(); count >= 0; count = reader.nextBlock()) {
+                List<String> events = reader.getEvents();
+
+                assertEquals(count, events.size());
+
+                ret.add(events);
+            }
+        }
+
+        return ret;
+    }
+}
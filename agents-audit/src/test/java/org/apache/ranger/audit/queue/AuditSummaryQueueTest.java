@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class AuditSummaryQueueTest {
+    private final ConcurrentLinkedQueue<AuthzAuditEvent> sent     = new ConcurrentLinkedQueue<>();
+    private final AuditHandler                           consumer = createConsumer(sent);
+
+    @Test
+    public void testSummarize() {
+        AuditSummaryQueue queue = new AuditSummaryQueue(consumer);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.log(createEvent("user1", "/data/1", 1000L + i)));
+        }
+
+        sendSummaries(queue);
+
+        assertEquals(1, sent.size());
+        assertEquals(10, sent.peek().getEventCount());
+        assertEquals(9, sent.peek().getEventDurationMS());
+    }
+
+    @Test
+    public void testSummarizeAggregates() {
+        // as wired by AuditProviderFactory: aggregation -> summary -> destination
+        AuditSummaryQueue     summaryQueue     = new AuditSummaryQueue(consumer);
+        AuditAggregationQueue aggregationQueue = new AuditAggregationQueue(summaryQueue);
+
+        aggregationQueue.setResourcePathDepth(2);
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(aggregationQueue.log(createEvent("user" + (i % 2), "/data/sales/file-" + i, 1000L + i)));
+        }
+
+        aggregationQueue.sendAggregates();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(aggregationQueue.log(createEvent("user0", "/data/sales/file-" + i, 2000L + i)));
+        }
+
+        aggregationQueue.sendAggregates();
+
+        assertTrue(summaryQueue.log(createEvent("user1", "/data/sales", 3000L))); // not aggregated
+
+        sendSummaries(summaryQueue);
+
+        Map<String, AuthzAuditEvent> sentByUser = new HashMap<>();
+        long                         total      = 0;
+
+        for (AuthzAuditEvent event : sent) {
+            sentByUser.put(event.getUser(), event);
+
+            total += event.getEventCount();
+        }
+
+        assertEquals(2, sent.size());
+        assertEquals(601, total);
+        assertEquals(350, sentByUser.get("user0").getEventCount());
+        assertEquals(2099 - 1000, sentByUser.get("user0").getEventDurationMS()); // from 1st event of 1st aggregate to last event of 2nd aggregate
+        assertEquals(251, sentByUser.get("user1").getEventCount());
+        assertEquals(3000 - 1001, sentByUser.get("user1").getEventDurationMS());
+    }
+
+    private static void sendSummaries(AuditSummaryQueue queue) {
+        queue.setDrain(true);
+        queue.runLogAudit(); // summarizes queued events, sends summaries and returns, as the queue is draining
+    }
+
+    private static AuthzAuditEvent createEvent(String user, String resourcePath, long eventTime) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryName("hdfsdev");
+        ret.setUser(user);
+        ret.setResourcePath(resourcePath);
+        ret.setAccessType("read");
+        ret.setAccessResult((short) 1);
+        ret.setPolicyId(1);
+        ret.setEventTime(new Date(eventTime));
+        ret.setEventCount(1);
+
+        return ret;
+    }
+
+    private static AuditHandler createConsumer(ConcurrentLinkedQueue<AuthzAuditEvent> sent) {
+        AuditHandler ret = mock(AuditHandler.class);
+
+        doAnswer(invocation -> {
+            AuditEventBase event = invocation.getArgument(0);
+
+            sent.add((AuthzAuditEvent) event);
+
+            return true;
+        }).when(ret).log(any(AuditEventBase.class));
+
+        return ret;
+    }
+}
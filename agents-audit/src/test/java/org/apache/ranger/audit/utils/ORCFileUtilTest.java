@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ORCFileUtilTest {
+    @Test
+    public void testLog() throws Exception {
+        ORCFileUtil               orcFileUtil = new ORCFileUtil();
+        Writer                    writer      = mock(Writer.class);
+        Date                      eventTime   = new Date();
+        List<AuthzAuditEvent>     events      = new ArrayList<>();
+        List<Map<String, Object>> rows        = new ArrayList<>();
+
+        orcFileUtil.init(7, 100000L, "none", 1000, 0.5, "eventId,resourcePath"); // buffer smaller than the batch
+
+        for (int i = 0; i < 20; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setEventId("event-" + i);
+            event.setRepositoryType(1);
+            event.setRepositoryName("hdfsdev");
+            event.setUser("user" + (i % 3));
+            event.setEventTime(eventTime);
+            event.setAccessType(i % 2 == 0 ? "read" : "write");
+            event.setResourcePath("/data/" + i);
+            event.setAccessResult((short) (i % 2));
+            event.setPolicyId(100 + i);
+            event.setSeqNum(i);
+            event.setEventCount(1);
+
+            events.add(event);
+        }
+
+        doAnswer(invocation -> {
+            rows.addAll(getRows(orcFileUtil, invocation.getArgument(0)));
+
+            return null;
+        }).when(writer).addRowBatch(any(VectorizedRowBatch.class));
+
+        orcFileUtil.log(writer, events);
+
+        verify(writer, times(3)).addRowBatch(any(VectorizedRowBatch.class));
+        assertEquals(events.size(), rows.size());
+
+        String timeStr = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(eventTime);
+
+        for (int i = 0; i < events.size(); i++) {
+            AuthzAuditEvent     event = events.get(i);
+            Map<String, Object> row   = rows.get(i);
+
+            assertEquals(event.getEventId(), row.get("eventId"));
+            assertEquals(event.getRepositoryName(), row.get("repositoryName"));
+            assertEquals(event.getUser(), row.get("user"));
+            assertEquals(timeStr, row.get("eventTime"));
+            assertEquals(event.getAccessType(), row.get("accessType"));
+            assertEquals(event.getResourcePath(), row.get("resourcePath"));
+            assertEquals(Short.toString(event.getAccessResult()), row.get("accessResult"));
+            assertEquals("", row.get("zoneName")); // null
+            assertEquals((long) event.getRepositoryType(), row.get("repositoryType"));
+            assertEquals(event.getPolicyId(), row.get("policyId"));
+            assertEquals(event.getSeqNum(), row.get("seqNum"));
+            assertEquals(event.getEventCount(), row.get("eventCount"));
+        }
+    }
+
+    private static List<Map<String, Object>> getRows(ORCFileUtil orcFileUtil, VectorizedRowBatch batch) {
+        List<Map<String, Object>> ret = new ArrayList<>();
+
+        for (int row = 0; row < batch.size; row++) {
+            Map<String, Object> values = new HashMap<>();
+
+            for (int col = 0; col < orcFileUtil.schemaFields.size(); col++) {
+                String fieldName = orcFileUtil.schemaFields.get(col);
+
+                if (batch.cols[col] instanceof LongColumnVector) {
+                    values.put(fieldName, ((LongColumnVector) batch.cols[col]).vector[row]);
+                } else if (batch.cols[col] instanceof BytesColumnVector) {
+                    values.put(fieldName, ((BytesColumnVector) batch.cols[col]).toString(row));
+                }
+            }
+
+            ret.add(values);
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParquetFileUtilTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testLog() throws Exception {
+        ParquetFileUtil       parquetFileUtil = new ParquetFileUtil();
+        Configuration         conf            = new Configuration();
+        File                  file            = new File(tempFolder.getRoot(), "audit.parquet");
+        FileSystem            fs              = FileSystem.get(file.toURI(), conf);
+        String                path            = file.getAbsolutePath();
+        Date                  eventTime       = new Date();
+        List<AuthzAuditEvent> events          = new ArrayList<>();
+
+        parquetFileUtil.init(0, 0, null, true, "eventId,resourcePath"); // default gzip compression
+
+        for (int i = 0; i < 20; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setEventId("event-" + i);
+            event.setRepositoryType(1);
+            event.setRepositoryName("hdfsdev");
+            event.setUser("user" + (i % 3));
+            event.setEventTime(eventTime);
+            event.setAccessType(i % 2 == 0 ? "read" : "write");
+            event.setResourcePath("/data/" + i);
+            event.setAccessResult((short) (i % 2));
+            event.setPolicyId(100 + i);
+            event.setSeqNum(i);
+            event.setEventCount(1);
+
+            events.add(event);
+        }
+
+        ParquetWriter<AuthzAuditEvent> writer = parquetFileUtil.createWriter(conf, fs, path);
+
+        parquetFileUtil.log(writer, events.subList(0, 7));
+        parquetFileUtil.log(writer, events.subList(7, events.size()));
+        parquetFileUtil.close(writer);
+
+        String      timeStr = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(eventTime);
+        List<Group> rows    = new ArrayList<>();
+
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(path)).withConf(conf).build()) {
+            for (Group row = reader.read(); row != null; row = reader.read()) {
+                rows.add(row);
+            }
+        }
+
+        assertEquals(events.size(), rows.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            AuthzAuditEvent event = events.get(i);
+            Group           row   = rows.get(i);
+
+            assertEquals(event.getEventId(), row.getString("eventId", 0));
+            assertEquals(event.getRepositoryName(), row.getString("repositoryName", 0));
+            assertEquals(event.getUser(), row.getString("user", 0));
+            assertEquals(timeStr, row.getString("eventTime", 0));
+            assertEquals(event.getAccessType(), row.getString("accessType", 0));
+            assertEquals(event.getResourcePath(), row.getString("resourcePath", 0));
+            assertEquals(Short.toString(event.getAccessResult()), row.getString("accessResult", 0));
+            assertEquals(0, row.getFieldRepetitionCount("zoneName")); // null
+            assertEquals(event.getRepositoryType(), row.getInteger("repositoryType", 0));
+            assertEquals(event.getPolicyId(), row.getLong("policyId", 0));
+            assertEquals(event.getSeqNum(), row.getLong("seqNum", 0));
+            assertEquals(event.getEventCount(), row.getLong("eventCount", 0));
+        }
+
+        Map<String, ColumnChunkMetaData> columns = new HashMap<>();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(path), conf))) {
+            for (BlockMetaData block : reader.getFooter().getBlocks()) {
+                for (ColumnChunkMetaData column : block.getColumns()) {
+                    columns.put(column.getPath().toDotString(), column);
+                }
+            }
+        }
+
+        assertTrue(isDictionaryEncoded(columns.get("accessType")));
+        assertTrue(isDictionaryEncoded(columns.get("user")));
+        assertFalse(isDictionaryEncoded(columns.get("eventId")));
+        assertFalse(isDictionaryEncoded(columns.get("resourcePath")));
+        assertNull(columns.get("tags")); // not a primitive field
+    }
+
+    @Test
+    public void testCompression() {
+        ParquetFileUtil parquetFileUtil = new ParquetFileUtil();
+
+        assertEquals("GZIP", parquetFileUtil.getParquetCompression(null).name());
+        assertEquals("SNAPPY", parquetFileUtil.getParquetCompression("snappy").name());
+        assertEquals("UNCOMPRESSED", parquetFileUtil.getParquetCompression("none").name());
+        assertEquals("GZIP", parquetFileUtil.getParquetCompression("unknown").name());
+    }
+
+    private static boolean isDictionaryEncoded(ColumnChunkMetaData column) {
+        return column.getEncodings().contains(Encoding.PLAIN_DICTIONARY) || column.getEncodings().contains(Encoding.RLE_DICTIONARY);
+    }
+}
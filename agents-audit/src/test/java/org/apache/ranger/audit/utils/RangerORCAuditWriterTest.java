@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.audit.utils;
+
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RangerORCAuditWriterTest {
+    private final List<Writer>       writers = new ArrayList<>();
+    private final List<List<String>> files   = new ArrayList<>(); // eventIds written to each writer
+
+    private ORCFileUtil          orcFileUtil;
+    private RangerORCAuditWriter auditWriter;
+    private int                  eventSeq;
+
+    @Before
+    public void setup() throws Exception {
+        orcFileUtil = mock(ORCFileUtil.class);
+        auditWriter = new RangerORCAuditWriter() {
+            @Override
+            protected synchronized Writer getORCFileWrite() {
+                if (orcLogWriter == null) {
+                    orcLogWriter    = mock(Writer.class);
+                    currentFileName = "file-" + writers.size();
+
+                    writers.add(orcLogWriter);
+                    files.add(new ArrayList<>());
+                }
+
+                return orcLogWriter;
+            }
+        };
+
+        auditWriter.orcFileUtil       = orcFileUtil;
+        auditWriter.orcMaxRowsPerFile = 10;
+
+        doAnswer(invocation -> {
+            Collection<AuthzAuditEvent> events = invocation.getArgument(1);
+
+            for (AuthzAuditEvent event : events) {
+                files.get(writers.indexOf(invocation.getArgument(0))).add(event.getEventId());
+            }
+
+            return null;
+        }).when(orcFileUtil).log(any(Writer.class), anyCollection());
+    }
+
+    @Test
+    public void testMaxRowsPerFile() throws Exception {
+        List<AuthzAuditEvent> batch1 = createBatch(4);
+        List<AuthzAuditEvent> batch2 = createBatch(4);
+        List<AuthzAuditEvent> batch3 = createBatch(4);
+        List<AuthzAuditEvent> batch4 = createBatch(4);
+
+        assertTrue(auditWriter.logAuditAsORC(batch1));
+        assertTrue(auditWriter.logAuditAsORC(batch2));
+
+        assertEquals(1, writers.size());
+        verify(orcFileUtil, never()).close(any(Writer.class));
+        assertEquals(8, auditWriter.orcEventsNotClosed.size());
+
+        assertTrue(auditWriter.logAuditAsORC(batch3)); // file reaches max rows, closed
+
+        verify(orcFileUtil).close(writers.get(0));
+        assertEquals(getEventIds(batch1, batch2, batch3), files.get(0));
+        assertEquals(0, auditWriter.orcEventsNotClosed.size());
+
+        assertTrue(auditWriter.logAuditAsORC(batch4));
+
+        assertEquals(2, writers.size());
+        assertEquals(getEventIds(batch4), files.get(1));
+        verify(orcFileUtil, never()).close(writers.get(1));
+
+        auditWriter.stop();
+
+        verify(orcFileUtil).close(writers.get(1));
+        assertEquals(0, auditWriter.orcEventsNotClosed.size());
+    }
+
+    @Test
+    public void testFailedWriteClosesFile() throws Exception {
+        List<AuthzAuditEvent> batch1 = createBatch(4);
+        List<AuthzAuditEvent> batch2 = createBatch(4);
+        List<AuthzAuditEvent> batch3 = createBatch(1);
+
+        assertTrue(auditWriter.logAuditAsORC(batch1));
+
+        doThrow(new IOException("write failed")).when(orcFileUtil).log(any(Writer.class), eq(batch2));
+
+        try {
+            auditWriter.logAuditAsORC(batch2);
+
+            fail("expected write failure");
+        } catch (IOException excp) {
+            // expected
+        }
+
+        // batch1 is in the closed file; batch2 is failed to the caller, to be retried
+        verify(orcFileUtil).close(writers.get(0));
+        assertEquals(0, auditWriter.orcEventsNotClosed.size());
+
+        assertTrue(auditWriter.logAuditAsORC(batch3));
+
+        assertEquals(2, writers.size());
+        assertEquals(getEventIds(batch3), files.get(1));
+    }
+
+    @Test
+    public void testFailedCloseRewritesEarlierBatches() throws Exception {
+        List<AuthzAuditEvent> batch1 = createBatch(4);
+        List<AuthzAuditEvent> batch2 = createBatch(4);
+        List<AuthzAuditEvent> batch3 = createBatch(4);
+
+        assertTrue(auditWriter.logAuditAsORC(batch1));
+        assertTrue(auditWriter.logAuditAsORC(batch2));
+
+        doThrow(new IOException("write failed")).when(orcFileUtil).log(any(Writer.class), eq(batch3));
+        doThrow(new IOException("close failed")).when(orcFileUtil).close(writers.get(0));
+
+        try {
+            auditWriter.logAuditAsORC(batch3);
+
+            fail("expected write failure");
+        } catch (IOException excp) {
+            // expected
+        }
+
+        verify(orcFileUtil).close(writers.get(0));
+        assertEquals(8, auditWriter.orcEventsNotClosed.size());
+
+        // retry of batch3 writes the acknowledged batch1 and batch2 to the new file as well
+        doAnswer(invocation -> {
+            files.get(1).addAll(getEventIds(batch3));
+
+            return null;
+        }).when(orcFileUtil).log(any(Writer.class), eq(batch3));
+
+        assertTrue(auditWriter.logAuditAsORC(batch3));
+
+        assertEquals(2, writers.size());
+        assertEquals(getEventIds(batch1, batch2, batch3), files.get(1));
+        verify(orcFileUtil, times(1)).close(writers.get(1));
+        assertEquals(0, auditWriter.orcEventsNotClosed.size());
+    }
+
+    @Test
+    public void testFailedCloseOnMaxRows() throws Exception {
+        List<AuthzAuditEvent> batch1 = createBatch(6);
+        List<AuthzAuditEvent> batch2 = createBatch(6);
+        List<AuthzAuditEvent> batch3 = createBatch(1);
+
+        assertTrue(auditWriter.logAuditAsORC(batch1));
+
+        doThrow(new IOException("close failed")).when(orcFileUtil).close(writers.get(0));
+
+        try {
+            auditWriter.logAuditAsORC(batch2);
+
+            fail("expected close failure");
+        } catch (IOException excp) {
+            // expected
+        }
+
+        // only batch1 is kept: batch2 is failed to the caller, to be retried
+        assertEquals(getEventIds(batch1), getEventIds(auditWriter.orcEventsNotClosed));
+
+        assertTrue(auditWriter.logAuditAsORC(batch3));
+
+        assertEquals(2, writers.size());
+        assertEquals(getEventIds(batch1, batch3), files.get(1));
+    }
+
+    private List<AuthzAuditEvent> createBatch(int count) {
+        List<AuthzAuditEvent> ret = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setEventId("event-" + (eventSeq++));
+
+            ret.add(event);
+        }
+
+        return ret;
+    }
+
+    @SafeVarargs
+    private static List<String> getEventIds(List<AuthzAuditEvent>... batches) {
+        List<String> ret = new ArrayList<>();
+
+        for (List<AuthzAuditEvent> batch : batches) {
+            for (AuthzAuditEvent event : batch) {
+                ret.add(event.getEventId());
+            }
+        }
+
+        return ret;
+    }
+}
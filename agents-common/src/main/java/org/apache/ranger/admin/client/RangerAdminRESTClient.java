@@ -103,6 +103,8 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
         int restClientMaxRetryAttempts = config.getInt(propertyPrefix + ".policy.rest.client.max.retry.attempts", 3);
         int restClientRetryIntervalMs  = config.getInt(propertyPrefix + ".policy.rest.client.retry.interval.ms", 1 * 1000);
 
+        boolean restClientCompression = config.getBoolean(propertyPrefix + ".policy.rest.client.compression.enabled", false);
+
         supportsPolicyDeltas  = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
         supportsTagDeltas     = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
         isRangerCookieEnabled = config.getBoolean(propertyPrefix + ".policy.rest.client.cookie.enabled", RangerCommonConstants.POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED);
@@ -118,6 +120,8 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 
         init(url, sslConfigFileName, restClientConnTimeOutMs, restClientReadTimeOutMs, restClientMaxRetryAttempts, restClientRetryIntervalMs, config);
 
+        restClient.setCompressionEnabled(restClientCompression);
+
         try {
             this.serviceNameUrlParam = URLEncoderUtil.encodeURIParam(serviceName);
         } catch (UnsupportedEncodingException e) {
@@ -181,7 +185,7 @@ public ServicePolicies getServicePoliciesIfUpdated(final long lastKnownVersion,
 
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, ServicePolicies.class);
+            ret = JsonUtilsV2.readResponseStream(response, ServicePolicies.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -260,7 +264,7 @@ public RangerRoles getRolesIfUpdated(final long lastKnownRoleVersion, final long
 
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, RangerRoles.class);
+            ret = JsonUtilsV2.readResponseStream(response, RangerRoles.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -804,7 +808,7 @@ public ServiceTags getServiceTagsIfUpdated(final long lastKnownVersion, final lo
 
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, ServiceTags.class);
+            ret = JsonUtilsV2.readResponseStream(response, ServiceTags.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -934,7 +938,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
 
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, RangerUserStore.class);
+            ret = JsonUtilsV2.readResponseStream(response, RangerUserStore.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -1012,7 +1016,7 @@ public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActiva
             LOG.debug("No change in GdsInfo: secureMode={}, user={}, response={}, serviceName={}, lastKnownGdsVersion={}, lastActivationTimeInMillis={}",
                     isSecureMode, user, resp, serviceName, lastKnownVersion, lastActivationTimeInMillis);
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, ServiceGdsInfo.class);
+            ret = JsonUtilsV2.readResponseStream(response, ServiceGdsInfo.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
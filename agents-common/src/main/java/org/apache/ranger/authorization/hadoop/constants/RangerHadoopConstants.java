@@ -27,6 +27,14 @@ public class RangerHadoopConstants {
     public static final String  RANGER_USE_LEGACY_SUBACCESS_AUTHORIZATION_PROP    = "ranger.plugin.hdfs.use.legacy.subaccess.authorization";
     public static final boolean RANGER_USE_LEGACY_SUBACCESS_AUTHORIZATION_DEFAULT = true;
 
+    public static final String RANGER_SUBACCESS_AUTHORIZATION_THREADS_PROP       = "ranger.plugin.hdfs.subaccess.authorization.threads";
+    public static final String RANGER_SUBACCESS_AUTHORIZATION_BATCH_SIZE_PROP    = "ranger.plugin.hdfs.subaccess.authorization.batch.size";
+    public static final int    RANGER_SUBACCESS_AUTHORIZATION_THREADS_DEFAULT    = 0;
+    public static final int    RANGER_SUBACCESS_AUTHORIZATION_BATCH_SIZE_DEFAULT = 100;
+
+    public static final String RANGER_AUTHZ_CONTEXT_CACHE_SIZE_PROP    = "ranger.plugin.hdfs.authz.context.cache.size";
+    public static final int    RANGER_AUTHZ_CONTEXT_CACHE_SIZE_DEFAULT = 0;
+
     public static final String READ_ACCCESS_TYPE    = "read";
     public static final String WRITE_ACCCESS_TYPE   = "write";
     public static final String EXECUTE_ACCCESS_TYPE = "execute";
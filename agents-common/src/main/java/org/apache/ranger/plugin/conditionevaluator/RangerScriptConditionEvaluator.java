@@ -28,18 +28,27 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 
 import java.util.List;
 import java.util.Map;
 
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_COMPILE_SCRIPT;
 import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_JSON_CTX;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_REUSE_BINDINGS;
 
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
     private static final Logger LOG = LoggerFactory.getLogger(RangerScriptConditionEvaluator.class);
 
-    private ScriptEngine scriptEngine;
-    private Boolean      enableJsonCtx;
+    private          ScriptEngine          scriptEngine;
+    private          Boolean               enableJsonCtx;
+    private          boolean               compileScript = true;
+    private          ThreadLocal<Bindings> threadBindings; // set when bindings are reused across requests, per thread
+    private volatile boolean               isCompiled;
+    private          CompiledScript        compiledScript;
+    private          CompiledScript        compiledJsonCtxInitScript;
 
     @Override
     public void init() {
@@ -58,6 +67,13 @@ public void init() {
             if (StringUtils.isNotEmpty(strEnableJsonCtx)) {
                 enableJsonCtx = Boolean.parseBoolean(strEnableJsonCtx);
             }
+
+            compileScript = Boolean.parseBoolean(evalOptions.getOrDefault(SCRIPT_OPTION_COMPILE_SCRIPT, "true"));
+
+            // bindings retain variables set by earlier evaluations of the script in the thread; enable only for scripts that don't depend on that
+            if (Boolean.parseBoolean(evalOptions.get(SCRIPT_OPTION_REUSE_BINDINGS))) {
+                threadBindings = new ThreadLocal<>();
+            }
         }
 
         if (StringUtils.isBlank(engineName)) {
@@ -76,6 +92,8 @@ public void init() {
             LOG.info("ScriptEngine for engineName=[{}] is successfully created", engineName);
         }
 
+        LOG.debug("RangerScriptConditionEvaluator.init() - compileScript={}, reuseBindings={}", compileScript, threadBindings != null);
+
         LOG.debug("<== RangerScriptConditionEvaluator.init({})", condition);
     }
 
@@ -95,9 +113,17 @@ public boolean isMatched(RangerAccessRequest request) {
                     enableJsonCtx = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
                 }
 
-                RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request, scriptEngine, enableJsonCtx);
+                if (!isCompiled) {
+                    compile(script);
+                }
 
-                evaluator.evaluateConditionScript(script);
+                RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request, scriptEngine, enableJsonCtx, compiledJsonCtxInitScript, getBindings());
+
+                if (compiledScript != null) {
+                    evaluator.evaluateConditionScript(compiledScript);
+                } else {
+                    evaluator.evaluateConditionScript(script);
+                }
 
                 result = evaluator.getResult();
             } else {
@@ -130,4 +156,34 @@ protected String getScript() {
 
         return ret;
     }
+
+    // script is compiled on first use, as subclasses initialize the script after init() of this class
+    private synchronized void compile(String script) {
+        if (!isCompiled) {
+            if (compileScript) {
+                compiledScript            = RangerRequestScriptEvaluator.compileScript(scriptEngine, script);
+                compiledJsonCtxInitScript = RangerRequestScriptEvaluator.compileJsonCtxInitScript(scriptEngine);
+            }
+
+            LOG.debug("RangerScriptConditionEvaluator.compile(): script={{}}, isCompiled={}", script, compiledScript != null);
+
+            isCompiled = true;
+        }
+    }
+
+    private Bindings getBindings() {
+        Bindings ret = null;
+
+        if (threadBindings != null) {
+            ret = threadBindings.get();
+
+            if (ret == null) {
+                ret = scriptEngine.createBindings();
+
+                threadBindings.set(ret);
+            }
+        }
+
+        return ret;
+    }
 }
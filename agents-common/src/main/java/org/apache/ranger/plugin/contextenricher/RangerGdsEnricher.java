@@ -26,9 +26,10 @@
 import org.apache.ranger.plugin.policyengine.gds.GdsPolicyEngine;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.util.DownloadTrigger;
-import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.ScheduledDownload;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,7 +39,6 @@
 import java.io.FileWriter;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -191,7 +191,7 @@ private class RangerGdsInfoRefresher extends Thread {
         private final String                         cacheFile;
         private       Long                           lastKnownVersion;
         private       long                           lastActivationTimeInMillis;
-        private       Timer                          downloadTimer;
+        private       ScheduledDownload              downloadTimer;
         private       BlockingQueue<DownloadTrigger> downloadQueue;
         private       boolean                        gdsInfoSetInPlugin;
 
@@ -235,12 +235,11 @@ public void run() {
 
         final void startRefresher() {
             try {
-                downloadTimer = new Timer("gdsInfoDownloadTimer", true);
                 downloadQueue = new LinkedBlockingQueue<>();
 
                 super.start();
 
-                downloadTimer.schedule(new DownloaderTask(downloadQueue), pollingIntervalMs, pollingIntervalMs);
+                downloadTimer = RangerDownloadScheduler.schedule("gdsInfoDownloadTimer", downloadQueue, pollingIntervalMs, getPluginConfig());
 
                 LOG.debug("Scheduled timer to download gdsInfo every {} milliseconds", pollingIntervalMs);
             } catch (IllegalStateException exception) {
@@ -301,7 +300,7 @@ void saveToCache(ServiceGdsInfo gdsInfo) {
         }
 
         private void stopRefresher() {
-            Timer downloadTimer = this.downloadTimer;
+            ScheduledDownload downloadTimer = this.downloadTimer;
 
             this.downloadTimer = null;
             this.downloadQueue = null;
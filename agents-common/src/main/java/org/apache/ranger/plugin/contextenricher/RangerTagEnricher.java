@@ -40,11 +40,13 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.BinaryCacheFileUtil;
 import org.apache.ranger.plugin.util.CachedResourceEvaluators;
 import org.apache.ranger.plugin.util.DownloadTrigger;
-import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.ScheduledDownload;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
@@ -68,7 +70,6 @@
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -91,7 +92,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
     private       EnrichedServiceTags            enrichedServiceTags;
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
-    private       Timer                          tagDownloadTimer;
+    private       ScheduledDownload              tagDownloadTimer;
     private       RangerServiceDefHelper         serviceDefHelper;
 
     public static RangerServiceResourceMatcher createRangerServiceResourceMatcher(RangerServiceResource serviceResource, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies, RangerPluginContext pluginContext) {
@@ -180,7 +181,8 @@ public void init() {
                 cacheFilename = cacheFilename.replace(File.separatorChar, '_');
                 cacheFilename = cacheFilename.replace(File.pathSeparatorChar, '_');
 
-                String cacheFile = cacheDir == null ? null : (cacheDir + File.separator + cacheFilename);
+                String  cacheFile      = cacheDir == null ? null : (cacheDir + File.separator + cacheFilename);
+                boolean useBinaryCache = BinaryCacheFileUtil.isBinaryFormat(getConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_CACHE_FORMAT, null));
 
                 createLock();
 
@@ -191,7 +193,7 @@ public void init() {
                 tagRetriever.setPluginContext(getPluginContext());
                 tagRetriever.init(enricherDef.getEnricherOptions());
 
-                tagRefresher = new RangerTagRefresher(tagRetriever, this, -1L, tagDownloadQueue, cacheFile);
+                tagRefresher = new RangerTagRefresher(tagRetriever, this, -1L, tagDownloadQueue, cacheFile, useBinaryCache);
 
                 LOG.info("Created RangerTagRefresher Thread({})", tagRefresher.getName());
 
@@ -204,10 +206,8 @@ public void init() {
                 tagRefresher.setDaemon(true);
                 tagRefresher.startRefresher();
 
-                tagDownloadTimer = new Timer("policyDownloadTimer", true);
-
                 try {
-                    tagDownloadTimer.schedule(new DownloaderTask(tagDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+                    tagDownloadTimer = RangerDownloadScheduler.schedule("tagDownloadTimer", tagDownloadQueue, pollingIntervalMs, getPluginConfig());
 
                     LOG.debug("Scheduled tagDownloadRefresher to download tags every {} milliseconds", pollingIntervalMs);
                 } catch (IllegalStateException exception) {
@@ -270,7 +270,7 @@ public boolean preCleanup() {
 
         super.preCleanup();
 
-        Timer tagDownloadTimer = this.tagDownloadTimer;
+        ScheduledDownload tagDownloadTimer = this.tagDownloadTimer;
 
         this.tagDownloadTimer = null;
 
@@ -465,7 +465,7 @@ private EnrichedServiceTags processServiceTags(ServiceTags serviceTags) {
                 serviceResourceTrie = new HashMap<>();
 
                 for (RangerResourceDef resourceDef : serviceDef.getResources()) {
-                    serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null));
+                    serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().compactTrieNodes, null));
                 }
             }
 
@@ -509,7 +509,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
                             } else {
                                 LOG.debug("Trying to add resource-matcher to new trie for {}", resourceDef.getName());
 
-                                trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null);
+                                trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().compactTrieNodes, null);
 
                                 serviceResourceTrie.put(resourceDef.getName(), trie);
                             }
@@ -685,7 +685,7 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
                         if (ret == null) {
                             ret = new HashSet<>();
                         }
-                        ret.addAll(getTagsForServiceResource(request.getAccessTime(), enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
+                        ret.addAll(getTagsForServiceResource(request, enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
                     }
                 }
             }
@@ -704,7 +704,7 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
         return ret;
     }
 
-    private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime, final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
+    private static Set<RangerTagForEval> getTagsForServiceResource(final RangerAccessRequest request, final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
         Set<RangerTagForEval> ret = new HashSet<>();
 
         final Long                  resourceId       = serviceResource.getId();
@@ -717,12 +717,16 @@ private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime,
             List<Long> tagIds = resourceToTagIds.get(resourceId);
 
             if (CollectionUtils.isNotEmpty(tagIds)) {
-                accessTime = accessTime == null ? new Date() : accessTime;
+                Date accessTime = request.getAccessTime() == null ? new Date() : request.getAccessTime();
 
                 for (Long tagId : tagIds) {
                     RangerTag tag = tags.get(tagId);
 
                     if (tag != null) {
+                        if (CollectionUtils.isNotEmpty(tag.getValidityPeriods())) {
+                            RangerAccessRequestUtil.setIsResultConditional(request.getContext(), Boolean.TRUE);
+                        }
+
                         RangerTagForEval tagForEval = new RangerTagForEval(tag, matchType);
 
                         if (tagForEval.isApplicable(accessTime)) {
@@ -842,16 +846,18 @@ static class RangerTagRefresher extends Thread {
         private final RangerTagEnricher              tagEnricher;
         private final BlockingQueue<DownloadTrigger> tagDownloadQueue;
         private final String                         cacheFile;
+        private final boolean                        useBinaryCache;
         private       long                           lastKnownVersion;
         private       long                           lastActivationTimeInMillis;
         private       boolean                        hasProvidedTagsToReceiver;
 
-        RangerTagRefresher(RangerTagRetriever tagRetriever, RangerTagEnricher tagEnricher, long lastKnownVersion, BlockingQueue<DownloadTrigger> tagDownloadQueue, String cacheFile) {
+        RangerTagRefresher(RangerTagRetriever tagRetriever, RangerTagEnricher tagEnricher, long lastKnownVersion, BlockingQueue<DownloadTrigger> tagDownloadQueue, String cacheFile, boolean useBinaryCache) {
             this.tagRetriever     = tagRetriever;
             this.tagEnricher      = tagEnricher;
             this.lastKnownVersion = lastKnownVersion;
             this.tagDownloadQueue = tagDownloadQueue;
             this.cacheFile        = cacheFile;
+            this.useBinaryCache   = useBinaryCache;
 
             setName("RangerTagRefresher(serviceName=" + tagRetriever.getServiceName() + ")-" + getId());
         }
@@ -917,9 +923,24 @@ final ServiceTags loadFromCache() {
 
             LOG.debug("==> RangerTagRetriever(serviceName={}).loadFromCache()", tagEnricher.getServiceName());
 
-            File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
+            File cacheFile       = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
+            File binaryCacheFile = useBinaryCache ? BinaryCacheFileUtil.getBinaryCacheFileToLoad(cacheFile) : null;
 
-            if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+            if (binaryCacheFile != null) {
+                try {
+                    serviceTags = BinaryCacheFileUtil.readServiceTags(binaryCacheFile);
+
+                    if (serviceTags != null && !StringUtils.equals(tagEnricher.getServiceName(), serviceTags.getServiceName())) {
+                        LOG.warn("ignoring unexpected serviceName '{}' in cache file '{}'", serviceTags.getServiceName(), binaryCacheFile.getAbsolutePath());
+
+                        serviceTags.setServiceName(tagEnricher.getServiceName());
+                    }
+                } catch (Exception excp) {
+                    LOG.error("failed to load service-tags from binary cache file {}. Will try JSON cache file", binaryCacheFile.getAbsolutePath(), excp);
+                }
+            }
+
+            if (serviceTags == null && cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
                 Reader reader = null;
 
                 try {
@@ -943,7 +964,7 @@ final ServiceTags loadFromCache() {
                         }
                     }
                 }
-            } else {
+            } else if (serviceTags == null) {
                 LOG.warn("cache file does not exist or not readable '{}'", (cacheFile == null ? null : cacheFile.getAbsolutePath()));
             }
 
@@ -958,7 +979,21 @@ final void saveToCache(ServiceTags serviceTags) {
             if (serviceTags != null) {
                 File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-                if (cacheFile != null) {
+                boolean isSavedAsBinary = false;
+
+                if (cacheFile != null && useBinaryCache) {
+                    File binaryCacheFile = BinaryCacheFileUtil.getBinaryCacheFile(cacheFile);
+
+                    try {
+                        BinaryCacheFileUtil.writeServiceTags(binaryCacheFile, serviceTags);
+
+                        isSavedAsBinary = true;
+                    } catch (Exception excp) {
+                        LOG.error("failed to save service-tags to binary cache file '{}'. Will save as JSON", binaryCacheFile.getAbsolutePath(), excp);
+                    }
+                }
+
+                if (cacheFile != null && !isSavedAsBinary) {
                     Writer writer = null;
 
                     try {
@@ -1003,6 +1038,8 @@ final void disableCache() {
                 LOG.debug("No local TAGS cache found. No need to disable it!");
             }
 
+            BinaryCacheFileUtil.disableBinaryCacheFile(cacheFile);
+
             LOG.debug("<== RangerTagRetriever.disableCache(serviceName={})", tagEnricher.getServiceName());
         }
 
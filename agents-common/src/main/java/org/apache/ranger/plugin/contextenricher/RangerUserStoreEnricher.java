@@ -22,16 +22,18 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.BinaryCacheFileUtil;
 import org.apache.ranger.plugin.util.DownloadTrigger;
-import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.ScheduledDownload;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -48,7 +50,7 @@ public class RangerUserStoreEnricher extends RangerAbstractContextEnricher {
     private       RangerUserStore                rangerUserStore;
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
-    private       Timer                          userStoreDownloadTimer;
+    private       ScheduledDownload              userStoreDownloadTimer;
 
     @Override
     public void init() {
@@ -87,7 +89,8 @@ public void init() {
                 cacheFilename = cacheFilename.replace(File.separatorChar, '_');
                 cacheFilename = cacheFilename.replace(File.pathSeparatorChar, '_');
 
-                String cacheFile = cacheDir == null ? null : (cacheDir + File.separator + cacheFilename);
+                String  cacheFile      = cacheDir == null ? null : (cacheDir + File.separator + cacheFilename);
+                boolean useBinaryCache = BinaryCacheFileUtil.isBinaryFormat(getConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_CACHE_FORMAT, null));
 
                 userStoreRetriever.setServiceName(serviceName);
                 userStoreRetriever.setServiceDef(serviceDef);
@@ -96,7 +99,7 @@ public void init() {
                 userStoreRetriever.setPluginContext(getPluginContext());
                 userStoreRetriever.init(enricherDef.getEnricherOptions());
 
-                userStoreRefresher = new RangerUserStoreRefresher(userStoreRetriever, this, null, -1L, userStoreDownloadQueue, cacheFile);
+                userStoreRefresher = new RangerUserStoreRefresher(userStoreRetriever, this, null, -1L, userStoreDownloadQueue, cacheFile, useBinaryCache);
 
                 LOG.info("Created Thread(RangerUserStoreRefresher({})", getName());
 
@@ -109,10 +112,8 @@ public void init() {
                 userStoreRefresher.setDaemon(true);
                 userStoreRefresher.startRefresher();
 
-                userStoreDownloadTimer = new Timer("userStoreDownloadTimer", true);
-
                 try {
-                    userStoreDownloadTimer.schedule(new DownloaderTask(userStoreDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+                    userStoreDownloadTimer = RangerDownloadScheduler.schedule("userStoreDownloadTimer", userStoreDownloadQueue, pollingIntervalMs, getPluginConfig());
 
                     LOG.debug("Scheduled userStoreDownloadRefresher to download userstore every {} milliseconds", pollingIntervalMs);
                 } catch (IllegalStateException exception) {
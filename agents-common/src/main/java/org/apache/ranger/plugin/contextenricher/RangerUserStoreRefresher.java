@@ -24,6 +24,7 @@
 import org.apache.ranger.admin.client.datatype.RESTResponse;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.util.BinaryCacheFileUtil;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
@@ -31,6 +32,7 @@
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,18 +57,24 @@ public class RangerUserStoreRefresher extends Thread {
     private final RangerUserStoreEnricher        userStoreEnricher;
     private final BlockingQueue<DownloadTrigger> userStoreDownloadQueue;
     private final String                         cacheFile;
+    private final boolean                        useBinaryCache;
     private       long                           lastKnownVersion;
     private       long                           lastActivationTimeInMillis;
     private       boolean                        hasProvidedUserStoreToReceiver;
     private final RangerRESTClient               rangerRESTClient;
 
     public RangerUserStoreRefresher(RangerUserStoreRetriever userStoreRetriever, RangerUserStoreEnricher userStoreEnricher, RangerRESTClient restClient, long lastKnownVersion, BlockingQueue<DownloadTrigger> userStoreDownloadQueue, String cacheFile) {
+        this(userStoreRetriever, userStoreEnricher, restClient, lastKnownVersion, userStoreDownloadQueue, cacheFile, false);
+    }
+
+    public RangerUserStoreRefresher(RangerUserStoreRetriever userStoreRetriever, RangerUserStoreEnricher userStoreEnricher, RangerRESTClient restClient, long lastKnownVersion, BlockingQueue<DownloadTrigger> userStoreDownloadQueue, String cacheFile, boolean useBinaryCache) {
         this.userStoreRetriever     = userStoreRetriever;
         this.userStoreEnricher      = userStoreEnricher;
         this.rangerRESTClient       = restClient;
         this.lastKnownVersion       = lastKnownVersion;
         this.userStoreDownloadQueue = userStoreDownloadQueue;
         this.cacheFile              = cacheFile;
+        this.useBinaryCache         = useBinaryCache;
 
         setName("RangerUserStoreRefresher(serviceName=" + userStoreRetriever.getServiceName() + ")-" + getId());
     }
@@ -119,6 +127,10 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
             try {
                 rangerUserStore = userStoreRetriever.retrieveUserStoreInfo(lastKnownVersion, lastActivationTimeInMillis);
 
+                if (rangerUserStore != null && rangerUserStore.getIsDelta()) {
+                    rangerUserStore = applyDelta(userStoreEnricher.getRangerUserStore(), rangerUserStore);
+                }
+
                 if (rangerUserStore == null) {
                     if (!hasProvidedUserStoreToReceiver) {
                         rangerUserStore = loadFromCache();
@@ -244,7 +256,21 @@ public void saveToCache(RangerUserStore rangerUserStore) {
         if (rangerUserStore != null) {
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-            if (cacheFile != null) {
+            boolean isSavedAsBinary = false;
+
+            if (cacheFile != null && useBinaryCache) {
+                File binaryCacheFile = BinaryCacheFileUtil.getBinaryCacheFile(cacheFile);
+
+                try {
+                    BinaryCacheFileUtil.writeUserStore(binaryCacheFile, rangerUserStore);
+
+                    isSavedAsBinary = true;
+                } catch (Exception excp) {
+                    LOG.error("failed to save userstore information to binary cache file '{}'. Will save as JSON", binaryCacheFile.getAbsolutePath(), excp);
+                }
+            }
+
+            if (cacheFile != null && !isSavedAsBinary) {
                 Writer writer = null;
 
                 try {
@@ -275,9 +301,18 @@ private RangerUserStore loadFromCache() {
 
         LOG.debug("==> RangerUserStoreRefreher.loadFromCache()");
 
-        File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
+        File cacheFile       = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
+        File binaryCacheFile = useBinaryCache ? BinaryCacheFileUtil.getBinaryCacheFileToLoad(cacheFile) : null;
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (binaryCacheFile != null) {
+            try {
+                rangerUserStore = BinaryCacheFileUtil.readUserStore(binaryCacheFile);
+            } catch (Exception excp) {
+                LOG.error("failed to load userstore information from binary cache file {}. Will try JSON cache file", binaryCacheFile.getAbsolutePath(), excp);
+            }
+        }
+
+        if (rangerUserStore == null && cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader reader = null;
 
             try {
@@ -295,7 +330,7 @@ private RangerUserStore loadFromCache() {
                     }
                 }
             }
-        } else {
+        } else if (rangerUserStore == null) {
             LOG.warn("cache file does not exist or not readable '{}'", (cacheFile == null ? null : cacheFile.getAbsolutePath()));
         }
 
@@ -323,9 +358,29 @@ private void disableCache() {
             LOG.debug("No local userstore cache found. No need to disable it!");
         }
 
+        BinaryCacheFileUtil.disableBinaryCacheFile(cacheFile);
+
         LOG.debug("<== RangerUserStoreRefreher.disableCache()");
     }
 
+    private RangerUserStore applyDelta(RangerUserStore userStore, RangerUserStore delta) throws Exception {
+        final RangerUserStore ret;
+
+        if (userStore != null && !userStore.getIsDelta() && userStore.getUserStoreVersion() != null && userStore.getUserStoreVersion() == lastKnownVersion) {
+            ret = RangerUserStoreDeltaUtil.applyDelta(userStore, delta);
+
+            LOG.debug("RangerUserStoreRefresher.applyDelta(): applied userstore delta, version {} => {}", lastKnownVersion, delta.getUserStoreVersion());
+        } else {
+            LOG.warn("RangerUserStoreRefresher.applyDelta(): received userstore delta, but userstore in plugin is not of lastKnownVersion={}. Will download complete userstore", lastKnownVersion);
+
+            RangerUserStore userStoreAll = userStoreRetriever.retrieveUserStoreInfo(-1L, lastActivationTimeInMillis);
+
+            ret = userStoreAll != null && !userStoreAll.getIsDelta() ? userStoreAll : null;
+        }
+
+        return ret;
+    }
+
     private RangerUserStore retrieveUserStoreInfo() throws Exception {
         RangerUserStore rangerUserStore = null;
 
@@ -390,7 +445,7 @@ private RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lo
 
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
-            ret = JsonUtilsV2.readResponse(response, RangerUserStore.class);
+            ret = JsonUtilsV2.readResponseStream(response, RangerUserStore.class);
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -22,6 +22,7 @@
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.plugin.contextenricher.RangerUserStoreRetriever;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesDeltaUtil;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
@@ -81,6 +82,10 @@ public RangerUserStore retrieveUserStoreInfo(long lastKnownVersion, long lastAct
                 long        rolesVersion = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
                 RangerRoles updatedRoles = adminClient.getRolesIfUpdated(rolesVersion, lastActivationTimeInMillis);
 
+                if (updatedRoles != null && updatedRoles.getIsDelta()) {
+                    updatedRoles = RangerRolesDeltaUtil.applyDelta(roles, updatedRoles);
+                }
+
                 if (updatedRoles != null) {
                     rolesUtil = new RangerRolesUtil(updatedRoles);
                 }
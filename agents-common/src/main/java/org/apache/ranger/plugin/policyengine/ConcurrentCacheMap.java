@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded concurrent map with approximate-LRU (CLOCK) eviction; an alternative to
+ * Collections.synchronizedMap(new CacheMap()) for caches read by many threads.
+ *
+ * Entries are spread over independently locked segments. get() takes no lock and
+ * allocates nothing: it only sets the referenced bit of the entry, if not already set.
+ * put() and remove() lock only the segment owning the key; when the segment is full,
+ * the clock hand clears referenced bits until it finds an entry that was not accessed
+ * since the last sweep, and evicts it.
+ */
+public class ConcurrentCacheMap<K, V> extends AbstractMap<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentCacheMap.class);
+
+    private static final int DEFAULT_SEGMENT_COUNT = 16;
+    private static final int MIN_SEGMENT_CAPACITY  = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int             segmentMask;
+    private final int             segmentShift;
+    private final int             capacity;
+
+    public ConcurrentCacheMap(int capacity) {
+        this(capacity, DEFAULT_SEGMENT_COUNT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentCacheMap(int capacity, int concurrencyLevel) {
+        int segmentCount = 1;
+        int segmentBits  = 0;
+
+        // no more segments than needed to hold MIN_SEGMENT_CAPACITY entries each
+        while (segmentCount < concurrencyLevel && (segmentCount << 1) * MIN_SEGMENT_CAPACITY <= capacity) {
+            segmentCount <<= 1;
+            segmentBits++;
+        }
+
+        int segmentCapacity = Math.max(0, (capacity + segmentCount - 1) / segmentCount);
+
+        this.capacity     = capacity;
+        this.segmentMask  = segmentCount - 1;
+        this.segmentShift = 32 - segmentBits;
+        this.segments     = new Segment[segmentCount];
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+
+        LOG.debug("ConcurrentCacheMap(capacity={}, concurrencyLevel={}): segmentCount={}, segmentCapacity={}", capacity, concurrencyLevel, segmentCount, segmentCapacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        int ret = 0;
+
+        for (Segment<K, V> segment : segments) {
+            ret += segment.map.size();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && segmentFor(key).map.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+
+        Node<K, V> node = segmentFor(key).map.get(key);
+
+        if (node == null) {
+            return null;
+        }
+
+        if (!node.referenced) { // avoid the volatile write when already set
+            node.referenced = true;
+        }
+
+        return node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+
+        return segmentFor(key).put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key != null ? segmentFor(key).remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    // uses the high bits of the mixed hash, as low bits select the bucket within the segment's map
+    private Segment<K, V> segmentFor(Object key) {
+        if (segmentMask == 0) {
+            return segments[0];
+        }
+
+        int h = key.hashCode() * 0x9E3779B9;
+
+        return segments[(h >>> segmentShift) & segmentMask];
+    }
+
+    private static final class Node<K, V> {
+        final    K       key;
+        volatile V       value;
+        volatile boolean referenced;
+        int              slot; // guarded by segment lock
+
+        Node(K key, V value) {
+            this.key   = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final ConcurrentHashMap<K, Node<K, V>> map;
+        final ReentrantLock                    lock = new ReentrantLock();
+        final int                              capacity;
+        Node<K, V>[]                           clock; // guarded by lock
+        int                                    used;  // number of clock slots handed out so far
+        int                                    hand;
+
+        @SuppressWarnings("unchecked")
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.map      = new ConcurrentHashMap<>(Math.min(capacity, MIN_SEGMENT_CAPACITY));
+            this.clock    = new Node[Math.min(capacity, MIN_SEGMENT_CAPACITY)];
+        }
+
+        V put(K key, V value) {
+            if (capacity <= 0) {
+                return null;
+            }
+
+            lock.lock();
+
+            try {
+                Node<K, V> existing = map.get(key);
+
+                if (existing != null) {
+                    V ret = existing.value;
+
+                    existing.value      = value;
+                    existing.referenced = true;
+
+                    return ret;
+                }
+
+                Node<K, V> node = new Node<>(key, value);
+
+                node.slot = nextFreeSlot();
+
+                clock[node.slot] = node;
+
+                map.put(key, node);
+
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        V remove(Object key) {
+            lock.lock();
+
+            try {
+                Node<K, V> node = map.remove(key);
+
+                if (node != null) {
+                    clock[node.slot] = null;
+
+                    return node.value;
+                }
+
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+
+            try {
+                map.clear();
+
+                for (int i = 0; i < used; i++) {
+                    clock[i] = null;
+                }
+
+                used = 0;
+                hand = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // called with lock held; evicts an entry, if necessary, to make room for a new one
+        @SuppressWarnings("unchecked")
+        private int nextFreeSlot() {
+            if (used < capacity) {
+                if (used == clock.length) {
+                    Node<K, V>[] newClock = new Node[Math.min(capacity, clock.length << 1)];
+
+                    System.arraycopy(clock, 0, newClock, 0, clock.length);
+
+                    clock = newClock;
+                }
+
+                return used++;
+            }
+
+            while (true) {
+                int        slot = hand;
+                Node<K, V> node = clock[slot];
+
+                hand = (slot + 1) % capacity;
+
+                if (node == null) {
+                    return slot;
+                } else if (node.referenced) {
+                    node.referenced = false;
+                } else {
+                    map.remove(node.key);
+
+                    clock[slot] = null;
+
+                    return slot;
+                }
+            }
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new Iterator<Entry<K, V>>() {
+                int                  segmentIdx;
+                Iterator<Node<K, V>> nodes = segments[0].map.values().iterator();
+                Node<K, V>           last;
+
+                @Override
+                public boolean hasNext() {
+                    while (!nodes.hasNext() && segmentIdx < segmentMask) {
+                        nodes = segments[++segmentIdx].map.values().iterator();
+                    }
+
+                    return nodes.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    last = nodes.next();
+
+                    return new SimpleImmutableEntry<>(last.key, last.value);
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+
+                    ConcurrentCacheMap.this.remove(last.key);
+
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentCacheMap.this.size();
+        }
+    }
+}
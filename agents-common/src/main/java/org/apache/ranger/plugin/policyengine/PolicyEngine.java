@@ -617,6 +617,10 @@ private void cleanup() {
 
         preCleanup(false);
 
+        if (zoneMatcher != null && zoneMatcher.getLookupCount() > 0) {
+            LOG.info("{}", zoneMatcher);
+        }
+
         if (policyRepository != null) {
             policyRepository.cleanup();
         }
@@ -32,6 +32,7 @@
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class RangerPluginContext {
@@ -43,6 +44,7 @@ public class RangerPluginContext {
     private       RangerAuthContext                                                          authContext;
     private       RangerAuthContextListener                                                  authContextListener;
     private       RangerAdminClient                                                          adminClient;
+    private       ForkJoinPool                                                               batchEvaluationPool;
 
     public RangerPluginContext(RangerPluginConfig config) {
         this.config = config;
@@ -127,6 +129,14 @@ public void setAdminClient(RangerAdminClient adminClient) {
         this.adminClient = adminClient;
     }
 
+    public ForkJoinPool getBatchEvaluationPool() {
+        return batchEvaluationPool;
+    }
+
+    public void setBatchEvaluationPool(ForkJoinPool batchEvaluationPool) {
+        this.batchEvaluationPool = batchEvaluationPool;
+    }
+
     public RangerAdminClient createAdminClient(RangerPluginConfig pluginConfig) {
         LOG.debug("==> RangerBasePlugin.createAdminClient({}, {}, {})", pluginConfig.getServiceName(), pluginConfig.getAppId(), pluginConfig.getPropertyPrefix());
 
@@ -44,14 +44,18 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 import static org.apache.ranger.plugin.policyengine.PolicyEvaluatorForTag.MATCH_TYPE_COMPARATOR;
@@ -74,8 +78,10 @@ public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginConte
 
         if (config != null) {
             boolean isDeltasSupported = config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
+            boolean isCopyOnWrite     = pluginContext.getConfig().getPolicyEngineOptions().enableCopyOnWritePolicyUpdates;
 
-            isUseReadWriteLock = isDeltasSupported && config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
+            // with copy-on-write, deltas are applied to a new engine that shares unchanged structures with this one; no locks are needed
+            isUseReadWriteLock = isDeltasSupported && !isCopyOnWrite && config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
         } else {
             isUseReadWriteLock = false;
         }
@@ -253,12 +259,18 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
             }
 
             if (requests != null) {
-                for (RangerAccessRequest request : requests) {
-                    requestProcessor.preProcess(request);
+                ForkJoinPool batchEvaluationPool = getBatchEvaluationPool(requests);
+
+                if (batchEvaluationPool != null) {
+                    ret.addAll(evaluatePoliciesInParallel(requests, policyType, batchEvaluationPool));
+                } else {
+                    for (RangerAccessRequest request : requests) {
+                        requestProcessor.preProcess(request);
 
-                    RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+                        RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
-                    ret.add(result);
+                        ret.add(result);
+                    }
                 }
             }
 
@@ -554,6 +566,68 @@ public RangerAccessRequestProcessor getRequestProcessor() {
         return requestProcessor;
     }
 
+    /*
+     * Returns the plugin-owned pool to evaluate the given requests with, or null when the requests must be
+     * evaluated sequentially: parallel evaluation is disabled, the batch is smaller than the configured
+     * threshold, or the requests share a context map - which preProcess() and the enrichers update in place.
+     */
+    private ForkJoinPool getBatchEvaluationPool(Collection<RangerAccessRequest> requests) {
+        RangerPluginContext pluginContext = policyEngine.getPluginContext();
+        RangerPluginConfig  pluginConfig  = pluginContext != null ? pluginContext.getConfig() : null;
+        ForkJoinPool        ret           = pluginContext != null ? pluginContext.getBatchEvaluationPool() : null;
+
+        if (ret != null && pluginConfig != null) {
+            RangerPolicyEngineOptions options = pluginConfig.getPolicyEngineOptions();
+
+            if (!options.enableParallelBatchEvaluation || requests.size() < Math.max(2, options.parallelBatchEvaluationMinSize) || ret.isShutdown()) {
+                ret = null;
+            } else {
+                Set<Map<String, Object>> contexts = Collections.newSetFromMap(new IdentityHashMap<>(requests.size()));
+
+                for (RangerAccessRequest request : requests) {
+                    if (request == null || (request.getContext() != null && !contexts.add(request.getContext()))) {
+                        LOG.debug("getBatchEvaluationPool(): requests share context; will evaluate {} requests sequentially", requests.size());
+
+                        ret = null;
+
+                        break;
+                    }
+                }
+            }
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /*
+     * Called with the read-lock held by the caller, which waits for all chunks to complete; hence the worker
+     * threads must not try to acquire the lock again. Results are placed at the index of the corresponding
+     * request, to keep the order same as in sequential evaluation.
+     */
+    private List<RangerAccessResult> evaluatePoliciesInParallel(Collection<RangerAccessRequest> requests, int policyType, ForkJoinPool batchEvaluationPool) {
+        LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesInParallel(requestCount={}, policyType={}, parallelism={})", requests.size(), policyType, batchEvaluationPool.getParallelism());
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePoliciesInParallel(requestCount=" + requests.size() + ")");
+        }
+
+        RangerAccessRequest[] batchRequests = requests.toArray(new RangerAccessRequest[0]);
+        RangerAccessResult[]  batchResults  = new RangerAccessResult[batchRequests.length];
+        int                   chunkSize     = Math.max(1, batchRequests.length / (batchEvaluationPool.getParallelism() * 4));
+
+        batchEvaluationPool.invoke(new BatchEvaluationTask(batchRequests, batchResults, policyType, 0, batchRequests.length, chunkSize));
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerPolicyEngineImpl.evaluatePoliciesInParallel(requestCount={}, policyType={})", requests.size(), policyType);
+
+        return Arrays.asList(batchResults);
+    }
+
     private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType) {
         LOG.debug("==> RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithNoAudit({}, policyType={})", request, policyType);
 
@@ -687,6 +761,10 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
             List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType);
 
             for (RangerPolicyEvaluator evaluator : evaluators) {
+                if (evaluator.hasConditionsOrValiditySchedules()) {
+                    RangerAccessRequestUtil.setIsResultConditional(request.getContext(), Boolean.TRUE);
+                }
+
                 if (!evaluator.isApplicable(accessTime)) {
                     continue;
                 }
@@ -1153,4 +1231,40 @@ public boolean isServiceAdmin(String userName) {
             return serviceAdmins.contains(userName);
         }
     }
+
+    private class BatchEvaluationTask extends RecursiveAction {
+        private final RangerAccessRequest[] requests;
+        private final RangerAccessResult[]  results;
+        private final int                   policyType;
+        private final int                   fromIndex;
+        private final int                   toIndex;
+        private final int                   chunkSize;
+
+        BatchEvaluationTask(RangerAccessRequest[] requests, RangerAccessResult[] results, int policyType, int fromIndex, int toIndex, int chunkSize) {
+            this.requests   = requests;
+            this.results    = results;
+            this.policyType = policyType;
+            this.fromIndex  = fromIndex;
+            this.toIndex    = toIndex;
+            this.chunkSize  = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if ((toIndex - fromIndex) <= chunkSize) {
+                for (int i = fromIndex; i < toIndex; i++) {
+                    RangerAccessRequest request = requests[i];
+
+                    requestProcessor.preProcess(request);
+
+                    results[i] = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+                }
+            } else {
+                int midIndex = (fromIndex + toIndex) >>> 1;
+
+                invokeAll(new BatchEvaluationTask(requests, results, policyType, fromIndex, midIndex, chunkSize),
+                          new BatchEvaluationTask(requests, results, policyType, midIndex, toIndex, chunkSize));
+            }
+        }
+    }
 }
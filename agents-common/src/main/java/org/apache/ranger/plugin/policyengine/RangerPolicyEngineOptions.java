@@ -45,6 +45,12 @@ public class RangerPolicyEngineOptions {
     public boolean optimizeTrieForSpace;
     public boolean optimizeTagTrieForRetrieval;
     public boolean optimizeTagTrieForSpace;
+    public boolean enableParallelBatchEvaluation;
+    public int     parallelBatchEvaluationMinSize              = 1000;
+    public int     parallelBatchEvaluationThreads;
+    public boolean enableCopyOnWritePolicyUpdates;
+    public boolean compactTrieNodes;
+    public int     zoneResourceCacheSize;
 
     private RangerServiceDefHelper serviceDefHelper;
 
@@ -71,6 +77,12 @@ public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other) {
         this.optimizeTrieForSpace                      = other.optimizeTrieForSpace;
         this.optimizeTagTrieForRetrieval               = other.optimizeTagTrieForRetrieval;
         this.optimizeTagTrieForSpace                   = other.optimizeTagTrieForSpace;
+        this.enableParallelBatchEvaluation             = other.enableParallelBatchEvaluation;
+        this.parallelBatchEvaluationMinSize            = other.parallelBatchEvaluationMinSize;
+        this.parallelBatchEvaluationThreads            = other.parallelBatchEvaluationThreads;
+        this.enableCopyOnWritePolicyUpdates            = other.enableCopyOnWritePolicyUpdates;
+        this.compactTrieNodes                          = other.compactTrieNodes;
+        this.zoneResourceCacheSize                     = other.zoneResourceCacheSize;
     }
 
     public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other, RangerServiceDefHelper serviceDefHelper) {
@@ -103,6 +115,12 @@ public void configureForPlugin(Configuration conf, String propertyPrefix) {
         optimizeTrieForSpace                      = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
         optimizeTagTrieForRetrieval               = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
         optimizeTagTrieForSpace                   = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", false);
+        enableParallelBatchEvaluation             = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.parallel.batch.evaluation", false);
+        parallelBatchEvaluationMinSize            = conf.getInt(propertyPrefix + ".policyengine.option.parallel.batch.evaluation.min.size", 1000);
+        parallelBatchEvaluationThreads            = conf.getInt(propertyPrefix + ".policyengine.option.parallel.batch.evaluation.threads", 0);
+        enableCopyOnWritePolicyUpdates            = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.copy.on.write.policy.updates", false);
+        compactTrieNodes                          = conf.getBoolean(propertyPrefix + ".policyengine.option.compact.trie.nodes", false);
+        zoneResourceCacheSize                     = conf.getInt(propertyPrefix + ".policyengine.option.zone.resource.cache.size", 0);
     }
 
     public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -216,6 +234,12 @@ public int hashCode() {
         ret *= 2;
         ret += enableResourceMatcherReuse ? 1 : 0;
         ret *= 2;
+        ret += enableParallelBatchEvaluation ? 1 : 0;
+        ret *= 2;
+        ret += enableCopyOnWritePolicyUpdates ? 1 : 0;
+        ret *= 2;
+        ret += compactTrieNodes ? 1 : 0;
+        ret *= 2;
         return ret;
     }
 
@@ -241,7 +265,13 @@ public boolean equals(Object other) {
                     && this.optimizeTrieForSpace == that.optimizeTrieForSpace
                     && this.optimizeTagTrieForRetrieval == that.optimizeTagTrieForRetrieval
                     && this.optimizeTagTrieForSpace == that.optimizeTagTrieForSpace
-                    && this.enableResourceMatcherReuse == that.enableResourceMatcherReuse;
+                    && this.enableResourceMatcherReuse == that.enableResourceMatcherReuse
+                    && this.enableParallelBatchEvaluation == that.enableParallelBatchEvaluation
+                    && this.parallelBatchEvaluationMinSize == that.parallelBatchEvaluationMinSize
+                    && this.parallelBatchEvaluationThreads == that.parallelBatchEvaluationThreads
+                    && this.enableCopyOnWritePolicyUpdates == that.enableCopyOnWritePolicyUpdates
+                    && this.compactTrieNodes == that.compactTrieNodes
+                    && this.zoneResourceCacheSize == that.zoneResourceCacheSize;
         }
         return ret;
     }
@@ -268,6 +298,12 @@ public String toString() {
                 ", optimizeTagTrieForRetrieval: " + optimizeTagTrieForRetrieval +
                 ", optimizeTagTrieForSpace: " + optimizeTagTrieForSpace +
                 ", enableResourceMatcherReuse: " + enableResourceMatcherReuse +
+                ", enableParallelBatchEvaluation: " + enableParallelBatchEvaluation +
+                ", parallelBatchEvaluationMinSize: " + parallelBatchEvaluationMinSize +
+                ", parallelBatchEvaluationThreads: " + parallelBatchEvaluationThreads +
+                ", enableCopyOnWritePolicyUpdates: " + enableCopyOnWritePolicyUpdates +
+                ", compactTrieNodes: " + compactTrieNodes +
+                ", zoneResourceCacheSize: " + zoneResourceCacheSize +
                 " }";
     }
 }
@@ -45,6 +45,7 @@
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -121,7 +122,7 @@ public class RangerPolicyRepository {
             this.policyResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.policyResourceTrie.entrySet()) {
-                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableCopyOnWritePolicyUpdates));
             }
         } else {
             this.policyResourceTrie = null;
@@ -131,7 +132,7 @@ public class RangerPolicyRepository {
             this.dataMaskResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.dataMaskResourceTrie.entrySet()) {
-                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableCopyOnWritePolicyUpdates));
             }
         } else {
             this.dataMaskResourceTrie = null;
@@ -141,7 +142,7 @@ public class RangerPolicyRepository {
             this.rowFilterResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.rowFilterResourceTrie.entrySet()) {
-                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableCopyOnWritePolicyUpdates));
             }
         } else {
             this.rowFilterResourceTrie = null;
@@ -151,7 +152,7 @@ public class RangerPolicyRepository {
             this.auditFilterResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.auditFilterResourceTrie.entrySet()) {
-                auditFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                auditFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableCopyOnWritePolicyUpdates));
             }
         } else {
             this.auditFilterResourceTrie = null;
@@ -160,7 +161,7 @@ public class RangerPolicyRepository {
         if (other.accessAuditCache != null) {
             int auditResultCacheSize = other.accessAuditCache.size();
 
-            this.accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+            this.accessAuditCache = createAccessAuditCache(auditResultCacheSize, other.accessAuditCache instanceof ConcurrentCacheMap);
         } else {
             this.accessAuditCache = null;
         }
@@ -218,9 +219,10 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             String propertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
 
             if (options.cacheAuditResults) {
-                int auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                int     auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                boolean useConcurrentCache   = pluginContext.getConfig().getBoolean("ranger.plugin." + serviceName + ".policyengine.auditcache.concurrent", false);
 
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                accessAuditCache = createAccessAuditCache(auditResultCacheSize, useConcurrentCache);
             } else {
                 accessAuditCache = null;
             }
@@ -599,12 +601,20 @@ List<PolicyEvaluatorForTag> getLikelyMatchPolicyEvaluators(RangerAccessRequest r
             ret = new ArrayList<>();
 
             for (RangerTagForEval tag : tags) {
+                if (CollectionUtils.isNotEmpty(tag.getValidityPeriods())) {
+                    RangerAccessRequestUtil.setIsResultConditional(request.getContext(), Boolean.TRUE);
+                }
+
                 if (tag.isApplicable(accessTime)) {
                     RangerAccessRequest         tagRequest = new RangerTagAccessRequest(tag, getServiceDef(), request);
                     List<RangerPolicyEvaluator> evaluators = getLikelyMatchPolicyEvaluators(tagRequest, policyType);
 
                     if (CollectionUtils.isNotEmpty(evaluators)) {
                         for (RangerPolicyEvaluator evaluator : evaluators) {
+                            if (evaluator.hasConditionsOrValiditySchedules()) {
+                                RangerAccessRequestUtil.setIsResultConditional(request.getContext(), Boolean.TRUE);
+                            }
+
                             if (evaluator.isApplicable(accessTime)) {
                                 ret.add(new PolicyEvaluatorForTag(evaluator, tag));
                             }
@@ -686,6 +696,10 @@ void reinit(List<RangerPolicyDelta> deltas) {
         }
     }
 
+    private static Map<String, AuditInfo> createAccessAuditCache(int auditResultCacheSize, boolean useConcurrentCache) {
+        return useConcurrentCache ? new ConcurrentCacheMap<>(auditResultCacheSize) : Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+    }
+
     private List<RangerPolicyEvaluator> buildAuditPolicyEvaluators(Map<String, String> svcConfigs) {
         List<RangerPolicyEvaluator> ret     = Collections.emptyList();
         String                      jsonStr = svcConfigs != null ? svcConfigs.get(PLUGIN_AUDIT_FILTER) : null;
@@ -1212,7 +1226,7 @@ private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> createRes
             ret = new HashMap<>();
 
             for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, pluginContext));
+                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, options.compactTrieNodes, pluginContext));
             }
         } else {
             ret = null;
@@ -1234,7 +1248,7 @@ private void updateTrie(Map<String, RangerResourceTrie<RangerPolicyResourceEvalu
                     LOG.warn("policyDeltaType is not for POLICY_CREATE and trie for resourceDef:[{}] was null! Should not have happened!!", resourceDefName);
                 }
 
-                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, pluginContext);
+                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.compactTrieNodes, pluginContext);
 
                 trieMap.put(resourceDefName, trie);
             }
@@ -35,6 +35,8 @@
 import org.slf4j.LoggerFactory;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
@@ -219,28 +221,34 @@ public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEng
     }
 
     public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEngine scriptEngine, boolean enableJsonCtx) {
+        this(accessRequest, scriptEngine, enableJsonCtx, null, null);
+    }
+
+    /**
+     * @param jsonCtxInitScript script returned by compileJsonCtxInitScript() for scriptEngine; when null, the script is evaluated from source
+     * @param bindings          bindings created earlier by scriptEngine.createBindings(), to reuse; when null, new bindings are created
+     */
+    public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEngine scriptEngine, boolean enableJsonCtx, CompiledScript jsonCtxInitScript, Bindings bindings) {
         this.accessRequest = accessRequest.getReadOnlyCopy();
         this.scriptEngine  = scriptEngine;
-        this.bindings      = scriptEngine.createBindings();
+        this.bindings      = bindings != null ? bindings : scriptEngine.createBindings();
 
         RangerTagForEval    currentTag = this.getCurrentTag();
         Map<String, String> tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.emptyMap();
 
-        bindings.put(SCRIPT_VAR_ctx, this);
-        bindings.put(SCRIPT_VAR_tag, currentTag);
-        bindings.put(SCRIPT_VAR_tagAttr, tagAttribs);
-
-        String preExecScript = "";
+        this.bindings.put(SCRIPT_VAR_ctx, this);
+        this.bindings.put(SCRIPT_VAR_tag, currentTag);
+        this.bindings.put(SCRIPT_VAR_tagAttr, tagAttribs);
 
         if (enableJsonCtx) {
-            bindings.put(SCRIPT_VAR__CTX_JSON, this.toJson());
+            this.bindings.put(SCRIPT_VAR__CTX_JSON, this.toJson());
 
-            preExecScript += SCRIPT_PREEXEC;
-        }
-
-        if (StringUtils.isNotBlank(preExecScript)) {
             try {
-                scriptEngine.eval(preExecScript, bindings);
+                if (jsonCtxInitScript != null) {
+                    jsonCtxInitScript.eval(this.bindings);
+                } else {
+                    scriptEngine.eval(SCRIPT_PREEXEC, this.bindings);
+                }
             } catch (ScriptException excp) {
                 LOG.error("RangerRequestScriptEvaluator(): initialization failed", excp);
             }
@@ -307,6 +315,24 @@ public static String expandMacros(String script) {
         return MACRO_PROCESSOR.expandMacros(script);
     }
 
+    /**
+     * Compiles the script, after the same edits done by evaluateScript(), for evaluateConditionScript(CompiledScript).
+     *
+     * @return compiled script; null if the engine doesn't support compilation or compilation failed
+     */
+    public static CompiledScript compileScript(ScriptEngine scriptEngine, String script) {
+        return compile(scriptEngine, script != null ? toExecutableScript(expandMacros(script)) : null);
+    }
+
+    /**
+     * Compiles the script that initializes JSON context variables (REQ, RES, USER, TAGS, ...) when enableJsonCtx is true.
+     *
+     * @return compiled script; null if the engine doesn't support compilation or compilation failed
+     */
+    public static CompiledScript compileJsonCtxInitScript(ScriptEngine scriptEngine) {
+        return compile(scriptEngine, SCRIPT_PREEXEC);
+    }
+
     public static void init(Configuration config) {
         StringBuilder sb = new StringBuilder(DEFAULT_RANGER_TAG_ATTRIBUTE_DATE_FORMAT);
 
@@ -328,21 +354,15 @@ public static void init(Configuration config) {
     public Object evaluateScript(String script) {
         script = expandMacros(script);
 
-        return evaluateScriptImpl(script);
+        return evaluateScriptImpl(script, null);
     }
 
     public Object evaluateConditionScript(String script) {
-        Object ret = evaluateScript(script);
-
-        if (ret == null) {
-            ret = getResult();
-        }
-
-        if (ret instanceof Boolean) {
-            result = (Boolean) ret;
-        }
+        return toConditionResult(evaluateScript(script));
+    }
 
-        return ret;
+    public Object evaluateConditionScript(CompiledScript script) {
+        return toConditionResult(evaluateScriptImpl(null, script));
     }
 
     public String getResource() {
@@ -950,30 +970,67 @@ public void logFatal(Object msg) {
         LOG.error(Objects.toString(msg));
     }
 
-    private Object evaluateScriptImpl(String script) {
-        Object           ret  = null;
-        RangerPerfTracer perf = null;
+    private Object toConditionResult(Object ret) {
+        if (ret == null) {
+            ret = getResult();
+        }
 
-        try {
-            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_CONDITION_SCRIPT_EVAL)) {
-                perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_EVAL, "RangerRequestScriptEvaluator.evaluateScript(requestHash=" + accessRequest.hashCode() + ")");
-            }
+        if (ret instanceof Boolean) {
+            result = (Boolean) ret;
+        }
 
-            String preExec = SCRIPT_SAFE_PREEXEC;
+        return ret;
+    }
 
-            if (script.contains(".includes(")) {
-                preExec += SCRIPT_POLYFILL_INCLUDES;
-            }
+    private static String toExecutableScript(String script) {
+        String preExec = SCRIPT_SAFE_PREEXEC;
+
+        if (script.contains(".includes(")) {
+            preExec += SCRIPT_POLYFILL_INCLUDES;
+        }
+
+        if (script.contains(".intersects(")) {
+            preExec += SCRIPT_POLYFILL_INTERSECTS;
+        }
+
+        if (JavaScriptEdits.hasDoubleBrackets(script)) {
+            script = JavaScriptEdits.replaceDoubleBrackets(script);
+        }
+
+        return preExec + script;
+    }
 
-            if (script.contains(".intersects(")) {
-                preExec += SCRIPT_POLYFILL_INTERSECTS;
+    private static CompiledScript compile(ScriptEngine scriptEngine, String script) {
+        CompiledScript ret = null;
+
+        if (script != null && scriptEngine instanceof Compilable) {
+            try {
+                ret = ((Compilable) scriptEngine).compile(script);
+            } catch (ScriptException excp) {
+                LOG.warn("RangerRequestScriptEvaluator.compile(): failed to compile script. Will be evaluated from source", excp);
+            } catch (Throwable t) {
+                LOG.warn("RangerRequestScriptEvaluator.compile(): failed to compile script. Will be evaluated from source", t);
             }
+        }
+
+        return ret;
+    }
 
-            if (JavaScriptEdits.hasDoubleBrackets(script)) {
-                script = JavaScriptEdits.replaceDoubleBrackets(script);
+    // evaluates compiledScript if not null, else script
+    private Object evaluateScriptImpl(String script, CompiledScript compiledScript) {
+        Object           ret  = null;
+        RangerPerfTracer perf = null;
+
+        try {
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_CONDITION_SCRIPT_EVAL)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_EVAL, "RangerRequestScriptEvaluator.evaluateScript(requestHash=" + accessRequest.hashCode() + ", compiled=" + (compiledScript != null) + ")");
             }
 
-            ret = scriptEngine.eval(preExec + script, bindings);
+            if (compiledScript != null) {
+                ret = compiledScript.eval(bindings);
+            } else {
+                ret = scriptEngine.eval(toExecutableScript(script), bindings);
+            }
         } catch (NullPointerException nullp) {
             LOG.error("RangerRequestScriptEvaluator.evaluateScript(): eval called with NULL argument(s)", nullp);
         } catch (ScriptException excp) {
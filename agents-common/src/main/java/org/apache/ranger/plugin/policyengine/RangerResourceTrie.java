@@ -28,15 +28,19 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
+import org.apache.ranger.plugin.resourcematcher.MultiWildcardMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.util.CharArrayMap;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRequestExprResolver;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.apache.ranger.plugin.util.SmallArraySet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -63,11 +67,14 @@
     private final RangerResourceDef resourceDef;
     private final boolean           optIgnoreCase;
     private final boolean           optWildcard;
+    private final boolean           optCompileWildcards;
     private final String            wildcardChars;
     private final boolean           isOptimizedForRetrieval;
     private final boolean           isOptimizedForSpace;
     private final Character         separatorChar;
     private final TrieNode<T>       root;
+    private final boolean           isCopyOnWrite;
+    private final boolean           isCompactNodes;
     private       Set<T>            inheritedEvaluators;
 
     public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators) {
@@ -75,6 +82,15 @@ public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators) {
     }
 
     public RangerResourceTrie(RangerResourceTrie<T> other) {
+        this(other, false);
+    }
+
+    /**
+     * Creates a copy of the given trie. When isCopyOnWrite is true, the copy shares its nodes with the given trie:
+     * add()/delete() on the copy replace only the nodes on the path to the updated resource, leaving the given trie
+     * unchanged for its concurrent readers.
+     */
+    public RangerResourceTrie(RangerResourceTrie<T> other, boolean isCopyOnWrite) {
         RangerPerfTracer perf = null;
 
         if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
@@ -84,19 +100,27 @@ public RangerResourceTrie(RangerResourceTrie<T> other) {
         this.resourceDef             = other.resourceDef;
         this.optIgnoreCase           = other.optIgnoreCase;
         this.optWildcard             = other.optWildcard;
+        this.optCompileWildcards     = other.optCompileWildcards;
         this.wildcardChars           = other.wildcardChars;
         this.isOptimizedForSpace     = other.isOptimizedForSpace;
         this.isOptimizedForRetrieval = other.isOptimizedForRetrieval;
         this.separatorChar           = other.separatorChar;
         this.inheritedEvaluators     = other.inheritedEvaluators != null ? new HashSet<>(other.inheritedEvaluators) : null;
-        this.root                    = copyTrieSubtree(other.root, null);
+        this.isCopyOnWrite           = isCopyOnWrite;
+        this.isCompactNodes          = other.isCompactNodes;
 
-        wrapUpUpdate();
+        if (isCopyOnWrite) {
+            this.root = copyTrieNode(other.root, null, true);
+        } else {
+            this.root = copyTrieSubtree(other.root, null);
+
+            wrapUpUpdate();
 
-        if (!isOptimizedForRetrieval) {
-            LOG.debug("Trie for {} is not optimized for retrieval. Resetting isSetup flag by calling undoSetup() on the root", this.resourceDef.getName());
+            if (!isOptimizedForRetrieval) {
+                LOG.debug("Trie for {} is not optimized for retrieval. Resetting isSetup flag by calling undoSetup() on the root", this.resourceDef.getName());
 
-            root.undoSetup();
+                root.undoSetup();
+            }
         }
 
         RangerPerfTracer.logAlways(perf);
@@ -115,7 +139,15 @@ public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators, boo
     }
 
     public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, RangerPluginContext pluginContext) {
-        LOG.debug("==> RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={})", resourceDef.getName(), evaluators.size(), isOptimizedForRetrieval, isOptimizedForSpace);
+        this(resourceDef, evaluators, isOptimizedForRetrieval, isOptimizedForSpace, false, pluginContext);
+    }
+
+    /**
+     * isCompactNodes: when true, children and evaluators of nodes are kept in arrays instead of HashMap/HashSet;
+     * this reduces the memory used by large tries, like those for HDFS paths.
+     */
+    public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, boolean isCompactNodes, RangerPluginContext pluginContext) {
+        LOG.debug("==> RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}, isCompactNodes={})", resourceDef.getName(), evaluators.size(), isOptimizedForRetrieval, isOptimizedForSpace, isCompactNodes);
 
         RangerPerfTracer perf = null;
 
@@ -156,10 +188,13 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
         this.resourceDef             = resourceDef;
         this.optIgnoreCase           = RangerAbstractResourceMatcher.getOptionIgnoreCase(matcherOptions);
         this.optWildcard             = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
+        this.optCompileWildcards     = optWildcard && RangerAbstractResourceMatcher.getOptionCompileWildCards(matcherOptions);
         this.wildcardChars           = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : tokenReplaceSpecialChars;
         this.isOptimizedForSpace     = isOptimizedForSpace;
         this.isOptimizedForRetrieval = !isOptimizedForSpace && isOptimizedForRetrieval;  // isOptimizedForSpace takes precedence
         this.separatorChar           = ServiceDefUtil.getCharOption(matcherOptions, OPTION_PATH_SEPARATOR, DEFAULT_PATH_SEPARATOR_CHAR);
+        this.isCopyOnWrite           = false;
+        this.isCompactNodes          = isCompactNodes;
 
         final TrieNode<T> tmpRoot = buildTrie(resourceDef, evaluators, builderThreadCount);
 
@@ -181,7 +216,7 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
             TRACE_LOG.trace("Trie Dump from RangerResourceTrie.init(name={}):\n[{}]", resourceDef.getName(), dumpTrie());
         }
 
-        LOG.debug("<== RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}): {}", resourceDef.getName(), evaluators.size(), this.isOptimizedForRetrieval, this.isOptimizedForSpace, this);
+        LOG.debug("<== RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}, isCompactNodes={}): {}", resourceDef.getName(), evaluators.size(), this.isOptimizedForRetrieval, this.isOptimizedForSpace, this.isCompactNodes, this);
     }
 
     public Set<T> getEvaluatorsForResource(Object resource) {
@@ -241,6 +276,10 @@ public void add(RangerPolicyResource resource, T evaluator) {
             } else {
                 if (CollectionUtils.isNotEmpty(resource.getValues())) {
                     for (String value : resource.getValues()) {
+                        if (isCopyOnWrite) {
+                            copyPathToNode(value, resource.getIsRecursive(), evaluator);
+                        }
+
                         insert(root, value, resource.getIsRecursive(), evaluator);
                     }
                 }
@@ -269,7 +308,7 @@ public void delete(RangerPolicyResource resource, T evaluator) {
             removeInheritedEvaluator(evaluator);
         } else {
             for (String value : resource.getValues()) {
-                TrieNode<T> node = getNodeForResource(value);
+                TrieNode<T> node = isCopyOnWrite ? copyPathToNode(value, false, evaluator) : getNodeForResource(value);
 
                 if (node != null) {
                     node.removeEvaluatorFromSubtree(evaluator);
@@ -374,7 +413,13 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
         boolean isSelfMatch = (i == len);
 
         if (!isOptimizedForSpace) {
-            handler.process(isSelfMatch ? curr.getEvaluators() : curr.getWildcardEvaluators());
+            Set<T> evaluators = isSelfMatch ? curr.getEvaluators() : curr.getWildcardEvaluators();
+
+            if (optCompileWildcards && (scope == null || scope == ResourceElementMatchingScope.SELF)) {
+                evaluators = curr.filterWildcardEvaluators(evaluators, resource);
+            }
+
+            handler.process(evaluators);
         } else {
             if (isSelfMatch) {
                 handler.process(curr.getEvaluators());
@@ -386,12 +431,14 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
 
             if (isSelfMatch) { // resource == path(curr)
                 if (resourceEndsWithSep) { // ex: resource=/tmp/
-                    curr.getChildren().values().forEach(c -> c.collectChildEvaluators(separatorChar, 0, handler));
+                    final TrieNode<T> parentNode = curr;
+
+                    parentNode.getChildren().values().forEach(c -> c.collectChildEvaluators(parentNode, separatorChar, 0, handler));
                 } else { // ex: resource=/tmp
-                    curr = curr.getChild(separatorChar);
+                    final TrieNode<T> sepNode = curr.getChild(separatorChar);
 
-                    if (curr != null) {
-                        curr.collectChildEvaluators(separatorChar, 1, handler);
+                    if (sepNode != null) {
+                        sepNode.collectChildEvaluators(curr, separatorChar, 1, handler);
                     }
                 }
             } else if (child != null) { // resource != path(child) ex: (resource=/tmp, path(child)=/tmp/test.txt or path(child)=/tmpdir)
@@ -400,9 +447,9 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
 
                 if (isPrefixMatch) {
                     if (resourceEndsWithSep) { // ex: resource=/tmp/
-                        child.collectChildEvaluators(separatorChar, remainingLen, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen, handler);
                     } else if (child.getStr().charAt(remainingLen) == separatorChar) { //  ex: resource=/tmp
-                        child.collectChildEvaluators(separatorChar, remainingLen + 1, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen + 1, handler);
                     }
                 }
             }
@@ -424,7 +471,9 @@ public String toString() {
         sb.append("resourceName=").append(resourceDef.getName());
         sb.append("; optIgnoreCase=").append(optIgnoreCase);
         sb.append("; optWildcard=").append(optWildcard);
+        sb.append("; optCompileWildcards=").append(optCompileWildcards);
         sb.append("; wildcardChars=").append(wildcardChars);
+        sb.append("; isCompactNodes=").append(isCompactNodes);
         sb.append("; nodeCount=").append(trieData.nodeCount);
         sb.append("; leafNodeCount=").append(trieData.leafNodeCount);
         sb.append("; singleChildNodeCount=").append(trieData.singleChildNodeCount);
@@ -441,6 +490,18 @@ TrieNode<T> getRoot() {
         return root;
     }
 
+    private <V> Set<V> newEvaluatorSet(Collection<V> evaluators) {
+        final Set<V> ret;
+
+        if (isCompactNodes) {
+            ret = evaluators != null ? new SmallArraySet<>(evaluators) : new SmallArraySet<>();
+        } else {
+            ret = evaluators != null ? new HashSet<>(evaluators) : new HashSet<>();
+        }
+
+        return ret;
+    }
+
     private void addInheritedEvaluator(T evaluator) {
         if (inheritedEvaluators == null) {
             inheritedEvaluators = new HashSet<>();
@@ -468,6 +529,28 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
             TRACE_LOG.trace("==> copyTrieSubtree({})", sb);
         }
 
+        TrieNode<T> dest = copyTrieNode(source, parent, false);
+
+        Map<Character, TrieNode<T>> children = source.getChildren();
+
+        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
+            copyTrieSubtree(entry.getValue(), dest);
+        }
+
+        if (TRACE_LOG.isTraceEnabled()) {
+            StringBuilder sourceAsString = new StringBuilder();
+            StringBuilder destAsString   = new StringBuilder();
+
+            source.toString(sourceAsString);
+            dest.toString(destAsString);
+
+            TRACE_LOG.trace("<== copyTrieSubtree({}) : {}", sourceAsString, destAsString);
+        }
+
+        return dest;
+    }
+
+    private TrieNode<T> copyTrieNode(final TrieNode<T> source, final TrieNode<T> parent, boolean isShareChildren) {
         TrieNode<T> dest = new TrieNode<>(source.str);
 
         if (parent != null) {
@@ -486,7 +569,7 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
                 }
             } else {
                 if (source.wildcardEvaluators != null) {
-                    dest.wildcardEvaluators = new HashSet<>(source.wildcardEvaluators);
+                    dest.wildcardEvaluators = newEvaluatorSet(source.wildcardEvaluators);
                 } else {
                     dest.wildcardEvaluators = null;
                 }
@@ -496,30 +579,97 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
                 if (source.evaluators == source.wildcardEvaluators) {
                     dest.evaluators = dest.wildcardEvaluators;
                 } else {
-                    dest.evaluators = new HashSet<>(source.evaluators);
+                    dest.evaluators = newEvaluatorSet(source.evaluators);
                 }
             } else {
                 dest.evaluators = null;
             }
+
+            if (isShareChildren) { // parent of the shared children continues to be the source node
+                dest.children.putAll(source.children);
+            }
         }
 
-        Map<Character, TrieNode<T>> children = source.getChildren();
+        return dest;
+    }
 
-        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
-            copyTrieSubtree(entry.getValue(), dest);
+    /*
+     * Replaces the nodes shared with other tries, on the path to the node for the given resource, with copies owned by
+     * this trie - so that insert() and delete() don't update nodes visible to readers of other tries. The subtree under
+     * a node whose wildcard-evaluators are updated is copied as well, as descendants include these evaluators.
+     *
+     * Returns the node for the resource, if one exists.
+     */
+    private TrieNode<T> copyPathToNode(String resource, boolean isRecursive, T evaluator) {
+        final String prefix     = getNonWildcardPrefix(resource);
+        final int    len        = prefix.length();
+        boolean      isWildcard = isRecursive || len != resource.length();
+        TrieNode<T>  curr       = root;
+        TrieNode<T>  child      = null;
+        int          i          = 0;
+
+        while (i < len) {
+            child = curr.getChild(getLookupChar(prefix, i));
+
+            if (child == null) {
+                break;
+            }
+
+            if (!child.isOwnedBy(this)) {
+                child = copyTrieNode(child, curr, true);
+            }
+
+            // match as done in TrieNode.getOrCreateChild(), so that insert() only updates the nodes copied here
+            final String childStr = child.getStr();
+            final int    childLen = childStr.length();
+            int          index    = 1;
+
+            if (childLen <= (len - i)) {
+                for (; index < childLen; index++) {
+                    if (!getLookupChar(childStr, index).equals(getLookupChar(prefix, i + index))) {
+                        break;
+                    }
+                }
+            }
+
+            if (index < childLen) { // the child will be split by insert()
+                break;
+            }
+
+            curr  = child;
+            child = null;
+            i += childLen;
         }
 
-        if (TRACE_LOG.isTraceEnabled()) {
-            StringBuilder sourceAsString = new StringBuilder();
-            StringBuilder destAsString   = new StringBuilder();
+        final TrieNode<T> ret;
 
-            source.toString(sourceAsString);
-            dest.toString(destAsString);
+        if (i == len) {
+            ret = curr;
 
-            TRACE_LOG.trace("<== copyTrieSubtree({}) : {}", sourceAsString, destAsString);
+            if (!isWildcard) {
+                Set<T> wildcardEvaluators = curr.getWildcardEvaluators();
+
+                isWildcard = wildcardEvaluators != null && wildcardEvaluators.contains(evaluator);
+            }
+
+            if (isWildcard) {
+                for (TrieNode<T> node : new ArrayList<>(curr.getChildren().values())) {
+                    copyTrieSubtree(node, curr);
+                }
+
+                curr.undoSetup();
+            } else {
+                curr.unshareEvaluators();
+            }
+        } else {
+            ret = null;
+
+            if (child != null && isWildcard) { // the child will become a descendant of the node for the resource
+                copyTrieSubtree(child, curr).undoSetup();
+            }
         }
 
-        return dest;
+        return ret;
     }
 
     private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluators, int builderThreadCount) {
@@ -801,6 +951,77 @@ static class TrieData {
         int wildcardEvaluatorListRefCount;
     }
 
+    /*
+     * matches a resource value with values of all wildcard-evaluators of a trie node, in one pass over the value, by
+     * compiling the values into a MultiWildcardMatcher. Evaluators whose matchers can't be expressed as wildcard
+     * patterns are not compiled, and are never removed by filter()
+     */
+    static final class WildcardEvaluatorsMatcher<V extends RangerResourceEvaluator> {
+        private final Set<V>               evaluators;         // wildcard-evaluators this matcher is built for
+        private final int                  evaluatorsCount;
+        private final List<V>              compiledEvaluators;
+        private final int[]                patternEvaluators;  // index in compiledEvaluators of the evaluator of each pattern
+        private final MultiWildcardMatcher matcher;            // null if no evaluator is compiled
+
+        WildcardEvaluatorsMatcher(Set<V> evaluators, String resourceName, boolean isCaseSensitive) {
+            List<V>       compiledEvaluators = new ArrayList<>();
+            List<String>  patterns           = new ArrayList<>();
+            List<Integer> patternEvaluators  = new ArrayList<>();
+
+            for (V evaluator : evaluators) {
+                RangerResourceMatcher resourceMatcher   = evaluator.getResourceMatcher(resourceName);
+                List<String>          evaluatorPatterns = resourceMatcher instanceof RangerAbstractResourceMatcher ? ((RangerAbstractResourceMatcher) resourceMatcher).getWildcardPatterns(isCaseSensitive) : null;
+
+                if (evaluatorPatterns != null && !evaluatorPatterns.isEmpty()) {
+                    for (String pattern : evaluatorPatterns) {
+                        patterns.add(pattern);
+                        patternEvaluators.add(compiledEvaluators.size());
+                    }
+
+                    compiledEvaluators.add(evaluator);
+                }
+            }
+
+            this.evaluators         = evaluators;
+            this.evaluatorsCount    = evaluators.size();
+            this.compiledEvaluators = compiledEvaluators;
+            this.patternEvaluators  = patternEvaluators.stream().mapToInt(Integer::intValue).toArray();
+            this.matcher            = patterns.isEmpty() ? null : new MultiWildcardMatcher(patterns, isCaseSensitive);
+
+            LOG.debug("WildcardEvaluatorsMatcher(resourceName={}): evaluatorsCount={}, compiledEvaluatorsCount={}, patternsCount={}", resourceName, evaluatorsCount, compiledEvaluators.size(), patterns.size());
+        }
+
+        boolean isBuiltFor(Set<V> evaluators) {
+            return this.evaluators == evaluators && this.evaluatorsCount == evaluators.size();
+        }
+
+        // returns the given evaluators, less the compiled evaluators whose values don't match the resource value
+        Set<V> filter(Set<V> evaluators, String value) {
+            if (matcher == null) {
+                return evaluators;
+            }
+
+            BitSet matchingPatterns   = matcher.getMatchingPatterns(value);
+            BitSet matchingEvaluators = new BitSet(compiledEvaluators.size());
+
+            for (int i = matchingPatterns.nextSetBit(0); i >= 0; i = matchingPatterns.nextSetBit(i + 1)) {
+                matchingEvaluators.set(patternEvaluators[i]);
+            }
+
+            if (matchingEvaluators.cardinality() == compiledEvaluators.size()) {
+                return evaluators;
+            }
+
+            Set<V> ret = new HashSet<>(evaluators);
+
+            for (int i = matchingEvaluators.nextClearBit(0); i < compiledEvaluators.size(); i = matchingEvaluators.nextClearBit(i + 1)) {
+                ret.remove(compiledEvaluators.get(i));
+            }
+
+            return ret;
+        }
+    }
+
     public static class EvalCollector<T extends RangerResourceEvaluator> implements TraverseMatchHandler<T> {
         private final Predicate predicate;
         private       Set<T>    result;
@@ -991,13 +1212,14 @@ public String toString() {
     }
 
     class TrieNode<U extends T> {
-        private final    Map<Character, TrieNode<U>> children = new HashMap<>();
-        private          String                      str;
-        private          TrieNode<U>                 parent;
-        private volatile Set<U>                      evaluators;
-        private volatile Set<U>                      wildcardEvaluators;
-        private          boolean                     isSharingParentWildcardEvaluators;
-        private volatile boolean                     isSetup;
+        private final    Map<Character, TrieNode<U>>  children = isCompactNodes ? new CharArrayMap<>() : new HashMap<>();
+        private          String                       str;
+        private          TrieNode<U>                  parent;
+        private volatile Set<U>                       evaluators;
+        private volatile Set<U>                       wildcardEvaluators;
+        private          boolean                      isSharingParentWildcardEvaluators;
+        private volatile boolean                      isSetup;
+        private volatile WildcardEvaluatorsMatcher<U> wildcardEvaluatorsMatcher; // built on first lookup that ends at this node
 
         TrieNode(String str) {
             this.str = str;
@@ -1042,6 +1264,10 @@ TrieNode<U> getChild(Character ch) {
             return children.get(ch);
         }
 
+        boolean isOwnedBy(RangerResourceTrie<?> trie) {
+            return RangerResourceTrie.this == trie;
+        }
+
         void populateTrieData(RangerResourceTrie.TrieData trieData) {
             trieData.nodeCount++;
 
@@ -1149,7 +1375,7 @@ TrieNode<U> getOrCreateChild(String str) {
 
         void addEvaluator(U evaluator) {
             if (evaluators == null) {
-                evaluators = new HashSet<>();
+                evaluators = newEvaluatorSet(null);
             }
 
             evaluators.add(evaluator);
@@ -1157,10 +1383,12 @@ void addEvaluator(U evaluator) {
 
         void addWildcardEvaluator(U evaluator) {
             if (wildcardEvaluators == null) {
-                wildcardEvaluators = new HashSet<>();
+                wildcardEvaluators = newEvaluatorSet(null);
             }
 
             wildcardEvaluators.add(evaluator);
+
+            wildcardEvaluatorsMatcher = null;
         }
 
         void removeEvaluator(U evaluator) {
@@ -1181,6 +1409,32 @@ void removeWildcardEvaluator(U evaluator) {
                     wildcardEvaluators = null;
                 }
             }
+
+            wildcardEvaluatorsMatcher = null;
+        }
+
+        /*
+         * removes, from the given evaluators, wildcard-evaluators of this node whose values don't match the resource.
+         * Values of all wildcard-evaluators are matched in one pass, by a matcher compiled on first use. Evaluators whose
+         * values can't be compiled - for example, those with macros like ${USER} or recursive paths - are not removed;
+         * these are matched by their policy resource matchers, one at a time, as before
+         */
+        Set<U> filterWildcardEvaluators(Set<U> evaluators, String resource) {
+            Set<U> wildcardEvaluators = this.wildcardEvaluators;
+
+            if (evaluators == null || wildcardEvaluators == null || resource.isEmpty() || RangerAbstractResourceMatcher.WILDCARD_ASTERISK.equals(resource)) {
+                return evaluators;
+            }
+
+            WildcardEvaluatorsMatcher<U> matcher = wildcardEvaluatorsMatcher;
+
+            if (matcher == null || !matcher.isBuiltFor(wildcardEvaluators)) { // sets shared with the parent are updated via the parent
+                matcher = new WildcardEvaluatorsMatcher<>(wildcardEvaluators, resourceDef.getName(), !optIgnoreCase);
+
+                wildcardEvaluatorsMatcher = matcher;
+            }
+
+            return matcher.filter(evaluators, resource);
         }
 
         void undoSetup() {
@@ -1188,6 +1442,17 @@ void undoSetup() {
                 child.undoSetup();
             }
 
+            undoNodeSetup();
+        }
+
+        // after setup, evaluators could be the same set as wildcardEvaluators; ensure that updates to evaluators don't update wildcardEvaluators
+        void unshareEvaluators() {
+            if (evaluators != null && evaluators == wildcardEvaluators) {
+                evaluators = newEvaluatorSet(wildcardEvaluators);
+            }
+        }
+
+        private void undoNodeSetup() {
             if (isSetup) {
                 if (evaluators != null) {
                     if (evaluators == wildcardEvaluators) {
@@ -1221,6 +1486,7 @@ void undoSetup() {
 
                 isSharingParentWildcardEvaluators = false;
                 isSetup                           = false;
+                wildcardEvaluatorsMatcher         = null;
             }
         }
 
@@ -1260,6 +1526,10 @@ void postSetup(Set<U> parentWildcardEvaluators) {
             for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
                 TrieNode<U> child = entry.getValue();
 
+                if (child.isSetup && !child.isOwnedBy(RangerResourceTrie.this)) { // subtree shared with another trie is already setup
+                    continue;
+                }
+
                 child.postSetup(wildcardEvaluators);
             }
         }
@@ -1300,6 +1570,7 @@ void setup(Set<U> parentWildcardEvaluators) {
                 }
 
                 this.isSharingParentWildcardEvaluators = wildcardEvaluators == parentWildcardEvaluators;
+                this.wildcardEvaluatorsMatcher         = null;
 
                 // finalize evaluators list by including wildcard evaluators
                 if (wildcardEvaluators != null) {
@@ -1315,9 +1586,10 @@ void setup(Set<U> parentWildcardEvaluators) {
             }
         }
 
-        void collectChildEvaluators(Character sep, int startIdx, TraverseMatchHandler<U> handler) {
+        // parent in the traversal is used for setup, instead of getParent(), as nodes can be shared by copy-on-write tries
+        void collectChildEvaluators(TrieNode<U> parent, Character sep, int startIdx, TraverseMatchHandler<U> handler) {
             if (!isOptimizedForSpace) {
-                setupIfNeeded(getParent());
+                setupIfNeeded(parent);
             }
 
             final int sepPos = startIdx < str.length() ? str.indexOf(sep, startIdx) : -1;
@@ -1329,7 +1601,7 @@ void collectChildEvaluators(Character sep, int startIdx, TraverseMatchHandler<U>
 
                 handler.process(this.evaluators);
 
-                children.values().forEach(c -> c.collectChildEvaluators(sep, 0, handler));
+                children.values().forEach(c -> c.collectChildEvaluators(this, sep, 0, handler));
             } else if (sepPos == (str.length() - 1)) { // ex: str=/tmp/test/, startIdx=5
                 if (isOptimizedForSpace) {
                     handler.process(this.wildcardEvaluators);
@@ -1348,7 +1620,7 @@ void collectChildEvaluators(String resource, int startIndex, TraverseMatchHandle
 
                 if (childNode != null) {
                     if (!isOptimizedForSpace) {
-                        childNode.setupIfNeeded(childNode.getParent());
+                        childNode.setupIfNeeded(this);
                     }
 
                     String childStr   = childNode.getStr();
@@ -1418,19 +1690,25 @@ private void addChild(TrieNode<U> child) {
         private void collectChildEvaluators(TraverseMatchHandler<U> childEvaluators) {
             Stack<TrieNode<U>> nodes = new Stack<>();
 
-            nodes.addAll(children.values());
+            pushChildren(this, nodes);
 
             while (!nodes.isEmpty()) {
                 TrieNode<U> childNode = nodes.pop();
 
-                if (!isOptimizedForSpace) {
-                    childNode.setupIfNeeded(childNode.getParent());
-                }
-
                 childEvaluators.process(childNode.wildcardEvaluators);
                 childEvaluators.process(childNode.evaluators);
 
-                nodes.addAll(childNode.children.values());
+                pushChildren(childNode, nodes);
+            }
+        }
+
+        private void pushChildren(TrieNode<U> node, Stack<TrieNode<U>> nodes) {
+            for (TrieNode<U> child : node.children.values()) {
+                if (!isOptimizedForSpace) {
+                    child.setupIfNeeded(node);
+                }
+
+                nodes.push(child);
             }
         }
 
@@ -28,26 +28,40 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RangerSecurityZoneMatcher {
-    private static final Logger LOG = LoggerFactory.getLogger(RangerSecurityZoneMatcher.class);
+    private static final Logger LOG      = LoggerFactory.getLogger(RangerSecurityZoneMatcher.class);
+    private static final Logger PERF_LOG = RangerPerfTracer.getPerfLogger("policyengine.zonematcher");
+
+    private static final Set<String> NO_ZONES = Collections.unmodifiableSet(new HashSet<>()); // cached for resources that don't match any zone
 
     private final Map<String, RangerResourceTrie<RangerZoneResourceMatcher>> resourceZoneTrie;
     private final Set<String>                                                zonesWithTagService;
     private final RangerServiceDef                                           serviceDef;
+    private final Set<String>                                                singleZone;           // zone-name, if there is only one zone
+    private final Set<String>                                                singleZoneAndUnzoned; // zone-name and "", if there is only one zone
+    private final ConcurrentCacheMap<String, Set<String>>                    zonesCache;           // resource-signature => zone-names; null if disabled
+    private final AtomicLong                                                 lookupCount    = new AtomicLong();
+    private final AtomicLong                                                 lookupTimeNs   = new AtomicLong();
+    private final AtomicLong                                                 cacheHitCount  = new AtomicLong();
+    private final AtomicLong                                                 cacheMissCount = new AtomicLong();
 
     public RangerSecurityZoneMatcher(Map<String, SecurityZoneInfo> securityZones, RangerServiceDef serviceDef, RangerPluginContext pluginContext) {
         this.resourceZoneTrie    = new HashMap<>();
@@ -55,6 +69,20 @@ public RangerSecurityZoneMatcher(Map<String, SecurityZoneInfo> securityZones, Ra
         this.serviceDef          = serviceDef;
 
         buildZoneTrie(securityZones, serviceDef, pluginContext);
+
+        if (securityZones != null && securityZones.size() == 1 && !resourceZoneTrie.isEmpty()) {
+            String zoneName = securityZones.keySet().iterator().next();
+
+            this.singleZone           = Collections.singleton(zoneName);
+            this.singleZoneAndUnzoned = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(zoneName, "")));
+        } else {
+            this.singleZone           = null;
+            this.singleZoneAndUnzoned = null;
+        }
+
+        int cacheSize = (resourceZoneTrie.isEmpty() || pluginContext == null) ? 0 : pluginContext.getConfig().getPolicyEngineOptions().zoneResourceCacheSize;
+
+        this.zonesCache = cacheSize > 0 ? new ConcurrentCacheMap<>(cacheSize) : null;
     }
 
     public boolean hasTagService(String zoneName) {
@@ -62,13 +90,47 @@ public boolean hasTagService(String zoneName) {
     }
 
     public Set<String> getZonesForResourceAndChildren(Map<String, ?> resource) {
-        return getZonesForResourceAndChildren(resource, convertToAccessResource(resource));
+        if (resourceZoneTrie.isEmpty()) { // no zones
+            return null;
+        }
+
+        return getZonesForResourceAndChildren(resource, null);
     }
 
     public Set<String> getZonesForResourceAndChildren(RangerAccessResource resource) {
+        if (resourceZoneTrie.isEmpty()) { // no zones
+            return null;
+        }
+
         return getZonesForResourceAndChildren(resource.getAsMap(), resource);
     }
 
+    public long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    public long getLookupTimeNanos() {
+        return lookupTimeNs.get();
+    }
+
+    public long getAvgLookupTimeNanos() {
+        long count = lookupCount.get();
+
+        return count > 0 ? (lookupTimeNs.get() / count) : 0;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    public int getCacheSize() {
+        return zonesCache != null ? zonesCache.size() : 0;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(resourceZoneTrie, zonesWithTagService);
@@ -88,12 +150,62 @@ public boolean equals(Object obj) {
                 Objects.equals(zonesWithTagService, other.zonesWithTagService);
     }
 
+    @Override
+    public String toString() {
+        return "RangerSecurityZoneMatcher={lookupCount=" + lookupCount + ", avgLookupTimeNanos=" + getAvgLookupTimeNanos() + ", isSingleZone=" + (singleZone != null) +
+                ", cacheSize=" + getCacheSize() + ", cacheHitCount=" + cacheHitCount + ", cacheMissCount=" + cacheMissCount + "}";
+    }
+
     private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
+        RangerPerfTracer perf      = null;
+        long             startTime = System.nanoTime();
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerSecurityZoneMatcher.getZonesForResourceAndChildren(resource=" + resource + ")");
+        }
+
+        Set<String> ret;
+        String      cacheKey = zonesCache != null ? getCacheKey(resource) : null;
+        Set<String> cached   = cacheKey != null ? zonesCache.get(cacheKey) : null;
+
+        if (cached != null) {
+            cacheHitCount.incrementAndGet();
+
+            ret = cached == NO_ZONES ? null : cached;
+        } else {
+            if (accessResource == null) {
+                accessResource = convertToAccessResource(resource);
+            }
+
+            ret = findZonesForResourceAndChildren(resource, accessResource);
+
+            if (cacheKey != null) {
+                cacheMissCount.incrementAndGet();
+
+                if (ret != null) {
+                    ret = Collections.unmodifiableSet(ret);
+                }
+
+                zonesCache.put(cacheKey, ret == null ? NO_ZONES : ret);
+            }
+        }
+
+        lookupCount.incrementAndGet();
+        lookupTimeNs.addAndGet(System.nanoTime() - startTime);
+
+        RangerPerfTracer.log(perf);
+
+        return ret;
+    }
+
+    private Set<String> findZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
         LOG.debug("==> RangerSecurityZoneMatcher.getZonesForResourceAndChildren({})", accessResource);
 
         Set<String> ret = null;
 
-        if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
+        if (singleZone != null) {
+            ret = findSingleZoneForResourceAndChildren(resource, accessResource);
+        } else if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
             Collection<RangerZoneResourceMatcher> matchers = RangerResourceEvaluatorsRetriever.getEvaluators(resourceZoneTrie, resource);
 
             if (CollectionUtils.isNotEmpty(matchers)) {
@@ -131,6 +243,72 @@ private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, Rang
         return ret;
     }
 
+    /*
+     * with only one zone, the result is one of: null, {}, {zone} and {zone, ""}. Returns one of the preallocated sets,
+     * and stops matching once a DESCENDANT match finds both zone and unzoned
+     */
+    private Set<String> findSingleZoneForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
+        Set<String>                           ret      = null;
+        Collection<RangerZoneResourceMatcher> matchers = RangerResourceEvaluatorsRetriever.getEvaluators(resourceZoneTrie, resource);
+
+        if (CollectionUtils.isNotEmpty(matchers)) {
+            ret = Collections.emptySet();
+
+            for (RangerZoneResourceMatcher matcher : matchers) {
+                MatchType matchType = matcher.getPolicyResourceMatcher().getMatchType(accessResource, null);
+
+                if (matchType == MatchType.DESCENDANT) {
+                    ret = singleZoneAndUnzoned;
+
+                    break;
+                } else if (matchType != MatchType.NONE) {
+                    ret = singleZone;
+                }
+            }
+        }
+
+        LOG.debug("RangerSecurityZoneMatcher.findSingleZoneForResourceAndChildren({}): ret={}", accessResource, ret);
+
+        return ret;
+    }
+
+    /*
+     * returns a key that uniquely identifies values of the resource; null if the resource has a value other than a
+     * string, or a resource not in the service-def
+     */
+    private String getCacheKey(Map<String, ?> resource) {
+        StringBuilder sb         = new StringBuilder();
+        int           foundCount = 0;
+
+        for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+            String resourceName = resourceDef.getName();
+
+            if (!resource.containsKey(resourceName)) {
+                continue;
+            }
+
+            Object value = resource.get(resourceName);
+
+            foundCount++;
+
+            sb.append(resourceName).append('=');
+
+            if (value instanceof String) {
+                String strValue = (String) value;
+
+                sb.append(strValue.length()).append(':').append(strValue);
+            } else if (value == null) {
+                sb.append('-');
+            } else {
+                return null;
+            }
+
+            sb.append(';');
+        }
+
+        return foundCount == resource.size() ? sb.toString() : null;
+    }
+
     private void buildZoneTrie(Map<String, SecurityZoneInfo> securityZones, RangerServiceDef serviceDef, RangerPluginContext pluginContext) {
         LOG.debug("==> RangerSecurityZoneMatcher.buildZoneTrie()");
 
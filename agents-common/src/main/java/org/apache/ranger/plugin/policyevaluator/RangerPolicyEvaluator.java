@@ -124,6 +124,10 @@ static boolean containsAny(Collection<String> coll1, Collection<String> coll2) {
 
     int getValidityScheduleEvaluatorsCount();
 
+    default boolean hasConditionsOrValiditySchedules() {
+        return getPolicyConditionsCount() > 0 || getCustomConditionsCount() > 0 || getValidityScheduleEvaluatorsCount() > 0;
+    }
+
     boolean isAuditEnabled();
 
     void evaluate(RangerAccessRequest request, RangerAccessResult result);
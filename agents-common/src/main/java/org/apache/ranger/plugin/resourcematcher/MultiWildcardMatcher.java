@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a value against a set of wildcard patterns - with the semantics of FilenameUtils.wildcardMatch() - in a
+ * single pass over the value, using a bit-parallel (Shift-And) simulation of the NFA of all patterns.
+ *
+ * Each character or '?' of a pattern is a state, represented by a bit; a '*' is a self-loop on the state preceding it.
+ * Bits of all patterns are laid out one after another in a long[], so that one shift-and step advances every pattern.
+ *
+ * Used to match all wildcard values of a policy resource (RangerAbstractResourceMatcher), all wildcard values of
+ * evaluators at a node of RangerResourceTrie, and ancestors of a path with a recursive wildcard value.
+ */
+public final class MultiWildcardMatcher {
+    private static final int ASCII_SIZE = 128;
+
+    private final int                    patternCount;
+    private final boolean                isCaseSensitive;
+    private final int[]                  lastBits;          // index of the final state of each pattern
+    private final long[]                 firstMask;         // first state of each pattern
+    private final long[]                 startLoopMask;     // first state of patterns that start with '*'
+    private final long[]                 selfLoopMask;      // states followed by '*'
+    private final long[]                 finalMask;         // final state of each pattern
+    private final long[]                 anyCharMask;       // states for '?'; these match any character
+    private final long[][]               asciiCharMasks = new long[ASCII_SIZE][];
+    private final Map<Character, long[]> otherCharMasks = new HashMap<>();
+    private final boolean                hasStartLoop;
+
+    public MultiWildcardMatcher(List<String> patterns, boolean isCaseSensitive) {
+        int stateCount = 0;
+
+        for (String pattern : patterns) {
+            if (!isCompilable(pattern)) {
+                throw new IllegalArgumentException("pattern can't be compiled: " + pattern);
+            }
+
+            stateCount += getStateCount(pattern);
+        }
+
+        int wordCount = (stateCount + Long.SIZE - 1) / Long.SIZE;
+
+        this.patternCount    = patterns.size();
+        this.isCaseSensitive = isCaseSensitive;
+        this.lastBits        = new int[patternCount];
+        this.firstMask       = new long[wordCount];
+        this.startLoopMask   = new long[wordCount];
+        this.selfLoopMask    = new long[wordCount];
+        this.finalMask       = new long[wordCount];
+        this.anyCharMask     = new long[wordCount];
+
+        boolean hasStartLoop = false;
+        int     bit          = 0;
+
+        for (int i = 0; i < patternCount; i++) {
+            String pattern  = patterns.get(i);
+            int    startBit = bit;
+
+            setBit(firstMask, bit);
+
+            for (int j = 0; j < pattern.length(); j++) {
+                char c = pattern.charAt(j);
+
+                if (c == '*') {
+                    if (bit == startBit) {
+                        setBit(startLoopMask, bit);
+
+                        hasStartLoop = true;
+                    } else {
+                        setBit(selfLoopMask, bit - 1);
+                    }
+                } else {
+                    if (c == '?') {
+                        setBit(anyCharMask, bit);
+                    } else {
+                        setBit(getOrCreateCharMask(toKey(c), wordCount), bit);
+                    }
+
+                    bit++;
+                }
+            }
+
+            lastBits[i] = bit - 1;
+
+            setBit(finalMask, bit - 1);
+        }
+
+        this.hasStartLoop = hasStartLoop;
+
+        // '?' matches every character, including those that have their own mask
+        for (long[] charMask : asciiCharMasks) {
+            if (charMask != null) {
+                or(charMask, anyCharMask);
+            }
+        }
+
+        for (long[] charMask : otherCharMasks.values()) {
+            or(charMask, anyCharMask);
+        }
+    }
+
+    /*
+     * FilenameUtils.wildcardMatch() ignores a '*' that is followed by '?' - for example, "b*?" doesn't match "bab". Such
+     * patterns are not compiled, to keep the results same as FilenameUtils.wildcardMatch()
+     */
+    public static boolean isCompilable(String pattern) {
+        return pattern != null && getStateCount(pattern) > 0 && !pattern.contains("*?");
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public boolean isMatch(String value) {
+        long[] states = getFinalStates(value);
+
+        return states != null && intersects(states, finalMask);
+    }
+
+    /*
+     * returns indexes of patterns that match the given value
+     */
+    public BitSet getMatchingPatterns(String value) {
+        BitSet ret    = new BitSet(patternCount);
+        long[] states = getFinalStates(value);
+
+        if (states != null && intersects(states, finalMask)) {
+            for (int i = 0; i < patternCount; i++) {
+                if (isBitSet(states, lastBits[i])) {
+                    ret.set(i);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns true if a prefix of the value that ends before a separator, or at the end of a value that doesn't end with
+     * the separator, matches one of the patterns; only prefixes longer than minLength are considered. Matches all
+     * prefixes in one pass over the value
+     */
+    public boolean isPrefixMatchAtSeparator(String value, char separator, int minLength) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+
+        int    len    = value.length();
+        long[] states = new long[firstMask.length];
+        long[] next   = new long[firstMask.length];
+
+        for (int i = 0; i < len; i++) {
+            boolean isEmpty = advance(states, next, value.charAt(i), i == 0);
+            long[]  tmp     = states;
+
+            states = next;
+            next   = tmp;
+
+            if (isEmpty && !hasStartLoop) {
+                return false; // no pattern can match a longer prefix
+            }
+
+            int prefixLen = i + 1;
+
+            if (prefixLen > minLength && (prefixLen < len ? value.charAt(prefixLen) == separator : value.charAt(i) != separator) && intersects(states, finalMask)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private long[] getFinalStates(String value) {
+        if (value == null || value.isEmpty()) {
+            return null; // every pattern has at least one character to match
+        }
+
+        long[] states = new long[firstMask.length];
+        long[] next   = new long[firstMask.length];
+
+        for (int i = 0; i < value.length(); i++) {
+            boolean isEmpty = advance(states, next, value.charAt(i), i == 0);
+            long[]  tmp     = states;
+
+            states = next;
+            next   = tmp;
+
+            if (isEmpty && !hasStartLoop) {
+                return null; // no pattern can match the rest of the value
+            }
+        }
+
+        return states;
+    }
+
+    // computes in next the states after the given character; returns true if no state is active
+    private boolean advance(long[] states, long[] next, char c, boolean isFirstChar) {
+        long[]  initial  = isFirstChar ? firstMask : startLoopMask;
+        long[]  charMask = getCharMask(c);
+        long    carry    = 0;
+        boolean isEmpty  = true;
+
+        for (int w = 0; w < states.length; w++) {
+            long state   = states[w];
+            long shifted = ((state << 1) | carry) & ~firstMask[w];
+
+            carry = state >>> (Long.SIZE - 1);
+
+            next[w] = ((shifted | initial[w]) & charMask[w]) | (state & selfLoopMask[w]);
+
+            if (next[w] != 0) {
+                isEmpty = false;
+            }
+        }
+
+        return isEmpty;
+    }
+
+    private long[] getCharMask(char c) {
+        char   key = toKey(c);
+        long[] ret = key < ASCII_SIZE ? asciiCharMasks[key] : otherCharMasks.get(key);
+
+        return ret != null ? ret : anyCharMask;
+    }
+
+    private long[] getOrCreateCharMask(char key, int wordCount) {
+        long[] ret;
+
+        if (key < ASCII_SIZE) {
+            ret = asciiCharMasks[key];
+
+            if (ret == null) {
+                ret = new long[wordCount];
+
+                asciiCharMasks[key] = ret;
+            }
+        } else {
+            ret = otherCharMasks.computeIfAbsent(key, k -> new long[wordCount]);
+        }
+
+        return ret;
+    }
+
+    // same equivalence as String.regionMatches(true, ...), used by FilenameUtils.wildcardMatch() with IOCase.INSENSITIVE
+    private char toKey(char c) {
+        return isCaseSensitive ? c : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int getStateCount(String pattern) {
+        int ret = 0;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) != '*') {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    private static void setBit(long[] bits, int bit) {
+        bits[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+    }
+
+    private static boolean isBitSet(long[] bits, int bit) {
+        return (bits[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) != 0;
+    }
+
+    private static boolean intersects(long[] bits1, long[] bits2) {
+        for (int i = 0; i < bits1.length; i++) {
+            if ((bits1[i] & bits2[i]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void or(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= bits[i];
+        }
+    }
+}
@@ -52,6 +52,7 @@ public abstract class RangerAbstractResourceMatcher implements RangerResourceMat
     public static final String OPTION_TOKEN_DELIMITER_ESCAPE  = "tokenDelimiterEscape";
     public static final String OPTION_TOKEN_DELIMITER_PREFIX  = "tokenDelimiterPrefix";
     public static final String OPTION_REPLACE_REQ_EXPRESSIONS = "replaceReqExpressions";
+    public static final String OPTION_COMPILE_WILD_CARDS      = "compileWildCards";
 
     protected RangerResourceDef      resourceDef;
     protected RangerPolicyResource   policyResource;
@@ -59,6 +60,7 @@ public abstract class RangerAbstractResourceMatcher implements RangerResourceMat
     protected boolean                optQuotedCaseSensitive;
     protected String                 optQuoteChars = "\"";
     protected boolean                optWildCard;
+    protected boolean                optCompileWildCards;
     protected List<String>           policyValues;
     protected boolean                policyIsExcludes;
     protected boolean                isMatchAny;
@@ -85,6 +87,10 @@ public static boolean getOptionWildCard(Map<String, String> options) {
         return ServiceDefUtil.getBooleanOption(options, OPTION_WILD_CARD, true);
     }
 
+    public static boolean getOptionCompileWildCards(Map<String, String> options) {
+        return ServiceDefUtil.getBooleanOption(options, OPTION_COMPILE_WILD_CARDS, false);
+    }
+
     public static boolean getOptionReplaceTokens(Map<String, String> options) {
         return ServiceDefUtil.getBooleanOption(options, OPTION_REPLACE_TOKENS, true);
     }
@@ -129,6 +135,7 @@ public void init() {
         optQuotedCaseSensitive = getOptionQuotedCaseSensitive(options);
         optQuoteChars          = getOptionQuoteChars(options);
         optWildCard            = getOptionWildCard(options);
+        optCompileWildCards    = optWildCard && getOptionCompileWildCards(options);
 
         policyValues     = new ArrayList<>();
         policyIsExcludes = policyResource != null && policyResource.getIsExcludes();
@@ -236,6 +243,7 @@ public StringBuilder toString(StringBuilder sb) {
         sb.append("optQuotedCaseSensitive={").append(optQuotedCaseSensitive).append("} ");
         sb.append("optQuoteChars={").append(optQuoteChars).append("} ");
         sb.append("optWildCard={").append(optWildCard).append("} ");
+        sb.append("optCompileWildCards={").append(optCompileWildCards).append("} ");
 
         sb.append("policyValues={");
         if (policyValues != null) {
@@ -309,12 +317,70 @@ protected ResourceMatcherWrapper buildResourceMatchers() {
             }
         }
 
+        if (optCompileWildCards) {
+            compileWildcardMatchers(resourceMatchers);
+        }
+
         resourceMatchers.sort(new ResourceMatcher.PriorityComparator());
 
         return CollectionUtils.isNotEmpty(resourceMatchers) ?
                 new ResourceMatcherWrapper(needsDynamicEval, resourceMatchers) : null;
     }
 
+    /*
+     * replaces wildcard matchers having the same case-sensitivity with a single matcher, which matches all their values
+     * in one pass over the resource. Matchers of values with macros, like ${USER}, are not compiled: as their values are
+     * known only at the time of evaluation, these continue to be evaluated one at a time
+     */
+    protected void compileWildcardMatchers(List<ResourceMatcher> resourceMatchers) {
+        List<ResourceMatcher> caseSensitiveMatchers   = new ArrayList<>();
+        List<ResourceMatcher> caseInsensitiveMatchers = new ArrayList<>();
+
+        for (ResourceMatcher matcher : resourceMatchers) {
+            IOCase ioCase = matcher.getNeedsDynamicEval() ? null : matcher.getWildcardMatchCase();
+
+            if (ioCase != null && MultiWildcardMatcher.isCompilable(matcher.value)) {
+                (ioCase.isCaseSensitive() ? caseSensitiveMatchers : caseInsensitiveMatchers).add(matcher);
+            }
+        }
+
+        if (caseSensitiveMatchers.size() > 1) {
+            resourceMatchers.removeAll(caseSensitiveMatchers);
+            resourceMatchers.add(new MultiWildcardResourceMatcher(caseSensitiveMatchers, true, getOptions()));
+        }
+
+        if (caseInsensitiveMatchers.size() > 1) {
+            resourceMatchers.removeAll(caseInsensitiveMatchers);
+            resourceMatchers.add(new MultiWildcardResourceMatcher(caseInsensitiveMatchers, false, getOptions()));
+        }
+
+        LOG.debug("compileWildcardMatchers(): caseSensitiveCount={}, caseInsensitiveCount={}", caseSensitiveMatchers.size(), caseInsensitiveMatchers.size());
+    }
+
+    /**
+     * Returns wildcard patterns - with the semantics of FilenameUtils.wildcardMatch() and the given case-sensitivity -
+     * such that, for scope SELF, a resource value other than "" and "*" matches this matcher exactly when it matches one
+     * of the patterns. Returns null if the matcher can't be expressed so: when it matches any value, is an excludes, or
+     * has a value with macros like {USER}, request expressions, or a recursive path value.
+     */
+    public List<String> getWildcardPatterns(boolean isCaseSensitive) {
+        List<String> ret = null;
+
+        if (!policyIsExcludes && !isMatchAny && resourceMatchers != null) {
+            ret = new ArrayList<>();
+
+            for (ResourceMatcher matcher : resourceMatchers.getResourceMatchers()) {
+                if (!matcher.addWildcardPatterns(isCaseSensitive, ret)) {
+                    ret = null;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     boolean isAllValuesRequested(Object resource) {
         final boolean result;
 
@@ -417,6 +483,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.equals(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value, true, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWith(getExpandedValue(evalContext), resourceValue);
@@ -437,6 +508,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.equalsIgnoreCase(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value, false, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWithIgnoreCase(getExpandedValue(evalContext), resourceValue);
@@ -489,6 +565,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWith(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value + WILDCARD_ASTERISK, true, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWith(getExpandedValue(evalContext), resourceValue);
@@ -509,6 +590,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWithIgnoreCase(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value + WILDCARD_ASTERISK, false, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.startsWithIgnoreCase(getExpandedValue(evalContext), resourceValue);
@@ -561,6 +647,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.endsWith(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(WILDCARD_ASTERISK + value, true, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return true; // isPrefixMatch() is always true for endsWith
@@ -581,6 +672,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return StringUtils.endsWithIgnoreCase(resourceValue, getExpandedValue(evalContext));
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(WILDCARD_ASTERISK + value, false, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return true; // isPrefixMatch() is always true for endsWith
@@ -629,6 +725,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
         }
 
+        @Override
+        IOCase getWildcardMatchCase() {
+            return IOCase.SENSITIVE;
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
@@ -649,6 +750,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
         }
 
+        @Override
+        IOCase getWildcardMatchCase() {
+            return IOCase.INSENSITIVE;
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
@@ -687,6 +793,94 @@ int getPriority() {
         }
     }
 
+    static final class MultiWildcardResourceMatcher extends AbstractStringResourceMatcher {
+        private final List<ResourceMatcher> matchers;
+        private final MultiWildcardMatcher  wildcardMatcher;
+        private final int                   priority;
+
+        MultiWildcardResourceMatcher(List<ResourceMatcher> matchers, boolean isCaseSensitive, Map<String, String> options) {
+            super(getValues(matchers), options);
+
+            List<String> patterns = new ArrayList<>(matchers.size());
+            int          priority = Integer.MAX_VALUE;
+
+            for (ResourceMatcher matcher : matchers) {
+                patterns.add(matcher.value);
+
+                priority = Math.min(priority, matcher.getPriority());
+            }
+
+            this.matchers        = matchers;
+            this.wildcardMatcher = new MultiWildcardMatcher(patterns, isCaseSensitive);
+            this.priority        = priority;
+        }
+
+        @Override
+        boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
+            return wildcardMatcher.isMatch(resourceValue);
+        }
+
+        @Override
+        public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
+            for (ResourceMatcher matcher : matchers) {
+                if (matcher.isPrefixMatch(resourceValue, evalContext)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public boolean isChildMatch(String resourceValue, Map<String, Object> evalContext) {
+            for (ResourceMatcher matcher : matchers) {
+                if (matcher.isChildMatch(resourceValue, evalContext)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        boolean getNeedsDynamicEval() {
+            return false;
+        }
+
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            List<String> matcherPatterns = new ArrayList<>(matchers.size());
+
+            for (ResourceMatcher matcher : matchers) {
+                if (!matcher.addWildcardPatterns(isCaseSensitive, matcherPatterns)) {
+                    return false;
+                }
+            }
+
+            patterns.addAll(matcherPatterns);
+
+            return true;
+        }
+
+        int getPriority() {
+            return priority;
+        }
+
+        private static String getValues(List<ResourceMatcher> matchers) {
+            StringBuilder sb = new StringBuilder();
+
+            for (ResourceMatcher matcher : matchers) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+
+                sb.append(matcher.value);
+            }
+
+            return sb.toString();
+        }
+    }
+
     static final class ResourceMatcherWrapper {
         private final boolean               needsDynamicEval;
         private final List<ResourceMatcher> resourceMatchers;
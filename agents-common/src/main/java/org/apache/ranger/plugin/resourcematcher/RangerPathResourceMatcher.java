@@ -22,13 +22,13 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -43,67 +43,70 @@ public class RangerPathResourceMatcher extends RangerDefaultResourceMatcher {
     private Character pathSeparatorChar = '/';
 
     static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath, Character pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements) {
-        boolean ret = false;
+        return isRecursiveWildCardMatch(pathToCheck, wildcardPath, pathSeparatorChar, caseSensitivity, wildcardPathElements, null);
+    }
 
-        if (!StringUtils.isEmpty(pathToCheck)) {
-            String[] pathElements = StringUtils.split(pathToCheck, pathSeparatorChar);
+    /*
+     * returns true if pathToCheck, or one of its ancestors, matches wildcardPath. Leading elements of wildcardPath that
+     * have no wildcards are compared with elements of pathToCheck; from the first element that isn't compared so, each
+     * ancestor - pathToCheck up to the end of an element - is matched with wildcardPath. Ancestors are taken as regions
+     * of pathToCheck, and are matched in one pass with wildcardMatcher, when one is compiled from wildcardPath
+     */
+    static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath, char pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements, MultiWildcardMatcher wildcardMatcher) {
+        if (StringUtils.isEmpty(pathToCheck)) {
+            return false;
+        }
 
-            if (!ArrayUtils.isEmpty(pathElements)) {
-                StringBuilder sb = new StringBuilder();
+        if (StringUtils.containsOnly(pathToCheck, new char[] {pathSeparatorChar})) {
+            return FilenameUtils.wildcardMatch(pathToCheck, wildcardPath, caseSensitivity);
+        }
 
-                if (pathToCheck.charAt(0) == pathSeparatorChar) {
-                    sb.append(pathSeparatorChar); // preserve the initial pathSeparatorChar
-                }
+        final String path         = collapseSeparators(pathToCheck, pathSeparatorChar);
+        final int    len          = path.length();
+        int          elementStart = path.charAt(0) == pathSeparatorChar ? 1 : 0; // preserve the initial pathSeparatorChar
+        int          elementIdx   = 0;
 
-                int     pathElementIndex  = 0;
-                boolean useStringMatching = true;
-
-                for (String p : pathElements) {
-                    sb.append(p);
-
-                    if (useStringMatching) {
-                        if (wildcardPathElements.length > pathElementIndex) {
-                            String wp = wildcardPathElements[pathElementIndex];
-
-                            if (!(StringUtils.contains(wp, '*') || StringUtils.contains(wp, '?'))) {
-                                boolean isMatch = caseSensitivity.isCaseSensitive() ? StringUtils.equals(p, wp) : StringUtils.equalsIgnoreCase(p, wp);
-                                if (!isMatch) {
-                                    useStringMatching = false;
-                                    break;
-                                }
-                            } else {
-                                useStringMatching = false;
-                            }
-                        } else {
-                            useStringMatching = false;
-                        }
-                    }
+        for (; elementStart < len && elementIdx < wildcardPathElements.length; elementIdx++) {
+            String wp = wildcardPathElements[elementIdx];
 
-                    if (!useStringMatching) {
-                        ret = FilenameUtils.wildcardMatch(sb.toString(), wildcardPath, caseSensitivity);
-                        if (ret) {
-                            break;
-                        }
-                    }
+            if (StringUtils.containsAny(wp, ResourceMatcher.WILDCARD_CHARS)) {
+                break;
+            }
 
-                    sb.append(pathSeparatorChar);
-                    pathElementIndex++;
-                }
-                if (useStringMatching) {
-                    if (pathElements.length == wildcardPathElements.length) { // Loop finished normally and all sub-paths string-matched..
-                        ret = true;
-                    } else if (pathToCheck.charAt(pathToCheck.length() - 1) == pathSeparatorChar) { // pathToCheck ends with separator, like /home/
-                        ret = pathElements.length == (wildcardPathElements.length - 1) && WILDCARD_ASTERISK.equals(wildcardPathElements[wildcardPathElements.length - 1]);
-                    }
-                }
+            int elementEnd = getElementEnd(path, pathSeparatorChar, elementStart);
 
-                sb = null;
-            } else { // pathToCheck consists of only pathSeparatorChar
-                ret = FilenameUtils.wildcardMatch(pathToCheck, wildcardPath, caseSensitivity);
+            if (wp.length() != elementEnd - elementStart || !path.regionMatches(!caseSensitivity.isCaseSensitive(), elementStart, wp, 0, wp.length())) {
+                return false;
             }
+
+            elementStart = elementEnd + 1;
         }
 
-        return ret;
+        if (elementStart >= len) { // all elements of the path string-matched
+            if (elementIdx == wildcardPathElements.length) {
+                return true;
+            } else if (path.charAt(len - 1) == pathSeparatorChar) { // pathToCheck ends with separator, like /home/
+                return elementIdx == (wildcardPathElements.length - 1) && WILDCARD_ASTERISK.equals(wildcardPathElements[wildcardPathElements.length - 1]);
+            } else {
+                return false;
+            }
+        }
+
+        if (wildcardMatcher != null) {
+            return wildcardMatcher.isPrefixMatchAtSeparator(path, pathSeparatorChar, elementStart);
+        }
+
+        while (elementStart < len) {
+            int elementEnd = getElementEnd(path, pathSeparatorChar, elementStart);
+
+            if (FilenameUtils.wildcardMatch(path.substring(0, elementEnd), wildcardPath, caseSensitivity)) {
+                return true;
+            }
+
+            elementStart = elementEnd + 1;
+        }
+
+        return false;
     }
 
     @Override
@@ -146,6 +149,10 @@ protected ResourceMatcherWrapper buildResourceMatchers() {
             }
         }
 
+        if (optCompileWildCards) {
+            compileWildcardMatchers(resourceMatchers); // only non-recursive wildcard matchers are compiled
+        }
+
         resourceMatchers.sort(new ResourceMatcher.PriorityComparator());
 
         return CollectionUtils.isNotEmpty(resourceMatchers) ? new ResourceMatcherWrapper(needsDynamicEval, resourceMatchers) : null;
@@ -208,6 +215,33 @@ public StringBuilder toString(StringBuilder sb) {
         return sb;
     }
 
+    // replaces consecutive separators with one, so that ancestors are regions of the path
+    private static String collapseSeparators(String path, char pathSeparatorChar) {
+        String repeatedSeparator = new String(new char[] {pathSeparatorChar, pathSeparatorChar});
+
+        if (!path.contains(repeatedSeparator)) {
+            return path;
+        }
+
+        StringBuilder sb = new StringBuilder(path.length());
+
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+
+            if (c != pathSeparatorChar || sb.length() == 0 || sb.charAt(sb.length() - 1) != pathSeparatorChar) {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static int getElementEnd(String path, char pathSeparatorChar, int elementStart) {
+        int ret = path.indexOf(pathSeparatorChar, elementStart);
+
+        return ret != -1 ? ret : path.length();
+    }
+
     private ResourceMatcher getPathMatcher(String policyValue) {
         final int len = policyValue != null ? policyValue.length() : 0;
 
@@ -324,6 +358,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return ret;
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value, this.isCaseSensitive, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> PathResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
@@ -377,6 +416,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return ret;
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(value + WILDCARD_ASTERISK, this.isCaseSensitive, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> PathStartsWithResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
@@ -430,6 +474,11 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return ret;
         }
 
+        @Override
+        boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+            return addStringMatchPattern(WILDCARD_ASTERISK + value, this.isCaseSensitive, isCaseSensitive, patterns);
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> PathEndsWithResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
@@ -490,6 +539,11 @@ public boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             return ret;
         }
 
+        @Override
+        IOCase getWildcardMatchCase() {
+            return ioCase;
+        }
+
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> WildcardResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
@@ -525,34 +579,33 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
     static class RecursiveWildcardResourceMatcher extends AbstractPathResourceMatcher {
         final QuintFunction<String, String, Character, IOCase, Boolean, String[]> function;
         final IOCase                                                              ioCase;
-        String[] wildcardPathElements;
+        final String[]                                                            wildcardPathElements;
+        final MultiWildcardMatcher                                                wildcardMatcher; // null if value can't be compiled
 
         RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, QuintFunction<String, String, Character, IOCase, Boolean, String[]> function, int priority) {
             super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-            this.function = function;
-            this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
-
-            if (!getNeedsDynamicEval()) {
-                wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
-            }
+            this.function             = function;
+            this.ioCase               = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+            this.wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
+            this.wildcardMatcher      = MultiWildcardMatcher.isCompilable(value) ? new MultiWildcardMatcher(Collections.singletonList(value), !optIgnoreCase) : null;
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String expandedValue;
+            final String  expandedValue;
+            final boolean ret;
 
-            if (getNeedsDynamicEval()) {
-                expandedValue        = getExpandedValue(evalContext);
-                wildcardPathElements = StringUtils.split(expandedValue, pathSeparatorChar);
+            if (getNeedsDynamicEval()) { // macros are set by setDelimiters(), after the constructor
+                expandedValue = getExpandedValue(evalContext);
+                ret           = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, StringUtils.split(expandedValue, pathSeparatorChar));
             } else {
                 expandedValue = value;
+                ret           = isRecursiveWildCardMatch(resourceValue, expandedValue, pathSeparatorChar, ioCase, wildcardPathElements, wildcardMatcher);
             }
 
-            boolean ret = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, wildcardPathElements);
-
             LOG.debug("<== RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
 
             return ret;
@@ -40,6 +40,7 @@
 
 abstract class ResourceMatcher {
     static final         int                       DYNAMIC_EVALUATION_PENALTY = 8;
+    static final         String                    WILDCARD_CHARS             = "*?";
     private static final Logger                    LOG                        = LoggerFactory.getLogger(ResourceMatcher.class);
     protected final      String                    value;
     protected final      RangerRequestExprResolver exprResolver;
@@ -260,6 +261,40 @@ boolean getNeedsDynamicEval() {
         return exprResolver != null || tokenReplacer != null;
     }
 
+    /*
+     * case-sensitivity of FilenameUtils.wildcardMatch() done by isMatch() of this matcher; null if isMatch() does
+     * something else. Such matchers can be compiled into a MultiWildcardMatcher
+     */
+    IOCase getWildcardMatchCase() {
+        return null;
+    }
+
+    /*
+     * adds wildcard patterns - matched with FilenameUtils.wildcardMatch() and the given case-sensitivity - such that
+     * isMatch() of this matcher is true exactly when the resource value matches one of them. Returns false, without
+     * adding any pattern, if isMatch() can't be expressed so: for example, for values with macros like {USER}
+     */
+    boolean addWildcardPatterns(boolean isCaseSensitive, List<String> patterns) {
+        IOCase ioCase = getNeedsDynamicEval() ? null : getWildcardMatchCase();
+
+        return ioCase != null && addWildcardPattern(value, ioCase.isCaseSensitive(), isCaseSensitive, patterns);
+    }
+
+    // for matchers that compare the value as a string - equals, startsWith or endsWith: pattern is the value with '*' added
+    boolean addStringMatchPattern(String pattern, boolean isMatcherCaseSensitive, boolean isCaseSensitive, List<String> patterns) {
+        return !getNeedsDynamicEval() && StringUtils.containsNone(value, WILDCARD_CHARS) && addWildcardPattern(pattern, isMatcherCaseSensitive, isCaseSensitive, patterns);
+    }
+
+    private static boolean addWildcardPattern(String pattern, boolean isMatcherCaseSensitive, boolean isCaseSensitive, List<String> patterns) {
+        boolean ret = isMatcherCaseSensitive == isCaseSensitive && MultiWildcardMatcher.isCompilable(pattern);
+
+        if (ret) {
+            patterns.add(pattern);
+        }
+
+        return ret;
+    }
+
     void setDelimiters(char startDelimiterChar, char endDelimiterChar, char escapeChar, String tokenPrefix) {
         LOG.debug("==> setDelimiters(value= {}, startDelimiter={}, endDelimiter={}, escapeChar={}, prefix={}", value, startDelimiterChar, endDelimiterChar, escapeChar, tokenPrefix);
 
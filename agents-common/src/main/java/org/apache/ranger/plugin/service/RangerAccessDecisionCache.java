@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.service;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceMatchingScope;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerMutableResource;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of access decisions made by the policy engine, keyed by user, groups, roles, resource and access-type.
+ *
+ * Cached decisions are tied to versions of policies, tags, roles and userstore used to make them; a change in
+ * any of these versions discards all cached decisions. Decisions that depend on anything else, like policy
+ * conditions, validity schedules of policies and tags, or GDS, are not cached.
+ *
+ * Only the policy evaluation is skipped on a cache hit: the request is updated just like the pre-processing
+ * would, so that chained plugins, audit policies and the audit handler see the same request and result as
+ * they would on a cache miss.
+ */
+public class RangerAccessDecisionCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAccessDecisionCache.class);
+
+    // context entries that change the result of evaluation, when set by the caller
+    private static final List<String> UNCACHEABLE_REQUEST_CONTEXT_KEYS = Arrays.asList(RangerAccessRequestUtil.KEY_CONTEXT_ALL_ACCESSTYPES,
+                                                                                       RangerAccessRequestUtil.KEY_CONTEXT_ALL_ACCESSTYPE_GROUPS,
+                                                                                       RangerAccessRequestUtil.KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES,
+                                                                                       RangerAccessRequestUtil.KEY_CONTEXT_IS_REQUEST_PREPROCESSED,
+                                                                                       RangerAccessRequestUtil.KEY_CONTEXT_IS_RESULT_CONDITIONAL);
+
+    // context entries, set during evaluation, that are specific to the request being evaluated
+    private static final List<String> NON_REPLAYABLE_CONTEXT_KEYS = Arrays.asList(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST,
+                                                                                  RangerAccessRequestUtil.KEY_CONTEXT_ALL_ACCESS_TYPE_RESULTS,
+                                                                                  RangerAccessRequestUtil.KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
+
+    private final    RangerBasePlugin plugin;
+    private final    int              capacity;
+    private final    AtomicLong       hitCount         = new AtomicLong();
+    private final    AtomicLong       missCount        = new AtomicLong();
+    private final    AtomicLong       uncacheableCount = new AtomicLong();
+    private volatile Generation       generation;
+
+    RangerAccessDecisionCache(RangerBasePlugin plugin, int capacity) {
+        this.plugin   = plugin;
+        this.capacity = capacity;
+
+        LOG.info("RangerAccessDecisionCache(serviceName={}, capacity={})", plugin.getServiceName(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        Generation generation = this.generation;
+
+        return generation != null ? generation.decisions.size() : 0;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getUncacheableCount() {
+        return uncacheableCount.get();
+    }
+
+    public void clear() {
+        generation = null;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerAccessDecisionCache={capacity=" + capacity + ", size=" + getSize() + ", hitCount=" + hitCount + ", missCount=" + missCount + ", uncacheableCount=" + uncacheableCount + "}";
+    }
+
+    RangerAccessResult evaluatePolicies(RangerPolicyEngine policyEngine, RangerAccessRequest request) {
+        LOG.debug("==> RangerAccessDecisionCache.evaluatePolicies({})", request);
+
+        final RangerAccessResult ret;
+        final DecisionKey        key = isCacheableRequest(request) ? new DecisionKey((RangerAccessRequestImpl) request) : null;
+
+        if (key == null) {
+            uncacheableCount.incrementAndGet();
+
+            ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+        } else {
+            Generation generation = getGeneration(policyEngine);
+            Decision   decision   = generation.decisions.get(key);
+
+            if (decision != null) {
+                hitCount.incrementAndGet();
+
+                ret = decision.applyTo((RangerAccessRequestImpl) request, plugin.getConfig(), plugin.getPluginContext());
+            } else {
+                missCount.incrementAndGet();
+
+                Set<String> contextKeysBefore = new HashSet<>(request.getContext().keySet());
+
+                ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+                if (ret != null && isCacheableResult(request)) {
+                    generation.decisions.put(key.detach(), new Decision(key, (RangerAccessRequestImpl) request, ret, contextKeysBefore));
+                }
+            }
+        }
+
+        LOG.debug("<== RangerAccessDecisionCache.evaluatePolicies({}): {}", request, ret);
+
+        return ret;
+    }
+
+    private static boolean isCacheableRequest(RangerAccessRequest request) {
+        boolean ret = request instanceof RangerAccessRequestImpl && request.getResource() != null && request.getContext() != null;
+
+        if (ret) {
+            Map<String, Object> context = request.getContext();
+
+            for (String contextKey : UNCACHEABLE_REQUEST_CONTEXT_KEYS) {
+                if (context.containsKey(contextKey)) {
+                    ret = false;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isCacheableResult(RangerAccessRequest request) {
+        Map<String, Object> context = request.getContext();
+
+        return !RangerAccessRequestUtil.getIsResultConditional(context) && RangerAccessRequestUtil.getGdsResultFromContext(context) == null;
+    }
+
+    private Generation getGeneration(RangerPolicyEngine policyEngine) {
+        Generation ret              = this.generation;
+        long       policyVersion    = plugin.getPoliciesVersion();
+        long       tagVersion       = plugin.getTagsVersion();
+        long       roleVersion      = plugin.getRolesVersion();
+        long       userStoreVersion = plugin.getUserStoreVersion();
+
+        if (ret == null || !ret.isFor(policyEngine, policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+            synchronized (this) {
+                ret = this.generation;
+
+                if (ret == null || !ret.isFor(policyEngine, policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+                    LOG.debug("RangerAccessDecisionCache: discarding cached decisions, {}; policyVersion={}, tagVersion={}, roleVersion={}, userStoreVersion={}", ret, policyVersion, tagVersion, roleVersion, userStoreVersion);
+
+                    ret = new Generation(policyEngine, policyVersion, tagVersion, roleVersion, userStoreVersion, capacity);
+
+                    this.generation = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static final class Generation {
+        final RangerPolicyEngine                        policyEngine;
+        final long                                      policyVersion;
+        final long                                      tagVersion;
+        final long                                      roleVersion;
+        final long                                      userStoreVersion;
+        final ConcurrentCacheMap<DecisionKey, Decision> decisions;
+
+        Generation(RangerPolicyEngine policyEngine, long policyVersion, long tagVersion, long roleVersion, long userStoreVersion, int capacity) {
+            this.policyEngine     = policyEngine;
+            this.policyVersion    = policyVersion;
+            this.tagVersion       = tagVersion;
+            this.roleVersion      = roleVersion;
+            this.userStoreVersion = userStoreVersion;
+            this.decisions        = new ConcurrentCacheMap<>(capacity);
+        }
+
+        boolean isFor(RangerPolicyEngine policyEngine, long policyVersion, long tagVersion, long roleVersion, long userStoreVersion) {
+            return this.policyEngine == policyEngine && this.policyVersion == policyVersion && this.tagVersion == tagVersion && this.roleVersion == roleVersion && this.userStoreVersion == userStoreVersion;
+        }
+
+        @Override
+        public String toString() {
+            return "Generation={policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", roleVersion=" + roleVersion + ", userStoreVersion=" + userStoreVersion + ", size=" + decisions.size() + "}";
+        }
+    }
+
+    /*
+     * Fields of the request used by the policy engine, as provided by the caller, i.e. before pre-processing.
+     * Lookups use the collections in the request as is; detach() copies them before the key is stored in the cache.
+     */
+    private static final class DecisionKey {
+        final String                                    user;
+        final Set<String>                               userGroups;
+        final Set<String>                               userRoles;
+        final Map<String, Object>                       resource;
+        final String                                    resourceOwner;
+        final String                                    accessType;
+        final ResourceMatchingScope                     resourceMatchingScope;
+        final Map<String, ResourceElementMatchingScope> resourceElementMatchingScopes;
+        final boolean                                   ignoreDescendantDeny;
+        final String                                    clusterName;
+        final String                                    clusterType;
+        final int                                       hashCode;
+
+        DecisionKey(RangerAccessRequestImpl request) {
+            this(request.getUser(), request.getUserGroups(), request.getUserRoles(), request.getResource().getAsMap(), request.getResource().getOwnerUser(),
+                    request.getAccessType(), request.getResourceMatchingScope(), request.getResourceElementMatchingScopes(), request.ignoreDescendantDeny(),
+                    request.getClusterName(), request.getClusterType());
+        }
+
+        private DecisionKey(String user, Set<String> userGroups, Set<String> userRoles, Map<String, Object> resource, String resourceOwner, String accessType,
+                ResourceMatchingScope resourceMatchingScope, Map<String, ResourceElementMatchingScope> resourceElementMatchingScopes, boolean ignoreDescendantDeny,
+                String clusterName, String clusterType) {
+            this.user                          = user;
+            this.userGroups                    = userGroups != null ? userGroups : Collections.emptySet();
+            this.userRoles                     = userRoles != null ? userRoles : Collections.emptySet();
+            this.resource                      = resource != null ? resource : Collections.emptyMap();
+            this.resourceOwner                 = resourceOwner;
+            this.accessType                    = accessType;
+            this.resourceMatchingScope         = resourceMatchingScope;
+            this.resourceElementMatchingScopes = resourceElementMatchingScopes != null ? resourceElementMatchingScopes : Collections.emptyMap();
+            this.ignoreDescendantDeny          = ignoreDescendantDeny;
+            this.clusterName                   = clusterName;
+            this.clusterType                   = clusterType;
+            this.hashCode                      = Objects.hash(user, this.userGroups, this.userRoles, this.resource, resourceOwner, accessType, resourceMatchingScope, this.resourceElementMatchingScopes, ignoreDescendantDeny, clusterName, clusterType);
+        }
+
+        DecisionKey detach() {
+            return new DecisionKey(user, new HashSet<>(userGroups), new HashSet<>(userRoles), new HashMap<>(resource), resourceOwner, accessType,
+                    resourceMatchingScope, new HashMap<>(resourceElementMatchingScopes), ignoreDescendantDeny, clusterName, clusterType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof DecisionKey)) {
+                return false;
+            }
+
+            DecisionKey other = (DecisionKey) obj;
+
+            return hashCode == other.hashCode &&
+                    ignoreDescendantDeny == other.ignoreDescendantDeny &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(accessType, other.accessType) &&
+                    Objects.equals(resourceOwner, other.resourceOwner) &&
+                    resourceMatchingScope == other.resourceMatchingScope &&
+                    Objects.equals(clusterName, other.clusterName) &&
+                    Objects.equals(clusterType, other.clusterType) &&
+                    Objects.equals(resource, other.resource) &&
+                    Objects.equals(userGroups, other.userGroups) &&
+                    Objects.equals(userRoles, other.userRoles) &&
+                    Objects.equals(resourceElementMatchingScopes, other.resourceElementMatchingScopes);
+        }
+    }
+
+    /*
+     * Result of evaluation, without reference to the request evaluated, along with the updates made to the request
+     * during evaluation - by the pre-processing and context enrichers.
+     */
+    private static final class Decision {
+        final RangerAccessResult  result;
+        final String              user;
+        final Set<String>         userGroups;
+        final Set<String>         userRoles;
+        final boolean             isUserUpdated;
+        final boolean             isUserGroupsUpdated;
+        final boolean             isUserRolesUpdated;
+        final Map<String, Object> contextEntries = new HashMap<>();
+
+        Decision(DecisionKey key, RangerAccessRequestImpl request, RangerAccessResult result, Set<String> contextKeysBefore) {
+            this.result = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), null);
+
+            this.result.setAccessResultFrom(result);
+            this.result.setAuditResultFrom(result);
+
+            this.user                = request.getUser();
+            this.userGroups          = request.getUserGroups() != null ? new HashSet<>(request.getUserGroups()) : null;
+            this.userRoles           = request.getUserRoles() != null ? new HashSet<>(request.getUserRoles()) : null;
+            this.isUserUpdated       = !Objects.equals(key.user, user);
+            this.isUserGroupsUpdated = !Objects.equals(key.userGroups, userGroups == null ? Collections.emptySet() : userGroups);
+            this.isUserRolesUpdated  = !Objects.equals(key.userRoles, userRoles == null ? Collections.emptySet() : userRoles);
+
+            for (Map.Entry<String, Object> entry : request.getContext().entrySet()) {
+                if (!contextKeysBefore.contains(entry.getKey()) && !NON_REPLAYABLE_CONTEXT_KEYS.contains(entry.getKey())) {
+                    contextEntries.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        RangerAccessResult applyTo(RangerAccessRequestImpl request, RangerPluginConfig pluginConfig, RangerPluginContext pluginContext) {
+            RangerAccessResource resource = request.getResource();
+
+            // same updates as done by RangerDefaultRequestProcessor.preProcess()
+            if (resource.getServiceDef() == null && resource instanceof RangerMutableResource) {
+                ((RangerMutableResource) resource).setServiceDef(result.getServiceDef());
+            }
+
+            if (request.getClientIPAddress() == null) {
+                request.extractAndSetClientIPAddress(pluginConfig.isUseForwardedIPAddress(), pluginConfig.getTrustedProxyAddresses());
+            }
+
+            if (request.getClusterName() == null) {
+                request.setClusterName(pluginContext.getClusterName());
+            }
+
+            if (request.getClusterType() == null) {
+                request.setClusterType(pluginContext.getClusterType());
+            }
+
+            if (isUserUpdated) {
+                request.setUser(user);
+            }
+
+            if (isUserGroupsUpdated) {
+                request.setUserGroups(userGroups != null ? new HashSet<>(userGroups) : null);
+            }
+
+            if (isUserRolesUpdated) {
+                request.setUserRoles(userRoles != null ? new HashSet<>(userRoles) : null);
+            }
+
+            request.getContext().putAll(contextEntries);
+
+            RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+            ret.setAccessResultFrom(result);
+            ret.setAuditResultFrom(result);
+
+            return ret;
+        }
+    }
+}
@@ -50,6 +50,7 @@
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs;
 import org.apache.ranger.plugin.policyengine.RangerResourceAccessInfo;
@@ -84,24 +85,27 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 public class RangerBasePlugin {
     private static final Logger LOG = LoggerFactory.getLogger(RangerBasePlugin.class);
 
-    private final RangerPluginConfig          pluginConfig;
-    private final RangerPluginContext         pluginContext;
-    private final Map<String, LogHistory>     logHistoryList = new Hashtable<>();
-    private final int                         logInterval    = 30000; // 30 seconds
-    private final DownloadTrigger             accessTrigger  = new DownloadTrigger();
-    private final List<RangerChainedPlugin>   chainedPlugins;
-    private final boolean                     dedupStrings;
-    private       PolicyRefresher             refresher;
-    private       RangerPolicyEngine          policyEngine;
-    private       RangerAuthContext           currentAuthContext;
-    private       RangerAccessResultProcessor resultProcessor;
-    private       RangerRoles                 roles;
-    private       boolean                     isUserStoreEnricherAddedImplcitly;
-    private       Map<String, String>         serviceConfigs;
+    private final    RangerPluginConfig          pluginConfig;
+    private final    RangerPluginContext         pluginContext;
+    private final    Map<String, LogHistory>     logHistoryList = new Hashtable<>();
+    private final    int                         logInterval    = 30000; // 30 seconds
+    private final    DownloadTrigger             accessTrigger  = new DownloadTrigger();
+    private final    List<RangerChainedPlugin>   chainedPlugins;
+    private final    boolean                     dedupStrings;
+    private final    RangerAccessDecisionCache   decisionCache;
+    private          PolicyRefresher             refresher;
+    private volatile RangerPolicyEngine          policyEngine;
+    private          RangerAuthContext           currentAuthContext;
+    private          RangerAccessResultProcessor resultProcessor;
+    private          RangerRoles                 roles;
+    private          boolean                     isUserStoreEnricherAddedImplcitly;
+    private          Map<String, String>         serviceConfigs;
 
     public RangerBasePlugin(String serviceType, String appId) {
         this(new RangerPluginConfig(serviceType, null, appId, null, null, null));
@@ -192,7 +196,11 @@ public RangerBasePlugin(RangerPluginConfig pluginConfig) {
 
         RangerRequestScriptEvaluator.init(pluginConfig);
 
+        boolean useDecisionCache  = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".access.decision.cache.enabled", false);
+        int     decisionCacheSize = pluginConfig.getInt(pluginConfig.getPropertyPrefix() + ".access.decision.cache.size", 10000);
+
         this.dedupStrings   = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".dedup.strings", true);
+        this.decisionCache  = (useDecisionCache && decisionCacheSize > 0) ? new RangerAccessDecisionCache(this, decisionCacheSize) : null;
         this.chainedPlugins = initChainedPlugins();
     }
 
@@ -397,6 +405,8 @@ public void init() {
             }
         }
 
+        initBatchEvaluationPool();
+
         if (!pluginConfig.getPolicyEngineOptions().disablePolicyRefresher) {
             refresher = new PolicyRefresher(this);
 
@@ -634,6 +644,20 @@ public void cleanup() {
         if (policyEngine != null) {
             ((RangerPolicyEngineImpl) policyEngine).releaseResources(true);
         }
+
+        ForkJoinPool batchEvaluationPool = pluginContext.getBatchEvaluationPool();
+
+        pluginContext.setBatchEvaluationPool(null);
+
+        if (batchEvaluationPool != null) {
+            batchEvaluationPool.shutdown();
+        }
+
+        if (decisionCache != null) {
+            LOG.info("{}", decisionCache);
+
+            decisionCache.clear();
+        }
     }
 
     public RangerAccessResultProcessor getResultProcessor() {
@@ -657,7 +681,11 @@ public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAcc
         RangerPolicyEngine policyEngine = this.policyEngine;
 
         if (policyEngine != null) {
-            ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+            if (decisionCache != null) {
+                ret = decisionCache.evaluatePolicies(policyEngine, request);
+            } else {
+                ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+            }
         }
 
         if (ret != null) {
@@ -1195,6 +1223,10 @@ public Map<String, String> getServiceConfigs() {
         return serviceConfigs;
     }
 
+    public RangerAccessDecisionCache getAccessDecisionCache() {
+        return decisionCache;
+    }
+
     public Long getPolicyVersion() {
         return this.policyEngine == null ? -1L : this.policyEngine.getPolicyVersion();
     }
@@ -1278,6 +1310,26 @@ private RangerAdminClient getAdminClient() throws Exception {
         return admin;
     }
 
+    private void initBatchEvaluationPool() {
+        RangerPolicyEngineOptions options = pluginConfig.getPolicyEngineOptions();
+
+        if (options.enableParallelBatchEvaluation) {
+            int parallelism = options.parallelBatchEvaluationThreads > 0 ? options.parallelBatchEvaluationThreads : Runtime.getRuntime().availableProcessors();
+
+            ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+                thread.setName("ranger-batch-eval-" + getServiceName() + "-" + thread.getPoolIndex());
+
+                return thread;
+            };
+
+            pluginContext.setBatchEvaluationPool(new ForkJoinPool(parallelism, threadFactory, null, false));
+
+            LOG.info("Created batch evaluation pool: parallelism={}, minBatchSize={}", parallelism, options.parallelBatchEvaluationMinSize);
+        }
+    }
+
     private List<RangerChainedPlugin> initChainedPlugins() {
         List<RangerChainedPlugin> ret                      = new ArrayList<>();
         String                    chainedServicePropPrefix = pluginConfig.getPropertyPrefix() + ".chained.services";
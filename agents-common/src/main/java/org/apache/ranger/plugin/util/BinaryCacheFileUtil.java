@@ -0,0 +1,861 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes plugin cache files - policies, tags, roles and userstore - in a binary format, as an
+ * alternative to the JSON cache files. Enabled by setting &lt;propertyPrefix&gt;.policy.cache.format=binary.
+ *
+ * Layout (big-endian):
+ *   int magic, short format-version, byte content-type, byte reserved, long content-version (-1 for null)
+ *   int string-count; for each string: int length, bytes: UTF-8 of the string
+ *   int length, bytes: tokens of the object, excluding its large collections
+ *   int list-count; for each list: int record-count (-1 for null), then for each record: int length, bytes: tokens of the record
+ *   long CRC32 of all preceding bytes
+ *
+ * An object is encoded as the stream of tokens its JSON would have: a byte for each token, followed by a varint index
+ * in the string table for field names and string values, a zigzag varint for integers and 8 bytes for floating point
+ * numbers. Each distinct string is stored once, and is shared by all records that have it.
+ *
+ * The file is memory-mapped on load. Records - policies, service-resources, roles - are decoded lazily: each on its
+ * first access, or ahead of it by a small pool of daemon threads used only for this. A file with unexpected
+ * magic/version/type or a checksum mismatch is rejected with IOException, so that callers can fall back to the JSON
+ * cache file.
+ */
+public final class BinaryCacheFileUtil {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryCacheFileUtil.class);
+
+    public static final String CACHE_FORMAT_JSON   = "json";
+    public static final String CACHE_FORMAT_BINARY = "binary";
+
+    static final int   MAGIC          = 0x52434631; // "RCF1"
+    static final short FORMAT_VERSION = 2;
+
+    static final byte CONTENT_TYPE_POLICIES  = 1;
+    static final byte CONTENT_TYPE_TAGS      = 2;
+    static final byte CONTENT_TYPE_ROLES     = 3;
+    static final byte CONTENT_TYPE_USERSTORE = 4;
+
+    private static final byte TOKEN_START_OBJECT = 1;
+    private static final byte TOKEN_END_OBJECT   = 2;
+    private static final byte TOKEN_START_ARRAY  = 3;
+    private static final byte TOKEN_END_ARRAY    = 4;
+    private static final byte TOKEN_FIELD_NAME   = 5;
+    private static final byte TOKEN_STRING       = 6;
+    private static final byte TOKEN_INT          = 7;
+    private static final byte TOKEN_DOUBLE       = 8;
+    private static final byte TOKEN_BIG_INTEGER  = 9;
+    private static final byte TOKEN_BIG_DECIMAL  = 10;
+    private static final byte TOKEN_TRUE         = 11;
+    private static final byte TOKEN_FALSE        = 12;
+    private static final byte TOKEN_NULL         = 13;
+
+    private static final String JSON_FILE_SUFFIX     = ".json";
+    private static final String BINARY_FILE_SUFFIX   = ".bin";
+    private static final int    HEADER_LENGTH        = 16;
+    private static final int    PREFETCH_MIN_RECORDS = 1024;
+    private static final int    PREFETCH_BATCH_SIZE  = 256;
+    private static final int    DECODER_THREADS      = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int    DECODER_QUEUE_SIZE   = 256;
+
+    private static volatile ExecutorService decoderExecutor;
+
+    private BinaryCacheFileUtil() {
+        // to block instantiation
+    }
+
+    public static boolean isBinaryFormat(String cacheFormat) {
+        return CACHE_FORMAT_BINARY.equalsIgnoreCase(cacheFormat);
+    }
+
+    public static File getBinaryCacheFile(File jsonCacheFile) {
+        String name = jsonCacheFile.getName();
+
+        if (name.endsWith(JSON_FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - JSON_FILE_SUFFIX.length());
+        }
+
+        return new File(jsonCacheFile.getParentFile(), name + BINARY_FILE_SUFFIX);
+    }
+
+    /**
+     * @return binary cache file to load, or null if the binary file doesn't exist or is older than the JSON cache file.
+     * When both files have the same modification time - mtime resolution can be as coarse as a second - the binary file
+     * is loaded only if its version is not older than the version in the JSON file
+     */
+    public static File getBinaryCacheFileToLoad(File jsonCacheFile) {
+        File ret = jsonCacheFile != null ? getBinaryCacheFile(jsonCacheFile) : null;
+
+        if (ret != null && !(ret.isFile() && ret.canRead())) {
+            ret = null;
+        } else if (ret != null && jsonCacheFile.isFile()) {
+            long jsonLastModified   = jsonCacheFile.lastModified();
+            long binaryLastModified = ret.lastModified();
+
+            if (jsonLastModified > binaryLastModified || (jsonLastModified == binaryLastModified && !isNotOlderThan(ret, jsonCacheFile))) {
+                LOG.warn("binary cache file {} is older than {}; ignoring it", ret.getAbsolutePath(), jsonCacheFile.getAbsolutePath());
+
+                ret = null;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * moves the binary cache file, if present, out of the way - like done for JSON cache files when the service is not found
+     */
+    public static void disableBinaryCacheFile(File jsonCacheFile) {
+        File binaryCacheFile = jsonCacheFile != null ? getBinaryCacheFile(jsonCacheFile) : null;
+
+        if (binaryCacheFile != null && binaryCacheFile.isFile()) {
+            String renamedCacheFile = binaryCacheFile.getAbsolutePath() + "_" + System.currentTimeMillis();
+
+            if (!binaryCacheFile.renameTo(new File(renamedCacheFile))) {
+                LOG.error("Failed to move {} to {}", binaryCacheFile.getAbsolutePath(), renamedCacheFile);
+            } else {
+                LOG.warn("Moved {} to {}", binaryCacheFile.getAbsolutePath(), renamedCacheFile);
+            }
+        }
+    }
+
+    public static void writePolicies(File file, ServicePolicies policies) throws IOException {
+        List<List<?>> lists = new ArrayList<>(2);
+
+        lists.add(policies.getPolicies());
+        lists.add(policies.getTagPolicies() != null ? policies.getTagPolicies().getPolicies() : null);
+
+        write(file, CONTENT_TYPE_POLICIES, policies.getPolicyVersion(), policies, lists);
+    }
+
+    public static ServicePolicies readPolicies(File file) throws IOException {
+        return read(file, CONTENT_TYPE_POLICIES, ServicePolicies.class, (ret, reader) -> {
+            ret.setPolicies(reader.readRecords(RangerPolicy.class));
+
+            List<RangerPolicy> tagPolicies = reader.readRecords(RangerPolicy.class);
+
+            if (ret.getTagPolicies() != null) {
+                ret.getTagPolicies().setPolicies(tagPolicies);
+            }
+        });
+    }
+
+    public static void writeServiceTags(File file, ServiceTags serviceTags) throws IOException {
+        write(file, CONTENT_TYPE_TAGS, serviceTags.getTagVersion(), serviceTags, Collections.singletonList(serviceTags.getServiceResources()));
+    }
+
+    public static ServiceTags readServiceTags(File file) throws IOException {
+        return read(file, CONTENT_TYPE_TAGS, ServiceTags.class, (ret, reader) -> ret.setServiceResources(reader.readRecords(RangerServiceResource.class)));
+    }
+
+    public static void writeRoles(File file, RangerRoles roles) throws IOException {
+        Collection<RangerRole> rangerRoles = roles.getRangerRoles();
+
+        write(file, CONTENT_TYPE_ROLES, roles.getRoleVersion(), roles, Collections.singletonList(rangerRoles != null ? new ArrayList<>(rangerRoles) : null));
+    }
+
+    public static RangerRoles readRoles(File file) throws IOException {
+        return read(file, CONTENT_TYPE_ROLES, RangerRoles.class, (ret, reader) -> {
+            List<RangerRole> rangerRoles = reader.readRecords(RangerRole.class);
+
+            ret.setRangerRoles(rangerRoles != null ? new HashSet<>(rangerRoles) : null);
+        });
+    }
+
+    public static void writeUserStore(File file, RangerUserStore userStore) throws IOException {
+        write(file, CONTENT_TYPE_USERSTORE, userStore.getUserStoreVersion(), userStore, Collections.emptyList());
+    }
+
+    public static RangerUserStore readUserStore(File file) throws IOException {
+        return read(file, CONTENT_TYPE_USERSTORE, RangerUserStore.class, (ret, reader) -> {});
+    }
+
+    private static void write(File file, byte contentType, Long contentVersion, Object header, List<List<?>> lists) throws IOException {
+        ObjectMapper   mapper      = JsonUtils.getMapper();
+        TokenEncoder   encoder     = new TokenEncoder();
+        byte[]         headerBytes = encoder.encode(getHeaderMapper(mapper), header);
+        List<byte[][]> records     = new ArrayList<>(lists.size());
+
+        for (List<?> list : lists) {
+            byte[][] listRecords = null;
+
+            if (list != null) {
+                listRecords = new byte[list.size()][];
+
+                for (int i = 0; i < listRecords.length; i++) {
+                    listRecords[i] = encoder.encode(mapper, list.get(i));
+                }
+            }
+
+            records.add(listRecords);
+        }
+
+        File    tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        CRC32   crc     = new CRC32();
+        boolean isDone  = false;
+
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tmpFile); BufferedOutputStream bufferedOut = new BufferedOutputStream(fileOut, 64 * 1024)) {
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(bufferedOut, crc));
+
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeByte(contentType);
+                out.writeByte(0);
+                out.writeLong(contentVersion != null ? contentVersion : -1);
+
+                out.writeInt(encoder.strings.size());
+
+                for (String str : encoder.strings) {
+                    writeBytes(out, str.getBytes(StandardCharsets.UTF_8));
+                }
+
+                writeBytes(out, headerBytes);
+
+                out.writeInt(records.size());
+
+                for (byte[][] listRecords : records) {
+                    if (listRecords == null) {
+                        out.writeInt(-1);
+                    } else {
+                        out.writeInt(listRecords.length);
+
+                        for (byte[] record : listRecords) {
+                            writeBytes(out, record);
+                        }
+                    }
+                }
+
+                out.flush();
+
+                new DataOutputStream(bufferedOut).writeLong(crc.getValue()); // not included in the checksum
+            }
+
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException excp) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            isDone = true;
+        } finally {
+            if (!isDone && tmpFile.exists() && !tmpFile.delete()) {
+                LOG.warn("failed to delete temporary cache file {}", tmpFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private static <T> T read(File file, byte contentType, Class<T> clz, RecordsReader<T> recordsReader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file.getAbsolutePath() + ": file too large (" + size + " bytes)");
+            } else if (size < HEADER_LENGTH + Long.BYTES) {
+                throw new IOException(file.getAbsolutePath() + ": file too small (" + size + " bytes)");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size); // stays valid after the channel is closed
+
+            verifyChecksum(file, buffer);
+
+            int   magic         = buffer.getInt();
+            short formatVersion = buffer.getShort();
+            byte  type          = buffer.get();
+
+            buffer.get(); // reserved
+            buffer.getLong(); // content version
+
+            if (magic != MAGIC || formatVersion != FORMAT_VERSION || type != contentType) {
+                throw new IOException(file.getAbsolutePath() + ": unsupported cache file: magic=" + Integer.toHexString(magic) + ", formatVersion=" + formatVersion + ", contentType=" + type);
+            }
+
+            String[] strings = new String[buffer.getInt()];
+
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+
+                buffer.get(bytes);
+
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            RecordsBuffer reader = new RecordsBuffer(file, buffer, strings);
+            T             ret    = decode(nextRecord(buffer), strings, clz);
+
+            buffer.getInt(); // list count
+
+            recordsReader.read(ret, reader);
+
+            if (buffer.remaining() != Long.BYTES) { // all lists must have been read, leaving only the checksum
+                throw new IOException(file.getAbsolutePath() + ": unexpected content after the records");
+            }
+
+            return ret;
+        } catch (RuntimeException excp) { // like BufferUnderflowException for truncated content
+            throw new IOException(file.getAbsolutePath() + ": failed to read cache file", excp);
+        }
+    }
+
+    private static <T> T decode(ByteBuffer buffer, String[] strings, Class<T> clz) throws IOException {
+        ObjectMapper mapper = JsonUtils.getMapper();
+        TokenBuffer  tokens = new TokenBuffer(mapper, false);
+
+        while (buffer.hasRemaining()) {
+            byte token = buffer.get();
+
+            switch (token) {
+                case TOKEN_START_OBJECT:
+                    tokens.writeStartObject();
+                    break;
+                case TOKEN_END_OBJECT:
+                    tokens.writeEndObject();
+                    break;
+                case TOKEN_START_ARRAY:
+                    tokens.writeStartArray();
+                    break;
+                case TOKEN_END_ARRAY:
+                    tokens.writeEndArray();
+                    break;
+                case TOKEN_FIELD_NAME:
+                    tokens.writeFieldName(strings[readVarInt(buffer)]);
+                    break;
+                case TOKEN_STRING:
+                    tokens.writeString(strings[readVarInt(buffer)]);
+                    break;
+                case TOKEN_INT: {
+                    long value = readVarLong(buffer);
+
+                    value = (value >>> 1) ^ -(value & 1); // zigzag
+
+                    if (value == (int) value) {
+                        tokens.writeNumber((int) value);
+                    } else {
+                        tokens.writeNumber(value);
+                    }
+                }
+                break;
+                case TOKEN_DOUBLE:
+                    tokens.writeNumber(buffer.getDouble());
+                    break;
+                case TOKEN_BIG_INTEGER:
+                    tokens.writeNumber(new BigInteger(strings[readVarInt(buffer)]));
+                    break;
+                case TOKEN_BIG_DECIMAL:
+                    tokens.writeNumber(new BigDecimal(strings[readVarInt(buffer)]));
+                    break;
+                case TOKEN_TRUE:
+                    tokens.writeBoolean(true);
+                    break;
+                case TOKEN_FALSE:
+                    tokens.writeBoolean(false);
+                    break;
+                case TOKEN_NULL:
+                    tokens.writeNull();
+                    break;
+                default:
+                    throw new IOException("invalid token " + token + " at offset " + (buffer.position() - 1));
+            }
+        }
+
+        try (JsonParser parser = tokens.asParser()) {
+            return mapper.readValue(parser, clz);
+        }
+    }
+
+    private static ByteBuffer nextRecord(ByteBuffer buffer) {
+        int        length = buffer.getInt();
+        ByteBuffer ret    = buffer.slice();
+
+        ret.limit(length);
+
+        buffer.position(buffer.position() + length);
+
+        return ret;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long ret = 0;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+
+            ret |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                return ret;
+            }
+        }
+
+        throw new IOException("malformed varint at offset " + buffer.position());
+    }
+
+    private static int readVarInt(ByteBuffer buffer) throws IOException {
+        long ret = readVarLong(buffer);
+
+        if (ret < 0 || ret > Integer.MAX_VALUE) {
+            throw new IOException("invalid index " + ret + " at offset " + buffer.position());
+        }
+
+        return (int) ret;
+    }
+
+    private static void verifyChecksum(File file, MappedByteBuffer buffer) throws IOException {
+        CRC32      crc     = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+
+        content.limit(buffer.limit() - Long.BYTES);
+
+        crc.update(content);
+
+        long expected = buffer.getLong(buffer.limit() - Long.BYTES);
+
+        if (crc.getValue() != expected) {
+            throw new IOException(file.getAbsolutePath() + ": checksum mismatch");
+        }
+    }
+
+    // returns true if the version in binaryCacheFile is same or later than the version in jsonCacheFile
+    private static boolean isNotOlderThan(File binaryCacheFile, File jsonCacheFile) {
+        long   binaryVersion = -1;
+        String versionField  = null;
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(binaryCacheFile))) {
+            if (in.readInt() == MAGIC && in.readShort() == FORMAT_VERSION) {
+                byte contentType = in.readByte();
+
+                in.readByte(); // reserved
+
+                binaryVersion = in.readLong();
+                versionField  = getVersionField(contentType);
+            }
+        } catch (IOException excp) {
+            LOG.warn("failed to read version from binary cache file {}", binaryCacheFile.getAbsolutePath(), excp);
+        }
+
+        Long jsonVersion = binaryVersion != -1 && versionField != null ? readJsonVersion(jsonCacheFile, versionField) : null;
+
+        LOG.debug("isNotOlderThan(binaryCacheFile={}, jsonCacheFile={}): binaryVersion={}, jsonVersion={}", binaryCacheFile, jsonCacheFile, binaryVersion, jsonVersion);
+
+        return jsonVersion != null && binaryVersion >= jsonVersion;
+    }
+
+    // reads the version from top-level fields of the JSON, without deserializing the rest of it
+    private static Long readJsonVersion(File jsonCacheFile, String versionField) {
+        try (JsonParser parser = JsonUtils.getMapper().getFactory().createParser(jsonCacheFile)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String    fieldName = parser.getCurrentName();
+                    JsonToken value     = parser.nextToken();
+
+                    if (versionField.equals(fieldName)) {
+                        return value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+                    }
+
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException excp) {
+            LOG.warn("failed to read {} from cache file {}", versionField, jsonCacheFile.getAbsolutePath(), excp);
+        }
+
+        return null;
+    }
+
+    private static String getVersionField(byte contentType) {
+        switch (contentType) {
+            case CONTENT_TYPE_POLICIES:
+                return "policyVersion";
+            case CONTENT_TYPE_TAGS:
+                return "tagVersion";
+            case CONTENT_TYPE_ROLES:
+                return "roleVersion";
+            case CONTENT_TYPE_USERSTORE:
+                return "userStoreVersion";
+            default:
+                return null;
+        }
+    }
+
+    // header excludes the collections written as records
+    private static ObjectMapper getHeaderMapper(ObjectMapper mapper) {
+        return mapper.copy()
+                .addMixIn(ServicePolicies.class, PoliciesMixIn.class)
+                .addMixIn(ServicePolicies.TagPolicies.class, PoliciesMixIn.class)
+                .addMixIn(ServiceTags.class, ServiceResourcesMixIn.class)
+                .addMixIn(RangerRoles.class, RangerRolesMixIn.class);
+    }
+
+    private static ExecutorService getDecoderExecutor() {
+        ExecutorService ret = decoderExecutor;
+
+        if (ret == null) {
+            synchronized (BinaryCacheFileUtil.class) {
+                ret = decoderExecutor;
+
+                if (ret == null) {
+                    // batches rejected when the queue is full are decoded on access
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(DECODER_THREADS, DECODER_THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(DECODER_QUEUE_SIZE), new DecoderThreadFactory(), new ThreadPoolExecutor.DiscardPolicy());
+
+                    executor.allowCoreThreadTimeOut(true);
+
+                    ret             = executor;
+                    decoderExecutor = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private interface RecordsReader<T> {
+        void read(T obj, RecordsBuffer reader) throws IOException;
+    }
+
+    // encodes objects as tokens, adding their strings to a string table shared by all objects of a file
+    private static final class TokenEncoder {
+        private final List<String>          strings       = new ArrayList<>();
+        private final Map<String, Integer>  stringIndexes = new HashMap<>();
+        private final ByteArrayOutputStream bytes         = new ByteArrayOutputStream(4 * 1024);
+        private final DataOutputStream      out           = new DataOutputStream(bytes);
+
+        byte[] encode(ObjectMapper mapper, Object obj) throws IOException {
+            TokenBuffer tokens = new TokenBuffer(mapper, false);
+
+            mapper.writeValue(tokens, obj);
+
+            bytes.reset();
+
+            try (JsonParser parser = tokens.asParser()) {
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    switch (token) {
+                        case START_OBJECT:
+                            out.writeByte(TOKEN_START_OBJECT);
+                            break;
+                        case END_OBJECT:
+                            out.writeByte(TOKEN_END_OBJECT);
+                            break;
+                        case START_ARRAY:
+                            out.writeByte(TOKEN_START_ARRAY);
+                            break;
+                        case END_ARRAY:
+                            out.writeByte(TOKEN_END_ARRAY);
+                            break;
+                        case FIELD_NAME:
+                            writeString(TOKEN_FIELD_NAME, parser.getCurrentName());
+                            break;
+                        case VALUE_STRING:
+                            writeString(TOKEN_STRING, parser.getText());
+                            break;
+                        case VALUE_NUMBER_INT:
+                            if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                                writeString(TOKEN_BIG_INTEGER, parser.getBigIntegerValue().toString());
+                            } else {
+                                long value = parser.getLongValue();
+
+                                out.writeByte(TOKEN_INT);
+                                writeVarLong((value << 1) ^ (value >> 63)); // zigzag: small negative numbers take few bytes
+                            }
+                            break;
+                        case VALUE_NUMBER_FLOAT:
+                            if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                                writeString(TOKEN_BIG_DECIMAL, parser.getDecimalValue().toString());
+                            } else {
+                                out.writeByte(TOKEN_DOUBLE);
+                                out.writeDouble(parser.getDoubleValue());
+                            }
+                            break;
+                        case VALUE_TRUE:
+                            out.writeByte(TOKEN_TRUE);
+                            break;
+                        case VALUE_FALSE:
+                            out.writeByte(TOKEN_FALSE);
+                            break;
+                        case VALUE_NULL:
+                            out.writeByte(TOKEN_NULL);
+                            break;
+                        default:
+                            throw new IOException("unsupported token " + token + " in " + obj.getClass().getName());
+                    }
+                }
+            }
+
+            out.flush();
+
+            return bytes.toByteArray();
+        }
+
+        private void writeString(byte token, String str) throws IOException {
+            Integer index = stringIndexes.get(str);
+
+            if (index == null) {
+                index = strings.size();
+
+                strings.add(str);
+                stringIndexes.put(str, index);
+            }
+
+            out.writeByte(token);
+            writeVarLong(index);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7fL) != 0) {
+                out.writeByte((int) ((value & 0x7f) | 0x80));
+
+                value >>>= 7;
+            }
+
+            out.writeByte((int) value);
+        }
+    }
+
+    // reads lists of records from the mapped file
+    private static final class RecordsBuffer {
+        private final File       file;
+        private final ByteBuffer buffer;
+        private final String[]   strings;
+
+        RecordsBuffer(File file, ByteBuffer buffer, String[] strings) {
+            this.file    = file;
+            this.buffer  = buffer;
+            this.strings = strings;
+        }
+
+        <T> List<T> readRecords(Class<T> clz) {
+            int count = buffer.getInt();
+
+            if (count < 0) {
+                return null;
+            }
+
+            ByteBuffer[] records = new ByteBuffer[count];
+
+            for (int i = 0; i < count; i++) {
+                records[i] = nextRecord(buffer);
+            }
+
+            LazyRecordList<T> ret = new LazyRecordList<>(file.getAbsolutePath(), records, strings, clz);
+
+            if (count >= PREFETCH_MIN_RECORDS) {
+                ret.prefetch(getDecoderExecutor());
+            }
+
+            return ret;
+        }
+    }
+
+    /*
+     * list of records that are decoded on first access. Records can also be decoded ahead of access, in batches, by
+     * prefetch(). Decoding a record that was already decoded by another thread is harmless: the first decoded instance
+     * is kept. On the first add or remove, all records are decoded into an ArrayList that then backs the list.
+     * Serialized as an ArrayList
+     */
+    private static final class LazyRecordList<T> extends AbstractList<T> implements RandomAccess, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String                       fileName;
+        private final AtomicReferenceArray<Object> records; // ByteBuffer of an encoded record, replaced by the decoded record
+        private final String[]                     strings;
+        private final Class<T>                     clz;
+        private       List<T>                      materialized;
+
+        LazyRecordList(String fileName, ByteBuffer[] records, String[] strings, Class<T> clz) {
+            this.fileName = fileName;
+            this.records  = new AtomicReferenceArray<>(records);
+            this.strings  = strings;
+            this.clz      = clz;
+        }
+
+        @Override
+        public T get(int index) {
+            return materialized != null ? materialized.get(index) : getRecord(index);
+        }
+
+        @Override
+        public T set(int index, T element) {
+            if (materialized != null) {
+                return materialized.set(index, element);
+            }
+
+            T ret = getRecord(index);
+
+            records.set(index, element);
+
+            return ret;
+        }
+
+        @Override
+        public void add(int index, T element) {
+            materialize().add(index, element);
+
+            modCount++;
+        }
+
+        @Override
+        public T remove(int index) {
+            T ret = materialize().remove(index);
+
+            modCount++;
+
+            return ret;
+        }
+
+        @Override
+        public int size() {
+            return materialized != null ? materialized.size() : records.length();
+        }
+
+        void prefetch(ExecutorService executor) {
+            for (int start = 0; start < records.length(); start += PREFETCH_BATCH_SIZE) {
+                final int batchStart = start;
+                final int batchEnd   = Math.min(start + PREFETCH_BATCH_SIZE, records.length());
+
+                executor.execute(() -> {
+                    try {
+                        for (int i = batchStart; i < batchEnd; i++) {
+                            getRecord(i);
+                        }
+                    } catch (RuntimeException excp) {
+                        LOG.debug("failed to prefetch records [{}, {}) of {}. Will be decoded on access", batchStart, batchEnd, fileName, excp);
+                    }
+                });
+            }
+        }
+
+        private T getRecord(int index) {
+            Object record = records.get(index);
+
+            if (record instanceof ByteBuffer) {
+                final T decoded;
+
+                try {
+                    decoded = decode(((ByteBuffer) record).duplicate(), strings, clz);
+                } catch (IOException | RuntimeException excp) {
+                    throw new IllegalStateException(fileName + ": failed to decode record #" + index, excp);
+                }
+
+                records.compareAndSet(index, record, decoded);
+
+                record = records.get(index);
+            }
+
+            return clz.cast(record);
+        }
+
+        private List<T> materialize() {
+            if (materialized == null) {
+                List<T> list = new ArrayList<>(records.length() + 16);
+
+                for (int i = 0; i < records.length(); i++) {
+                    list.add(getRecord(i));
+                }
+
+                materialized = list;
+            }
+
+            return materialized;
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<>(this);
+        }
+    }
+
+    private static final class DecoderThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread ret = new Thread(r, "rangerCacheFileDecoder-" + threadNumber.getAndIncrement());
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    }
+
+    @JsonIgnoreProperties(value = "policies", ignoreUnknown = true)
+    private abstract static class PoliciesMixIn {
+    }
+
+    @JsonIgnoreProperties(value = "serviceResources", ignoreUnknown = true)
+    private abstract static class ServiceResourcesMixIn {
+    }
+
+    @JsonIgnoreProperties(value = "rangerRoles", ignoreUnknown = true)
+    private abstract static class RangerRolesMixIn {
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map with char keys, kept in a sorted array; values are looked up with a binary search.
+ *
+ * Meant for maps with few entries, like children of a trie node: compared to HashMap, there are no
+ * per-entry objects and no hash table, which reduces the memory used by a map with n entries from
+ * about (128 + 32 * n) bytes to (64 + 6 * n) bytes, with compressed oops. Not thread-safe.
+ */
+public class CharArrayMap<V> extends AbstractMap<Character, V> {
+    private static final char[]   EMPTY_KEYS   = new char[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private char[]   keys   = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int      size;
+
+    public CharArrayMap() {
+    }
+
+    public V get(char key) {
+        int idx = indexOf(key);
+
+        return idx >= 0 ? valueAt(idx) : null;
+    }
+
+    @Override
+    public V put(Character key, V value) {
+        int idx = indexOf(key);
+
+        if (idx >= 0) {
+            V ret = valueAt(idx);
+
+            values[idx] = value;
+
+            return ret;
+        }
+
+        idx = -(idx + 1);
+
+        if (size == keys.length) {
+            int newCapacity = size == 0 ? 1 : (size * 2);
+
+            keys   = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        if (idx < size) {
+            System.arraycopy(keys, idx, keys, idx + 1, size - idx);
+            System.arraycopy(values, idx, values, idx + 1, size - idx);
+        }
+
+        keys[idx]   = key;
+        values[idx] = value;
+
+        size++;
+
+        return null;
+    }
+
+    public V remove(char key) {
+        int idx = indexOf(key);
+
+        return idx >= 0 ? removeAt(idx) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Character && indexOf((Character) key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Character ? get(((Character) key).charValue()) : null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Character ? remove(((Character) key).charValue()) : null;
+    }
+
+    @Override
+    public void putAll(Map<? extends Character, ? extends V> m) {
+        if (size == 0 && m instanceof CharArrayMap) {
+            CharArrayMap<?> other = (CharArrayMap<?>) m;
+
+            keys   = Arrays.copyOf(other.keys, other.size);
+            values = Arrays.copyOf(other.values, other.size);
+            size   = other.size;
+        } else {
+            super.putAll(m);
+        }
+    }
+
+    @Override
+    public void clear() {
+        keys   = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        size   = 0;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ArrayIterator<V>() {
+                    @Override
+                    V get(int idx) {
+                        return valueAt(idx);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Character, V>> entrySet() {
+        return new AbstractSet<Entry<Character, V>>() {
+            @Override
+            public Iterator<Entry<Character, V>> iterator() {
+                return new ArrayIterator<Entry<Character, V>>() {
+                    @Override
+                    Entry<Character, V> get(int idx) {
+                        return new SimpleImmutableEntry<>(keys[idx], valueAt(idx));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int idx) {
+        return (V) values[idx];
+    }
+
+    private V removeAt(int idx) {
+        V ret = valueAt(idx);
+
+        size--;
+
+        if (idx < size) {
+            System.arraycopy(keys, idx + 1, keys, idx, size - idx);
+            System.arraycopy(values, idx + 1, values, idx, size - idx);
+        }
+
+        values[size] = null;
+
+        return ret;
+    }
+
+    private abstract class ArrayIterator<E> implements Iterator<E> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public E next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+
+            return get(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(last);
+
+            next = last;
+            last = -1;
+        }
+
+        abstract E get(int idx);
+    }
+}
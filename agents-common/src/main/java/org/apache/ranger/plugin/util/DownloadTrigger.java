@@ -29,6 +29,14 @@ public synchronized void waitForCompletion() throws InterruptedException {
         isNotified = false;
     }
 
+    public synchronized boolean pollCompletion() {
+        boolean ret = isNotified;
+
+        isNotified = false;
+
+        return ret;
+    }
+
     public synchronized void signalCompletion() {
         isNotified = true;
         notifyAll();
@@ -23,6 +23,7 @@
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.jersey.api.client.ClientResponse;
 
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
@@ -96,4 +97,14 @@ public static <T> T readResponse(ClientResponse response, TypeReference<T> cls)
 
         return jsonToObj(jsonStr, cls);
     }
+
+    /*
+     * Parses the response entity while it is read from the connection, without first reading it fully into a String.
+     * Meant for large responses, like policies and tags downloaded by plugins; the entity can't be read again afterwards.
+     */
+    public static <T> T readResponseStream(ClientResponse response, Class<T> cls) throws Exception {
+        try (InputStream in = response.getEntityInputStream()) {
+            return getMapper().readValue(in, cls);
+        }
+    }
 }
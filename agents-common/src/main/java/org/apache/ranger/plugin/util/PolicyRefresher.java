@@ -26,6 +26,7 @@
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.ScheduledDownload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +38,6 @@
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -53,8 +53,9 @@ public class PolicyRefresher extends Thread {
     private final long                           pollingIntervalMs;
     private final String                         cacheFileName;
     private final String                         cacheDir;
+    private final boolean                        useBinaryCache;
     private final BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
-    private       Timer                          policyDownloadTimer;
+    private       ScheduledDownload              policyDownloadTimer;
     private       long                           lastKnownVersion    = -1L;
     private       long                           lastActivationTimeInMillis;
     private       boolean                        policiesSetInPlugin;
@@ -71,6 +72,8 @@ public PolicyRefresher(RangerBasePlugin plugIn) {
         this.serviceName = plugIn.getServiceName();
         this.cacheDir    = pluginConfig.get(propertyPrefix + ".policy.cache.dir");
 
+        this.useBinaryCache = BinaryCacheFileUtil.isBinaryFormat(pluginConfig.get(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_CACHE_FORMAT));
+
         String appId         = StringUtils.isEmpty(plugIn.getAppId()) ? serviceType : plugIn.getAppId();
         String cacheFilename = String.format("%s_%s.json", appId, serviceName);
 
@@ -133,10 +136,8 @@ public void startRefresher() {
 
         super.start();
 
-        policyDownloadTimer = new Timer("policyDownloadTimer", true);
-
         try {
-            policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+            policyDownloadTimer = RangerDownloadScheduler.schedule("policyDownloadTimer", policyDownloadQueue, pollingIntervalMs, plugIn.getConfig());
 
             LOG.debug("Scheduled policyDownloadRefresher to download policies every {} milliseconds", pollingIntervalMs);
         } catch (IllegalStateException exception) {
@@ -148,7 +149,7 @@ public void startRefresher() {
     }
 
     public void stopRefresher() {
-        Timer policyDownloadTimer = this.policyDownloadTimer;
+        ScheduledDownload policyDownloadTimer = this.policyDownloadTimer;
 
         this.policyDownloadTimer = null;
 
@@ -249,21 +250,39 @@ public void saveToCache(ServicePolicies policies) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
                 }
 
-                Writer writer = null;
+                boolean isSavedAsBinary = false;
 
-                try {
-                    writer = new FileWriter(cacheFile);
-
-                    JsonUtils.objectToWriter(writer, policies);
-                } catch (Exception excp) {
-                    LOG.error("failed to save policies to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                            deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                if (useBinaryCache && CollectionUtils.isEmpty(policies.getPolicyDeltas())) { // policy-deltas are always saved as JSON
+                    File binaryCacheFile = BinaryCacheFileUtil.getBinaryCacheFile(cacheFile);
+
+                    try {
+                        BinaryCacheFileUtil.writePolicies(binaryCacheFile, policies);
+
+                        isSavedAsBinary = true;
+
+                        deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
+                    } catch (Exception excp) {
+                        LOG.error("failed to save policies to binary cache file '{}'. Will save as JSON", binaryCacheFile.getAbsolutePath(), excp);
+                    }
+                }
+
+                if (!isSavedAsBinary) {
+                    Writer writer = null;
+
+                    try {
+                        writer = new FileWriter(cacheFile);
+
+                        JsonUtils.objectToWriter(writer, policies);
+                    } catch (Exception excp) {
+                        LOG.error("failed to save policies to cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                    } finally {
+                        if (writer != null) {
+                            try {
+                                writer.close();
+                                deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
+                            } catch (Exception excp) {
+                                LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                            }
                         }
                     }
                 }
@@ -413,9 +432,26 @@ private ServicePolicies loadFromCache() {
 
         LOG.debug("==> PolicyRefresher(serviceName={}).loadFromCache()", serviceName);
 
-        File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+        File cacheFile       = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+        File binaryCacheFile = useBinaryCache ? BinaryCacheFileUtil.getBinaryCacheFileToLoad(cacheFile) : null;
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (binaryCacheFile != null) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.loadFromBinaryCache(serviceName=" + serviceName + ")");
+            }
+
+            try {
+                policies = BinaryCacheFileUtil.readPolicies(binaryCacheFile);
+            } catch (Exception excp) {
+                LOG.error("failed to load policies from binary cache file {}. Will try JSON cache file", binaryCacheFile.getAbsolutePath(), excp);
+            } finally {
+                RangerPerfTracer.log(perf);
+            }
+        }
+
+        if (policies == null && cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader           reader = null;
             RangerPerfTracer perf   = null;
 
@@ -426,16 +462,6 @@ private ServicePolicies loadFromCache() {
             try {
                 reader   = new FileReader(cacheFile);
                 policies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
-
-                if (policies != null) {
-                    if (!StringUtils.equals(serviceName, policies.getServiceName())) {
-                        LOG.warn("ignoring unexpected serviceName '{}' in cache file '{}'", policies.getServiceName(), cacheFile.getAbsolutePath());
-
-                        policies.setServiceName(serviceName);
-                    }
-
-                    lastKnownVersion = policies.getPolicyVersion() == null ? -1L : policies.getPolicyVersion();
-                }
             } catch (Exception excp) {
                 LOG.error("failed to load policies from cache file {}", cacheFile.getAbsolutePath(), excp);
             } finally {
@@ -449,10 +475,20 @@ private ServicePolicies loadFromCache() {
                     }
                 }
             }
-        } else {
+        } else if (policies == null) {
             LOG.warn("cache file does not exist or not readable '{}'", cacheFile == null ? null : cacheFile.getAbsolutePath());
         }
 
+        if (policies != null) {
+            if (!StringUtils.equals(serviceName, policies.getServiceName())) {
+                LOG.warn("ignoring unexpected serviceName '{}' in cache file '{}'", policies.getServiceName(), binaryCacheFile != null ? binaryCacheFile.getAbsolutePath() : cacheFile.getAbsolutePath());
+
+                policies.setServiceName(serviceName);
+            }
+
+            lastKnownVersion = policies.getPolicyVersion() == null ? -1L : policies.getPolicyVersion();
+        }
+
         LOG.debug("<== PolicyRefresher(serviceName={}).loadFromCache()", serviceName);
 
         return policies;
@@ -521,6 +557,8 @@ private void disableCache() {
             LOG.debug("No local policy cache found. No need to disable it!");
         }
 
+        BinaryCacheFileUtil.disableBinaryCacheFile(cacheFile);
+
         LOG.debug("<== PolicyRefresher.disableCache(serviceName={})", serviceName);
     }
 
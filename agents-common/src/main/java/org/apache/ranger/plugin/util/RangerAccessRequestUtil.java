@@ -56,6 +56,7 @@ public class RangerAccessRequestUtil {
     public static final  String KEY_CONTEXT_GDS_RESULT                       = "_GDS_RESULT";
     public static final  String KEY_CONTEXT_IS_REQUEST_PREPROCESSED          = "ISREQUESTPREPROCESSED";
     public static final  String KEY_CONTEXT_RESOURCE_ZONE_NAMES              = "RESOURCE_ZONE_NAMES";
+    public static final  String KEY_CONTEXT_IS_RESULT_CONDITIONAL            = "ISRESULTCONDITIONAL";
     private static final Logger LOG                                          = LoggerFactory.getLogger(RangerAccessRequestUtil.class);
 
     private RangerAccessRequestUtil() {
@@ -152,6 +153,7 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
             ret.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
             ret.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
             ret.remove(KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES);
+            ret.remove(KEY_CONTEXT_IS_RESULT_CONDITIONAL);
             // don't remove REQUESTED_RESOURCES
         }
 
@@ -237,6 +239,19 @@ public static boolean getIsRequestPreprocessed(Map<String, Object> context) {
         return value != null && value;
     }
 
+    /*
+     * Marks the result of the request as dependent on more than user, groups, roles, resource and access-type,
+     * like on policy conditions or validity schedules; such results must not be reused for other requests.
+     */
+    public static void setIsResultConditional(Map<String, Object> context, Boolean value) {
+        context.put(KEY_CONTEXT_IS_RESULT_CONDITIONAL, value);
+    }
+
+    public static boolean getIsResultConditional(Map<String, Object> context) {
+        Boolean value = (Boolean) context.get(KEY_CONTEXT_IS_RESULT_CONDITIONAL);
+        return value != null && value;
+    }
+
     public static void setAllRequestedAccessTypes(Map<String, Object> context, Set<String> accessTypes) {
         context.put(KEY_CONTEXT_ALL_ACCESSTYPES, accessTypes);
     }
@@ -30,7 +30,12 @@ public class RangerCommonConstants {
     public static final String  PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES         = ".supports.in.place.policy.updates";
     public static final String  RANGER_ADMIN_SUFFIX_IN_PLACE_TAG_UPDATES             = ".supports.in.place.tag.updates";
     public static final String  PLUGIN_CONFIG_SUFFIX_IN_PLACE_TAG_UPDATES            = ".supports.in.place.tag.updates";
+    public static final String  RANGER_ADMIN_SUFFIX_USERSTORE_DELTA                  = ".supports.userstore.deltas";
+    public static final String  RANGER_ADMIN_SUFFIX_ROLE_DELTA                       = ".supports.role.deltas";
     public static final String  RANGER_SUPPORTS_TAGS_DEDUP                           = ".supports.tags.dedup";
+    public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_CACHE_FORMAT             = ".policy.cache.format";
+    public static final String  PLUGIN_CONFIG_SUFFIX_SHARED_DOWNLOADER               = ".download.scheduler.shared";
+    public static final String  PLUGIN_CONFIG_SUFFIX_DOWNLOADER_THREADS              = ".download.scheduler.threads";
     public static final boolean RANGER_ADMIN_SUFFIX_POLICY_DELTA_DEFAULT             = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT            = false;
     public static final boolean RANGER_ADMIN_SUFFIX_TAG_DELTA_DEFAULT                = false;
@@ -39,9 +44,15 @@ public class RangerCommonConstants {
     public static final boolean PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT = false;
     public static final boolean RANGER_ADMIN_SUFFIX_IN_PLACE_TAG_UPDATES_DEFAULT     = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_IN_PLACE_TAG_UPDATES_DEFAULT    = false;
+    public static final boolean RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT          = false;
+    public static final boolean RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT               = false;
+    public static final boolean PLUGIN_CONFIG_SUFFIX_SHARED_DOWNLOADER_DEFAULT       = false;
+    public static final int     PLUGIN_CONFIG_SUFFIX_DOWNLOADER_THREADS_DEFAULT      = 2;
     public static final boolean RANGER_SUPPORTS_TAGS_DEDUP_DEFAULT                   = true;
     public static final boolean POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED            = true;
     public static final String  SCRIPT_OPTION_ENABLE_JSON_CTX                        = "enableJsonCtx";
+    public static final String  SCRIPT_OPTION_COMPILE_SCRIPT                         = "compileScript";
+    public static final String  SCRIPT_OPTION_REUSE_BINDINGS                         = "reuseBindings";
     public static final String  SCRIPT_VAR_ctx                                       = "ctx";
     public static final String  SCRIPT_VAR_tag                                       = "tag";
     public static final String  SCRIPT_VAR_tagAttr                                   = "tagAttr";
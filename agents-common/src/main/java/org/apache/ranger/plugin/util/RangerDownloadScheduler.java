@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Timer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules periodic download triggers for policy, tag, userstore and gdsInfo refreshers.
+ *
+ * By default, each refresher gets its own Timer thread, which blocks until the download triggered by it completes.
+ * When ranger.plugin.[serviceType].download.scheduler.shared=true, the Timer threads are replaced by a small pool of
+ * trigger threads shared by all refreshers in the JVM; ranger.plugin.[serviceType].download.scheduler.threads sets
+ * the size of this pool, and the largest size configured by plugins in the JVM is used. A shared trigger thread only
+ * queues a download trigger to the refresher, and doesn't wait for the download to complete: a tick is skipped if the
+ * previous download is still in progress, and the first tick is delayed by a random fraction of the polling
+ * interval, to spread calls to Ranger Admin from refreshers started together.
+ *
+ * The shared scheduler reduces only the number of timer threads. Downloads are not asynchronous: each download still
+ * runs in the thread of its refresher, with a blocking call through RangerAdminClient, and the download threads,
+ * connections and clients are not shared across refreshers.
+ */
+public final class RangerDownloadScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerDownloadScheduler.class);
+
+    private static ScheduledThreadPoolExecutor sharedExecutor; // guarded by RangerDownloadScheduler.class
+
+    private RangerDownloadScheduler() {
+        // to block instantiation
+    }
+
+    public static ScheduledDownload schedule(String name, BlockingQueue<DownloadTrigger> queue, long pollingIntervalMs, RangerPluginConfig pluginConfig) {
+        final ScheduledDownload ret;
+
+        if (isSharedSchedulerEnabled(pluginConfig)) {
+            ret = scheduleShared(name, queue, pollingIntervalMs, getSharedExecutor(pluginConfig));
+        } else {
+            logIgnoredConfigs(name, pluginConfig);
+
+            Timer timer = new Timer(name, true);
+
+            try {
+                timer.schedule(new DownloaderTask(queue), pollingIntervalMs, pollingIntervalMs);
+            } catch (IllegalStateException excp) {
+                timer.cancel();
+
+                throw excp;
+            }
+
+            ret = timer::cancel;
+        }
+
+        return ret;
+    }
+
+    public static boolean isSharedSchedulerEnabled(RangerPluginConfig pluginConfig) {
+        return pluginConfig != null && pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_SHARED_DOWNLOADER, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_SHARED_DOWNLOADER_DEFAULT);
+    }
+
+    static ScheduledDownload scheduleShared(String name, BlockingQueue<DownloadTrigger> queue, long pollingIntervalMs, ScheduledExecutorService executor) {
+        SharedDownloaderTask task         = new SharedDownloaderTask(name, queue);
+        long                 initialDelay = pollingIntervalMs + ThreadLocalRandom.current().nextLong(Math.max(pollingIntervalMs / 10, 1));
+        ScheduledFuture<?>   future;
+
+        try {
+            future = executor.scheduleWithFixedDelay(task, initialDelay, pollingIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException excp) {
+            throw new IllegalStateException("failed to schedule " + name, excp);
+        }
+
+        LOG.debug("RangerDownloadScheduler: scheduled {} every {} milliseconds, after initial delay of {} milliseconds", name, pollingIntervalMs, initialDelay);
+
+        return () -> future.cancel(false);
+    }
+
+    /*
+     * the shared executor is sized by the largest thread count configured by plugins in the JVM: a plugin initialized
+     * later with a larger count adds threads to the executor; a smaller count is ignored
+     */
+    static void updateThreadCount(ScheduledThreadPoolExecutor executor, int threadCount, String propertyName) {
+        int currentCount = executor.getCorePoolSize();
+
+        if (threadCount > currentCount) {
+            executor.setCorePoolSize(threadCount);
+
+            LOG.info("RangerDownloadScheduler: {}={}: increased shared download trigger threads from {}", propertyName, threadCount, currentCount);
+        } else if (threadCount < currentCount) {
+            LOG.info("RangerDownloadScheduler: {}={} is ignored; shared download trigger scheduler has {} threads, the largest count configured by plugins in this JVM", propertyName, threadCount, currentCount);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getSharedExecutor(RangerPluginConfig pluginConfig) {
+        String propertyName = pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DOWNLOADER_THREADS;
+        int    threadCount  = Math.max(1, pluginConfig.getInt(propertyName, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DOWNLOADER_THREADS_DEFAULT));
+
+        if (sharedExecutor == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threadCount, new DaemonThreadFactory());
+
+            executor.setRemoveOnCancelPolicy(true);
+
+            LOG.info("RangerDownloadScheduler: created shared download trigger scheduler with {} threads ({})", threadCount, propertyName);
+
+            sharedExecutor = executor;
+        } else {
+            updateThreadCount(sharedExecutor, threadCount, propertyName);
+        }
+
+        return sharedExecutor;
+    }
+
+    private static void logIgnoredConfigs(String name, RangerPluginConfig pluginConfig) {
+        if (pluginConfig != null) {
+            String propertyName = pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DOWNLOADER_THREADS;
+
+            if (pluginConfig.get(propertyName) != null) {
+                LOG.warn("{}: {} is ignored, as the shared download trigger scheduler is not enabled ({}{}=false)", name, propertyName, pluginConfig.getPropertyPrefix(), RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_SHARED_DOWNLOADER);
+            }
+        }
+    }
+
+    public interface ScheduledDownload {
+        void cancel();
+    }
+
+    static final class SharedDownloaderTask implements Runnable {
+        private final String                         name;
+        private final BlockingQueue<DownloadTrigger> queue;
+        private final DownloadTrigger                trigger = new DownloadTrigger();
+        private       boolean                        isPending;
+
+        SharedDownloaderTask(String name, BlockingQueue<DownloadTrigger> queue) {
+            this.name  = name;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            if (isPending) {
+                isPending = !trigger.pollCompletion();
+            }
+
+            if (isPending) {
+                LOG.debug("{}: previous download is still in progress. Skipping this cycle", name);
+            } else {
+                isPending = queue.offer(trigger);
+
+                if (!isPending) {
+                    LOG.warn("{}: failed to queue download trigger", name);
+                }
+            }
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread ret = new Thread(r, "rangerDownloadTrigger-" + threadNumber.getAndIncrement());
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    }
+}
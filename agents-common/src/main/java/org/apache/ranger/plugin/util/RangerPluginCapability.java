@@ -51,6 +51,9 @@ public class RangerPluginCapability {
     - Audit-policies
     - User/group/tag attributes in policy
     - additional resources in policy
+    - GDS policies
+    - UserStore deltas
+    - Role deltas
      */
     private final long pluginCapabilities;
 
@@ -92,6 +95,28 @@ public long getPluginCapabilities() {
         return pluginCapabilities;
     }
 
+    public boolean isSupported(RangerPluginFeature feature) {
+        return (pluginCapabilities & (1L << feature.ordinal())) != 0;
+    }
+
+    /**
+     * Checks the capabilities sent by a plugin, as hex string in pluginCapabilities parameter of download calls.
+     * Returns false for empty or malformed capabilities, as sent by older plugins and by other clients.
+     */
+    public static boolean isSupported(String pluginCapabilities, RangerPluginFeature feature) {
+        boolean ret = false;
+
+        if (pluginCapabilities != null && !pluginCapabilities.isEmpty()) {
+            try {
+                ret = new RangerPluginCapability(Long.parseUnsignedLong(pluginCapabilities, 16)).isSupported(feature);
+            } catch (NumberFormatException excp) {
+                // Ignore
+            }
+        }
+
+        return ret;
+    }
+
     public List<String> compare(RangerPluginCapability other) {
         final List<String> ret;
 
@@ -174,7 +199,9 @@ public enum RangerPluginFeature {
         RANGER_PLUGIN_CAPABILITY_AUDIT_POLICY("Audit Policy"),
         RANGER_PLUGIN_CAPABILITY_UGT_ATTRIBUTES_IN_POLICY("User/group/tag attributes in policy"),
         RANGER_PLUGIN_CAPABILITY_ADDITIONAL_RESOURCES_IN_POLICY("additional resources in policy"),
-        RANGER_PLUGIN_CAPABILITY_GDS_POLICIES("GDS Policies");
+        RANGER_PLUGIN_CAPABILITY_GDS_POLICIES("GDS Policies"),
+        RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS("UserStore Deltas"),
+        RANGER_PLUGIN_CAPABILITY_ROLE_DELTAS("Role Deltas");
 
         private final String name;
 
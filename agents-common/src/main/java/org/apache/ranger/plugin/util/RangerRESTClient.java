@@ -27,6 +27,7 @@
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.api.client.filter.ClientFilter;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 import org.apache.commons.lang.StringUtils;
@@ -101,6 +102,7 @@ public class RangerRESTClient {
     private          int          maxRetryAttempts;
     private          int          retryIntervalMs;
     private          int          lastKnownActiveUrlIndex;
+    private          boolean      mIsCompressionEnabled;
     private volatile Client       client;
     private volatile Client       cookieAuthClient;
     private          ClientFilter basicAuthFilter;
@@ -175,6 +177,14 @@ public void setRetryIntervalMs(int retryIntervalMs) {
         this.retryIntervalMs = retryIntervalMs;
     }
 
+    public boolean isCompressionEnabled() {
+        return mIsCompressionEnabled;
+    }
+
+    public void setCompressionEnabled(boolean isCompressionEnabled) {
+        this.mIsCompressionEnabled = isCompressionEnabled;
+    }
+
     public void setBasicAuthInfo(String username, String password) {
         mUsername = username;
         mPassword = password;
@@ -725,6 +735,11 @@ private Client buildClient() {
             client.addFilter(basicAuthFilter);
         }
 
+        if (mIsCompressionEnabled) {
+            // requests gzip encoded responses, and decodes them
+            client.addFilter(new GZIPContentEncodingFilter(false));
+        }
+
         // Set Connection Timeout and ReadTime for the PolicyRefresh
         client.setConnectTimeout(mRestClientConnTimeOutMs);
         client.setReadTimeout(mRestClientReadTimeOutMs);
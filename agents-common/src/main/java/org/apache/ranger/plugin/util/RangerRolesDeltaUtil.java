@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * A roles delta has roles that were added or updated, and names of roles that were deleted.
+ */
+public class RangerRolesDeltaUtil {
+    private static final Logger LOG                  = LoggerFactory.getLogger(RangerRolesDeltaUtil.class);
+    private static final Logger PERF_ROLES_DELTA_LOG = RangerPerfTracer.getPerfLogger("roles.delta");
+
+    private RangerRolesDeltaUtil() {
+        // to block instantiation
+    }
+
+    public static RangerRoles getRolesDelta(RangerRoles from, RangerRoles to) {
+        LOG.debug("==> RangerRolesDeltaUtil.getRolesDelta(fromVersion={}, toVersion={})", from != null ? from.getRoleVersion() : null, to != null ? to.getRoleVersion() : null);
+
+        RangerRoles      ret  = null;
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_ROLES_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_ROLES_DELTA_LOG, "RangerRolesDeltaUtil.getRolesDelta()");
+        }
+
+        if (from != null && to != null && !from.getIsDelta() && !to.getIsDelta()) {
+            Map<String, RangerRole> fromRoles    = getRolesByName(from.getRangerRoles());
+            Map<String, RangerRole> toRoles      = getRolesByName(to.getRangerRoles());
+            Set<RangerRole>         updatedRoles = new HashSet<>();
+            Set<String>             deletedRoles = new HashSet<>();
+
+            for (Map.Entry<String, RangerRole> entry : toRoles.entrySet()) {
+                RangerRole toRole   = entry.getValue();
+                RangerRole fromRole = fromRoles.get(entry.getKey());
+
+                if (fromRole == null || !Objects.equals(fromRole.getId(), toRole.getId()) || !Objects.equals(fromRole.getVersion(), toRole.getVersion()) || !fromRole.equals(toRole)) {
+                    updatedRoles.add(toRole);
+                }
+            }
+
+            for (String roleName : fromRoles.keySet()) {
+                if (!toRoles.containsKey(roleName)) {
+                    deletedRoles.add(roleName);
+                }
+            }
+
+            ret = new RangerRoles();
+
+            ret.setServiceName(to.getServiceName());
+            ret.setRoleVersion(to.getRoleVersion());
+            ret.setRoleUpdateTime(to.getRoleUpdateTime());
+            ret.setIsDelta(Boolean.TRUE);
+            ret.setRangerRoles(updatedRoles);
+            ret.setDeletedRoles(deletedRoles);
+        }
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerRolesDeltaUtil.getRolesDelta(fromVersion={}, toVersion={}): ret={}", from != null ? from.getRoleVersion() : null, to != null ? to.getRoleVersion() : null, ret);
+
+        return ret;
+    }
+
+    /*
+     * Returns new roles; neither roles nor delta is modified. When roles is itself a delta, the returned roles
+     * is a delta that combines both, so that it can be applied in place of the two.
+     */
+    public static RangerRoles applyDelta(RangerRoles roles, RangerRoles delta) {
+        LOG.debug("==> RangerRolesDeltaUtil.applyDelta(rolesVersion={}, deltaVersion={})", roles != null ? roles.getRoleVersion() : null, delta != null ? delta.getRoleVersion() : null);
+
+        RangerRoles      ret  = roles;
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_ROLES_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_ROLES_DELTA_LOG, "RangerRolesDeltaUtil.applyDelta()");
+        }
+
+        if (roles != null && delta != null && delta.getIsDelta()) {
+            Map<String, RangerRole> rolesByName  = getRolesByName(roles.getRangerRoles());
+            Map<String, RangerRole> updatedRoles = getRolesByName(delta.getRangerRoles());
+            Set<String>             deletedRoles = delta.getDeletedRoles() != null ? delta.getDeletedRoles() : Collections.emptySet();
+
+            rolesByName.keySet().removeAll(deletedRoles);
+            rolesByName.putAll(updatedRoles);
+
+            ret = new RangerRoles();
+
+            ret.setServiceName(delta.getServiceName() != null ? delta.getServiceName() : roles.getServiceName());
+            ret.setRoleVersion(delta.getRoleVersion());
+            ret.setRoleUpdateTime(delta.getRoleUpdateTime());
+            ret.setRangerRoles(new HashSet<>(rolesByName.values()));
+
+            if (roles.getIsDelta()) {
+                Set<String> mergedDeletedRoles = roles.getDeletedRoles() != null ? new HashSet<>(roles.getDeletedRoles()) : new HashSet<>();
+
+                mergedDeletedRoles.removeAll(updatedRoles.keySet());
+                mergedDeletedRoles.addAll(deletedRoles);
+
+                ret.setIsDelta(Boolean.TRUE);
+                ret.setDeletedRoles(mergedDeletedRoles);
+            }
+
+            LOG.debug("RangerRolesDeltaUtil.applyDelta(): rolesUpdated={}, rolesDeleted={}", updatedRoles.size(), deletedRoles.size());
+        }
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerRolesDeltaUtil.applyDelta(rolesVersion={}, deltaVersion={}): ret={}", roles != null ? roles.getRoleVersion() : null, delta != null ? delta.getRoleVersion() : null, ret != null ? ret.getRoleVersion() : null);
+
+        return ret;
+    }
+
+    private static Map<String, RangerRole> getRolesByName(Set<RangerRole> roles) {
+        Map<String, RangerRole> ret = new HashMap<>();
+
+        if (roles != null) {
+            for (RangerRole role : roles) {
+                ret.put(role.getName(), role);
+            }
+        }
+
+        return ret;
+    }
+}
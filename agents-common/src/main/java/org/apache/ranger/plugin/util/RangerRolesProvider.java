@@ -46,6 +46,7 @@ public class RangerRolesProvider {
     private final String            cacheFileNamePrefix;
     private final String            cacheDir;
     private final boolean           disableCacheIfServiceNotFound;
+    private final boolean           useBinaryCache;
     private       long              lastActivationTimeInMillis;
     private       long              lastKnownRoleVersion = -1L;
     private       boolean           rangerUserGroupRolesSetInPlugin;
@@ -75,6 +76,7 @@ public RangerRolesProvider(String serviceType, String appId, String serviceName,
         String propertyPrefix = config.getPropertyPrefix();
 
         disableCacheIfServiceNotFound = config.getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+        useBinaryCache                = BinaryCacheFileUtil.isBinaryFormat(config.get(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_CACHE_FORMAT));
 
         LOG.debug("<== RangerRolesProvider(serviceName={}).RangerRolesProvider()", serviceName);
     }
@@ -103,7 +105,7 @@ public void loadUserGroupRoles(RangerBasePlugin plugIn) {
 
         try {
             //load userGroupRoles from ranger admin
-            RangerRoles roles = loadUserGroupRolesFromAdmin();
+            RangerRoles roles = loadUserGroupRolesFromAdmin(plugIn);
 
             if (roles == null) {
                 //if userGroupRoles fetch from ranger Admin Fails, load from cache
@@ -183,20 +185,36 @@ public void saveToCache(RangerRoles roles) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.saveToCache(serviceName=" + serviceName + ")");
                 }
 
-                Writer writer = null;
+                boolean isSavedAsBinary = false;
 
-                try {
-                    writer = new FileWriter(cacheFile);
+                if (useBinaryCache) {
+                    File binaryCacheFile = BinaryCacheFileUtil.getBinaryCacheFile(cacheFile);
 
-                    JsonUtils.objectToWriter(writer, roles);
-                } catch (Exception excp) {
-                    LOG.error("failed to save roles to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                    try {
+                        BinaryCacheFileUtil.writeRoles(binaryCacheFile, roles);
+
+                        isSavedAsBinary = true;
+                    } catch (Exception excp) {
+                        LOG.error("failed to save roles to binary cache file '{}'. Will save as JSON", binaryCacheFile.getAbsolutePath(), excp);
+                    }
+                }
+
+                if (!isSavedAsBinary) {
+                    Writer writer = null;
+
+                    try {
+                        writer = new FileWriter(cacheFile);
+
+                        JsonUtils.objectToWriter(writer, roles);
+                    } catch (Exception excp) {
+                        LOG.error("failed to save roles to cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                    } finally {
+                        if (writer != null) {
+                            try {
+                                writer.close();
+                            } catch (Exception excp) {
+                                LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                            }
                         }
                     }
                 }
@@ -210,7 +228,7 @@ public void saveToCache(RangerRoles roles) {
         LOG.debug("<== RangerRolesProvider.saveToCache(serviceName={})", serviceName);
     }
 
-    private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundException {
+    private RangerRoles loadUserGroupRolesFromAdmin(RangerBasePlugin plugIn) throws RangerServiceNotFoundException {
         LOG.debug("==> RangerRolesProvider(serviceName={}).loadUserGroupRolesFromAdmin()", serviceName);
 
         RangerRoles roles;
@@ -224,6 +242,10 @@ private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundEx
         try {
             roles = rangerAdmin.getRolesIfUpdated(lastKnownRoleVersion, lastActivationTimeInMillis);
 
+            if (roles != null && roles.getIsDelta()) {
+                roles = applyDelta(plugIn.getRoles(), roles);
+            }
+
             boolean isUpdated = roles != null;
 
             if (isUpdated) {
@@ -252,14 +274,57 @@ private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundEx
         return roles;
     }
 
+    private RangerRoles applyDelta(RangerRoles roles, RangerRoles delta) throws Exception {
+        final RangerRoles ret;
+
+        if (roles != null && !roles.getIsDelta() && roles.getRoleVersion() != null && roles.getRoleVersion() == lastKnownRoleVersion) {
+            ret = RangerRolesDeltaUtil.applyDelta(roles, delta);
+
+            LOG.debug("RangerRolesProvider(serviceName={}): applied roles delta, version {} => {}", serviceName, lastKnownRoleVersion, delta.getRoleVersion());
+        } else {
+            LOG.warn("RangerRolesProvider(serviceName={}): received roles delta, but roles in plugin are not of lastKnownRoleVersion={}. Will download all roles", serviceName, lastKnownRoleVersion);
+
+            RangerRoles allRoles = rangerAdmin.getRolesIfUpdated(-1L, lastActivationTimeInMillis);
+
+            ret = allRoles != null && !allRoles.getIsDelta() ? allRoles : null;
+        }
+
+        return ret;
+    }
+
     private RangerRoles loadUserGroupRolesFromCache() {
         RangerRoles roles = null;
 
         LOG.debug("==> RangerRolesProvider(serviceName={}).loadUserGroupRolesFromCache()", serviceName);
 
-        File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+        File cacheFile       = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+        File binaryCacheFile = useBinaryCache ? BinaryCacheFileUtil.getBinaryCacheFileToLoad(cacheFile) : null;
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (binaryCacheFile != null) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.loadUserGroupRolesFromBinaryCache(serviceName=" + serviceName + ")");
+            }
+
+            try {
+                roles = BinaryCacheFileUtil.readRoles(binaryCacheFile);
+            } catch (Exception excp) {
+                LOG.error("failed to load userGroupRoles from binary cache file {}. Will try JSON cache file", binaryCacheFile.getAbsolutePath(), excp);
+            } finally {
+                RangerPerfTracer.log(perf);
+            }
+        }
+
+        if (roles != null) {
+            if (!StringUtils.equals(serviceName, roles.getServiceName())) {
+                LOG.warn("ignoring unexpected serviceName '{}' in cache file '{}'", roles.getServiceName(), binaryCacheFile.getAbsolutePath());
+
+                roles.setServiceName(serviceName);
+            }
+
+            lastKnownRoleVersion = roles.getRoleVersion() == null ? -1 : roles.getRoleVersion().longValue();
+        } else if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader           reader = null;
             RangerPerfTracer perf   = null;
 
@@ -328,6 +393,8 @@ private void disableCache() {
             LOG.debug("No local RangerRoles cache found. No need to disable it!");
         }
 
+        BinaryCacheFileUtil.disableBinaryCacheFile(cacheFile);
+
         LOG.debug("<== RangerRolesProvider.disableCache(serviceName={})", serviceName);
     }
 }
@@ -50,6 +50,9 @@ public class RangerUserStore implements Serializable {
     private Map<String, Set<String>>         userGroupMapping;
     private Map<String, String>              userCloudIdMapping;
     private Map<String, String>              groupCloudIdMapping;
+    private Boolean                          isDelta;
+    private Set<String>                      deletedUsers;
+    private Set<String>                      deletedGroups;
 
     public RangerUserStore() {
         this(-1L, null, null, null);
@@ -118,6 +121,30 @@ public void setGroupCloudIdMapping(Map<String, String> groupCloudIdMapping) {
         this.groupCloudIdMapping = groupCloudIdMapping;
     }
 
+    public Boolean getIsDelta() {
+        return isDelta == null ? Boolean.FALSE : isDelta;
+    }
+
+    public void setIsDelta(Boolean isDelta) {
+        this.isDelta = isDelta;
+    }
+
+    public Set<String> getDeletedUsers() {
+        return deletedUsers;
+    }
+
+    public void setDeletedUsers(Set<String> deletedUsers) {
+        this.deletedUsers = deletedUsers;
+    }
+
+    public Set<String> getDeletedGroups() {
+        return deletedGroups;
+    }
+
+    public void setDeletedGroups(Set<String> deletedGroups) {
+        this.deletedGroups = deletedGroups;
+    }
+
     public void dedupStrings() {
         Map<String, String> strTbl = new HashMap<>();
 
@@ -140,7 +167,8 @@ public String toString() {
     public StringBuilder toString(StringBuilder sb) {
         sb.append("RangerUserStore={")
                 .append("userStoreVersion=").append(userStoreVersion).append(", ")
-                .append("userStoreUpdateTime=").append(userStoreUpdateTime).append(", ");
+                .append("userStoreUpdateTime=").append(userStoreUpdateTime).append(", ")
+                .append("isDelta=").append(isDelta).append(", ");
 
         sb.append("users={");
         if (MapUtils.isNotEmpty(userAttrMapping)) {
@@ -175,6 +203,14 @@ public StringBuilder toString(StringBuilder sb) {
         }
         sb.append("}");
 
+        if (CollectionUtils.isNotEmpty(deletedUsers)) {
+            sb.append(", deletedUsers=").append(deletedUsers);
+        }
+
+        if (CollectionUtils.isNotEmpty(deletedGroups)) {
+            sb.append(", deletedGroups=").append(deletedGroups);
+        }
+
         sb.append("}");
 
         return sb;
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * A userstore delta has the complete attributes and group memberships of users and groups that were added or updated,
+ * and names of users and groups that were deleted.
+ */
+public class RangerUserStoreDeltaUtil {
+    private static final Logger LOG                      = LoggerFactory.getLogger(RangerUserStoreDeltaUtil.class);
+    private static final Logger PERF_USERSTORE_DELTA_LOG = RangerPerfTracer.getPerfLogger("userstore.delta");
+
+    private RangerUserStoreDeltaUtil() {
+        // to block instantiation
+    }
+
+    public static RangerUserStore getUserStoreDelta(RangerUserStore from, RangerUserStore to) {
+        LOG.debug("==> RangerUserStoreDeltaUtil.getUserStoreDelta(fromVersion={}, toVersion={})", from != null ? from.getUserStoreVersion() : null, to != null ? to.getUserStoreVersion() : null);
+
+        RangerUserStore  ret  = null;
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_USERSTORE_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_USERSTORE_DELTA_LOG, "RangerUserStoreDeltaUtil.getUserStoreDelta()");
+        }
+
+        if (from != null && to != null && !from.getIsDelta() && !to.getIsDelta()) {
+            Map<String, Map<String, String>> fromUserAttrs  = nonNull(from.getUserAttrMapping());
+            Map<String, Set<String>>         fromUserGroups = nonNull(from.getUserGroupMapping());
+            Map<String, Map<String, String>> fromGroupAttrs = nonNull(from.getGroupAttrMapping());
+            Map<String, Map<String, String>> toUserAttrs    = nonNull(to.getUserAttrMapping());
+            Map<String, Set<String>>         toUserGroups   = nonNull(to.getUserGroupMapping());
+            Map<String, Map<String, String>> toGroupAttrs   = nonNull(to.getGroupAttrMapping());
+            Map<String, Map<String, String>> userAttrs      = new HashMap<>();
+            Map<String, Set<String>>         userGroups     = new HashMap<>();
+            Map<String, Map<String, String>> groupAttrs     = new HashMap<>();
+            Set<String>                      deletedUsers   = new HashSet<>();
+            Set<String>                      deletedGroups  = new HashSet<>();
+
+            for (String user : getUsers(toUserAttrs, toUserGroups)) {
+                Map<String, String> attrs  = toUserAttrs.get(user);
+                Set<String>         groups = toUserGroups.get(user);
+
+                if (!Objects.equals(attrs, fromUserAttrs.get(user)) || !Objects.equals(groups, fromUserGroups.get(user))) {
+                    if (attrs != null) {
+                        userAttrs.put(user, attrs);
+                    }
+
+                    if (groups != null) {
+                        userGroups.put(user, groups);
+                    }
+                }
+            }
+
+            for (String user : getUsers(fromUserAttrs, fromUserGroups)) {
+                if (!toUserAttrs.containsKey(user) && !toUserGroups.containsKey(user)) {
+                    deletedUsers.add(user);
+                }
+            }
+
+            for (Map.Entry<String, Map<String, String>> entry : toGroupAttrs.entrySet()) {
+                if (!Objects.equals(entry.getValue(), fromGroupAttrs.get(entry.getKey()))) {
+                    groupAttrs.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            for (String group : fromGroupAttrs.keySet()) {
+                if (!toGroupAttrs.containsKey(group)) {
+                    deletedGroups.add(group);
+                }
+            }
+
+            ret = new RangerUserStore();
+
+            ret.setUserStoreVersion(to.getUserStoreVersion());
+            ret.setUserStoreUpdateTime(to.getUserStoreUpdateTime());
+            ret.setIsDelta(Boolean.TRUE);
+            ret.setUserAttrMapping(userAttrs);
+            ret.setUserGroupMapping(userGroups);
+            ret.setGroupAttrMapping(groupAttrs);
+            ret.setDeletedUsers(deletedUsers);
+            ret.setDeletedGroups(deletedGroups);
+            setCloudIdMappings(ret);
+        }
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerUserStoreDeltaUtil.getUserStoreDelta(fromVersion={}, toVersion={}): ret={}", from != null ? from.getUserStoreVersion() : null, to != null ? to.getUserStoreVersion() : null, ret);
+
+        return ret;
+    }
+
+    /*
+     * Returns a new userstore; neither userStore nor delta is modified. When userStore is itself a delta, the
+     * returned userstore is a delta that combines both, so that it can be applied in place of the two.
+     */
+    public static RangerUserStore applyDelta(RangerUserStore userStore, RangerUserStore delta) {
+        LOG.debug("==> RangerUserStoreDeltaUtil.applyDelta(userStoreVersion={}, deltaVersion={})", userStore != null ? userStore.getUserStoreVersion() : null, delta != null ? delta.getUserStoreVersion() : null);
+
+        RangerUserStore  ret  = userStore;
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_USERSTORE_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_USERSTORE_DELTA_LOG, "RangerUserStoreDeltaUtil.applyDelta()");
+        }
+
+        if (userStore != null && delta != null && delta.getIsDelta()) {
+            Set<String> updatedUsers  = getUsers(nonNull(delta.getUserAttrMapping()), nonNull(delta.getUserGroupMapping()));
+            Set<String> updatedGroups = nonNull(delta.getGroupAttrMapping()).keySet();
+            Set<String> deletedUsers  = nonNull(delta.getDeletedUsers());
+            Set<String> deletedGroups = nonNull(delta.getDeletedGroups());
+
+            ret = new RangerUserStore();
+
+            ret.setUserStoreVersion(delta.getUserStoreVersion());
+            ret.setUserStoreUpdateTime(delta.getUserStoreUpdateTime());
+            ret.setUserAttrMapping(apply(userStore.getUserAttrMapping(), delta.getUserAttrMapping(), updatedUsers, deletedUsers));
+            ret.setUserGroupMapping(apply(userStore.getUserGroupMapping(), delta.getUserGroupMapping(), updatedUsers, deletedUsers));
+            ret.setGroupAttrMapping(apply(userStore.getGroupAttrMapping(), delta.getGroupAttrMapping(), updatedGroups, deletedGroups));
+
+            if (userStore.getIsDelta()) {
+                ret.setIsDelta(Boolean.TRUE);
+                ret.setDeletedUsers(merge(userStore.getDeletedUsers(), updatedUsers, deletedUsers));
+                ret.setDeletedGroups(merge(userStore.getDeletedGroups(), updatedGroups, deletedGroups));
+            }
+
+            setCloudIdMappings(ret);
+
+            LOG.debug("RangerUserStoreDeltaUtil.applyDelta(): usersUpdated={}, usersDeleted={}, groupsUpdated={}, groupsDeleted={}", updatedUsers.size(), deletedUsers.size(), updatedGroups.size(), deletedGroups.size());
+        }
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerUserStoreDeltaUtil.applyDelta(userStoreVersion={}, deltaVersion={}): ret={}", userStore != null ? userStore.getUserStoreVersion() : null, delta != null ? delta.getUserStoreVersion() : null, ret != null ? ret.getUserStoreVersion() : null);
+
+        return ret;
+    }
+
+    private static <V> Map<String, V> apply(Map<String, V> base, Map<String, V> updates, Set<String> updatedKeys, Set<String> deletedKeys) {
+        Map<String, V> ret = base != null ? new HashMap<>(base) : new HashMap<>();
+
+        ret.keySet().removeAll(updatedKeys);
+        ret.keySet().removeAll(deletedKeys);
+
+        if (updates != null) {
+            ret.putAll(updates);
+        }
+
+        return ret;
+    }
+
+    private static Set<String> merge(Set<String> baseDeleted, Set<String> updated, Set<String> deleted) {
+        Set<String> ret = baseDeleted != null ? new HashSet<>(baseDeleted) : new HashSet<>();
+
+        ret.removeAll(updated);
+        ret.addAll(deleted);
+
+        return ret;
+    }
+
+    private static Set<String> getUsers(Map<String, Map<String, String>> userAttrs, Map<String, Set<String>> userGroups) {
+        Set<String> ret = new HashSet<>(userAttrs.keySet());
+
+        ret.addAll(userGroups.keySet());
+
+        return ret;
+    }
+
+    private static void setCloudIdMappings(RangerUserStore userStore) {
+        userStore.setUserCloudIdMapping(getCloudIdMapping(userStore.getUserAttrMapping()));
+        userStore.setGroupCloudIdMapping(getCloudIdMapping(userStore.getGroupAttrMapping()));
+    }
+
+    private static Map<String, String> getCloudIdMapping(Map<String, Map<String, String>> attrMapping) {
+        Map<String, String> ret = new HashMap<>();
+
+        if (MapUtils.isNotEmpty(attrMapping)) {
+            for (Map.Entry<String, Map<String, String>> entry : attrMapping.entrySet()) {
+                String cloudId = entry.getValue() != null ? entry.getValue().get(RangerUserStore.CLOUD_IDENTITY_NAME) : null;
+
+                if (StringUtils.isNotEmpty(cloudId)) {
+                    ret.put(cloudId, entry.getKey());
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static <V> Map<String, V> nonNull(Map<String, V> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+
+    private static Set<String> nonNull(Set<String> set) {
+        return CollectionUtils.isNotEmpty(set) ? set : Collections.emptySet();
+    }
+}
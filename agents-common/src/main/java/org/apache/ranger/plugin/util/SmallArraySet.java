@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set that keeps up to MAX_ARRAY_SIZE elements in an array, and switches to a HashSet beyond that.
+ *
+ * Meant for the many small sets in a trie, like evaluators of a node: a HashSet with a single element
+ * takes about 176 bytes, while this set takes about 48 bytes. contains() is a linear scan while the
+ * elements are in the array. Not thread-safe.
+ */
+public class SmallArraySet<E> extends AbstractSet<E> {
+    public static final int MAX_ARRAY_SIZE = 8;
+
+    private static final Object[] EMPTY_ELEMENTS = new Object[0];
+
+    private Object[] elements = EMPTY_ELEMENTS;
+    private int      size;
+    private Set<E>   overflow; // all elements, once there are more than MAX_ARRAY_SIZE
+
+    public SmallArraySet() {
+    }
+
+    public SmallArraySet(Collection<? extends E> other) {
+        if (other.size() > MAX_ARRAY_SIZE) {
+            overflow = new HashSet<>(other);
+        } else {
+            elements = new Object[other.size()];
+
+            addAll(other);
+        }
+    }
+
+    @Override
+    public int size() {
+        return overflow != null ? overflow.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return overflow != null ? overflow.contains(o) : indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        final boolean ret;
+
+        if (overflow != null) {
+            ret = overflow.add(e);
+        } else if (indexOf(e) >= 0) {
+            ret = false;
+        } else if (size == MAX_ARRAY_SIZE) {
+            overflow = new HashSet<>(this);
+
+            overflow.add(e);
+
+            elements = EMPTY_ELEMENTS;
+            size     = 0;
+            ret      = true;
+        } else {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size == 0 ? 1 : Math.min(size * 2, MAX_ARRAY_SIZE));
+            }
+
+            elements[size++] = e;
+
+            ret = true;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final boolean ret;
+
+        if (overflow != null) {
+            ret = overflow.remove(o);
+        } else {
+            int idx = indexOf(o);
+
+            if (idx >= 0) {
+                removeAt(idx);
+
+                ret = true;
+            } else {
+                ret = false;
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        elements = EMPTY_ELEMENTS;
+        size     = 0;
+        overflow = null;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return overflow != null ? overflow.iterator() : new ArrayIterator();
+    }
+
+    private int indexOf(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (o == null ? elements[i] == null : o.equals(elements[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void removeAt(int idx) {
+        size--;
+
+        if (idx < size) {
+            System.arraycopy(elements, idx + 1, elements, idx, size - idx);
+        }
+
+        elements[size] = null;
+    }
+
+    private class ArrayIterator implements Iterator<E> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+
+            return (E) elements[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(last);
+
+            next = last;
+            last = -1;
+        }
+    }
+}
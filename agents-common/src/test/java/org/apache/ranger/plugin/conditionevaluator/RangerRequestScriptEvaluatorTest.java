@@ -33,6 +33,8 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 
 import java.util.Arrays;
@@ -464,6 +466,41 @@ public void testIsTimeMacros() {
         Assert.assertTrue("test: IS_ACCESS_TIME_BETWEEN('2010/01/01 15:00:42', '2100/01/01 15:00:42', 'GMT')", (Boolean) evaluator.evaluateScript("IS_ACCESS_TIME_BETWEEN('2010/01/01 15:00:42', '2100/01/01 15:00:42', 'GMT')"));
     }
 
+    @Test
+    public void testCompiledScripts() {
+        RangerTag           tagPII  = new RangerTag("PII", Collections.singletonMap("attr1", "PII_value"));
+        RangerAccessRequest request = createRequest("test-user", new HashSet<>(Arrays.asList("test-group1", "test-group2")), new HashSet<>(Arrays.asList("test-role1", "test-role2")), Collections.singletonList(tagPII));
+        String[]            scripts = {"USER.state == 'CA'", "IS_IN_GROUP('test-group2')", "TAG_NAMES_CSV", "[[UG_NAMES_CSV]].includes('test-group1')", "UG['test-group1'].dept == 'PROD'"};
+        CompiledScript      ctxInit = RangerRequestScriptEvaluator.compileJsonCtxInitScript(scriptEngine);
+
+        Assert.assertNotNull("test: compileJsonCtxInitScript()", ctxInit);
+
+        for (String script : scripts) {
+            CompiledScript compiled = RangerRequestScriptEvaluator.compileScript(scriptEngine, script);
+
+            Assert.assertNotNull("test: compileScript(" + script + ")", compiled);
+
+            RangerRequestScriptEvaluator sourceEvaluator   = new RangerRequestScriptEvaluator(request, scriptEngine, true);
+            RangerRequestScriptEvaluator compiledEvaluator = new RangerRequestScriptEvaluator(request, scriptEngine, true, ctxInit, null);
+
+            Assert.assertEquals("test: " + script, sourceEvaluator.evaluateConditionScript(script), compiledEvaluator.evaluateConditionScript(compiled));
+            Assert.assertEquals("test: result of " + script, sourceEvaluator.getResult(), compiledEvaluator.getResult());
+        }
+    }
+
+    @Test
+    public void testReusedBindings() {
+        Bindings            bindings = scriptEngine.createBindings();
+        CompiledScript      ctxInit  = RangerRequestScriptEvaluator.compileJsonCtxInitScript(scriptEngine);
+        CompiledScript      script   = RangerRequestScriptEvaluator.compileScript(scriptEngine, "USER._name");
+        RangerAccessRequest request1 = createRequest("test-user", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+        RangerAccessRequest request2 = createRequest("test-user2", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+
+        Assert.assertEquals("test-user", new RangerRequestScriptEvaluator(request1, scriptEngine, true, ctxInit, bindings).evaluateConditionScript(script));
+        Assert.assertEquals("test-user2", new RangerRequestScriptEvaluator(request2, scriptEngine, true, ctxInit, bindings).evaluateConditionScript(script));
+        Assert.assertEquals("test-user", new RangerRequestScriptEvaluator(request1, scriptEngine, true, null, bindings).evaluateConditionScript("USER._name"));
+    }
+
     RangerAccessRequest createRequest(String userName, Set<String> userGroups, Set<String> userRoles, List<RangerTag> resourceTags) {
         RangerAccessResource resource = mock(RangerAccessResource.class);
 
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentCacheMap {
+    @Test
+    public void testPutGetRemove() {
+        ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(16);
+
+        assertNull(cache.put("key1", "value1"));
+        assertEquals("value1", cache.put("key1", "value1.1"));
+        assertEquals("value1.1", cache.get("key1"));
+        assertNull(cache.get("key2"));
+        assertEquals(1, cache.size());
+
+        assertEquals("value1.1", cache.remove("key1"));
+        assertNull(cache.get("key1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictionKeepsSizeBounded() {
+        int                                capacity = 256;
+        ConcurrentCacheMap<String, String> cache    = new ConcurrentCacheMap<>(capacity);
+
+        for (int i = 0; i < capacity * 10; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i));
+
+            assertTrue("size exceeds capacity: " + cache.size(), cache.size() <= capacity);
+        }
+
+        Map<String, String> copy = new HashMap<>(cache);
+
+        assertEquals(cache.size(), copy.size());
+
+        for (Map.Entry<String, String> entry : copy.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Test
+    public void testRecentlyAccessedEntriesAreRetained() {
+        int                                capacity = 16; // single segment
+        ConcurrentCacheMap<String, String> cache    = new ConcurrentCacheMap<>(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i));
+        }
+
+        for (int i = 0; i < capacity / 2; i++) {
+            cache.get(String.valueOf(i));
+        }
+
+        for (int i = capacity; i < capacity + capacity / 2; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i));
+        }
+
+        assertEquals(capacity, cache.size());
+
+        for (int i = 0; i < capacity / 2; i++) {
+            assertEquals(String.valueOf(i), cache.get(String.valueOf(i)));
+        }
+
+        for (int i = capacity / 2; i < capacity; i++) {
+            assertNull(cache.get(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        int                                capacity    = 1024;
+        int                                threadCount = 8;
+        ConcurrentCacheMap<String, String> cache       = new ConcurrentCacheMap<>(capacity);
+        ExecutorService                    executor    = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>>                    futures     = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    String key   = String.valueOf((i * 31 + seed) % (capacity * 4));
+                    String value = cache.get(key);
+
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        assertEquals(key, value);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertTrue("size exceeds capacity: " + cache.size(), cache.size() <= capacity);
+    }
+}
@@ -29,8 +29,10 @@
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -113,6 +115,107 @@ public void testSelfScope() {
         verifyEvaluators("invalid: does-not-begin-with-sep", scope);
     }
 
+    @Test
+    public void testCompactNodes() {
+        for (boolean isOptimizedForRetrieval : new boolean[] {false, true}) {
+            for (boolean isOptimizedForSpace : new boolean[] {false, true}) {
+                RangerResourceTrie<RangerResourceEvaluator> trie        = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, isOptimizedForRetrieval, isOptimizedForSpace, false, null);
+                RangerResourceTrie<RangerResourceEvaluator> compactTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, isOptimizedForRetrieval, isOptimizedForSpace, true, null);
+
+                assertEquals(getAllEvaluators(trie), getAllEvaluators(compactTrie));
+
+                RangerResourceEvaluator evalTmpAbC = getEvaluator("/tmp/ab/c", false, false);
+
+                for (RangerResourceTrie<RangerResourceEvaluator> t : Arrays.asList(trie, compactTrie)) {
+                    t.add(evalTmpAbC.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmpAbC);
+                    t.delete(EVAL_TMP_AB.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMP_AB);
+                    t.wrapUpUpdate();
+                }
+
+                assertEquals(getAllEvaluators(trie), getAllEvaluators(compactTrie));
+                assertEquals(getAllEvaluators(trie), getAllEvaluators(new RangerResourceTrie<>(compactTrie)));
+            }
+        }
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        RangerResourceEvaluator evalTmpAbC   = getEvaluator("/tmp/ab/c", false, false);
+        RangerResourceEvaluator evalTmpA     = getEvaluator("/tmp/a");
+        RangerResourceEvaluator evalTmpAcD   = getEvaluator("/tmp/ac/d*", false, false);
+        RangerResourceEvaluator evalTmpAcDEF = getEvaluator("/tmp/ac/d/e/f", false, false);
+
+        for (boolean isOptimizedForRetrieval : new boolean[] {false, true}) {
+            RangerResourceTrie<RangerResourceEvaluator> original  = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, isOptimizedForRetrieval, null);
+            RangerResourceTrie<RangerResourceEvaluator> reference = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, isOptimizedForRetrieval, null);
+
+            // setup nodes in the original trie, as done by lookups before the update
+            getAllEvaluators(original);
+
+            RangerResourceTrie<RangerResourceEvaluator> copy     = new RangerResourceTrie<>(original, true);
+            List<RangerResourceEvaluator>               expected = new ArrayList<>(EVALUATORS);
+
+            for (RangerResourceEvaluator evaluator : Arrays.asList(evalTmpAbC, evalTmpA, evalTmpAcD, evalTmpAcDEF)) {
+                copy.add(evaluator.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evaluator);
+                expected.add(evaluator);
+            }
+
+            for (RangerResourceEvaluator evaluator : Arrays.asList(EVAL_TMP_A_B, EVAL_TMPnr, EVAL_HOME)) {
+                copy.delete(evaluator.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evaluator);
+                expected.remove(evaluator);
+            }
+
+            copy.wrapUpUpdate();
+
+            RangerResourceTrie<RangerResourceEvaluator> updated = new RangerResourceTrie<>(PATH_RESOURCE_DEF, expected, isOptimizedForRetrieval, null);
+
+            assertEquals("original trie must not be updated", getAllEvaluators(reference), getAllEvaluators(original));
+            assertEquals("copy must match the trie built with updated evaluators", getAllEvaluators(updated), getAllEvaluators(copy));
+        }
+    }
+
+    @Test
+    public void testCompiledWildcards() {
+        RangerResourceDef resourceDef = getPathResourceDef();
+
+        resourceDef.getMatcherOptions().put("compileWildCards", "true");
+
+        RangerResourceEvaluator evalRaw       = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/*/raw", false, false));
+        RangerResourceEvaluator evalTmp       = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/*/tmp", false, false));
+        RangerResourceEvaluator evalSales     = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/sales*", false, false));
+        RangerResourceEvaluator evalUser      = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/{USER}/*", false, false));
+        RangerResourceEvaluator evalRecursive = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/*/archive", false, true));
+        RangerResourceEvaluator evalExcludes  = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/*/secure", true, false));
+
+        List<RangerResourceEvaluator> evaluators = Arrays.asList(evalRaw, evalTmp, evalSales, evalUser, evalRecursive, evalExcludes);
+
+        RangerResourceTrie<RangerResourceEvaluator> compiledTrie = new RangerResourceTrie<>(resourceDef, evaluators);
+
+        // macros, recursive and excludes values are not compiled; these evaluators are always returned, as without compileWildCards
+        Set<RangerResourceEvaluator> uncompiled = new HashSet<>(Arrays.asList(evalUser, evalRecursive, evalExcludes));
+
+        verifyEvaluators(compiledTrie, "/data/hr/raw", union(uncompiled, evalRaw));
+        verifyEvaluators(compiledTrie, "/data/sales/tmp", union(uncompiled, evalTmp, evalSales));
+        verifyEvaluators(compiledTrie, "/data/sales", union(uncompiled, evalSales));
+        verifyEvaluators(compiledTrie, "/data/SALES/RAW", union(uncompiled, evalRaw, evalSales));
+        verifyEvaluators(compiledTrie, "/data/hr", uncompiled);
+
+        // lookups in other scopes are not filtered
+        assertEquals(trie(resourceDef, evaluators).getEvaluatorsForResource("/data/hr", ResourceElementMatchingScope.SELF_OR_CHILD), compiledTrie.getEvaluatorsForResource("/data/hr", ResourceElementMatchingScope.SELF_OR_CHILD));
+
+        // the compiled matcher must be rebuilt after the trie is updated
+        RangerResourceTrie<RangerResourceEvaluator> copy    = new RangerResourceTrie<>(compiledTrie, true);
+        RangerResourceEvaluator                     evalLog = new TestPolicyResourceEvaluator(resourceDef, new RangerPolicyResource("/data/*/log", false, false));
+
+        copy.add(evalLog.getPolicyResource().get(resourceDef.getName()), evalLog);
+        copy.delete(evalRaw.getPolicyResource().get(resourceDef.getName()), evalRaw);
+        copy.wrapUpUpdate();
+
+        verifyEvaluators(copy, "/data/hr/log", union(uncompiled, evalLog));
+        verifyEvaluators(copy, "/data/hr/raw", uncompiled);
+        verifyEvaluators(compiledTrie, "/data/hr/raw", union(uncompiled, evalRaw));
+    }
+
     private void verifyEvaluators(String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
         Set<RangerResourceEvaluator> expected = evaluators.length == 0 ? null : new HashSet<>(Arrays.asList(evaluators));
         Set<RangerResourceEvaluator> result   = trie.getEvaluatorsForResource(resource, scope);
@@ -120,6 +223,39 @@ private void verifyEvaluators(String resource, ResourceElementMatchingScope scop
         assertEquals("incorrect evaluators for resource " + resource, expected, result);
     }
 
+    private static void verifyEvaluators(RangerResourceTrie<RangerResourceEvaluator> trie, String resource, Set<RangerResourceEvaluator> expected) {
+        assertEquals("incorrect evaluators for resource " + resource, expected, trie.getEvaluatorsForResource(resource, ResourceElementMatchingScope.SELF));
+    }
+
+    private static Set<RangerResourceEvaluator> union(Set<RangerResourceEvaluator> evaluators, RangerResourceEvaluator... others) {
+        Set<RangerResourceEvaluator> ret = new HashSet<>(evaluators);
+
+        ret.addAll(Arrays.asList(others));
+
+        return ret;
+    }
+
+    private static RangerResourceTrie<RangerResourceEvaluator> trie(RangerResourceDef resourceDef, List<RangerResourceEvaluator> evaluators) {
+        RangerResourceDef uncompiledResourceDef = getPathResourceDef();
+
+        uncompiledResourceDef.getMatcherOptions().putAll(resourceDef.getMatcherOptions());
+        uncompiledResourceDef.getMatcherOptions().remove("compileWildCards");
+
+        return new RangerResourceTrie<>(uncompiledResourceDef, evaluators);
+    }
+
+    private static Map<String, Set<RangerResourceEvaluator>> getAllEvaluators(RangerResourceTrie<RangerResourceEvaluator> trie) {
+        Map<String, Set<RangerResourceEvaluator>> ret = new HashMap<>();
+
+        for (String resource : Arrays.asList("/", "/home", "/home/", "/tmp", "/tmp/", "/tmp/a", "/tmp/ab", "/tmp/ab/c", "/tmp/a/b", "/tmp/ac", "/tmp/ac/d", "/tmp/ac/dx", "/tmp/ac/d/e", "/tmp/ac/d/e/f", "/tmpfile", "/tmp.txt", "/tmpa/b", "/unmatched")) {
+            for (ResourceElementMatchingScope scope : ResourceElementMatchingScope.values()) {
+                ret.put(scope + ":" + resource, trie.getEvaluatorsForResource(resource, scope));
+            }
+        }
+
+        return ret;
+    }
+
     private static RangerResourceDef getPathResourceDef() {
         RangerResourceDef ret = new RangerResourceDef();
 
@@ -150,11 +286,15 @@ private static class TestPolicyResourceEvaluator implements RangerResourceEvalua
         private final RangerResourceMatcher resourceMatcher;
 
         TestPolicyResourceEvaluator(RangerPolicyResource policyResource) {
+            this(PATH_RESOURCE_DEF, policyResource);
+        }
+
+        TestPolicyResourceEvaluator(RangerResourceDef resourceDef, RangerPolicyResource policyResource) {
             this.id              = nextId++;
             this.policyResource  = policyResource;
             this.resourceMatcher = new RangerPathResourceMatcher();
 
-            resourceMatcher.setResourceDef(PATH_RESOURCE_DEF);
+            resourceMatcher.setResourceDef(resourceDef);
             resourceMatcher.setPolicyResource(policyResource);
 
             resourceMatcher.init();
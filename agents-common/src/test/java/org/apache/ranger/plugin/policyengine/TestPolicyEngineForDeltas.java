@@ -178,6 +178,20 @@ public void testPolicyEngine_hdfs_incremental_delete() {
         runTestsFromResourceFiles(hdfsTestResourceFiles);
     }
 
+    @Test
+    public void testPolicyEngine_hdfs_incremental_delete_copyOnWrite() {
+        String[]                  hdfsTestResourceFiles = {"/policyengine/test_policyengine_hdfs_incremental_delete.json"};
+        RangerPolicyEngineOptions options               = pluginContext.getConfig().getPolicyEngineOptions();
+
+        options.enableCopyOnWritePolicyUpdates = true;
+
+        try {
+            runTestsFromResourceFiles(hdfsTestResourceFiles);
+        } finally {
+            options.enableCopyOnWritePolicyUpdates = false;
+        }
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for (String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
@@ -82,6 +82,47 @@ public void testZoneMatcher() {
         assertEquals(createSet("", "z3", "z4"), zones);
     }
 
+    @Test
+    public void testZoneMatcherWithCache() {
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig("hive", null, "hive", "cl1", "on-prem", null));
+
+        pluginContext.getConfig().getPolicyEngineOptions().zoneResourceCacheSize = 100;
+
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(securityZones, serviceDef, pluginContext);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(createSet("z1"), zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db1", "table", "tbl1")));
+            assertEquals(createSet("z3"), zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3", "table", "test_1")));
+            assertNull(zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3", "table", "orders")));
+            assertEquals(createSet("", "z3", "z4"), zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3")));
+        }
+
+        assertEquals(4, zoneMatcher.getCacheMissCount());
+        assertEquals(4, zoneMatcher.getCacheHitCount());
+        assertEquals(4, zoneMatcher.getCacheSize());
+        assertEquals(8, zoneMatcher.getLookupCount());
+    }
+
+    @Test
+    public void testSingleZone() {
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(Collections.singletonMap("z3", securityZones.get("z3")), serviceDef, pluginContext);
+
+        assertEquals(createSet("z3"), zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3", "table", "test_1")));
+        assertEquals(createSet("", "z3"), zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3")));
+        assertNull(zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db3", "table", "orders")));
+        assertNull(zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db1", "table", "tbl1")));
+        assertEquals(4, zoneMatcher.getLookupCount());
+    }
+
+    @Test
+    public void testNoZones() {
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(Collections.emptyMap(), serviceDef, pluginContext);
+
+        assertNull(zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db1", "table", "tbl1")));
+        assertNull(zoneMatcher.getZonesForResourceAndChildren(Collections.singletonMap("database", "db1")));
+        assertEquals(0, zoneMatcher.getLookupCount());
+    }
+
     private Map<String, SecurityZoneInfo> createSecurityZones() {
         HashMap<String, List<String>> db1     = TestStringUtil.mapFromStringStringList("database", Collections.singletonList("db1"));
         HashMap<String, List<String>> db2     = TestStringUtil.mapFromStringStringList("database", Collections.singletonList("db2"));
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.hadoop.thirdparty.com.google.common.collect.Lists;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiWildcardMatcherTest {
+    @Test
+    public void testGetMatchingPatterns() {
+        List<String>         patterns = Arrays.asList("sales_*", "*_2024", "s?les_*_2024", "*tmp*", "finance");
+        MultiWildcardMatcher matcher  = new MultiWildcardMatcher(patterns, true);
+
+        assertEquals(bits(0, 1, 2), matcher.getMatchingPatterns("sales_eu_2024"));
+        assertEquals(bits(0, 3), matcher.getMatchingPatterns("sales_tmp"));
+        assertEquals(bits(4), matcher.getMatchingPatterns("finance"));
+        assertEquals(bits(), matcher.getMatchingPatterns("Finance"));
+        assertEquals(bits(), matcher.getMatchingPatterns(""));
+        assertEquals(bits(), matcher.getMatchingPatterns(null));
+        assertTrue(matcher.isMatch("my_tmp_table"));
+        assertFalse(matcher.isMatch("hr"));
+        assertFalse(MultiWildcardMatcher.isCompilable("b*?"));
+        assertFalse(MultiWildcardMatcher.isCompilable("**"));
+
+        matcher = new MultiWildcardMatcher(patterns, false);
+
+        assertEquals(bits(0, 1, 2), matcher.getMatchingPatterns("SALES_EU_2024"));
+        assertEquals(bits(4), matcher.getMatchingPatterns("Finance"));
+    }
+
+    @Test
+    public void testIsPrefixMatchAtSeparator() {
+        MultiWildcardMatcher matcher = new MultiWildcardMatcher(Arrays.asList("/data/*/raw", "/tmp/?"), true);
+
+        assertTrue(matcher.isPrefixMatchAtSeparator("/data/sales/raw", '/', 0));
+        assertTrue(matcher.isPrefixMatchAtSeparator("/data/sales/raw/2024/jan", '/', 0));
+        assertTrue(matcher.isPrefixMatchAtSeparator("/tmp/a/b", '/', 0));
+        assertFalse(matcher.isPrefixMatchAtSeparator("/data/sales/rawfile", '/', 0));
+        assertTrue(matcher.isPrefixMatchAtSeparator("/data/sales/raw/", '/', 0));
+        assertFalse(matcher.isPrefixMatchAtSeparator("/data/raw", '/', 0));
+        assertFalse(matcher.isPrefixMatchAtSeparator("/tmp/ab", '/', 0));
+        assertFalse(matcher.isPrefixMatchAtSeparator("/tmp/a/b", '/', 6)); // "/tmp/a" is too short
+        assertFalse(matcher.isPrefixMatchAtSeparator("", '/', 0));
+        assertFalse(matcher.isPrefixMatchAtSeparator(null, '/', 0));
+    }
+
+    @Test
+    public void testSameAsWildcardMatch() {
+        Random       random   = new Random(42);
+        String       alphabet = "abAB/*?";
+        List<String> patterns = new ArrayList<>();
+
+        // more than 64 states, to span multiple words
+        while (patterns.size() < 40) {
+            String pattern = randomString(random, alphabet, 1 + random.nextInt(8));
+
+            if (MultiWildcardMatcher.isCompilable(pattern)) {
+                patterns.add(pattern);
+            }
+        }
+
+        for (boolean isCaseSensitive : new boolean[] {true, false}) {
+            MultiWildcardMatcher matcher = new MultiWildcardMatcher(patterns, isCaseSensitive);
+            IOCase               ioCase  = isCaseSensitive ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+
+            for (int i = 0; i < 2000; i++) {
+                String value    = randomString(random, "abAB/", random.nextInt(10));
+                BitSet expected = new BitSet();
+
+                for (int p = 0; p < patterns.size(); p++) {
+                    if (FilenameUtils.wildcardMatch(value, patterns.get(p), ioCase)) {
+                        expected.set(p);
+                    }
+                }
+
+                assertEquals("value=" + value + ", isCaseSensitive=" + isCaseSensitive, expected, matcher.getMatchingPatterns(value));
+                assertEquals("value=" + value + ", isCaseSensitive=" + isCaseSensitive, !expected.isEmpty(), matcher.isMatch(value));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledResourceMatcher() {
+        Map<String, Object> evalContext = new HashMap<>();
+
+        RangerAccessRequestUtil.setTokenInContext(evalContext, "USER", "bob");
+
+        for (boolean compile : new boolean[] {false, true}) {
+            RangerDefaultResourceMatcher matcher = createMatcher(compile, "db_*_tmp", "*_archive", "db_{USER}_*", "sales?");
+
+            assertTrue(matcher.isMatch("db_sales_tmp", ResourceElementMatchingScope.SELF, evalContext));
+            assertTrue(matcher.isMatch("sales_archive", ResourceElementMatchingScope.SELF, evalContext));
+            assertTrue(matcher.isMatch("db_bob_2024", ResourceElementMatchingScope.SELF, evalContext));
+            assertTrue(matcher.isMatch("sales1", ResourceElementMatchingScope.SELF, evalContext));
+            assertFalse(matcher.isMatch("db_alice_2024", ResourceElementMatchingScope.SELF, evalContext));
+            assertFalse(matcher.isMatch("sales", ResourceElementMatchingScope.SELF, evalContext));
+            assertTrue(matcher.isMatch("db_", ResourceElementMatchingScope.SELF_OR_PREFIX, evalContext));
+            assertFalse(matcher.isMatch("hr", ResourceElementMatchingScope.SELF, evalContext));
+        }
+    }
+
+    private static RangerDefaultResourceMatcher createMatcher(boolean compile, String... values) {
+        RangerDefaultResourceMatcher ret            = new RangerDefaultResourceMatcher();
+        RangerResourceDef            resourceDef    = new RangerResourceDef();
+        Map<String, String>          matcherOptions = new HashMap<>();
+
+        matcherOptions.put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, Boolean.FALSE.toString());
+        matcherOptions.put(RangerAbstractResourceMatcher.OPTION_COMPILE_WILD_CARDS, Boolean.toString(compile));
+
+        resourceDef.setMatcherOptions(matcherOptions);
+
+        ret.setResourceDef(resourceDef);
+        ret.setPolicyResource(new RangerPolicyResource(Lists.newArrayList(values), false, false));
+        ret.init();
+
+        assertEquals(compile, ret.resourceMatchers.getResourceMatchers().stream().anyMatch(m -> m instanceof RangerAbstractResourceMatcher.MultiWildcardResourceMatcher));
+
+        return ret;
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return sb.toString();
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet ret = new BitSet();
+
+        for (int index : indexes) {
+            ret.set(index);
+        }
+
+        return ret;
+    }
+}
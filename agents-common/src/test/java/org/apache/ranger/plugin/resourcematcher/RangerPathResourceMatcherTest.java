@@ -19,6 +19,10 @@
 
 package org.apache.ranger.plugin.resourcematcher;
 
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.thirdparty.com.google.common.collect.Lists;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
@@ -29,6 +33,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -206,10 +211,110 @@ public void testIsMatchForSelfOrPrefixScope() {
         }
     }
 
+    @Test
+    public void testRecursiveWildCardMatch() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            String   wildcardPath         = randomString(random, "ab/*?", 1 + random.nextInt(8));
+            String[] wildcardPathElements = StringUtils.split(wildcardPath, '/');
+
+            if (!MultiWildcardMatcher.isCompilable(wildcardPath)) {
+                continue;
+            }
+
+            for (IOCase ioCase : new IOCase[] {IOCase.SENSITIVE, IOCase.INSENSITIVE}) {
+                MultiWildcardMatcher wildcardMatcher = new MultiWildcardMatcher(Collections.singletonList(wildcardPath), ioCase.isCaseSensitive());
+
+                for (int j = 0; j < 50; j++) {
+                    String  path     = randomString(random, "abAB/", random.nextInt(10));
+                    boolean expected = isRecursiveWildCardMatchByPrefixes(path, wildcardPath, '/', ioCase, wildcardPathElements);
+                    String  message  = "path=" + path + ", wildcardPath=" + wildcardPath + ", ioCase=" + ioCase;
+
+                    assertEquals(message, expected, RangerPathResourceMatcher.isRecursiveWildCardMatch(path, wildcardPath, '/', ioCase, wildcardPathElements));
+                    assertEquals(message, expected, RangerPathResourceMatcher.isRecursiveWildCardMatch(path, wildcardPath, '/', ioCase, wildcardPathElements, wildcardMatcher));
+                }
+            }
+        }
+    }
+
     String getMessage(Object[] row) {
         return String.format("Resource=%s, Policy=%s, optWildcard=%s, recursive=%s, result=%s", row[0], row[1], row[2], row[3], row[4]);
     }
 
+    // matches wildcardPath with each ancestor of pathToCheck, built into a StringBuilder
+    private static boolean isRecursiveWildCardMatchByPrefixes(String pathToCheck, String wildcardPath, char pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements) {
+        boolean ret = false;
+
+        if (!StringUtils.isEmpty(pathToCheck)) {
+            String[] pathElements = StringUtils.split(pathToCheck, pathSeparatorChar);
+
+            if (!ArrayUtils.isEmpty(pathElements)) {
+                StringBuilder sb                = new StringBuilder();
+                int           pathElementIndex  = 0;
+                boolean       useStringMatching = true;
+
+                if (pathToCheck.charAt(0) == pathSeparatorChar) {
+                    sb.append(pathSeparatorChar);
+                }
+
+                for (String p : pathElements) {
+                    sb.append(p);
+
+                    if (useStringMatching) {
+                        if (wildcardPathElements.length > pathElementIndex) {
+                            String wp = wildcardPathElements[pathElementIndex];
+
+                            if (!(StringUtils.contains(wp, '*') || StringUtils.contains(wp, '?'))) {
+                                if (!(caseSensitivity.isCaseSensitive() ? StringUtils.equals(p, wp) : StringUtils.equalsIgnoreCase(p, wp))) {
+                                    useStringMatching = false;
+                                    break;
+                                }
+                            } else {
+                                useStringMatching = false;
+                            }
+                        } else {
+                            useStringMatching = false;
+                        }
+                    }
+
+                    if (!useStringMatching) {
+                        ret = FilenameUtils.wildcardMatch(sb.toString(), wildcardPath, caseSensitivity);
+
+                        if (ret) {
+                            break;
+                        }
+                    }
+
+                    sb.append(pathSeparatorChar);
+                    pathElementIndex++;
+                }
+
+                if (useStringMatching) {
+                    if (pathElements.length == wildcardPathElements.length) {
+                        ret = true;
+                    } else if (pathToCheck.charAt(pathToCheck.length() - 1) == pathSeparatorChar) {
+                        ret = pathElements.length == (wildcardPathElements.length - 1) && "*".equals(wildcardPathElements[wildcardPathElements.length - 1]);
+                    }
+                }
+            } else {
+                ret = FilenameUtils.wildcardMatch(pathToCheck, wildcardPath, caseSensitivity);
+            }
+        }
+
+        return ret;
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return sb.toString();
+    }
+
     static class MatcherWrapper extends RangerPathResourceMatcher {
         MatcherWrapper(String policyValue, boolean optWildcard, boolean isRecursive) {
             RangerResourceDef   resourceDef    = new RangerResourceDef();
@@ -26,7 +26,9 @@
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
@@ -51,9 +53,11 @@
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,6 +65,7 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class TestRangerBasePlugin {
     static Gson                      gsonBuilder;
@@ -87,6 +92,123 @@ public void testBasePluginHive() throws Exception {
         runTestsFromResourceFile("/plugin/test_base_plugin_hive.json");
     }
 
+    @Test
+    public void testBasePluginHiveParallelBatch() throws Exception {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions(peOptions);
+
+        options.enableParallelBatchEvaluation  = true;
+        options.parallelBatchEvaluationMinSize = 2;
+        options.parallelBatchEvaluationThreads = 4;
+
+        InputStream              inStream = this.getClass().getResourceAsStream("/plugin/test_base_plugin_hive.json");
+        RangerBasePluginTestCase testCase = readTestCase(new InputStreamReader(inStream));
+
+        RangerPluginConfig pluginConfig = new RangerPluginConfig(testCase.policies.getServiceDef().getName(), testCase.policies.getServiceName(), "hive", "cl1", "on-prem", options);
+        RangerBasePlugin   plugin       = new RangerBasePlugin(pluginConfig, testCase.policies, testCase.tags, testCase.roles, testCase.userStore, testCase.gdsInfo);
+
+        List<TestData>            tests    = new ArrayList<>();
+        List<RangerAccessRequest> requests = new ArrayList<>();
+
+        for (TestData test : testCase.tests) {
+            if (test.result != null) {
+                tests.add(test);
+                requests.add(test.request);
+            }
+        }
+
+        Collection<RangerAccessResult> results = plugin.isAccessAllowed(requests);
+
+        assertNotNull("results was null!", results);
+        assertEquals("results count mismatched!", tests.size(), results.size());
+
+        Iterator<RangerAccessResult> iterResults = results.iterator();
+
+        for (TestData test : tests) {
+            RangerAccessResult result = iterResults.next();
+
+            assertNotNull("result was null! - " + test.name, result);
+            assertEquals("request mismatched! - " + test.name, test.request, result.getAccessRequest());
+            assertEquals("isAllowed mismatched! - " + test.name, test.result.getIsAllowed(), result.getIsAllowed());
+            assertEquals("isAccessDetermined mismatched! - " + test.name, test.result.getIsAccessDetermined(), result.getIsAccessDetermined());
+            assertEquals("isAllowed mismatched! - " + test.name, test.result.getPolicyId(), result.getPolicyId());
+            assertEquals("isAudited mismatched! - " + test.name, test.result.getIsAudited(), result.getIsAudited());
+            assertEquals("isAuditedDetermined mismatched! - " + test.name, test.result.getIsAuditedDetermined(), result.getIsAuditedDetermined());
+        }
+
+        plugin.cleanup();
+    }
+
+    @Test
+    public void testBasePluginHiveDecisionCache() throws Exception {
+        RangerBasePluginTestCase testCase  = readTestCase(new InputStreamReader(this.getClass().getResourceAsStream("/plugin/test_base_plugin_hive.json")));
+        RangerBasePluginTestCase testCase2 = readTestCase(new InputStreamReader(this.getClass().getResourceAsStream("/plugin/test_base_plugin_hive.json")));
+
+        RangerPluginConfig pluginConfig = new RangerPluginConfig(testCase.policies.getServiceDef().getName(), testCase.policies.getServiceName(), "hive", "cl1", "on-prem", peOptions);
+
+        pluginConfig.setBoolean(pluginConfig.getPropertyPrefix() + ".access.decision.cache.enabled", true);
+
+        // results that involve GDS are not cached, hence no gdsInfo
+        RangerBasePlugin          plugin       = new RangerBasePlugin(pluginConfig, testCase.policies, testCase.tags, testCase.roles, testCase.userStore, null);
+        RangerAccessDecisionCache cache        = plugin.getAccessDecisionCache();
+        List<AuthzAuditEvent>     auditEvents  = new ArrayList<>();
+        RangerDefaultAuditHandler auditHandler = new RangerDefaultAuditHandler() {
+            @Override
+            public void processResult(RangerAccessResult result) {
+                auditEvents.add(getAuthzEvents(result));
+            }
+        };
+
+        assertNotNull("decision cache was not created", cache);
+
+        int requestCount = 0;
+
+        for (int i = 0; i < testCase.tests.size(); i++) {
+            TestData test  = testCase.tests.get(i);
+            TestData test2 = testCase2.tests.get(i);
+
+            if (test.result == null) {
+                continue;
+            }
+
+            RangerAccessResult result  = plugin.isAccessAllowed(test.request, auditHandler);
+            RangerAccessResult result2 = plugin.isAccessAllowed(test2.request, auditHandler); // from cache, unless not cacheable
+
+            requestCount += 2;
+
+            assertNotNull("result was null! - " + test.name, result);
+            assertNotNull("result was null! - " + test.name, result2);
+            assertEquals("isAllowed mismatched! - " + test.name, result.getIsAllowed(), result2.getIsAllowed());
+            assertEquals("isAccessDetermined mismatched! - " + test.name, result.getIsAccessDetermined(), result2.getIsAccessDetermined());
+            assertEquals("policyId mismatched! - " + test.name, result.getPolicyId(), result2.getPolicyId());
+            assertEquals("isAudited mismatched! - " + test.name, result.getIsAudited(), result2.getIsAudited());
+            assertEquals("isAuditedDetermined mismatched! - " + test.name, result.getIsAuditedDetermined(), result2.getIsAuditedDetermined());
+            assertEquals("zoneName mismatched! - " + test.name, result.getZoneName(), result2.getZoneName());
+            assertEquals("request mismatched! - " + test.name, test2.request, result2.getAccessRequest());
+
+            AuthzAuditEvent event  = auditEvents.get(auditEvents.size() - 2);
+            AuthzAuditEvent event2 = auditEvents.get(auditEvents.size() - 1);
+
+            if (event == null || event2 == null) {
+                assertEquals("audit event mismatched! - " + test.name, event, event2);
+            } else {
+                assertEquals("audit user mismatched! - " + test.name, event.getUser(), event2.getUser());
+                assertEquals("audit resource mismatched! - " + test.name, event.getResourcePath(), event2.getResourcePath());
+                assertEquals("audit accessType mismatched! - " + test.name, event.getAccessType(), event2.getAccessType());
+                assertEquals("audit accessResult mismatched! - " + test.name, event.getAccessResult(), event2.getAccessResult());
+                assertEquals("audit policyId mismatched! - " + test.name, event.getPolicyId(), event2.getPolicyId());
+                assertEquals("audit policyVersion mismatched! - " + test.name, event.getPolicyVersion(), event2.getPolicyVersion());
+                assertEquals("audit tags mismatched! - " + test.name, event.getTags(), event2.getTags());
+                assertEquals("audit zoneName mismatched! - " + test.name, event.getZoneName(), event2.getZoneName());
+                assertEquals("audit clusterName mismatched! - " + test.name, event.getClusterName(), event2.getClusterName());
+            }
+        }
+
+        assertTrue("no cache hits: " + cache, cache.getHitCount() > 0);
+        assertEquals("request count mismatched: " + cache, requestCount, cache.getHitCount() + cache.getMissCount() + cache.getUncacheableCount());
+
+        plugin.cleanup();
+    }
+
     private void runTestsFromResourceFile(String resourceFile) throws Exception {
         InputStream       inStream = this.getClass().getResourceAsStream(resourceFile);
         InputStreamReader reader   = new InputStreamReader(inStream);
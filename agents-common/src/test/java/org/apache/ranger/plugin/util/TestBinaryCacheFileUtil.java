@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestBinaryCacheFileUtil {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testCacheFileNames() throws IOException {
+        File jsonFile   = new File(tempFolder.getRoot(), "hive_dev_hive.json");
+        File binaryFile = BinaryCacheFileUtil.getBinaryCacheFile(jsonFile);
+
+        assertEquals(new File(tempFolder.getRoot(), "hive_dev_hive.bin"), binaryFile);
+        assertNull("binary file doesn't exist", BinaryCacheFileUtil.getBinaryCacheFileToLoad(jsonFile));
+
+        assertTrue(binaryFile.createNewFile());
+        assertEquals(binaryFile, BinaryCacheFileUtil.getBinaryCacheFileToLoad(jsonFile));
+
+        assertTrue(jsonFile.createNewFile());
+        assertTrue(binaryFile.setLastModified(jsonFile.lastModified() - 60 * 1000L));
+        assertNull("binary file older than JSON file", BinaryCacheFileUtil.getBinaryCacheFileToLoad(jsonFile));
+
+        assertTrue(BinaryCacheFileUtil.isBinaryFormat("binary"));
+        assertTrue(!BinaryCacheFileUtil.isBinaryFormat("json"));
+        assertTrue(!BinaryCacheFileUtil.isBinaryFormat(null));
+    }
+
+    @Test
+    public void testPolicies() throws IOException {
+        ServicePolicies policies = new ServicePolicies();
+
+        policies.setServiceName("dev_hive");
+        policies.setServiceId(1L);
+        policies.setPolicyVersion(42L);
+        policies.setPolicyUpdateTime(new Date());
+        policies.setPolicies(createPolicies(2000)); // enough to be prefetched
+        policies.setServiceConfig(Collections.singletonMap("ranger.plugin.audit.filters", "[]"));
+
+        ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+        tagPolicies.setServiceName("dev_tag");
+        tagPolicies.setPolicyVersion(7L);
+        tagPolicies.setPolicies(createPolicies(10));
+
+        policies.setTagPolicies(tagPolicies);
+
+        File file = tempFolder.newFile("hive_dev_hive.bin");
+
+        BinaryCacheFileUtil.writePolicies(file, policies);
+
+        ServicePolicies loaded = BinaryCacheFileUtil.readPolicies(file);
+
+        assertEquals(JsonUtils.objectToJson(policies), JsonUtils.objectToJson(loaded));
+    }
+
+    @Test
+    public void testNullLists() throws IOException {
+        ServicePolicies policies = new ServicePolicies();
+
+        policies.setServiceName("dev_hive");
+
+        File file = tempFolder.newFile("hive_dev_hive.bin");
+
+        BinaryCacheFileUtil.writePolicies(file, policies);
+
+        ServicePolicies loaded = BinaryCacheFileUtil.readPolicies(file);
+
+        assertEquals("dev_hive", loaded.getServiceName());
+        assertNull(loaded.getPolicies());
+        assertNull(loaded.getTagPolicies());
+    }
+
+    @Test
+    public void testServiceTags() throws IOException {
+        ServiceTags                 serviceTags      = new ServiceTags();
+        Map<Long, RangerTag>        tags             = new HashMap<>();
+        List<RangerServiceResource> resources        = new ArrayList<>();
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+        tags.put(1L, new RangerTag("PII", Collections.singletonMap("type", "email")));
+
+        for (long i = 0; i < 100; i++) {
+            RangerServiceResource resource = new RangerServiceResource("dev_hive", Collections.singletonMap("database", new RangerPolicyResource("db" + i)));
+
+            resource.setId(i);
+
+            resources.add(resource);
+            resourceToTagIds.put(i, Collections.singletonList(1L));
+        }
+
+        serviceTags.setServiceName("dev_hive");
+        serviceTags.setTagVersion(3L);
+        serviceTags.setTags(tags);
+        serviceTags.setServiceResources(resources);
+        serviceTags.setResourceToTagIds(resourceToTagIds);
+
+        File file = tempFolder.newFile("hive_dev_hive_tag.bin");
+
+        BinaryCacheFileUtil.writeServiceTags(file, serviceTags);
+
+        ServiceTags loaded = BinaryCacheFileUtil.readServiceTags(file);
+
+        assertEquals(JsonUtils.objectToJson(serviceTags), JsonUtils.objectToJson(loaded));
+    }
+
+    @Test
+    public void testRolesAndUserStore() throws IOException {
+        RangerRoles     roles     = new RangerRoles();
+        Set<RangerRole> roleSet   = new HashSet<>();
+        RangerUserStore userStore = new RangerUserStore();
+
+        for (int i = 0; i < 10; i++) {
+            roleSet.add(new RangerRole("role" + i, null, null, Collections.singletonList(new RangerRole.RoleMember("user" + i, false)), null));
+        }
+
+        roles.setServiceName("dev_hive");
+        roles.setRoleVersion(5L);
+        roles.setRangerRoles(roleSet);
+
+        userStore.setUserStoreVersion(9L);
+        userStore.setUserGroupMapping(Collections.singletonMap("user1", Collections.singleton("group1")));
+
+        File rolesFile     = tempFolder.newFile("hive_dev_hive_roles.bin");
+        File userStoreFile = tempFolder.newFile("hive_dev_hive_userstore.bin");
+
+        BinaryCacheFileUtil.writeRoles(rolesFile, roles);
+        BinaryCacheFileUtil.writeUserStore(userStoreFile, userStore);
+
+        RangerRoles     loadedRoles     = BinaryCacheFileUtil.readRoles(rolesFile);
+        RangerUserStore loadedUserStore = BinaryCacheFileUtil.readUserStore(userStoreFile);
+
+        assertEquals(Long.valueOf(5L), loadedRoles.getRoleVersion());
+        assertEquals(roleSet.size(), loadedRoles.getRangerRoles().size());
+
+        for (RangerRole role : roleSet) {
+            assertTrue(role.getName(), loadedRoles.getRangerRoles().stream().anyMatch(r -> r.getName().equals(role.getName())));
+        }
+
+        assertEquals(Long.valueOf(9L), loadedUserStore.getUserStoreVersion());
+        assertEquals(userStore.getUserGroupMapping(), loadedUserStore.getUserGroupMapping());
+    }
+
+    @Test
+    public void testCorruptedFileIsRejected() throws IOException {
+        ServicePolicies policies = new ServicePolicies();
+
+        policies.setServiceName("dev_hive");
+        policies.setPolicies(createPolicies(10));
+
+        File file = tempFolder.newFile("hive_dev_hive.bin");
+
+        BinaryCacheFileUtil.writePolicies(file, policies);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+
+            int b = raf.read();
+
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 0xff);
+        }
+
+        try {
+            BinaryCacheFileUtil.readPolicies(file);
+
+            fail("corrupted file must be rejected");
+        } catch (IOException excp) {
+            assertNotNull(excp.getMessage());
+        }
+
+        try {
+            BinaryCacheFileUtil.readServiceTags(tempFolder.newFile("empty.bin"));
+
+            fail("empty file must be rejected");
+        } catch (IOException excp) {
+            assertNotNull(excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testContentTypeMismatchIsRejected() throws IOException {
+        RangerRoles roles = new RangerRoles();
+
+        roles.setServiceName("dev_hive");
+        roles.setRangerRoles(new HashSet<>());
+
+        File file = tempFolder.newFile("hive_dev_hive_roles.bin");
+
+        BinaryCacheFileUtil.writeRoles(file, roles);
+
+        try {
+            BinaryCacheFileUtil.readPolicies(file);
+
+            fail("roles file must not be loaded as policies");
+        } catch (IOException excp) {
+            assertNotNull(excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testSameLastModifiedUsesVersion() throws IOException {
+        File            jsonFile   = new File(tempFolder.getRoot(), "hive_dev_hive.json");
+        File            binaryFile = BinaryCacheFileUtil.getBinaryCacheFile(jsonFile);
+        ServicePolicies policies   = new ServicePolicies();
+
+        policies.setServiceName("dev_hive");
+        policies.setPolicyVersion(42L);
+        policies.setPolicies(createPolicies(1));
+
+        BinaryCacheFileUtil.writePolicies(binaryFile, policies);
+
+        for (long jsonVersion : new long[] {41L, 42L, 43L}) {
+            policies.setPolicyVersion(jsonVersion);
+
+            try (Writer writer = new FileWriter(jsonFile)) {
+                JsonUtils.objectToWriter(writer, policies);
+            }
+
+            assertTrue(jsonFile.setLastModified(binaryFile.lastModified()));
+
+            if (jsonVersion <= 42L) {
+                assertEquals("JSON version " + jsonVersion, binaryFile, BinaryCacheFileUtil.getBinaryCacheFileToLoad(jsonFile));
+            } else {
+                assertNull("JSON version " + jsonVersion, BinaryCacheFileUtil.getBinaryCacheFileToLoad(jsonFile));
+            }
+        }
+    }
+
+    @Test
+    public void testRecordsAreDecodedLazily() throws Exception {
+        ServicePolicies policies = new ServicePolicies();
+
+        policies.setServiceName("dev_hive");
+        policies.setPolicies(createPolicies(3000));
+
+        File file = tempFolder.newFile("hive_dev_hive.bin");
+
+        BinaryCacheFileUtil.writePolicies(file, policies);
+
+        assertTrue("binary file must be smaller than JSON", file.length() < JsonUtils.objectToJson(policies).getBytes(StandardCharsets.UTF_8).length);
+
+        List<RangerPolicy> loaded = BinaryCacheFileUtil.readPolicies(file).getPolicies();
+
+        assertEquals(policies.getPolicies().size(), loaded.size());
+        assertSame("a record is decoded once", loaded.get(2999), loaded.get(2999));
+        assertSame("records share strings", loaded.get(1).getService(), loaded.get(2).getService());
+        assertEquals("policy-2999", loaded.get(2999).getName());
+
+        // Java serialization and updates, like by policy-deltas
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(loaded);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(JsonUtils.objectToJson(policies.getPolicies()), JsonUtils.objectToJson(in.readObject()));
+        }
+
+        RangerPolicy policy = createPolicies(1).get(0);
+
+        loaded.set(0, policy);
+        assertSame(policy, loaded.get(0));
+
+        for (Iterator<RangerPolicy> iter = loaded.iterator(); iter.hasNext(); ) {
+            if (iter.next().getId() % 2 == 1) {
+                iter.remove();
+            }
+        }
+
+        loaded.add(policy);
+
+        assertEquals(1501, loaded.size());
+        assertEquals("policy-2998", loaded.get(1499).getName());
+        assertSame(policy, loaded.get(1500));
+    }
+
+    private static List<RangerPolicy> createPolicies(int count) {
+        List<RangerPolicy> ret = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            RangerPolicy     policy = new RangerPolicy();
+            RangerPolicyItem item   = new RangerPolicyItem();
+
+            item.setUsers(Collections.singletonList("user" + i));
+            item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select", true)));
+
+            policy.setId((long) i);
+            policy.setName("policy-" + i);
+            policy.setService("dev_hive");
+            policy.setResources(Collections.singletonMap("database", new RangerPolicyResource("db" + i)));
+            policy.setPolicyItems(Collections.singletonList(item));
+
+            ret.add(policy);
+        }
+
+        return ret;
+    }
+}
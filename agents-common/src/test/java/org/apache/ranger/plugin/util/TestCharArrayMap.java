@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestCharArrayMap {
+    @Test
+    public void testSameAsHashMap() {
+        CharArrayMap<String>   map      = new CharArrayMap<>();
+        Map<Character, String> expected = new HashMap<>();
+        Random                 random   = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            char   key   = (char) ('a' + random.nextInt(26));
+            String value = Integer.toString(i);
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(expected, map);
+        assertEquals(new ArrayList<>(new TreeMap<>(expected).values()), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void testPutAllAndIteratorRemove() {
+        CharArrayMap<Integer> map = new CharArrayMap<>();
+
+        map.put('c', 3);
+        map.put('a', 1);
+        map.put('b', 2);
+
+        CharArrayMap<Integer> copy = new CharArrayMap<>();
+
+        copy.putAll(map);
+        map.remove('a');
+
+        assertEquals(3, copy.size());
+        assertEquals(Integer.valueOf(1), copy.get('a'));
+
+        for (Iterator<Integer> iter = copy.values().iterator(); iter.hasNext(); ) {
+            if (iter.next() % 2 == 1) {
+                iter.remove();
+            }
+        }
+
+        assertEquals(1, copy.size());
+        assertEquals(Integer.valueOf(2), copy.get(Character.valueOf('b')));
+        assertNull(copy.get('c'));
+        assertTrue(copy.containsKey('b'));
+        assertFalse(copy.containsKey("b"));
+
+        copy.clear();
+
+        assertTrue(copy.isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.ScheduledDownload;
+import org.apache.ranger.plugin.util.RangerDownloadScheduler.SharedDownloaderTask;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestRangerDownloadScheduler {
+    @Test
+    public void testSkipWhileDownloadPending() throws Exception {
+        BlockingQueue<DownloadTrigger> queue = new LinkedBlockingQueue<>();
+        SharedDownloaderTask           task  = new SharedDownloaderTask("test", queue);
+
+        task.run();
+
+        DownloadTrigger trigger = queue.poll();
+
+        assertNotNull(trigger);
+
+        task.run(); // previous download not yet complete
+
+        assertNull(queue.poll());
+
+        trigger.signalCompletion();
+        task.run();
+
+        assertSame(trigger, queue.poll());
+        assertFalse(trigger.pollCompletion());
+    }
+
+    @Test
+    public void testSharedScheduleAndCancel() throws Exception {
+        ScheduledThreadPoolExecutor    executor = new ScheduledThreadPoolExecutor(1);
+        BlockingQueue<DownloadTrigger> queue    = new LinkedBlockingQueue<>();
+
+        executor.setRemoveOnCancelPolicy(true);
+
+        try {
+            ScheduledDownload download = RangerDownloadScheduler.scheduleShared("test", queue, 10, executor);
+
+            for (int i = 0; i < 3; i++) {
+                DownloadTrigger trigger = queue.poll(5, TimeUnit.SECONDS);
+
+                assertNotNull(trigger);
+
+                trigger.signalCompletion();
+            }
+
+            download.cancel();
+
+            assertEquals(0, executor.getQueue().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSharedThreadCountIsMaxAcrossPlugins() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2);
+
+        try {
+            RangerDownloadScheduler.updateThreadCount(executor, 4, "ranger.plugin.hive.download.scheduler.threads");
+
+            assertEquals(4, executor.getCorePoolSize());
+
+            RangerDownloadScheduler.updateThreadCount(executor, 3, "ranger.plugin.hdfs.download.scheduler.threads"); // ignored: smaller than current
+
+            assertEquals(4, executor.getCorePoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTimerScheduleWithoutConfig() throws Exception {
+        BlockingQueue<DownloadTrigger> queue    = new LinkedBlockingQueue<>();
+        ScheduledDownload              download = RangerDownloadScheduler.schedule("test", queue, 10, null);
+
+        try {
+            DownloadTrigger trigger = queue.poll(5, TimeUnit.SECONDS);
+
+            assertNotNull(trigger);
+
+            trigger.signalCompletion();
+        } finally {
+            download.cancel();
+        }
+    }
+}
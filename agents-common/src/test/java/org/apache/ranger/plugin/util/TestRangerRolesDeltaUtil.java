@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerRole.RoleMember;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerRolesDeltaUtil {
+    @Test
+    public void testDeltaAndApply() {
+        RangerRoles v1 = createRoles(1L, createRole(1L, "role1", "user1"), createRole(2L, "role2", "user2"), createRole(3L, "role3", "user3"));
+        RangerRoles v2 = createRoles(2L, createRole(1L, "role1", "user1"), createRole(2L, "role2", "user2", "user4"), createRole(4L, "role4", "user4"));
+
+        RangerRoles delta = RangerRolesDeltaUtil.getRolesDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getRoleVersion());
+        assertEquals(new HashSet<>(Arrays.asList("role2", "role4")), getRoleNames(delta));
+        assertEquals(Collections.singleton("role3"), delta.getDeletedRoles());
+
+        RangerRoles applied = RangerRolesDeltaUtil.applyDelta(v1, delta);
+
+        assertFalse(applied.getIsDelta());
+        assertEquals(Long.valueOf(2L), applied.getRoleVersion());
+        assertEquals(v2.getRangerRoles(), applied.getRangerRoles());
+        assertEquals(3, v1.getRangerRoles().size()); // v1 is not updated
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        RangerRoles v1 = createRoles(1L, createRole(1L, "role1", "user1"), createRole(2L, "role2", "user2"));
+        RangerRoles v2 = createRoles(2L, createRole(1L, "role1", "user1"));
+        RangerRoles v3 = createRoles(3L, createRole(1L, "role1", "user1", "user3"), createRole(5L, "role2", "user5"));
+
+        RangerRoles delta13 = RangerRolesDeltaUtil.applyDelta(RangerRolesDeltaUtil.getRolesDelta(v1, v2), RangerRolesDeltaUtil.getRolesDelta(v2, v3));
+
+        assertTrue(delta13.getIsDelta());
+        assertTrue(delta13.getDeletedRoles().isEmpty()); // role2 was deleted, then added back
+        assertEquals(new HashSet<>(Arrays.asList("role1", "role2")), getRoleNames(delta13));
+        assertEquals(v3.getRangerRoles(), RangerRolesDeltaUtil.applyDelta(v1, delta13).getRangerRoles());
+    }
+
+    private static Set<String> getRoleNames(RangerRoles roles) {
+        Set<String> ret = new HashSet<>();
+
+        for (RangerRole role : roles.getRangerRoles()) {
+            ret.add(role.getName());
+        }
+
+        return ret;
+    }
+
+    private static RangerRoles createRoles(long version, RangerRole... roles) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName("dev_hive");
+        ret.setRoleVersion(version);
+        ret.setRoleUpdateTime(new Date());
+        ret.setRangerRoles(new HashSet<>(Arrays.asList(roles)));
+
+        return ret;
+    }
+
+    private static RangerRole createRole(long id, String name, String... users) {
+        RangerRole ret = new RangerRole(name, null, null, null, null);
+
+        for (String user : users) {
+            ret.getUsers().add(new RoleMember(user, false));
+        }
+
+        ret.setId(id);
+
+        return ret;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerPluginCapability.RangerPluginFeature;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerUserStoreDeltaUtil {
+    @Test
+    public void testDeltaAndApply() {
+        RangerUserStore v1 = createUserStore(1L, new String[] {"user1", "cid1", "user2", "cid2", "user3", "cid3"}, new String[] {"group1", "gcid1", "group2", "gcid2"}, new String[] {"user1", "group1", "user2", "group1", "user2", "group2", "user3", "group2"});
+        RangerUserStore v2 = createUserStore(2L, new String[] {"user1", "cid1", "user2", "cid2-new", "user4", "cid4"}, new String[] {"group1", "gcid1", "group3", "gcid3"}, new String[] {"user1", "group1", "user1", "group3", "user2", "group1", "user4", "group3"});
+
+        RangerUserStore delta = RangerUserStoreDeltaUtil.getUserStoreDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getUserStoreVersion());
+        assertEquals(new HashSet<>(Arrays.asList("user1", "user2", "user4")), delta.getUserGroupMapping().keySet()); // user1: groups changed, user2: attrs & groups changed, user4: added
+        assertEquals(delta.getUserGroupMapping().keySet(), delta.getUserAttrMapping().keySet()); // updated users have all their entries in the delta
+        assertEquals(Collections.singleton("group3"), delta.getGroupAttrMapping().keySet());
+        assertEquals(Collections.singleton("user3"), delta.getDeletedUsers());
+        assertEquals(Collections.singleton("group2"), delta.getDeletedGroups());
+
+        assertSameUserStore(v2, RangerUserStoreDeltaUtil.applyDelta(v1, delta));
+        assertEquals("cid2", v1.getUserAttrMapping().get("user2").get(RangerUserStore.CLOUD_IDENTITY_NAME)); // v1 is not updated
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        RangerUserStore v1 = createUserStore(1L, new String[] {"user1", "cid1", "user2", "cid2"}, new String[] {"group1", "gcid1"}, new String[] {"user1", "group1", "user2", "group1"});
+        RangerUserStore v2 = createUserStore(2L, new String[] {"user1", "cid1"}, new String[] {"group1", "gcid1"}, new String[] {"user1", "group1"});
+        RangerUserStore v3 = createUserStore(3L, new String[] {"user1", "cid1", "user2", "cid2-new"}, new String[] {"group1", "gcid1", "group2", "gcid2"}, new String[] {"user1", "group1", "user2", "group2"});
+
+        RangerUserStore delta12 = RangerUserStoreDeltaUtil.getUserStoreDelta(v1, v2);
+        RangerUserStore delta23 = RangerUserStoreDeltaUtil.getUserStoreDelta(v2, v3);
+        RangerUserStore delta13 = RangerUserStoreDeltaUtil.applyDelta(delta12, delta23);
+
+        assertTrue(delta13.getIsDelta());
+        assertEquals(Long.valueOf(3L), delta13.getUserStoreVersion());
+        assertTrue(delta13.getDeletedUsers() == null || delta13.getDeletedUsers().isEmpty()); // user2 was deleted, then added back
+
+        assertSameUserStore(v3, RangerUserStoreDeltaUtil.applyDelta(v1, delta13));
+        assertSameUserStore(v3, RangerUserStoreDeltaUtil.applyDelta(RangerUserStoreDeltaUtil.applyDelta(v1, delta12), delta23));
+    }
+
+    @Test
+    public void testNotApplicable() {
+        RangerUserStore v1 = createUserStore(1L, new String[] {"user1", "cid1"}, new String[0], new String[0]);
+
+        assertNull(RangerUserStoreDeltaUtil.getUserStoreDelta(null, v1));
+        assertSame(v1, RangerUserStoreDeltaUtil.applyDelta(v1, createUserStore(2L, new String[0], new String[0], new String[0]))); // not a delta
+    }
+
+    @Test
+    public void testPluginCapability() {
+        String capabilities = Long.toHexString(new RangerPluginCapability().getPluginCapabilities());
+
+        assertTrue(RangerPluginCapability.isSupported(capabilities, RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
+        assertFalse(RangerPluginCapability.isSupported(RangerPluginCapability.getBaseRangerCapabilities(), RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
+        assertFalse(RangerPluginCapability.isSupported("", RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
+        assertFalse(RangerPluginCapability.isSupported("not-hex", RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
+    }
+
+    private static void assertSameUserStore(RangerUserStore expected, RangerUserStore actual) {
+        assertFalse(actual.getIsDelta());
+        assertEquals(expected.getUserStoreVersion(), actual.getUserStoreVersion());
+        assertEquals(expected.getUserAttrMapping(), actual.getUserAttrMapping());
+        assertEquals(expected.getUserGroupMapping(), actual.getUserGroupMapping());
+        assertEquals(expected.getGroupAttrMapping(), actual.getGroupAttrMapping());
+        assertEquals(expected.getUserCloudIdMapping(), actual.getUserCloudIdMapping());
+        assertEquals(expected.getGroupCloudIdMapping(), actual.getGroupCloudIdMapping());
+    }
+
+    // users & groups: name, cloud_id pairs; userGroups: user, group pairs
+    private static RangerUserStore createUserStore(long version, String[] users, String[] groups, String[] userGroups) {
+        Set<UserInfo>            userInfos     = new HashSet<>();
+        Set<GroupInfo>           groupInfos    = new HashSet<>();
+        Map<String, Set<String>> userGroupsMap = new HashMap<>();
+
+        for (int i = 0; i < users.length; i += 2) {
+            userInfos.add(new UserInfo(users[i], null, Collections.singletonMap(RangerUserStore.CLOUD_IDENTITY_NAME, users[i + 1])));
+        }
+
+        for (int i = 0; i < groups.length; i += 2) {
+            groupInfos.add(new GroupInfo(groups[i], null, Collections.singletonMap(RangerUserStore.CLOUD_IDENTITY_NAME, groups[i + 1])));
+        }
+
+        for (int i = 0; i < userGroups.length; i += 2) {
+            userGroupsMap.computeIfAbsent(userGroups[i], k -> new HashSet<>()).add(userGroups[i + 1]);
+        }
+
+        return new RangerUserStore(version, userInfos, groupInfos, userGroupsMap);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSmallArraySet {
+    @Test
+    public void testSameAsHashSet() {
+        for (int range : new int[] {SmallArraySet.MAX_ARRAY_SIZE, SmallArraySet.MAX_ARRAY_SIZE * 4}) {
+            Set<Integer> set      = new SmallArraySet<>();
+            Set<Integer> expected = new HashSet<>();
+            Random       random   = new Random(range);
+
+            for (int i = 0; i < 10000; i++) {
+                Integer value = random.nextInt(range);
+
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(value), set.remove(value));
+                } else {
+                    assertEquals(expected.add(value), set.add(value));
+                }
+
+                assertEquals(expected.size(), set.size());
+                assertEquals(expected.contains(value), set.contains(value));
+            }
+
+            assertEquals(expected, set);
+            assertEquals(set, expected);
+            assertEquals(expected.hashCode(), set.hashCode());
+        }
+    }
+
+    @Test
+    public void testBulkOperations() {
+        Set<String> set = new SmallArraySet<>(Arrays.asList("a", "b", "c", "d"));
+
+        assertTrue(set.removeAll(new HashSet<>(Arrays.asList("b", "d", "x"))));
+        assertEquals(new HashSet<>(Arrays.asList("a", "c")), set);
+        assertFalse(set.addAll(Arrays.asList("a", "c")));
+
+        Set<String> large = new SmallArraySet<>(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "10"));
+
+        assertEquals(10, large.size());
+        assertTrue(large.retainAll(set));
+        assertTrue(large.isEmpty());
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+    }
+}
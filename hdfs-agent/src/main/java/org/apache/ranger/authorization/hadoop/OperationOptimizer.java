@@ -45,7 +45,7 @@ class OperationOptimizer {
     public static final String OPERATION_NAME_MKDIRS       = "mkdirs";
     public static final String OPERATION_NAME_GETEZFORPATH = "getEZForPath";
 
-    public static final OptimizedAuthzContext OPT_BYPASS_AUTHZ = new OptimizedAuthzContext("", FsAction.NONE, FsAction.NONE, FsAction.NONE, RangerAccessControlEnforcer.AuthzStatus.ALLOW);
+    public static final OptimizedAuthzContext OPT_BYPASS_AUTHZ = new OptimizedAuthzContext("", null, FsAction.NONE, FsAction.NONE, FsAction.NONE, RangerAccessControlEnforcer.AuthzStatus.ALLOW);
 
     private static final Set<String> OPTIMIZED_OPERATIONS;
 
@@ -117,7 +117,7 @@ private OptimizedAuthzContext optimizeCreateOp() {
             return null;
         }
 
-        return getOrCreateOptimizedAuthzContext();
+        return getOrCreateOptimizedAuthzContext(nodeToAuthorize);
     }
 
     private OptimizedAuthzContext optimizeDeleteOp() {
@@ -144,7 +144,7 @@ private OptimizedAuthzContext optimizeDeleteOp() {
         } else {
             parentAccess = FsAction.WRITE_EXECUTE;
 
-            return getOrCreateOptimizedAuthzContext();
+            return getOrCreateOptimizedAuthzContext(inode);
         }
     }
 
@@ -161,7 +161,7 @@ private OptimizedAuthzContext optimizeRenameOp() {
             return null;
         }
 
-        return getOrCreateOptimizedAuthzContext();
+        return getOrCreateOptimizedAuthzContext(nodeToAuthorize);
     }
 
     private OptimizedAuthzContext optimizeMkdirsOp() {
@@ -177,7 +177,7 @@ private OptimizedAuthzContext optimizeMkdirsOp() {
             return null;
         }
 
-        return getOrCreateOptimizedAuthzContext();
+        return getOrCreateOptimizedAuthzContext(nodeToAuthorize);
     }
 
     private OptimizedAuthzContext optimizeListStatusOp() {
@@ -194,7 +194,7 @@ private OptimizedAuthzContext optimizeListStatusOp() {
 
             access = FsAction.READ_EXECUTE;
 
-            return getOrCreateOptimizedAuthzContext();
+            return getOrCreateOptimizedAuthzContext(inode);
         }
     }
 
@@ -206,7 +206,7 @@ private OptimizedAuthzContext optimizeGetEZForPathOp() {
         } else {
             access = FsAction.READ_EXECUTE;
 
-            return getOrCreateOptimizedAuthzContext();
+            return getOrCreateOptimizedAuthzContext(inode);
         }
     }
 
@@ -246,12 +246,12 @@ private INode getINodeToAuthorize() {
         return ret;
     }
 
-    private OptimizedAuthzContext getOrCreateOptimizedAuthzContext() {
+    private OptimizedAuthzContext getOrCreateOptimizedAuthzContext(INode nodeToAuthorize) {
         Map<String, OptimizedAuthzContext> pathToContextCache = enforcer.getOrCreateCache();
         OptimizedAuthzContext              opContext          = pathToContextCache.get(resourcePath);
 
         if (opContext == null) {
-            opContext = new OptimizedAuthzContext(resourcePath, ancestorAccess, parentAccess, access, null);
+            opContext = new OptimizedAuthzContext(resourcePath, nodeToAuthorize != null ? nodeToAuthorize.getUserName() : null, ancestorAccess, parentAccess, access, null);
 
             pathToContextCache.put(resourcePath, opContext);
 
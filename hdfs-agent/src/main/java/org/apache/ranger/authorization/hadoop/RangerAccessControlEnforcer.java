@@ -43,12 +43,21 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -122,8 +131,9 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
             LOG.info("operationName={}, path={}, user={}, ancestorIndex={}, ancestorAccess={}, parentAccess={}, access={}, subAccess={}", context.operationName, path, context.user, ancestorIndex, ancestorAccess, parentAccess, access, subAccess);
         }
 
-        OptimizedAuthzContext optAuthzContext = null;
-        RangerPerfTracer      perf            = null;
+        OptimizedAuthzContext       optAuthzContext   = null;
+        RangerHdfsAuthzContextCache authzContextCache = plugin != null ? plugin.getAuthzContextCache() : null;
+        RangerPerfTracer            perf              = null;
 
         if (RangerPerfTracer.isPerfTraceEnabled(PERF_HDFSAUTH_REQUEST_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_HDFSAUTH_REQUEST_LOG, "RangerHdfsAuthorizer.checkRangerPermission(provided-path=" + path + ")");
@@ -205,6 +215,28 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
                     optAuthzContext = (new OperationOptimizer(this, operationName, resourcePath, ancestorAccess, parentAccess, access, subAccess, components, inodeAttrs, ancestorIndex, ancestor, parent, inode)).optimize();
                 }
 
+                // cached decisions don't include the sticky-bit and owner checks, which depend on the inodes of this call
+                if (optAuthzContext != null && optAuthzContext != OPT_BYPASS_AUTHZ && optAuthzContext.authzStatus == null && authzContextCache != null && RangerHdfsAuthzContextCache.isCacheableOperation(operationName)
+                        && !doCheckOwner && !isStickyBitCheckNeeded(optAuthzContext.parentAccess, parent, inode)) {
+                    RangerAccessResult cachedResult = authzContextCache.get(context, optAuthzContext.path, optAuthzContext.pathOwner);
+
+                    if (cachedResult != null) {
+                        LOG.debug("OperationOptimizer.optimize() returned context found in authzContextCache, operationName={}. Returning without any access evaluation!", operationName);
+
+                        authzStatus = AuthzStatus.ALLOW;
+
+                        if (!doNotGenerateAuditRecord) {
+                            context.auditHandler = new RangerHdfsAuditHandler(providedPath, false, plugin.getHadoopModuleName(), plugin.getExcludedUsers(), callerContext != null ? callerContext.toString() : null);
+
+                            context.auditHandler.processResult(cachedResult);
+                        }
+
+                        optAuthzContext.authzStatus = authzStatus;
+
+                        return;
+                    }
+                }
+
                 if (optAuthzContext == OPT_BYPASS_AUTHZ) {
                     authzStatus = AuthzStatus.ALLOW;
 
@@ -266,11 +298,11 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
                 }
 
                 // checkStickyBit
-                if (authzStatus == AuthzStatus.ALLOW && parentAccess != null && parentAccess.implies(FsAction.WRITE) && parent != null && inode != null) {
-                    if (parent.getFsPermission() != null && parent.getFsPermission().getStickyBit()) {
-                        // user should be owner of the parent or the inode
-                        authzStatus = (StringUtils.equals(parent.getUserName(), context.user) || StringUtils.equals(inode.getUserName(), context.user)) ? AuthzStatus.ALLOW : AuthzStatus.NOT_DETERMINED;
-                    }
+                if (authzStatus == AuthzStatus.ALLOW && isStickyBitCheckNeeded(parentAccess, parent, inode)) {
+                    // user should be owner of the parent or the inode
+                    context.isResultCacheable = false;
+
+                    authzStatus = (StringUtils.equals(parent.getUserName(), context.user) || StringUtils.equals(inode.getUserName(), context.user)) ? AuthzStatus.ALLOW : AuthzStatus.NOT_DETERMINED;
                 }
 
                 // checkAncestorAccess
@@ -310,9 +342,16 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
 
                 // checkSubAccess
                 if (authzStatus == AuthzStatus.ALLOW && subAccess != null && inode != null && inode.isDirectory()) {
+                    SubAccessData        topDir      = new SubAccessData(inode.asDirectory(), resourcePath, inodes, inodeAttrs, ancestorIndex, ancestor, parent, pathByNameArr);
                     Stack<SubAccessData> directories = new Stack<>();
 
-                    for (directories.push(new SubAccessData(inode.asDirectory(), resourcePath, inodes, inodeAttrs)); !directories.isEmpty(); ) {
+                    if (plugin.getSubAccessAuthzExecutor() != null) {
+                        authzStatus = checkSubAccessInParallel(fsOwner, superGroup, ugi, snapshotId, doCheckOwner, subAccess, ignoreEmptyDir, topDir, context);
+                    } else {
+                        directories.push(topDir);
+                    }
+
+                    while (!directories.isEmpty()) {
                         SubAccessData       data  = directories.pop();
                         ReadOnlyList<INode> cList = data.dir.getChildrenList(snapshotId);
 
@@ -321,71 +360,10 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
 
                             authzStatus = isAccessAllowed(data.dir, dirAttribs, data.resourcePath, subAccess, context);
 
-                            INodeDirectory    dirINode;
-                            int               dirAncestorIndex;
-                            INodeAttributes[] dirINodeAttrs;
-                            INode[]           dirINodes;
-                            INode             dirAncestor;
-                            INode             dirParent;
-                            byte[][]          dirComponents;
-
-                            if (data.dir.equals(inode)) {
-                                dirINode         = inode.asDirectory();
-                                dirINodeAttrs    = inodeAttrs;
-                                dirINodes        = inodes;
-                                dirAncestorIndex = ancestorIndex;
-                                dirAncestor      = ancestor;
-                                dirParent        = parent;
-                                dirComponents    = pathByNameArr;
-                            } else {
-                                INodeAttributes[] curINodeAttributes;
-                                INode[]           curINodes;
-
-                                dirINode           = data.dir;
-                                curINodeAttributes = data.iNodeAttributes;
-                                curINodes          = data.inodes;
-
-                                int idx;
-
-                                dirINodes = new INode[curINodes.length + 1];
-                                for (idx = 0; idx < curINodes.length; idx++) {
-                                    dirINodes[idx] = curINodes[idx];
-                                }
-                                dirINodes[idx] = dirINode;
-
-                                dirINodeAttrs = new INodeAttributes[curINodeAttributes.length + 1];
-                                for (idx = 0; idx < curINodeAttributes.length; idx++) {
-                                    dirINodeAttrs[idx] = curINodeAttributes[idx];
-                                }
-                                dirINodeAttrs[idx] = dirAttribs;
-
-                                for (dirAncestorIndex = dirINodes.length - 1; dirAncestorIndex >= 0 && dirINodes[dirAncestorIndex] == null; dirAncestorIndex--) {
-                                    // empty
-                                }
-
-                                dirAncestor   = dirINodes.length > dirAncestorIndex && dirAncestorIndex >= 0 ? dirINodes[dirAncestorIndex] : null;
-                                dirParent     = dirINodes.length > 1 ? dirINodes[dirINodes.length - 2] : null;
-                                dirComponents = dirINode.getPathComponents();
-                            }
+                            SubAccessDirINodes dirINodes = new SubAccessDirINodes(data, dirAttribs, topDir);
 
                             if (authzStatus == AuthzStatus.NOT_DETERMINED && !plugin.isUseLegacySubAccessAuthorization()) {
-                                if (LOG.isDebugEnabled()) {
-                                    if (data.dir.equals(inode)) {
-                                        LOG.debug("Top level directory being processed for default authorizer call, [{}]", data.resourcePath);
-                                    } else {
-                                        LOG.debug("Sub directory being processed for default authorizer call, [{}]", data.resourcePath);
-                                    }
-
-                                    LOG.debug("Calling default authorizer for hierarchy/subaccess with the following parameters");
-
-                                    LOG.debug("fsOwner={}; superGroup={}, inodesCount={}, snapshotId={}, user={}, provided-path={}, ancestorIndex={}, doCheckOwner={}, ancestorAccess=null, parentAccess=null, access=null, subAccess=null, ignoreEmptyDir={}, operationName={}, callerContext=null",
-                                            fsOwner, superGroup, dirINodes != null ? dirINodes.length : 0, snapshotId, ugi != null ? ugi.getShortUserName() : null,
-                                            data.resourcePath, dirAncestorIndex, doCheckOwner, ignoreEmptyDir, operationName);
-                                }
-                                authzStatus = checkDefaultEnforcer(fsOwner, superGroup, ugi, dirINodeAttrs, dirINodes, dirComponents, snapshotId, data.resourcePath, dirAncestorIndex, doCheckOwner,
-                                        null, null, null, null, ignoreEmptyDir, dirAncestor, dirParent, dirINode, context);
-
-                                LOG.debug("Default authorizer call returned : [{}]", authzStatus);
+                                authzStatus = checkDefaultEnforcerForSubAccess(fsOwner, superGroup, ugi, snapshotId, doCheckOwner, ignoreEmptyDir, data, dirINodes, topDir, context);
                             }
 
                             if (authzStatus != AuthzStatus.ALLOW) {
@@ -400,15 +378,7 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
                             }
 
                             if (subDirAuthStatus != AuthzStatus.ALLOW) {
-                                for (INode child : cList) {
-                                    if (child.isDirectory()) {
-                                        if (data.resourcePath.endsWith(Path.SEPARATOR)) {
-                                            directories.push(new SubAccessData(child.asDirectory(), data.resourcePath + child.getLocalName(), dirINodes, dirINodeAttrs));
-                                        } else {
-                                            directories.push(new SubAccessData(child.asDirectory(), data.resourcePath + Path.SEPARATOR_CHAR + child.getLocalName(), dirINodes, dirINodeAttrs));
-                                        }
-                                    }
-                                }
+                                addSubDirectories(data, cList, dirINodes, directories);
                             }
                         }
                     }
@@ -458,6 +428,10 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
                     LOG.debug("Updating OptimizedAuthzContext:[{}] with authzStatus={}]", optAuthzContext, authzStatus.name());
                 }
 
+                if (optAuthzContext.authzStatus == null && authzStatus == AuthzStatus.ALLOW && authzContextCache != null && context.isResultCacheable && !doCheckOwner && context.getLastResult() != null && RangerHdfsAuthzContextCache.isCacheableOperation(operationName)) {
+                    authzContextCache.put(context, optAuthzContext.path, optAuthzContext.pathOwner, context.getLastResult());
+                }
+
                 optAuthzContext.authzStatus = authzStatus;
             }
 
@@ -567,6 +541,8 @@ private AuthzStatus checkDefaultEnforcer(String fsOwner, String superGroup, User
         if (plugin.isHadoopAuthEnabled() && defaultEnforcer != null) {
             RangerPerfTracer hadoopAuthPerf = null;
 
+            context.isResultCacheable = false;
+
             if (RangerPerfTracer.isPerfTraceEnabled(PERF_HDFSAUTH_REQUEST_LOG)) {
                 hadoopAuthPerf = RangerPerfTracer.getPerfTracer(PERF_HDFSAUTH_REQUEST_LOG, "RangerAccessControlEnforcer.checkDefaultEnforcer(path=" + path + ")");
             }
@@ -630,9 +606,227 @@ private AuthzStatus checkDefaultEnforcer(String fsOwner, String superGroup, User
         return authzStatus;
     }
 
+    /*
+     * Authorizes subAccess on the directory tree one level at a time. Directories in a level are split into batches of
+     * subaccess.authorization.batch.size, and Ranger policies are evaluated for the batches in parallel in the plugin's
+     * sub-access executor; the handler thread evaluates a batch as well. The results are then processed in the handler
+     * thread in directory order: default enforcer fallback, audit, and collecting sub-directories for the next level.
+     * Evaluation stops at the first directory that is not allowed.
+     *
+     * Limitation: the walk is not skipped by proving, from the policy resource trie, that no policy below the directory
+     * changes the outcome. Such a proof would also have to cover wildcard and macro values of policies on ancestors,
+     * {OWNER} policy items, tag policies and security zones. Sub-trees are skipped only by the existing
+     * ranger.optimize-subaccess-authorization check, which evaluates a randomized child path of each directory.
+     */
+    private AuthzStatus checkSubAccessInParallel(String fsOwner, String superGroup, UserGroupInformation ugi, int snapshotId, boolean doCheckOwner, FsAction subAccess, boolean ignoreEmptyDir, SubAccessData topDir, AuthzContext context) throws AccessControlException {
+        LOG.debug("==> RangerAccessControlEnforcer.checkSubAccessInParallel({}, {}, {})", topDir.resourcePath, subAccess, context.user);
+
+        AuthzStatus         ret   = AuthzStatus.ALLOW;
+        List<SubAccessData> level = Collections.singletonList(topDir);
+
+        while (ret == AuthzStatus.ALLOW && !level.isEmpty()) {
+            SubAccessResult[]   results   = evaluateSubAccessInParallel(level, snapshotId, subAccess, ignoreEmptyDir, topDir, context);
+            List<SubAccessData> nextLevel = new ArrayList<>();
+
+            if (results == null) { // evaluation failed; the default enforcer will check subAccess for the tree
+                ret = AuthzStatus.NOT_DETERMINED;
+
+                break;
+            }
+
+            for (SubAccessResult result : results) {
+                if (result == null) { // not evaluated, as evaluation stopped at a directory later in this level
+                    continue;
+                }
+
+                if (result.isSkipped) {
+                    continue;
+                }
+
+                if (context.auditHandler != null) {
+                    context.auditHandler.processResult(result.accessResult);
+                }
+
+                context.saveResult(result.accessResult);
+
+                ret = result.authzStatus;
+
+                if (ret == AuthzStatus.NOT_DETERMINED && !plugin.isUseLegacySubAccessAuthorization()) {
+                    ret = checkDefaultEnforcerForSubAccess(fsOwner, superGroup, ugi, snapshotId, doCheckOwner, ignoreEmptyDir, result.data, result.dirINodes, topDir, context);
+
+                    if (ret == AuthzStatus.ALLOW && plugin.isOptimizeSubAccessAuthEnabled()) {
+                        result.isSubDirsAllowed = isAccessAllowedForHierarchy(result.data.dir, result.dirAttribs, result.data.resourcePath, subAccess, context) == AuthzStatus.ALLOW;
+                    }
+                }
+
+                if (ret != AuthzStatus.ALLOW) {
+                    break;
+                }
+
+                if (!result.isSubDirsAllowed) {
+                    addSubDirectories(result.data, result.children, result.dirINodes, nextLevel);
+                }
+            }
+
+            level = nextLevel;
+        }
+
+        LOG.debug("<== RangerAccessControlEnforcer.checkSubAccessInParallel({}, {}, {}): {}", topDir.resourcePath, subAccess, context.user, ret);
+
+        return ret;
+    }
+
+    /*
+     * returns results in the order of directories in the level; the result is null for directories not evaluated, as
+     * evaluation stopped at a directory that is not allowed. Returns null if evaluation of a batch failed
+     */
+    private SubAccessResult[] evaluateSubAccessInParallel(List<SubAccessData> level, int snapshotId, FsAction subAccess, boolean ignoreEmptyDir, SubAccessData topDir, AuthzContext context) {
+        SubAccessResult[] ret       = new SubAccessResult[level.size()];
+        ExecutorService   executor  = plugin.getSubAccessAuthzExecutor();
+        int               batchSize = executor != null ? plugin.getSubAccessAuthzBatchSize() : level.size(); // no executor after plugin cleanup
+        AtomicBoolean     isStopped = new AtomicBoolean();
+        boolean           isFailed  = false;
+        List<Future<?>>   futures   = new ArrayList<>();
+
+        for (int start = batchSize; start < level.size(); start += batchSize) {
+            int from = start;
+            int to   = Math.min(start + batchSize, level.size());
+
+            futures.add(executor.submit(() -> evaluateSubAccess(level, from, to, ret, snapshotId, subAccess, ignoreEmptyDir, topDir, context, isStopped)));
+        }
+
+        evaluateSubAccess(level, 0, Math.min(batchSize, level.size()), ret, snapshotId, subAccess, ignoreEmptyDir, topDir, context, isStopped);
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException excp) {
+                LOG.warn("RangerAccessControlEnforcer.evaluateSubAccessInParallel({}): interrupted", topDir.resourcePath);
+
+                Thread.currentThread().interrupt();
+                isStopped.set(true);
+
+                isFailed = true;
+            } catch (ExecutionException excp) {
+                LOG.error("RangerAccessControlEnforcer.evaluateSubAccessInParallel({}): failed to evaluate a batch of directories", topDir.resourcePath, excp.getCause());
+
+                isStopped.set(true);
+
+                isFailed = true;
+            } catch (CancellationException excp) { // plugin cleanup cancelled the batch
+                LOG.warn("RangerAccessControlEnforcer.evaluateSubAccessInParallel({}): evaluation of a batch of directories was cancelled", topDir.resourcePath);
+
+                isStopped.set(true);
+
+                isFailed = true;
+            }
+        }
+
+        return isFailed ? null : ret;
+    }
+
+    private void evaluateSubAccess(List<SubAccessData> level, int from, int to, SubAccessResult[] results, int snapshotId, FsAction subAccess, boolean ignoreEmptyDir, SubAccessData topDir, AuthzContext context, AtomicBoolean isStopped) {
+        for (int i = from; i < to && !isStopped.get(); i++) {
+            SubAccessData       data   = level.get(i);
+            ReadOnlyList<INode> cList  = data.dir.getChildrenList(snapshotId);
+            SubAccessResult     result = new SubAccessResult(data, cList);
+
+            if (cList.isEmpty() && ignoreEmptyDir) {
+                result.isSkipped = true;
+            } else {
+                result.dirAttribs   = data.dir.getSnapshotINode(snapshotId);
+                result.dirINodes    = new SubAccessDirINodes(data, result.dirAttribs, topDir);
+                result.accessResult = getAccessResult(data.dir, result.dirAttribs, data.resourcePath, subAccess, context, null);
+                result.authzStatus  = toAuthzStatus(result.accessResult);
+
+                if (result.authzStatus == AuthzStatus.ALLOW) {
+                    result.isSubDirsAllowed = plugin.isOptimizeSubAccessAuthEnabled() && isAccessAllowedForHierarchy(data.dir, result.dirAttribs, data.resourcePath, subAccess, context) == AuthzStatus.ALLOW;
+                } else if (result.authzStatus == AuthzStatus.DENY || plugin.isUseLegacySubAccessAuthorization()) {
+                    isStopped.set(true); // the walk stops at this directory; skip evaluating the rest
+                }
+            }
+
+            results[i] = result;
+        }
+    }
+
+    private AuthzStatus checkDefaultEnforcerForSubAccess(String fsOwner, String superGroup, UserGroupInformation ugi, int snapshotId, boolean doCheckOwner, boolean ignoreEmptyDir, SubAccessData data, SubAccessDirINodes dirINodes, SubAccessData topDir, AuthzContext context) throws AccessControlException {
+        if (LOG.isDebugEnabled()) {
+            if (data == topDir) {
+                LOG.debug("Top level directory being processed for default authorizer call, [{}]", data.resourcePath);
+            } else {
+                LOG.debug("Sub directory being processed for default authorizer call, [{}]", data.resourcePath);
+            }
+
+            LOG.debug("Calling default authorizer for hierarchy/subaccess with the following parameters");
+
+            LOG.debug("fsOwner={}; superGroup={}, inodesCount={}, snapshotId={}, user={}, provided-path={}, ancestorIndex={}, doCheckOwner={}, ancestorAccess=null, parentAccess=null, access=null, subAccess=null, ignoreEmptyDir={}, operationName={}, callerContext=null",
+                    fsOwner, superGroup, dirINodes.inodes != null ? dirINodes.inodes.length : 0, snapshotId, ugi != null ? ugi.getShortUserName() : null,
+                    data.resourcePath, dirINodes.ancestorIndex, doCheckOwner, ignoreEmptyDir, context.operationName);
+        }
+
+        AuthzStatus ret = checkDefaultEnforcer(fsOwner, superGroup, ugi, dirINodes.inodeAttrs, dirINodes.inodes, dirINodes.components, snapshotId, data.resourcePath, dirINodes.ancestorIndex, doCheckOwner,
+                null, null, null, null, ignoreEmptyDir, dirINodes.ancestor, dirINodes.parent, data.dir, context);
+
+        LOG.debug("Default authorizer call returned : [{}]", ret);
+
+        return ret;
+    }
+
+    private static void addSubDirectories(SubAccessData data, ReadOnlyList<INode> cList, SubAccessDirINodes dirINodes, Collection<SubAccessData> directories) {
+        for (INode child : cList) {
+            if (child.isDirectory()) {
+                if (data.resourcePath.endsWith(Path.SEPARATOR)) {
+                    directories.add(new SubAccessData(child.asDirectory(), data.resourcePath + child.getLocalName(), dirINodes.inodes, dirINodes.inodeAttrs));
+                } else {
+                    directories.add(new SubAccessData(child.asDirectory(), data.resourcePath + Path.SEPARATOR_CHAR + child.getLocalName(), dirINodes.inodes, dirINodes.inodeAttrs));
+                }
+            }
+        }
+    }
+
+    private static boolean isStickyBitCheckNeeded(FsAction parentAccess, INode parent, INode inode) {
+        return parentAccess != null && parentAccess.implies(FsAction.WRITE) && parent != null && inode != null && parent.getFsPermission() != null && parent.getFsPermission().getStickyBit();
+    }
+
+    private static AuthzStatus toAuthzStatus(RangerAccessResult result) {
+        final AuthzStatus ret;
+
+        if (result == null || !result.getIsAccessDetermined()) {
+            ret = AuthzStatus.NOT_DETERMINED;
+        } else if (!result.getIsAllowed()) { // explicit deny
+            ret = AuthzStatus.DENY;
+        } else { // allowed
+            ret = AuthzStatus.ALLOW;
+        }
+
+        return ret;
+    }
+
     private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, String path, FsAction access, AuthzContext context) {
-        AuthzStatus ret       = null;
-        String      pathOwner = inodeAttribs != null ? inodeAttribs.getUserName() : null;
+        LOG.debug("==> RangerAccessControlEnforcer.isAccessAllowed({}, {}, {})", path, access, context.user);
+
+        RangerAccessResult result = getAccessResult(inode, inodeAttribs, path, access, context, context.auditHandler);
+
+        context.saveResult(result);
+
+        AuthzStatus ret = toAuthzStatus(result);
+
+        if (ret == AuthzStatus.ALLOW) {
+            LOG.debug("This request is for the first time allowed by Ranger policies. request:[{}]", result.getAccessRequest());
+        }
+
+        LOG.debug("<== RangerAccessControlEnforcer.isAccessAllowed({}, {}, {}): {}", path, access, context.user, ret);
+
+        return ret;
+    }
+
+    /*
+     * returns null if no Ranger access type maps to the access
+     */
+    private RangerAccessResult getAccessResult(INode inode, INodeAttributes inodeAttribs, String path, FsAction access, AuthzContext context, RangerHdfsAuditHandler auditHandler) {
+        RangerAccessResult ret       = null;
+        String             pathOwner = inodeAttribs != null ? inodeAttribs.getUserName() : null;
 
         if (pathOwner == null && inode != null) {
             pathOwner = inode.getUserName();
@@ -642,8 +836,6 @@ private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, S
             path = HDFS_ROOT_FOLDER_PATH;
         }
 
-        LOG.debug("==> RangerAccessControlEnforcer.isAccessAllowed({}, {}, {})", path, access, context.user);
-
         Set<String> accessTypes = ACCESS_TO_ACTIONS.get(access);
 
         if (accessTypes == null) {
@@ -666,29 +858,9 @@ private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, S
                 }
             }
 
-            RangerAccessResult result = plugin.isAccessAllowed(request, context.auditHandler);
-
-            context.saveResult(result);
-
-            if (result == null || !result.getIsAccessDetermined()) {
-                ret = AuthzStatus.NOT_DETERMINED;
-            } else if (!result.getIsAllowed()) { // explicit deny
-                ret = AuthzStatus.DENY;
-            } else { // allowed
-                ret = AuthzStatus.ALLOW;
-            }
-
-            if (ret == AuthzStatus.ALLOW) {
-                LOG.debug("This request is for the first time allowed by Ranger policies. request:[{}]", request);
-            }
+            ret = plugin.isAccessAllowed(request, auditHandler);
         }
 
-        if (ret == null) {
-            ret = AuthzStatus.NOT_DETERMINED;
-        }
-
-        LOG.debug("<== RangerAccessControlEnforcer.isAccessAllowed({}, {}, {}): {}", path, access, context.user, ret);
-
         return ret;
     }
 
@@ -794,13 +966,15 @@ checks if the user has a WRITE access to the parent (or ancestor when checking t
      */
     public static class OptimizedAuthzContext {
         private final String      path;
+        private final String      pathOwner;
         private final FsAction    ancestorAccess;
         private final FsAction    parentAccess;
         private final FsAction    access;
         private       AuthzStatus authzStatus;
 
-        OptimizedAuthzContext(String path, FsAction ancestorAccess, FsAction parentAccess, FsAction access, AuthzStatus authzStatus) {
+        OptimizedAuthzContext(String path, String pathOwner, FsAction ancestorAccess, FsAction parentAccess, FsAction access, AuthzStatus authzStatus) {
             this.path           = path;
+            this.pathOwner      = pathOwner;
             this.ancestorAccess = ancestorAccess;
             this.parentAccess   = parentAccess;
             this.access         = access;
@@ -820,6 +994,7 @@ public static class AuthzContext {
         private      boolean                isTraverseOnlyCheck;
         private      RangerHdfsAuditHandler auditHandler;
         private      RangerAccessResult     lastResult;
+        private      boolean                isResultCacheable = true; // false if the result depends on more than the request
 
         public AuthzContext(UserGroupInformation ugi, String operationName, boolean isTraverseOnlyCheck) {
             this.user                = ugi != null ? ugi.getShortUserName() : null;
@@ -831,6 +1006,10 @@ public AuthzContext(UserGroupInformation ugi, String operationName, boolean isTr
         public void saveResult(RangerAccessResult result) {
             if (result != null) {
                 this.lastResult = result;
+
+                if (result.getAccessRequest() != null && RangerAccessRequestUtil.getIsResultConditional(result.getAccessRequest().getContext())) {
+                    isResultCacheable = false;
+                }
             }
         }
 
@@ -845,11 +1024,81 @@ private static class SubAccessData {
         final INode[]           inodes;
         final INodeAttributes[] iNodeAttributes;
 
+        // only for the top level directory
+        final int      ancestorIndex;
+        final INode    ancestor;
+        final INode    parent;
+        final byte[][] components;
+
         SubAccessData(INodeDirectory dir, String resourcePath, INode[] inodes, INodeAttributes[] iNodeAttributes) {
+            this(dir, resourcePath, inodes, iNodeAttributes, -1, null, null, null);
+        }
+
+        SubAccessData(INodeDirectory dir, String resourcePath, INode[] inodes, INodeAttributes[] iNodeAttributes, int ancestorIndex, INode ancestor, INode parent, byte[][] components) {
             this.dir             = dir;
             this.resourcePath    = resourcePath;
             this.iNodeAttributes = iNodeAttributes;
             this.inodes          = inodes;
+            this.ancestorIndex   = ancestorIndex;
+            this.ancestor        = ancestor;
+            this.parent          = parent;
+            this.components      = components;
+        }
+    }
+
+    /*
+     * inodes along the path of a directory in the tree being checked for subAccess, for the default enforcer
+     */
+    private static class SubAccessDirINodes {
+        final INodeAttributes[] inodeAttrs;
+        final INode[]           inodes;
+        final int               ancestorIndex;
+        final INode             ancestor;
+        final INode             parent;
+        final byte[][]          components;
+
+        SubAccessDirINodes(SubAccessData data, INodeAttributes dirAttribs, SubAccessData topDir) {
+            if (data.dir.equals(topDir.dir)) {
+                inodeAttrs    = topDir.iNodeAttributes;
+                inodes        = topDir.inodes;
+                ancestorIndex = topDir.ancestorIndex;
+                ancestor      = topDir.ancestor;
+                parent        = topDir.parent;
+                components    = topDir.components;
+            } else {
+                int idx;
+
+                inodes = Arrays.copyOf(data.inodes, data.inodes.length + 1);
+                inodes[data.inodes.length] = data.dir;
+
+                inodeAttrs = Arrays.copyOf(data.iNodeAttributes, data.iNodeAttributes.length + 1);
+                inodeAttrs[data.iNodeAttributes.length] = dirAttribs;
+
+                for (idx = inodes.length - 1; idx >= 0 && inodes[idx] == null; idx--) {
+                    // empty
+                }
+
+                ancestorIndex = idx;
+                ancestor      = inodes.length > ancestorIndex && ancestorIndex >= 0 ? inodes[ancestorIndex] : null;
+                parent        = inodes.length > 1 ? inodes[inodes.length - 2] : null;
+                components    = data.dir.getPathComponents();
+            }
+        }
+    }
+
+    private static class SubAccessResult {
+        final SubAccessData       data;
+        final ReadOnlyList<INode> children;
+        INodeAttributes           dirAttribs;
+        SubAccessDirINodes        dirINodes;
+        RangerAccessResult        accessResult;
+        AuthzStatus               authzStatus = AuthzStatus.NOT_DETERMINED;
+        boolean                   isSkipped;        // empty directory, with ignoreEmptyDir
+        boolean                   isSubDirsAllowed; // access to sub-directories is allowed by the hierarchy check
+
+        SubAccessResult(SubAccessData data, ReadOnlyList<INode> children) {
+            this.data     = data;
+            this.children = children;
         }
     }
 
@@ -50,7 +50,7 @@ public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAct
         }
     }
 
-    private static String getRemoteIp() {
+    static String getRemoteIp() {
         String      ret = null;
         InetAddress ip  = Server.getRemoteIp();
 
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.lib.Interns;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.ranger.authorization.hadoop.RangerAccessControlEnforcer.AuthzContext;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache of authorization decisions made for operations optimized by OperationOptimizer, shared across calls to the
+ * enforcer; keyed by user, groups, operation, path and owner of the path.
+ *
+ * Only decisions allowed by Ranger policies are cached - not the ones made by HDFS permissions, or by policies with
+ * conditions. Cached decisions are tied to versions of policies, tags, roles and userstore used to make them; a change
+ * in any of these versions discards all cached decisions.
+ *
+ * The result of the evaluation is kept with the decision, so that a cache hit generates the same audit log as the
+ * evaluation did.
+ *
+ * Hits, misses and size of the cache are published as a Hadoop metrics source, registered by RangerHdfsPlugin with
+ * the metrics system of the namenode.
+ */
+public class RangerHdfsAuthzContextCache implements MetricsSource {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerHdfsAuthzContextCache.class);
+
+    public static final String METRICS_SOURCE_NAME = "RangerHdfsAuthzContextCache";
+    public static final String METRICS_SOURCE_DESC = "Ranger HDFS authorization context cache";
+
+    private final    RangerHdfsPlugin   plugin;
+    private final    int                capacity;
+    private final    MetricsRegistry    registry;
+    private final    MutableCounterLong hitCount;
+    private final    MutableCounterLong missCount;
+    private volatile Generation         generation;
+
+    RangerHdfsAuthzContextCache(RangerHdfsPlugin plugin, int capacity) {
+        this.plugin    = plugin;
+        this.capacity  = capacity;
+        this.registry  = new MetricsRegistry(METRICS_SOURCE_NAME).setContext("dfs");
+        this.hitCount  = registry.newCounter("AuthzContextCacheHits", "Number of authorizations served from the cache", 0L);
+        this.missCount = registry.newCounter("AuthzContextCacheMisses", "Number of authorizations not found in the cache", 0L);
+
+        LOG.info("RangerHdfsAuthzContextCache(capacity={})", capacity);
+    }
+
+    public static boolean isCacheableOperation(String operationName) {
+        // authorization of delete includes sub-directories, which can change without a change in policies
+        return operationName != null && OperationOptimizer.isOptimizableOperation(operationName) && !OperationOptimizer.OPERATION_NAME_DELETE.equals(operationName);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        Generation generation = this.generation;
+
+        return generation != null ? generation.results.size() : 0;
+    }
+
+    public void clear() {
+        generation = null;
+    }
+
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+        MetricsRecordBuilder builder = collector.addRecord(registry.info());
+
+        registry.snapshot(builder, all);
+
+        builder.addGauge(Interns.info("AuthzContextCacheSize", "Number of authorizations in the cache"), getSize())
+                .addGauge(Interns.info("AuthzContextCacheCapacity", "Maximum number of authorizations in the cache"), capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerHdfsAuthzContextCache={capacity=" + capacity + ", size=" + getSize() + ", hitCount=" + hitCount.value() + ", missCount=" + missCount.value() + "}";
+    }
+
+    /*
+     * returns the result to be audited for the cached decision to allow the operation, with access-time and
+     * client address of the current call; null if the decision is not cached
+     */
+    RangerAccessResult get(AuthzContext context, String path, String pathOwner) {
+        RangerAccessResult ret    = null;
+        RangerAccessResult cached = getGeneration().results.get(new CacheKey(context.user, context.userGroups, context.operationName, path, pathOwner));
+
+        if (cached != null) {
+            hitCount.incr();
+
+            RangerAccessRequest     cachedRequest = cached.getAccessRequest();
+            RangerAccessRequestImpl request       = new RangerAccessRequestImpl(cachedRequest);
+            String                  remoteIp      = RangerHdfsAccessRequest.getRemoteIp();
+
+            request.setContext(new HashMap<>(cachedRequest.getContext()));
+            request.setAccessTime(new Date());
+            request.setClientIPAddress(remoteIp);
+            request.setRemoteIPAddress(remoteIp);
+
+            ret = new RangerAccessResult(cached.getPolicyType(), cached.getServiceName(), cached.getServiceDef(), request);
+
+            ret.setAccessResultFrom(cached);
+            ret.setAuditResultFrom(cached);
+        } else {
+            missCount.incr();
+        }
+
+        LOG.debug("RangerHdfsAuthzContextCache.get(user={}, operationName={}, path={}, pathOwner={}): {}", context.user, context.operationName, path, pathOwner, ret);
+
+        return ret;
+    }
+
+    void put(AuthzContext context, String path, String pathOwner, RangerAccessResult result) {
+        LOG.debug("RangerHdfsAuthzContextCache.put(user={}, operationName={}, path={}, pathOwner={})", context.user, context.operationName, path, pathOwner);
+
+        Set<String> userGroups = context.userGroups != null ? new HashSet<>(context.userGroups) : null;
+
+        getGeneration().results.put(new CacheKey(context.user, userGroups, context.operationName, path, pathOwner), result);
+    }
+
+    private Generation getGeneration() {
+        Generation ret              = this.generation;
+        long       policyVersion    = plugin.getPoliciesVersion();
+        long       tagVersion       = plugin.getTagsVersion();
+        long       roleVersion      = plugin.getRolesVersion();
+        long       userStoreVersion = plugin.getUserStoreVersion();
+
+        if (ret == null || !ret.isFor(policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+            synchronized (this) {
+                ret = this.generation;
+
+                if (ret == null || !ret.isFor(policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+                    if (ret != null) {
+                        LOG.info("{}: discarding cached decisions, {}; policyVersion={}, tagVersion={}, roleVersion={}, userStoreVersion={}", this, ret, policyVersion, tagVersion, roleVersion, userStoreVersion);
+                    }
+
+                    ret = new Generation(policyVersion, tagVersion, roleVersion, userStoreVersion, capacity);
+
+                    this.generation = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static final class Generation {
+        final long                                             policyVersion;
+        final long                                             tagVersion;
+        final long                                             roleVersion;
+        final long                                             userStoreVersion;
+        final ConcurrentCacheMap<CacheKey, RangerAccessResult> results;
+
+        Generation(long policyVersion, long tagVersion, long roleVersion, long userStoreVersion, int capacity) {
+            this.policyVersion    = policyVersion;
+            this.tagVersion       = tagVersion;
+            this.roleVersion      = roleVersion;
+            this.userStoreVersion = userStoreVersion;
+            this.results          = new ConcurrentCacheMap<>(capacity);
+        }
+
+        boolean isFor(long policyVersion, long tagVersion, long roleVersion, long userStoreVersion) {
+            return this.policyVersion == policyVersion && this.tagVersion == tagVersion && this.roleVersion == roleVersion && this.userStoreVersion == userStoreVersion;
+        }
+
+        @Override
+        public String toString() {
+            return "Generation={policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", roleVersion=" + roleVersion + ", userStoreVersion=" + userStoreVersion + ", size=" + results.size() + "}";
+        }
+    }
+
+    private static final class CacheKey {
+        final String      user;
+        final Set<String> userGroups;
+        final String      operationName;
+        final String      path;
+        final String      pathOwner;
+        final int         hashCode;
+
+        CacheKey(String user, Set<String> userGroups, String operationName, String path, String pathOwner) {
+            this.user          = user;
+            this.userGroups    = userGroups != null ? userGroups : Collections.emptySet();
+            this.operationName = operationName;
+            this.path          = path;
+            this.pathOwner     = pathOwner;
+            this.hashCode      = Objects.hash(user, this.userGroups, operationName, path, pathOwner);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+
+            return hashCode == other.hashCode &&
+                    Objects.equals(path, other.path) &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(operationName, other.operationName) &&
+                    Objects.equals(pathOwner, other.pathOwner) &&
+                    Objects.equals(userGroups, other.userGroups);
+        }
+    }
+}
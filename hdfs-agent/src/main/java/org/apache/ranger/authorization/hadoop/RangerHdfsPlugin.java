@@ -20,6 +20,8 @@
 package org.apache.ranger.authorization.hadoop;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.metrics2.MetricsException;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
@@ -30,19 +32,29 @@
 import java.security.SecureRandom;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RangerHdfsPlugin extends RangerBasePlugin {
     private static final Logger LOG = LoggerFactory.getLogger(RangerHdfsPlugin.class);
 
     private static String fileNameExtensionSeparator = RangerHdfsAuthorizer.DEFAULT_FILENAME_EXTENSION_SEPARATOR;
 
-    private final boolean     authzOptimizationEnabled;
-    private final boolean     hadoopAuthEnabled;
-    private final boolean     optimizeSubAccessAuthEnabled;
-    private final String      randomizedWildcardPathName;
-    private final String      hadoopModuleName;
-    private final Set<String> excludeUsers = new HashSet<>();
-    private final boolean     useLegacySubAccessAuthorization;
+    private final boolean                     authzOptimizationEnabled;
+    private final boolean                     hadoopAuthEnabled;
+    private final boolean                     optimizeSubAccessAuthEnabled;
+    private final String                      randomizedWildcardPathName;
+    private final String                      hadoopModuleName;
+    private final Set<String>                 excludeUsers = new HashSet<>();
+    private final boolean                     useLegacySubAccessAuthorization;
+    private final int                         subAccessAuthzThreads;
+    private final int                         subAccessAuthzBatchSize;
+    private volatile ExecutorService          subAccessAuthzExecutor; // null if sub-directories are authorized in the handler thread
+    private final RangerHdfsAuthzContextCache authzContextCache;      // null if optimized authorizations are not shared across calls
 
     public RangerHdfsPlugin(Path addlConfigFile) {
         super("hdfs", "hdfs");
@@ -70,6 +82,13 @@ public RangerHdfsPlugin(Path addlConfigFile) {
 
         this.useLegacySubAccessAuthorization = config.getBoolean(RangerHadoopConstants.RANGER_USE_LEGACY_SUBACCESS_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_USE_LEGACY_SUBACCESS_AUTHORIZATION_DEFAULT);
 
+        this.subAccessAuthzThreads   = config.getInt(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_THREADS_PROP, RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_THREADS_DEFAULT);
+        this.subAccessAuthzBatchSize = Math.max(1, config.getInt(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_BATCH_SIZE_PROP, RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_BATCH_SIZE_DEFAULT));
+
+        int authzContextCacheSize = config.getInt(RangerHadoopConstants.RANGER_AUTHZ_CONTEXT_CACHE_SIZE_PROP, RangerHadoopConstants.RANGER_AUTHZ_CONTEXT_CACHE_SIZE_DEFAULT);
+
+        this.authzContextCache = (authzOptimizationEnabled && authzContextCacheSize > 0) ? new RangerHdfsAuthzContextCache(this, authzContextCacheSize) : null;
+
         if (excludeUserList != null && !excludeUserList.trim().isEmpty()) {
             for (String excludeUser : excludeUserList.trim().split(",")) {
                 excludeUser = excludeUser.trim();
@@ -81,6 +100,7 @@ public RangerHdfsPlugin(Path addlConfigFile) {
         }
 
         LOG.info("AUTHZ_OPTIMIZATION_ENABLED:[{}]", authzOptimizationEnabled);
+        LOG.info("SUBACCESS_AUTHZ_THREADS:[{}], SUBACCESS_AUTHZ_BATCH_SIZE:[{}]", subAccessAuthzThreads, subAccessAuthzBatchSize);
     }
 
     public static String getFileNameExtensionSeparator() {
@@ -115,6 +135,80 @@ public boolean isUseLegacySubAccessAuthorization() {
         return useLegacySubAccessAuthorization;
     }
 
+    public ExecutorService getSubAccessAuthzExecutor() {
+        return subAccessAuthzExecutor;
+    }
+
+    public int getSubAccessAuthzBatchSize() {
+        return subAccessAuthzBatchSize;
+    }
+
+    public RangerHdfsAuthzContextCache getAuthzContextCache() {
+        return authzContextCache;
+    }
+
+    @Override
+    public void init() {
+        super.init(); // calls cleanup(), which releases resources of an earlier init()
+
+        if (subAccessAuthzThreads > 0) {
+            subAccessAuthzExecutor = createSubAccessAuthzExecutor(subAccessAuthzThreads);
+        }
+
+        if (authzContextCache != null) {
+            try {
+                DefaultMetricsSystem.instance().register(RangerHdfsAuthzContextCache.METRICS_SOURCE_NAME, RangerHdfsAuthzContextCache.METRICS_SOURCE_DESC, authzContextCache);
+            } catch (MetricsException excp) {
+                LOG.warn("failed to register metrics source {}", RangerHdfsAuthzContextCache.METRICS_SOURCE_NAME, excp);
+            }
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        ExecutorService executor = subAccessAuthzExecutor;
+
+        subAccessAuthzExecutor = null;
+
+        if (executor != null) {
+            // batches not yet started are cancelled, so that handler threads waiting for them fall back to the default enforcer
+            for (Runnable task : executor.shutdownNow()) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+            }
+        }
+
+        if (authzContextCache != null) {
+            LOG.info("{}", authzContextCache);
+
+            DefaultMetricsSystem.instance().unregisterSource(RangerHdfsAuthzContextCache.METRICS_SOURCE_NAME);
+
+            authzContextCache.clear();
+        }
+
+        super.cleanup();
+    }
+
+    /*
+     * bounded pool to authorize sub-directories; when all threads are busy and the queue is full, or the pool is shut
+     * down, the handler thread authorizes the batch itself
+     */
+    private static ExecutorService createSubAccessAuthzExecutor(int threadCount) {
+        AtomicInteger      threadIdx = new AtomicInteger();
+        ThreadPoolExecutor ret       = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(threadCount * 4), runnable -> {
+            Thread thread = new Thread(runnable, "ranger-hdfs-subaccess-authz-" + threadIdx.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        }, (runnable, executor) -> runnable.run()); // unlike CallerRunsPolicy, runs the batch after shutdown as well
+
+        ret.allowCoreThreadTimeOut(true);
+
+        return ret;
+    }
+
     // Build random string of length between 56 and 112 characters
     private static String generateString(String source) {
         SecureRandom rng   = new SecureRandom();
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.metrics2.AbstractMetric;
+import org.apache.hadoop.metrics2.MetricsRecord;
+import org.apache.hadoop.metrics2.impl.MetricsCollectorImpl;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.authorization.hadoop.RangerAccessControlEnforcer.AuthzContext;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RangerHdfsAuthzContextCacheTest {
+    @Test
+    public void testGetPut() {
+        RangerHdfsPlugin            plugin = createPlugin();
+        RangerHdfsAuthzContextCache cache  = new RangerHdfsAuthzContextCache(plugin, 100);
+        AuthzContext                bob    = new AuthzContext(UserGroupInformation.createUserForTesting("bob", new String[] {"staff"}), "mkdirs", false);
+        AuthzContext                bobAlt = new AuthzContext(UserGroupInformation.createUserForTesting("bob", new String[] {"admin"}), "mkdirs", false);
+        RangerAccessResult          result = createResult("bob", "/data");
+
+        assertNull(cache.get(bob, "/data", "hdfs"));
+
+        cache.put(bob, "/data", "hdfs", result);
+
+        RangerAccessResult cached = cache.get(bob, "/data", "hdfs");
+
+        assertNotNull(cached);
+        assertTrue(cached.getIsAllowed());
+        assertTrue(cached.getIsAudited());
+        assertEquals(result.getPolicyId(), cached.getPolicyId());
+        assertNotSame(result.getAccessRequest(), cached.getAccessRequest());
+        assertEquals("/data", cached.getAccessRequest().getResource().getAsString());
+        assertTrue(!cached.getAccessRequest().getAccessTime().before(result.getAccessRequest().getAccessTime()));
+
+        assertNull(cache.get(bob, "/data", "alice"));                                        // different owner
+        assertNull(cache.get(bob, "/data/sales", "hdfs"));                                   // different path
+        assertNull(cache.get(bobAlt, "/data", "hdfs"));                                      // different groups
+        assertNull(cache.get(new AuthzContext(null, "listStatus", false), "/data", "hdfs")); // different user and operation
+
+        assertEquals(1, getMetric(cache, "AuthzContextCacheHits"));
+        assertEquals(5, getMetric(cache, "AuthzContextCacheMisses"));
+        assertEquals(1, getMetric(cache, "AuthzContextCacheSize"));
+        assertEquals(100, getMetric(cache, "AuthzContextCacheCapacity"));
+    }
+
+    @Test
+    public void testVersionChange() {
+        RangerHdfsPlugin            plugin = createPlugin();
+        RangerHdfsAuthzContextCache cache  = new RangerHdfsAuthzContextCache(plugin, 100);
+        AuthzContext                bob    = new AuthzContext(UserGroupInformation.createUserForTesting("bob", new String[] {"staff"}), "create", false);
+
+        cache.put(bob, "/data", "hdfs", createResult("bob", "/data"));
+
+        assertNotNull(cache.get(bob, "/data", "hdfs"));
+
+        when(plugin.getPoliciesVersion()).thenReturn(2L);
+
+        assertNull(cache.get(bob, "/data", "hdfs"));
+
+        cache.put(bob, "/data", "hdfs", createResult("bob", "/data"));
+
+        assertNotNull(cache.get(bob, "/data", "hdfs"));
+
+        when(plugin.getRolesVersion()).thenReturn(2L);
+
+        assertNull(cache.get(bob, "/data", "hdfs"));
+        assertEquals(0, cache.getSize());
+        assertEquals(2, getMetric(cache, "AuthzContextCacheHits"));
+        assertEquals(2, getMetric(cache, "AuthzContextCacheMisses"));
+    }
+
+    @Test
+    public void testCacheableOperations() {
+        assertTrue(RangerHdfsAuthzContextCache.isCacheableOperation(OperationOptimizer.OPERATION_NAME_CREATE));
+        assertTrue(RangerHdfsAuthzContextCache.isCacheableOperation(OperationOptimizer.OPERATION_NAME_MKDIRS));
+        assertTrue(RangerHdfsAuthzContextCache.isCacheableOperation(OperationOptimizer.OPERATION_NAME_LISTSTATUS));
+        assertFalse(RangerHdfsAuthzContextCache.isCacheableOperation(OperationOptimizer.OPERATION_NAME_DELETE));
+        assertFalse(RangerHdfsAuthzContextCache.isCacheableOperation("open"));
+        assertFalse(RangerHdfsAuthzContextCache.isCacheableOperation(null));
+    }
+
+    private static long getMetric(RangerHdfsAuthzContextCache cache, String name) {
+        MetricsCollectorImpl collector = new MetricsCollectorImpl();
+
+        cache.getMetrics(collector, true);
+
+        for (MetricsRecord record : collector.getRecords()) {
+            for (AbstractMetric metric : record.metrics()) {
+                if (name.equals(metric.name())) {
+                    return metric.value().longValue();
+                }
+            }
+        }
+
+        throw new AssertionError("metric " + name + " not found");
+    }
+
+    private static RangerHdfsPlugin createPlugin() {
+        RangerHdfsPlugin ret = mock(RangerHdfsPlugin.class);
+
+        when(ret.getPoliciesVersion()).thenReturn(1L);
+        when(ret.getTagsVersion()).thenReturn(1L);
+        when(ret.getRolesVersion()).thenReturn(1L);
+        when(ret.getUserStoreVersion()).thenReturn(-1L);
+
+        return ret;
+    }
+
+    private static RangerAccessResult createResult(String user, String path) {
+        RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(null, path, "hdfs", FsAction.WRITE_EXECUTE, "write", "mkdirs", user, Collections.singleton("staff"));
+        RangerAccessResult      ret     = new RangerAccessResult(0, "hdfsdev", null, request);
+
+        request.setAccessTime(new Date(System.currentTimeMillis() - 1000));
+
+        ret.setIsAllowed(true);
+        ret.setIsAccessDetermined(true);
+        ret.setIsAudited(true);
+        ret.setPolicyId(10L);
+
+        return ret;
+    }
+}
@@ -25,9 +25,11 @@
 import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider.AccessControlEnforcer;
 import org.apache.hadoop.hdfs.server.namenode.INodeAttributes;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.ranger.authorization.hadoop.RangerHdfsAuthorizer;
+import org.apache.ranger.authorization.hadoop.RangerHdfsAuthzContextCache;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -51,6 +53,7 @@ public class RangerHdfsAuthorizerTest {
     private static final String       FILE_GROUP    = "superGroup";
     private static final FsPermission READ_ONLY     = new FsPermission(FsAction.READ, FsAction.NONE, FsAction.NONE);
     private static final FsPermission EXEC_BY_OWNER = new FsPermission(FsAction.EXECUTE, FsAction.NONE, FsAction.NONE);
+    private static final FsPermission STICKY_ALL    = new FsPermission(FsAction.ALL, FsAction.ALL, FsAction.ALL, true);
 
     private static RangerHdfsAuthorizer  authorizer;
     private static AccessControlEnforcer rangerControlEnforcer;
@@ -73,6 +76,14 @@ public static void setup() {
                         "                <name>xasecure.add-hadoop-authorization</name>\n" +
                         "                <value>true</value>\n" +
                         "        </property>\n" +
+                        "        <property>\n" +
+                        "                <name>ranger.hdfs.authz.enable.optimization</name>\n" +
+                        "                <value>true</value>\n" +
+                        "        </property>\n" +
+                        "        <property>\n" +
+                        "                <name>ranger.plugin.hdfs.authz.context.cache.size</name>\n" +
+                        "                <value>100</value>\n" +
+                        "        </property>\n" +
                         "</configuration>\n");
             }
 
@@ -143,6 +154,31 @@ public void writeTest() throws AccessControlException {
         fs.checkAccessBlocked(FsAction.WRITE, "eve"); // write deny check for public
     }
 
+    @Test
+    public void renameWithStickyBitTest() throws AccessControlException {
+        final TestFileSystem fs = new TestFileSystem("/tmp/tmpdir7/data-file");
+
+        // "bob" can rename the file, allowed by the policy; the decision is cached and reused by the next call
+        fs.checkRename("bob");
+        fs.checkRename("bob");
+
+        // with sticky-bit set on the parent, only owners of the parent or the file can rename; the cached decision must not be used
+        fs.setParentDirectoryPermission(STICKY_ALL);
+
+        fs.checkRenameBlocked("bob");
+
+        // once sticky-bit is cleared, "bob" can rename the file again
+        fs.setParentDirectoryPermission(null);
+
+        fs.checkRename("bob");
+    }
+
+    @Test
+    public void authzContextCacheMetricsTest() {
+        // registered when the plugin is initialized, and not unregistered by the cleanup done in init()
+        Assert.assertNotNull(DefaultMetricsSystem.instance().getSource(RangerHdfsAuthzContextCache.METRICS_SOURCE_NAME));
+    }
+
     @Test
     public void executeTest() throws AccessControlException {
         final TestFileSystem fs = new TestFileSystem("/tmp/tmpdir3/data-file2");
@@ -317,6 +353,52 @@ public void checkAccess(FsAction access, String userName, String... groups) thro
             rangerControlEnforcer.checkPermissionWithContext(authorizationContext);
         }
 
+        /**
+         * Checks that the <b>file</b> can be <b>renamed</b> by the given user in the given groups.
+         * Throws an exception, if not.
+         */
+        public void checkRename(String userName, String... groups) throws AccessControlException {
+            final UserGroupInformation user = UserGroupInformation.createUserForTesting(userName, groups);
+
+            INodeAttributeProvider.AuthorizationContext.Builder builder = new INodeAttributeProvider.AuthorizationContext.Builder()
+                    .fsOwner(FILE_OWNER)
+                    .supergroup(FILE_GROUP)
+                    .callerUgi(user)
+                    .inodeAttrs(attributes)
+                    .inodes(nodes)
+                    .pathByNameArr(new byte[0][0])
+                    .snapshotId(SNAPSHOT_ID)
+                    .path(path)
+                    .ancestorIndex(ancestorIndex - 1)
+                    .doCheckOwner(false)
+                    .ancestorAccess(null)
+                    .parentAccess(FsAction.WRITE)
+                    .access(null)
+                    .subAccess(null)
+                    .ignoreEmptyDir(false)
+                    .operationName("rename")
+                    .callerContext(null);
+
+            INodeAttributeProvider.AuthorizationContext authorizationContext = new INodeAttributeProvider.AuthorizationContext(builder);
+
+            // namenode gets a new enforcer for each operation; decisions are shared across calls only via the authz context cache
+            authorizer.getExternalAccessControlEnforcer(null).checkPermissionWithContext(authorizationContext);
+        }
+
+        /**
+         * Checks that the <b>file</b> can't be <b>renamed</b> by the given user in the given groups.
+         * Throws an exception, if not.
+         */
+        public void checkRenameBlocked(String userName, String... groups) {
+            try {
+                checkRename(userName, groups);
+
+                Assert.fail("Rename should be blocked for " + path + " for user=" + userName + " groups=" + Arrays.asList(groups));
+            } catch (AccessControlException ace) {
+                Assert.assertNotNull(ace);
+            }
+        }
+
         /**
          * Checks that the <b>file</b> access is <b>blocked</b> for the given user in the given groups.
          * Throws an exception, if not.
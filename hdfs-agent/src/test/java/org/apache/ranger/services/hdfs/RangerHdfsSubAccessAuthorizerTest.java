@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.services.hdfs;
+
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.fs.permission.PermissionStatus;
+import org.apache.hadoop.hdfs.server.namenode.INode;
+import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider;
+import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider.AccessControlEnforcer;
+import org.apache.hadoop.hdfs.server.namenode.INodeAttributes;
+import org.apache.hadoop.hdfs.server.namenode.INodeDirectory;
+import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
+import org.apache.hadoop.hdfs.util.ReadOnlyList;
+import org.apache.hadoop.security.AccessControlException;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.authorization.hadoop.RangerHdfsAuthorizer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests authorization of subAccess, as for recursive delete, with sub-directories evaluated in parallel batches.
+ */
+public class RangerHdfsSubAccessAuthorizerTest {
+    private static final int              SNAPSHOT_ID = Snapshot.CURRENT_STATE_ID;
+    private static final String           FILE_OWNER  = "fileOwner";
+    private static final String           FILE_GROUP  = "superGroup";
+    private static final PermissionStatus DIR_STATUS  = new PermissionStatus(FILE_OWNER, FILE_GROUP, new FsPermission((short) 0755));
+    private static final AtomicInteger    INODE_ID    = new AtomicInteger(1000);
+
+    private static RangerHdfsAuthorizer authorizer;          // 2 threads, batches of 2 directories
+    private static RangerHdfsAuthorizer optimizedAuthorizer; // as above, with ranger.optimize-subaccess-authorization
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        authorizer          = createAuthorizer(false);
+        optimizedAuthorizer = createAuthorizer(true);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        authorizer.stop();
+        optimizedAuthorizer.stop();
+    }
+
+    @Test
+    public void subAccessAllowedTest() throws AccessControlException {
+        TestDirectoryTree     tree            = new TestDirectoryTree();
+        AccessControlEnforcer defaultEnforcer = Mockito.mock(AccessControlEnforcer.class);
+
+        tree.checkSubAccess(authorizer, defaultEnforcer, "dave");
+
+        // every directory in the tree is authorized, and none falls back to the default enforcer
+        for (TestDirectory dir : tree.dirs.values()) {
+            Assert.assertEquals("listing count of " + dir.getFullPathName(), 1, dir.listCount.get());
+        }
+
+        verify(defaultEnforcer, never()).checkPermission(any(), any(), any(), any(), any(), any(), anyInt(), any(), anyInt(), anyBoolean(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void subAccessDeniedTest() throws AccessControlException {
+        TestDirectoryTree     tree            = new TestDirectoryTree();
+        AccessControlEnforcer defaultEnforcer = Mockito.mock(AccessControlEnforcer.class);
+
+        // "carol" is denied write on /tmp/tmpdir8/d1, the second directory of the first batch
+        try {
+            tree.checkSubAccess(authorizer, defaultEnforcer, "carol");
+
+            Assert.fail("subAccess should be blocked for user=carol");
+        } catch (AccessControlException ace) {
+            Assert.assertNotNull(ace);
+        }
+
+        // the walk stops at the deny: the next level of directories is not evaluated
+        for (int i = 0; i < TestDirectoryTree.DIR_COUNT; i++) {
+            Assert.assertEquals("listing count of /tmp/tmpdir8/d" + i + "/e", 0, tree.dirs.get("d" + i + "/e").listCount.get());
+        }
+
+        verify(defaultEnforcer, never()).checkPermission(any(), any(), any(), any(), any(), any(), anyInt(), any(), anyInt(), anyBoolean(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void subAccessFailedBatchFallbackTest() throws AccessControlException {
+        TestDirectoryTree     tree            = new TestDirectoryTree();
+        AccessControlEnforcer defaultEnforcer = Mockito.mock(AccessControlEnforcer.class);
+
+        // d3 is in the second batch, evaluated in the plugin's executor
+        tree.dirs.get("d3").onList = () -> {
+            throw new IllegalStateException("failed to list /tmp/tmpdir8/d3");
+        };
+
+        tree.checkSubAccess(authorizer, defaultEnforcer, "dave");
+
+        // evaluation failed: the default enforcer checks subAccess for the tree
+        verify(defaultEnforcer).checkPermission(any(), any(), any(), any(), any(), any(), anyInt(), any(), anyInt(), anyBoolean(), any(), any(), any(), eq(FsAction.WRITE), anyBoolean());
+    }
+
+    @Test
+    public void subAccessInterruptedFallbackTest() throws Exception {
+        TestDirectoryTree          tree            = new TestDirectoryTree();
+        AccessControlEnforcer      defaultEnforcer = Mockito.mock(AccessControlEnforcer.class);
+        CountDownLatch             listing         = new CountDownLatch(1);
+        CountDownLatch             release         = new CountDownLatch(1);
+        AtomicReference<Throwable> error           = new AtomicReference<>();
+
+        // d3 is in the second batch: the handler thread waits for it after evaluating the first batch
+        tree.dirs.get("d3").onList = () -> {
+            listing.countDown();
+
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Thread handler = new Thread(() -> {
+            try {
+                tree.checkSubAccess(authorizer, defaultEnforcer, "dave");
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+
+        try {
+            handler.start();
+
+            Assert.assertTrue("d3 was not listed", listing.await(30, TimeUnit.SECONDS));
+
+            handler.interrupt();
+            handler.join(TimeUnit.SECONDS.toMillis(30));
+
+            Assert.assertFalse("handler thread is still waiting for the blocked batch", handler.isAlive());
+        } finally {
+            release.countDown();
+        }
+
+        Assert.assertNull("subAccess check failed", error.get());
+
+        // evaluation was interrupted: the default enforcer checks subAccess for the tree
+        verify(defaultEnforcer).checkPermission(any(), any(), any(), any(), any(), any(), anyInt(), any(), anyInt(), anyBoolean(), any(), any(), any(), eq(FsAction.WRITE), anyBoolean());
+    }
+
+    @Test
+    public void subAccessHierarchyAllowedTest() throws AccessControlException {
+        TestDirectoryTree     tree            = new TestDirectoryTree();
+        AccessControlEnforcer defaultEnforcer = Mockito.mock(AccessControlEnforcer.class);
+
+        tree.checkSubAccess(optimizedAuthorizer, defaultEnforcer, "dave");
+
+        // the policy on /tmp/tmpdir8 allows the whole hierarchy: sub-directories are not walked
+        Assert.assertEquals(1, tree.top.listCount.get());
+
+        for (int i = 0; i < TestDirectoryTree.DIR_COUNT; i++) {
+            Assert.assertEquals("listing count of /tmp/tmpdir8/d" + i, 0, tree.dirs.get("d" + i).listCount.get());
+        }
+    }
+
+    private static RangerHdfsAuthorizer createAuthorizer(boolean optimizeSubAccess) throws Exception {
+        File file = File.createTempFile("hdfs-version-site", ".xml");
+
+        file.deleteOnExit();
+
+        try (FileOutputStream outStream = new FileOutputStream(file);
+                OutputStreamWriter writer = new OutputStreamWriter(outStream, StandardCharsets.UTF_8)) {
+            writer.write("<configuration>\n" +
+                    "        <property>\n" +
+                    "                <name>hdfs.version</name>\n" +
+                    "                <value>hdfs_version_3.0</value>\n" +
+                    "        </property>\n" +
+                    "        <property>\n" +
+                    "                <name>xasecure.add-hadoop-authorization</name>\n" +
+                    "                <value>true</value>\n" +
+                    "        </property>\n" +
+                    "        <property>\n" +
+                    "                <name>ranger.plugin.hdfs.subaccess.authorization.threads</name>\n" +
+                    "                <value>2</value>\n" +
+                    "        </property>\n" +
+                    "        <property>\n" +
+                    "                <name>ranger.plugin.hdfs.subaccess.authorization.batch.size</name>\n" +
+                    "                <value>2</value>\n" +
+                    "        </property>\n" +
+                    "        <property>\n" +
+                    "                <name>ranger.optimize-subaccess-authorization</name>\n" +
+                    "                <value>" + optimizeSubAccess + "</value>\n" +
+                    "        </property>\n" +
+                    "</configuration>\n");
+        }
+
+        RangerHdfsAuthorizer ret = new RangerHdfsAuthorizer(new org.apache.hadoop.fs.Path(file.toURI()));
+
+        ret.start();
+
+        return ret;
+    }
+
+    /*
+     * directory that counts listings of its children, which the enforcer does once for each directory it authorizes;
+     * onList is run on listing, to block or fail evaluation of the directory
+     */
+    static class TestDirectory extends INodeDirectory {
+        final AtomicInteger listCount = new AtomicInteger();
+        volatile Runnable   onList;
+
+        TestDirectory(String name) {
+            super(INODE_ID.incrementAndGet(), name.getBytes(StandardCharsets.UTF_8), DIR_STATUS, 0L);
+        }
+
+        @Override
+        public ReadOnlyList<INode> getChildrenList(int snapshotId) {
+            listCount.incrementAndGet();
+
+            Runnable onList = this.onList;
+
+            if (onList != null) {
+                onList.run();
+            }
+
+            return super.getChildrenList(snapshotId);
+        }
+    }
+
+    /*
+     * /tmp/tmpdir8 with sub-directories d0..d5, each with a sub-directory e
+     */
+    static class TestDirectoryTree {
+        static final int DIR_COUNT = 6;
+
+        final INodeDirectory             root = new INodeDirectory(INODE_ID.incrementAndGet(), new byte[0], DIR_STATUS, 0L);
+        final INodeDirectory             tmp  = new INodeDirectory(INODE_ID.incrementAndGet(), "tmp".getBytes(StandardCharsets.UTF_8), DIR_STATUS, 0L);
+        final TestDirectory              top  = new TestDirectory("tmpdir8");
+        final Map<String, TestDirectory> dirs = new LinkedHashMap<>();
+
+        TestDirectoryTree() {
+            root.addChild(tmp);
+            tmp.addChild(top);
+
+            dirs.put("", top);
+
+            for (int i = 0; i < DIR_COUNT; i++) {
+                TestDirectory dir    = new TestDirectory("d" + i);
+                TestDirectory subDir = new TestDirectory("e");
+
+                top.addChild(dir);
+                dir.addChild(subDir);
+
+                dirs.put("d" + i, dir);
+                dirs.put("d" + i + "/e", subDir);
+            }
+        }
+
+        void checkSubAccess(RangerHdfsAuthorizer authorizer, AccessControlEnforcer defaultEnforcer, String userName) throws AccessControlException {
+            INode[]           inodes     = new INode[] {root, tmp, top};
+            INodeAttributes[] inodeAttrs = new INodeAttributes[] {root, tmp, top};
+
+            INodeAttributeProvider.AuthorizationContext.Builder builder = new INodeAttributeProvider.AuthorizationContext.Builder()
+                    .fsOwner(FILE_OWNER)
+                    .supergroup(FILE_GROUP)
+                    .callerUgi(UserGroupInformation.createUserForTesting(userName, new String[0]))
+                    .inodeAttrs(inodeAttrs)
+                    .inodes(inodes)
+                    .pathByNameArr(new byte[0][0])
+                    .snapshotId(SNAPSHOT_ID)
+                    .path("/tmp/tmpdir8")
+                    .ancestorIndex(inodes.length - 2)
+                    .doCheckOwner(false)
+                    .ancestorAccess(null)
+                    .parentAccess(null)
+                    .access(null)
+                    .subAccess(FsAction.WRITE)
+                    .ignoreEmptyDir(false)
+                    .operationName("delete")
+                    .callerContext(null);
+
+            authorizer.getExternalAccessControlEnforcer(defaultEnforcer).checkPermissionWithContext(new INodeAttributeProvider.AuthorizationContext(builder));
+        }
+    }
+}
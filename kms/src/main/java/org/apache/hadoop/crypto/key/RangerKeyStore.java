@@ -303,88 +303,57 @@ public void engineLoad(InputStream stream, char[] password) throws IOException,
         }
 
         Map<String, Object> keyEntries = new ConcurrentHashMap<>();
+        MessageDigest       md         = null;
+        byte[]              computed   = {};
 
-        if (keyVaultEnabled) {
-            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-                String encodedStr  = rangerKey.getEncoded();
-                byte[] encodedByte = DatatypeConverter.parseBase64Binary(encodedStr);
-                String alias       = rangerKey.getAlias();
-
-                SecretKeyByteEntry entry = new SecretKeyByteEntry(new Date(rangerKey.getCreatedDate()), encodedByte,
-                        rangerKey.getCipher(), rangerKey.getBitLength(),
-                        rangerKey.getDescription(), rangerKey.getVersion(),
-                        rangerKey.getAttributes());
-
-                logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
-
-                keyEntries.put(alias, entry);
-            }
-        } else {
-            MessageDigest md = null;
-
-            if (password != null) {
-                md = getKeyedMessageDigest(password);
-            }
-
-            byte[] computed = {};
+        if (!keyVaultEnabled && password != null) {
+            md       = getKeyedMessageDigest(password);
+            computed = md.digest();
+        }
 
-            if (md != null) {
-                computed = md.digest();
-            }
+        for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+            Object entry = toKeyEntry(rangerKey, md, computed);
 
-            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-                String encoded = rangerKey.getEncoded();
-                byte[] data    = DatatypeConverter.parseBase64Binary(encoded);
+            logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
 
-                if (data != null && data.length > 0) {
-                    stream = new ByteArrayInputStream(data);
-                } else {
-                    logger.error("No Key found for alias {}", rangerKey.getAlias());
-                }
-
-                if (computed != null) {
-                    int counter = 0;
+            // Add the entry to the list
+            keyEntries.put(rangerKey.getAlias(), entry);
+        }
 
-                    for (int i = computed.length - 1; i >= 0; i--) {
-                        if (data == null || computed[i] != data[data.length - (1 + counter)]) {
-                            Throwable t = new UnrecoverableKeyException("Password verification failed");
+        logger.debug("engineLoad(): loaded {} keys", keyEntries.size());
 
-                            logger.error("Keystore was tampered with, or password was incorrect.", t);
+        this.keyEntries = keyEntries;
 
-                            throw new IOException("Keystore was tampered with, or password was incorrect", t);
-                        } else {
-                            counter++;
-                        }
-                    }
-                }
+        logger.debug("engineLoad(): keyEntries switched with {} keys", keyEntries.size());
+    }
 
-                SealedObject sealedKey;
+    /**
+     * Loads the given alias from the database, without reloading other keys in the keystore.
+     *
+     * @return true if the alias was found in the database
+     */
+    public boolean engineLoadAlias(String alias, char[] password) throws IOException, NoSuchAlgorithmException {
+        logger.debug("==> engineLoadAlias({})", alias);
 
-                // read the (entry creation) date
-                // read the sealed key
-                try (DataInputStream dis = password != null ? new DataInputStream(new DigestInputStream(stream, md)) : new DataInputStream(stream);
-                        ObjectInputStream ois = new ObjectInputStream(dis)) {
-                    sealedKey = (SealedObject) ois.readObject();
-                } catch (ClassNotFoundException cnfe) {
-                    throw new IOException(cnfe.getMessage());
-                }
+        alias = convertAlias(alias);
 
-                SecretKeyEntry entry = new SecretKeyEntry(new Date(rangerKey.getCreatedDate()), sealedKey, rangerKey.getCipher(),
-                        rangerKey.getBitLength(), rangerKey.getDescription(), rangerKey.getVersion(),
-                        rangerKey.getAttributes());
+        XXRangerKeyStore rangerKey = dbOperationLoadAlias(alias);
 
-                logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
+        if (rangerKey != null) {
+            MessageDigest md       = null;
+            byte[]        computed = {};
 
-                // Add the entry to the list
-                keyEntries.put(rangerKey.getAlias(), entry);
+            if (!keyVaultEnabled && password != null) {
+                md       = getKeyedMessageDigest(password);
+                computed = md.digest();
             }
-        }
 
-        logger.debug("engineLoad(): loaded {} keys", keyEntries.size());
+            keyEntries.put(rangerKey.getAlias(), toKeyEntry(rangerKey, md, computed));
+        }
 
-        this.keyEntries = keyEntries;
+        logger.debug("<== engineLoadAlias({}): ret={}", alias, rangerKey != null);
 
-        logger.debug("engineLoad(): keyEntries switched with {} keys", keyEntries.size());
+        return rangerKey != null;
     }
 
     public byte[] engineGetDecryptedZoneKeyByte(String alias) throws Exception {
@@ -889,6 +858,81 @@ private List<XXRangerKeyStore> dbOperationLoad() {
         return ret;
     }
 
+    private XXRangerKeyStore dbOperationLoadAlias(String alias) {
+        logger.debug("==> dbOperationLoadAlias({})", alias);
+
+        XXRangerKeyStore ret = null;
+
+        try {
+            if (kmsDao != null) {
+                ret = kmsDao.getKeyByAlias(alias);
+            }
+        } catch (Exception e) {
+            logger.error("dbOperationLoadAlias({}) error", alias, e);
+        }
+
+        logger.debug("<== dbOperationLoadAlias({}): ret={}", alias, ret != null);
+
+        return ret;
+    }
+
+    private Object toKeyEntry(XXRangerKeyStore rangerKey, MessageDigest md, byte[] computed) throws IOException {
+        final Object ret;
+
+        if (keyVaultEnabled) {
+            String encodedStr  = rangerKey.getEncoded();
+            byte[] encodedByte = DatatypeConverter.parseBase64Binary(encodedStr);
+
+            ret = new SecretKeyByteEntry(new Date(rangerKey.getCreatedDate()), encodedByte,
+                    rangerKey.getCipher(), rangerKey.getBitLength(),
+                    rangerKey.getDescription(), rangerKey.getVersion(),
+                    rangerKey.getAttributes());
+        } else {
+            String      encoded = rangerKey.getEncoded();
+            byte[]      data    = DatatypeConverter.parseBase64Binary(encoded);
+            InputStream stream  = null;
+
+            if (data != null && data.length > 0) {
+                stream = new ByteArrayInputStream(data);
+            } else {
+                logger.error("No Key found for alias {}", rangerKey.getAlias());
+            }
+
+            if (computed != null) {
+                int counter = 0;
+
+                for (int i = computed.length - 1; i >= 0; i--) {
+                    if (data == null || computed[i] != data[data.length - (1 + counter)]) {
+                        Throwable t = new UnrecoverableKeyException("Password verification failed");
+
+                        logger.error("Keystore was tampered with, or password was incorrect.", t);
+
+                        throw new IOException("Keystore was tampered with, or password was incorrect", t);
+                    } else {
+                        counter++;
+                    }
+                }
+            }
+
+            SealedObject sealedKey;
+
+            // read the (entry creation) date
+            // read the sealed key
+            try (DataInputStream dis = md != null ? new DataInputStream(new DigestInputStream(stream, md)) : new DataInputStream(stream);
+                    ObjectInputStream ois = new ObjectInputStream(dis)) {
+                sealedKey = (SealedObject) ois.readObject();
+            } catch (ClassNotFoundException cnfe) {
+                throw new IOException(cnfe.getMessage());
+            }
+
+            ret = new SecretKeyEntry(new Date(rangerKey.getCreatedDate()), sealedKey, rangerKey.getCipher(),
+                    rangerKey.getBitLength(), rangerKey.getDescription(), rangerKey.getVersion(),
+                    rangerKey.getAttributes());
+        }
+
+        return ret;
+    }
+
     /**
      * To guard against tampering with the keystore, we append a keyed
      * hash with a bit of whitener.
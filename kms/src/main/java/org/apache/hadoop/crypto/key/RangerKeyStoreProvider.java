@@ -33,6 +33,7 @@
 import javax.crypto.spec.SecretKeySpec;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -46,12 +47,17 @@
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @InterfaceAudience.Private
@@ -85,13 +91,20 @@ public class RangerKeyStoreProvider extends KeyProvider {
     private static final String TENCENT_CLIENT_SECRET        = RangerTencentKMSProvider.TENCENT_CLIENT_SECRET;
     private static final String TENCENT_CLIENT_SECRET_ALIAS  = "ranger.kms.tencent.client.secret.alias";
     private static final String IS_GCP_ENABLED               = "ranger.kms.gcp.enabled";
+    private static final String KEY_MATERIAL_CACHE_MAX_SIZE  = "ranger.kms.key.material.cache.max.size";
+    private static final String KEY_MATERIAL_CACHE_TTL_MS    = "ranger.kms.key.material.cache.ttl.ms";
 
-    private final RangerKeyStore        dbStore;
-    private final char[]                masterKey;
-    private final Map<String, Metadata> cache   = new HashMap<>();
-    private final ReadWriteLock         lock    = new ReentrantReadWriteLock(true);
-    private final boolean               keyVaultEnabled;
-    private       boolean               changed;
+    private static final int  KEY_MATERIAL_CACHE_MAX_SIZE_DEFAULT = 1000;
+    private static final long KEY_MATERIAL_CACHE_TTL_MS_DEFAULT   = 30 * 1000L;
+
+    private final RangerKeyStore                                  dbStore;
+    private final char[]                                          masterKey;
+    private final Map<String, Metadata>                           cache              = new HashMap<>();
+    private final ReentrantReadWriteLock                          lock               = new ReentrantReadWriteLock(true);
+    private final Map<String, CompletableFuture<KeyVersion>>      pendingKeyVersions = new ConcurrentHashMap<>();
+    private final boolean                                         keyVaultEnabled;
+    private final KeyVersionCache                                 keyVersionCache; // null if decrypted key material is not cached
+    private       boolean                                         changed;
 
     public RangerKeyStoreProvider(Configuration conf) throws Throwable {
         super(conf);
@@ -119,6 +132,13 @@ public RangerKeyStoreProvider(Configuration conf) throws Throwable {
 
         this.keyVaultEnabled = isAzureKeyVaultEnabled || isGCPEnabled || isTencentKMSEnabled;
 
+        int  keyMaterialCacheMaxSize = conf.getInt(KEY_MATERIAL_CACHE_MAX_SIZE, KEY_MATERIAL_CACHE_MAX_SIZE_DEFAULT);
+        long keyMaterialCacheTtlMs   = conf.getLong(KEY_MATERIAL_CACHE_TTL_MS, KEY_MATERIAL_CACHE_TTL_MS_DEFAULT);
+
+        this.keyVersionCache = (keyMaterialCacheMaxSize > 0 && keyMaterialCacheTtlMs > 0) ? new KeyVersionCache(keyMaterialCacheMaxSize, keyMaterialCacheTtlMs) : null;
+
+        logger.info("Decrypted key material cache: maxSize={}, ttlMs={}", keyMaterialCacheMaxSize, keyVersionCache != null ? keyMaterialCacheTtlMs : 0);
+
         final RangerKMSDB  rangerKMSDB = new RangerKMSDB(conf);
         final DaoManager   daoManager  = rangerKMSDB.getDaoManager();
         final RangerKMSMKI masterKeyProvider;
@@ -236,62 +256,14 @@ public static Configuration getDBKSConf() {
     public KeyVersion getKeyVersion(String versionName) throws IOException {
         logger.debug("==> getKeyVersion({})", versionName);
 
-        KeyVersion ret = null;
-
-        try (AutoClosableReadLock ignored = new AutoClosableReadLock(lock)) {
-            if (keyVaultEnabled) {
-                try {
-                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
-
-                    if (!versionNameExists) {
-                        dbStore.engineLoad(null, masterKey);
-
-                        versionNameExists = dbStore.engineContainsAlias(versionName);
-                    }
-
-                    if (versionNameExists) {
-                        byte[] decryptKeyByte;
-
-                        try {
-                            decryptKeyByte = dbStore.engineGetDecryptedZoneKeyByte(versionName);
-                        } catch (Exception e) {
-                            throw new RuntimeException("Error while getting decrypted key." + e);
-                        }
+        KeyVersion ret = keyVersionCache != null ? keyVersionCache.get(versionName) : null;
 
-                        if (decryptKeyByte != null && decryptKeyByte.length > 0) {
-                            ret = new KeyVersion(getBaseName(versionName), versionName, decryptKeyByte);
-                        }
-                    }
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IOException("Can't get algorithm for key " + e.getMessage());
-                } catch (CertificateException e) {
-                    throw new IOException("Certificate exception storing key", e);
-                }
+        if (ret == null) {
+            if (lock.getReadHoldCount() > 0 || lock.isWriteLockedByCurrentThread()) {
+                // waiting for another thread, which needs the read-lock, could deadlock with a waiting writer
+                ret = loadKeyVersion(versionName);
             } else {
-                SecretKeySpec key = null;
-                try {
-                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
-
-                    if (!versionNameExists) {
-                        dbStore.engineLoad(null, masterKey);
-
-                        versionNameExists = dbStore.engineContainsAlias(versionName);
-                    }
-
-                    if (versionNameExists) {
-                        key = (SecretKeySpec) dbStore.engineGetKey(versionName, masterKey);
-                    }
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IOException("Can't get algorithm for key " + key, e);
-                } catch (UnrecoverableKeyException e) {
-                    throw new IOException("Can't recover key " + key, e);
-                } catch (CertificateException e) {
-                    throw new IOException("Certificate exception storing key", e);
-                }
-
-                if (key != null) {
-                    ret = new KeyVersion(getBaseName(versionName), versionName, key.getEncoded());
-                }
+                ret = loadKeyVersionOnce(versionName);
             }
         }
 
@@ -364,7 +336,7 @@ public Metadata getMetadata(String name) throws IOException {
 
             if (ret == null) {
                 if (!dbStore.engineContainsAlias(name)) {
-                    dbStore.engineLoad(null, masterKey);
+                    dbStore.engineLoadAlias(name, masterKey);
                 }
 
                 if (dbStore.engineContainsAlias(name)) {
@@ -470,6 +442,10 @@ public void deleteKey(String name) throws IOException {
 
             cache.remove(name);
 
+            if (keyVersionCache != null) {
+                keyVersionCache.removeKey(name);
+            }
+
             changed = true;
         }
 
@@ -533,6 +509,107 @@ public void flush() throws IOException {
         logger.debug("<== flush()");
     }
 
+    /*
+     * concurrent calls for the same versionName share the result of a single load
+     */
+    private KeyVersion loadKeyVersionOnce(String versionName) throws IOException {
+        CompletableFuture<KeyVersion> pending  = new CompletableFuture<>();
+        CompletableFuture<KeyVersion> inFlight = pendingKeyVersions.putIfAbsent(versionName, pending);
+        KeyVersion                    ret;
+
+        if (inFlight == null) {
+            try {
+                ret = loadKeyVersion(versionName);
+
+                pending.complete(ret);
+            } catch (IOException | RuntimeException e) {
+                pending.completeExceptionally(e);
+
+                throw e;
+            } finally {
+                pendingKeyVersions.remove(versionName, pending);
+            }
+        } else {
+            logger.debug("getKeyVersion({}): waiting for load by another thread", versionName);
+
+            try {
+                ret = inFlight.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while waiting for key " + versionName + " to be loaded");
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to load key " + versionName, e.getCause());
+            }
+        }
+
+        return ret;
+    }
+
+    private KeyVersion loadKeyVersion(String versionName) throws IOException {
+        logger.debug("==> loadKeyVersion({})", versionName);
+
+        KeyVersion ret = null;
+
+        try (AutoClosableReadLock ignored = new AutoClosableReadLock(lock)) {
+            if (keyVaultEnabled) {
+                try {
+                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
+
+                    if (!versionNameExists) {
+                        versionNameExists = dbStore.engineLoadAlias(versionName, masterKey);
+                    }
+
+                    if (versionNameExists) {
+                        byte[] decryptKeyByte;
+
+                        try {
+                            decryptKeyByte = dbStore.engineGetDecryptedZoneKeyByte(versionName);
+                        } catch (Exception e) {
+                            throw new RuntimeException("Error while getting decrypted key." + e);
+                        }
+
+                        if (decryptKeyByte != null && decryptKeyByte.length > 0) {
+                            ret = new KeyVersion(getBaseName(versionName), versionName, decryptKeyByte);
+                        }
+                    }
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IOException("Can't get algorithm for key " + e.getMessage());
+                }
+            } else {
+                SecretKeySpec key = null;
+                try {
+                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
+
+                    if (!versionNameExists) {
+                        versionNameExists = dbStore.engineLoadAlias(versionName, masterKey);
+                    }
+
+                    if (versionNameExists) {
+                        key = (SecretKeySpec) dbStore.engineGetKey(versionName, masterKey);
+                    }
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IOException("Can't get algorithm for key " + key, e);
+                } catch (UnrecoverableKeyException e) {
+                    throw new IOException("Can't recover key " + key, e);
+                }
+
+                if (key != null) {
+                    ret = new KeyVersion(getBaseName(versionName), versionName, key.getEncoded());
+                }
+            }
+
+            // added while holding the read-lock, so that a concurrent deleteKey() doesn't leave the key in the cache
+            if (ret != null && keyVersionCache != null) {
+                keyVersionCache.put(ret);
+            }
+        }
+
+        logger.debug("<== loadKeyVersion({})", versionName);
+
+        return ret;
+    }
+
     private static Configuration getConfiguration(boolean loadHadoopDefaults, String... resources) {
         logger.debug("==> getConfiguration()");
 
@@ -685,6 +762,10 @@ private void reloadKeys() throws IOException {
         try (AutoClosableWriteLock ignored = new AutoClosableWriteLock(lock)) {
             cache.clear();
 
+            if (keyVersionCache != null) {
+                keyVersionCache.clear();
+            }
+
             loadKeys(masterKey);
         } catch (NoSuchAlgorithmException | CertificateException e) {
             throw new IOException("Can't load Keys");
@@ -693,6 +774,94 @@ private void reloadKeys() throws IOException {
         logger.debug("<== reloadKeys()");
     }
 
+    /*
+     * Decrypted key material, kept for ttlMs after it is loaded, in the order of loading; material of entries removed
+     * from the cache - on expiry, eviction or deletion of the key - is zeroed. Callers get a copy of the material.
+     */
+    private static final class KeyVersionCache {
+        private final int                                     maxSize;
+        private final long                                    ttlMs;
+        private final LinkedHashMap<String, CachedKeyVersion> entries = new LinkedHashMap<>();
+
+        KeyVersionCache(int maxSize, long ttlMs) {
+            this.maxSize = maxSize;
+            this.ttlMs   = ttlMs;
+        }
+
+        synchronized KeyVersion get(String versionName) {
+            removeExpiredEntries();
+
+            CachedKeyVersion entry = entries.get(versionName);
+
+            return entry != null ? new KeyVersion(entry.name, versionName, entry.material.clone()) : null;
+        }
+
+        synchronized void put(KeyVersion keyVersion) {
+            CachedKeyVersion prev = entries.remove(keyVersion.getVersionName());
+
+            if (prev != null) {
+                prev.zero();
+            }
+
+            entries.put(keyVersion.getVersionName(), new CachedKeyVersion(keyVersion.getName(), keyVersion.getMaterial().clone(), System.currentTimeMillis() + ttlMs));
+
+            removeExpiredEntries();
+
+            for (Iterator<CachedKeyVersion> iter = entries.values().iterator(); entries.size() > maxSize && iter.hasNext(); ) {
+                iter.next().zero();
+                iter.remove();
+            }
+        }
+
+        synchronized void removeKey(String name) {
+            for (Iterator<CachedKeyVersion> iter = entries.values().iterator(); iter.hasNext(); ) {
+                CachedKeyVersion entry = iter.next();
+
+                if (entry.name.equals(name)) {
+                    entry.zero();
+                    iter.remove();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            entries.values().forEach(CachedKeyVersion::zero);
+            entries.clear();
+        }
+
+        // entries are in the order of expiry, as all have the same ttl
+        private void removeExpiredEntries() {
+            long now = System.currentTimeMillis();
+
+            for (Iterator<CachedKeyVersion> iter = entries.values().iterator(); iter.hasNext(); ) {
+                CachedKeyVersion entry = iter.next();
+
+                if (entry.expiryTime > now) {
+                    break;
+                }
+
+                entry.zero();
+                iter.remove();
+            }
+        }
+    }
+
+    private static final class CachedKeyVersion {
+        final String name;
+        final byte[] material;
+        final long   expiryTime;
+
+        CachedKeyVersion(String name, byte[] material, long expiryTime) {
+            this.name       = name;
+            this.material   = material;
+            this.expiryTime = expiryTime;
+        }
+
+        void zero() {
+            Arrays.fill(material, (byte) 0);
+        }
+    }
+
     /**
      * The factory to create JksProviders, which is used by the ServiceLoader.
      */
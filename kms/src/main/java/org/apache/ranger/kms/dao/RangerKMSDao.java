@@ -30,14 +30,15 @@
 public class RangerKMSDao extends BaseDao<XXRangerKeyStore> {
     private static final Logger logger = LoggerFactory.getLogger(RangerKMSDao.class);
 
-    private static final String GET_ALL_KEYS_QUERY_NAME = "XXRangerKeyStore.getAllKeys";
+    private static final String GET_ALL_KEYS_QUERY_NAME  = "XXRangerKeyStore.getAllKeys";
+    private static final String FIND_BY_ALIAS_QUERY_NAME = "XXRangerKeyStore.findByAlias";
 
     RangerKMSDao(DaoManagerBase daoManager) {
         super(daoManager);
     }
 
     public XXRangerKeyStore findByAlias(String alias) {
-        return super.findByAlias("XXRangerKeyStore.findByAlias", alias);
+        return super.findByAlias(FIND_BY_ALIAS_QUERY_NAME, alias);
     }
 
     public int deleteByAlias(String alias) {
@@ -84,4 +85,30 @@ public List<XXRangerKeyStore> getAllKeys() {
 
         return ret;
     }
+
+    /*
+     * unlike findByAlias(), reads the key from the database even if the entity is in the persistence context; the
+     * returned entity is detached
+     */
+    public XXRangerKeyStore getKeyByAlias(String alias) {
+        XXRangerKeyStore ret = null;
+        EntityManager    em  = null;
+
+        try {
+            em = getEntityManager();
+
+            ret = em.createNamedQuery(FIND_BY_ALIAS_QUERY_NAME, XXRangerKeyStore.class)
+                    .setParameter("alias", alias)
+                    .setHint("eclipselink.refresh", "true")
+                    .getSingleResult();
+        } catch (NoResultException e) {
+            // ignore
+        } finally {
+            if (em != null) {
+                em.clear();
+            }
+        }
+
+        return ret;
+    }
 }
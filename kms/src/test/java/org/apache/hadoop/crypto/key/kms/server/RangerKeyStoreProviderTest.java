@@ -131,6 +131,42 @@ public void testRolloverKey() throws Throwable {
         Assertions.assertEquals(0, keyProvider.getKeys().size());
     }
 
+    @Test
+    public void testGetKeyVersion() throws Throwable {
+        if (!UNRESTRICTED_POLICIES_INSTALLED) {
+            return;
+        }
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        Configuration          conf        = new Configuration();
+        RangerKeyStoreProvider keyProvider = new RangerKeyStoreProvider(conf);
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+        KeyVersion keyVersion = keyProvider.createKey("newkey3", options);
+
+        keyProvider.flush();
+
+        // first call loads the key, second call is served from the key material cache
+        KeyVersion loaded = keyProvider.getKeyVersion("newkey3@0");
+        KeyVersion cached = keyProvider.getKeyVersion("newkey3@0");
+        Assertions.assertArrayEquals(keyVersion.getMaterial(), loaded.getMaterial());
+        Assertions.assertArrayEquals(keyVersion.getMaterial(), cached.getMaterial());
+        Assertions.assertNotSame(loaded.getMaterial(), cached.getMaterial());
+
+        // key loaded by a provider that has not seen it yet
+        RangerKeyStoreProvider keyProvider2 = new RangerKeyStoreProvider(conf);
+        Assertions.assertArrayEquals(keyVersion.getMaterial(), keyProvider2.getKeyVersion("newkey3@0").getMaterial());
+
+        keyProvider.deleteKey("newkey3");
+        keyProvider.flush();
+        Assertions.assertNull(keyProvider.getKeyVersion("newkey3@0"));
+        Assertions.assertEquals(0, keyProvider.getKeys().size());
+    }
+
     static {
         boolean ok = false;
         try {
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2022 Comcast Cable Communications Management, LLC
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the ""License"");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an ""AS IS"" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or   implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.apache.ranger.authorization.nestedstructure.authorizer;
+
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Results of policy evaluations for a schema, user, groups and access type: access to the schema, the row-filter
+ * and access/masking of fields seen in records so far. Denials are not kept, as these end the evaluation of a record.
+ * Results are kept along with the evaluated request, so that the audit of a record is the same as without the plan.
+ **/
+class FieldAccessPlan {
+    private final    Map<String, FieldAccess> fields;
+    private volatile boolean                  isSchemaAccessAllowed;
+    private volatile RangerAccessResult       rowFilterResult;
+
+    FieldAccessPlan(int maxFields) {
+        this.fields = new ConcurrentCacheMap<>(maxFields);
+    }
+
+    boolean isSchemaAccessAllowed() {
+        return isSchemaAccessAllowed;
+    }
+
+    void setSchemaAccessAllowed() {
+        this.isSchemaAccessAllowed = true;
+    }
+
+    RangerAccessResult getRowFilterResult() {
+        return rowFilterResult;
+    }
+
+    void setRowFilterResult(RangerAccessResult rowFilterResult) {
+        this.rowFilterResult = rowFilterResult;
+    }
+
+    FieldAccess getFieldAccess(String field) {
+        return fields.get(field);
+    }
+
+    void addFieldAccess(String field, FieldLevelAccess access, RangerAccessResult accessResult, RangerAccessResult maskResult) {
+        fields.put(field, new FieldAccess(access, accessResult, maskResult));
+    }
+
+    int getFieldCount() {
+        return fields.size();
+    }
+
+    /**
+     * @param result result kept in the plan
+     * @return a copy of the result, for a request made now, to be sent for audit
+     */
+    static RangerAccessResult copyForAudit(RangerAccessResult result) {
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(result.getAccessRequest());
+
+        request.setAccessTime(new Date());
+
+        RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+        ret.setAccessResultFrom(result);
+        ret.setAuditResultFrom(result);
+
+        return ret;
+    }
+
+    static final class FieldAccess {
+        final FieldLevelAccess   access;
+        final RangerAccessResult accessResult;
+        final RangerAccessResult maskResult; // null when the field is not masked
+
+        FieldAccess(FieldLevelAccess access, RangerAccessResult accessResult, RangerAccessResult maskResult) {
+            this.access       = access;
+            this.accessResult = accessResult;
+            this.maskResult   = maskResult;
+        }
+    }
+}
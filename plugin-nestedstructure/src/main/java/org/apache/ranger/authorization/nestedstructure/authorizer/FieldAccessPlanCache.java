@@ -0,0 +1,210 @@
+/**
+ * Copyright 2022 Comcast Cable Communications Management, LLC
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the ""License"");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an ""AS IS"" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or   implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.apache.ranger.authorization.nestedstructure.authorizer;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of {@link FieldAccessPlan}, keyed by schema, user, groups and access type.
+ * Plans are tied to versions of policies, tags, roles and userstore; a change in any of these versions discards all plans.
+ **/
+public class FieldAccessPlanCache {
+    private static final Logger logger = LoggerFactory.getLogger(FieldAccessPlanCache.class);
+
+    public static final String PROP_SUFFIX_PLAN_CACHE_SIZE = ".field.access.plan.cache.size";
+    public static final String PROP_SUFFIX_PLAN_MAX_FIELDS = ".field.access.plan.max.fields";
+    public static final int    DEFAULT_PLAN_CACHE_SIZE     = 1000;
+    public static final int    DEFAULT_PLAN_MAX_FIELDS     = 1000;
+
+    private final    RangerBasePlugin plugin;
+    private final    int              capacity;
+    private final    int              maxFieldsPerPlan;
+    private final    AtomicLong       hitCount  = new AtomicLong();
+    private final    AtomicLong       missCount = new AtomicLong();
+    private volatile Generation       generation;
+
+    FieldAccessPlanCache(RangerBasePlugin plugin, int capacity, int maxFieldsPerPlan) {
+        this.plugin           = plugin;
+        this.capacity         = capacity;
+        this.maxFieldsPerPlan = maxFieldsPerPlan;
+
+        logger.info("FieldAccessPlanCache(serviceName={}, capacity={}, maxFieldsPerPlan={})", plugin.getServiceName(), capacity, maxFieldsPerPlan);
+    }
+
+    /**
+     * @param plugin plugin used to evaluate policies
+     * @return the cache configured for the plugin; null if disabled, i.e. the cache size is 0
+     */
+    static FieldAccessPlanCache create(RangerBasePlugin plugin) {
+        RangerPluginConfig config    = plugin.getConfig();
+        int                capacity  = config.getInt(config.getPropertyPrefix() + PROP_SUFFIX_PLAN_CACHE_SIZE, DEFAULT_PLAN_CACHE_SIZE);
+        int                maxFields = config.getInt(config.getPropertyPrefix() + PROP_SUFFIX_PLAN_MAX_FIELDS, DEFAULT_PLAN_MAX_FIELDS);
+
+        return capacity > 0 ? new FieldAccessPlanCache(plugin, capacity, maxFields) : null;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        Generation generation = this.generation;
+
+        return generation != null ? generation.plans.size() : 0;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public void clear() {
+        generation = null;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldAccessPlanCache={capacity=" + capacity + ", maxFieldsPerPlan=" + maxFieldsPerPlan + ", size=" + getSize() + ", hitCount=" + hitCount + ", missCount=" + missCount + "}";
+    }
+
+    FieldAccessPlan getPlan(String schema, String user, Set<String> userGroups, NestedStructureAccessType accessType) {
+        Generation      generation = getGeneration();
+        PlanKey         key        = new PlanKey(schema, user, userGroups, accessType);
+        FieldAccessPlan ret        = generation.plans.get(key);
+
+        if (ret != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+
+            ret = new FieldAccessPlan(maxFieldsPerPlan);
+
+            generation.plans.put(key.detach(), ret);
+        }
+
+        return ret;
+    }
+
+    private Generation getGeneration() {
+        Generation ret              = this.generation;
+        long       policyVersion    = plugin.getPoliciesVersion();
+        long       tagVersion       = plugin.getTagsVersion();
+        long       roleVersion      = plugin.getRolesVersion();
+        long       userStoreVersion = plugin.getUserStoreVersion();
+
+        if (ret == null || !ret.isFor(policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+            synchronized (this) {
+                ret = this.generation;
+
+                if (ret == null || !ret.isFor(policyVersion, tagVersion, roleVersion, userStoreVersion)) {
+                    logger.debug("FieldAccessPlanCache: discarding plans, {}; policyVersion={}, tagVersion={}, roleVersion={}, userStoreVersion={}", ret, policyVersion, tagVersion, roleVersion, userStoreVersion);
+
+                    ret = new Generation(policyVersion, tagVersion, roleVersion, userStoreVersion, capacity);
+
+                    this.generation = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static final class Generation {
+        final long                                         policyVersion;
+        final long                                         tagVersion;
+        final long                                         roleVersion;
+        final long                                         userStoreVersion;
+        final ConcurrentCacheMap<PlanKey, FieldAccessPlan> plans;
+
+        Generation(long policyVersion, long tagVersion, long roleVersion, long userStoreVersion, int capacity) {
+            this.policyVersion    = policyVersion;
+            this.tagVersion       = tagVersion;
+            this.roleVersion      = roleVersion;
+            this.userStoreVersion = userStoreVersion;
+            this.plans            = new ConcurrentCacheMap<>(capacity);
+        }
+
+        boolean isFor(long policyVersion, long tagVersion, long roleVersion, long userStoreVersion) {
+            return this.policyVersion == policyVersion && this.tagVersion == tagVersion && this.roleVersion == roleVersion && this.userStoreVersion == userStoreVersion;
+        }
+
+        @Override
+        public String toString() {
+            return "Generation={policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", roleVersion=" + roleVersion + ", userStoreVersion=" + userStoreVersion + ", size=" + plans.size() + "}";
+        }
+    }
+
+    /*
+     * lookups use userGroups as provided by the caller; detach() copies it before the key is stored in the cache
+     */
+    private static final class PlanKey {
+        final String                    schema;
+        final String                    user;
+        final Set<String>               userGroups;
+        final NestedStructureAccessType accessType;
+        final int                       hashCode;
+
+        PlanKey(String schema, String user, Set<String> userGroups, NestedStructureAccessType accessType) {
+            this.schema     = schema;
+            this.user       = user;
+            this.userGroups = userGroups != null ? userGroups : Collections.emptySet();
+            this.accessType = accessType;
+            this.hashCode   = Objects.hash(schema, user, this.userGroups, accessType);
+        }
+
+        PlanKey detach() {
+            return new PlanKey(schema, user, new HashSet<>(userGroups), accessType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+
+            PlanKey other = (PlanKey) obj;
+
+            return hashCode == other.hashCode &&
+                    accessType == other.accessType &&
+                    Objects.equals(schema, other.schema) &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(userGroups, other.userGroups);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2022 Comcast Cable Communications Management, LLC
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the ""License"");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an ""AS IS"" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or   implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.apache.ranger.authorization.nestedstructure.authorizer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Checks access to, and masks, the edge fields of a json in a single streaming pass; no document is built.
+ * Field names are the same as those returned by {@link JsonManipulator#getFields()}: for example address.city,
+ * or recentOrders.*.orderDate for a field in elements of an array.
+ **/
+class JsonFieldMasker {
+    // lenient like JsonManipulator, which accepts field names without quotes and strings in single quotes
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES).enable(JsonReadFeature.ALLOW_SINGLE_QUOTES).build();
+
+    private JsonFieldMasker() {
+    }
+
+    /**
+     * @param jsonString json to be checked and masked
+     * @param fieldAccessProvider returns access to the given field; called once for each distinct field in the json
+     * @return the masked json; null if access to any field is denied
+     */
+    static String mask(String jsonString, Function<String, FieldLevelAccess> fieldAccessProvider) {
+        StringWriter writer = new StringWriter(jsonString.length());
+        boolean      hasAccess;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonString); JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            if (parser.nextToken() == null) {
+                throw new MaskingException("invalid input json; unable to mask");
+            }
+
+            hasAccess = copyValue(parser, generator, null, new FieldAccessLookup(fieldAccessProvider));
+
+            if (hasAccess && parser.nextToken() != null) {
+                throw new MaskingException("invalid input json; unable to mask");
+            }
+        } catch (JsonProcessingException e) {
+            throw new MaskingException("invalid input json; unable to mask", e);
+        } catch (IOException e) {
+            throw new MaskingException("unable to mask", e);
+        }
+
+        return hasAccess ? writer.toString() : null;
+    }
+
+    /*
+     * copies the value at the current token of the parser, including nested values, to the generator
+     * returns false, without copying further, when access to a field is denied
+     */
+    private static boolean copyValue(JsonParser parser, JsonGenerator generator, String path, FieldAccessLookup fieldAccessLookup) throws IOException {
+        boolean   ret   = true;
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            boolean isObject = token == JsonToken.START_OBJECT;
+
+            token = parser.nextToken();
+
+            if (path != null && (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY)) { // empty object/array is an edge field
+                FieldLevelAccess fieldAccess = fieldAccessLookup.get(path);
+
+                if (!fieldAccess.hasAccess) {
+                    ret = false;
+                } else if (fieldAccess.isMasked) {
+                    throw new MaskingException("unable to determine field type: " + (isObject ? "{}" : "[]"));
+                }
+            }
+
+            if (ret) {
+                if (isObject) {
+                    generator.writeStartObject();
+                } else {
+                    generator.writeStartArray();
+                }
+
+                while (ret && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY) {
+                    final String childPath;
+
+                    if (isObject) {
+                        String fieldName = parser.getCurrentName();
+
+                        generator.writeFieldName(fieldName);
+
+                        childPath = path == null ? fieldName : (path + "." + fieldName);
+                        token     = parser.nextToken();
+                    } else {
+                        childPath = path == null ? "*" : (path + ".*");
+                    }
+
+                    ret = copyValue(parser, generator, childPath, fieldAccessLookup);
+
+                    token = parser.nextToken();
+                }
+
+                if (ret) {
+                    if (isObject) {
+                        generator.writeEndObject();
+                    } else {
+                        generator.writeEndArray();
+                    }
+                }
+            }
+        } else if (path == null) { // scalar json has no fields
+            generator.copyCurrentEvent(parser);
+        } else {
+            FieldLevelAccess fieldAccess = fieldAccessLookup.get(path);
+
+            if (!fieldAccess.hasAccess) {
+                ret = false;
+            } else if (fieldAccess.isMasked) {
+                writeMaskedValue(parser, generator, fieldAccess);
+            } else {
+                generator.copyCurrentEvent(parser);
+            }
+        }
+
+        return ret;
+    }
+
+    private static void writeMaskedValue(JsonParser parser, JsonGenerator generator, FieldLevelAccess fieldAccess) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+                writeString(generator, DataMasker.maskString(parser.getText(), fieldAccess.maskType, fieldAccess.customMaskedValue));
+                break;
+
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                writeNumber(generator, DataMasker.maskNumber(parser.getNumberValue(), fieldAccess.maskType, fieldAccess.customMaskedValue));
+                break;
+
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                writeBoolean(generator, DataMasker.maskBoolean(parser.getBooleanValue(), fieldAccess.maskType, fieldAccess.customMaskedValue));
+                break;
+
+            default:
+                throw new MaskingException("unable to determine field type: " + parser.getText());
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    private static void writeBoolean(JsonGenerator generator, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(value.doubleValue());
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    /*
+     * a field can occur many times in a json, like in elements of an array; access is looked up only once per field
+     */
+    private static class FieldAccessLookup {
+        private final Function<String, FieldLevelAccess> fieldAccessProvider;
+        private final Map<String, FieldLevelAccess>      fieldAccesses = new HashMap<>();
+
+        FieldAccessLookup(Function<String, FieldLevelAccess> fieldAccessProvider) {
+            this.fieldAccessProvider = fieldAccessProvider;
+        }
+
+        FieldLevelAccess get(String field) {
+            return fieldAccesses.computeIfAbsent(field, fieldAccessProvider);
+        }
+    }
+}
@@ -24,14 +24,13 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -43,12 +42,15 @@ public class NestedStructureAuthorizer {
 
     private static volatile NestedStructureAuthorizer instance;
 
-    private final RangerBasePlugin plugin;
+    private final RangerBasePlugin     plugin;
+    private final FieldAccessPlanCache planCache;
 
     private NestedStructureAuthorizer() {
         plugin = new RangerBasePlugin(RANGER_CMT_SERVICETYPE, RANGER_CMT_APPID);
 
         plugin.init();
+
+        planCache = FieldAccessPlanCache.create(plugin);
     }
 
     // for testing purpose only
@@ -61,7 +63,8 @@ public NestedStructureAuthorizer(ServicePolicies policies, ServiceTags tags, Ran
 
         RangerPluginConfig pluginConfig = new RangerPluginConfig(RANGER_CMT_SERVICETYPE, policies.getServiceName(), RANGER_CMT_APPID, null, null, options);
 
-        plugin = new RangerBasePlugin(pluginConfig, policies, tags, roles);
+        plugin    = new RangerBasePlugin(pluginConfig, policies, tags, roles);
+        planCache = FieldAccessPlanCache.create(plugin);
     }
 
     public static NestedStructureAuthorizer getInstance() {
@@ -81,6 +84,13 @@ public static NestedStructureAuthorizer getInstance() {
         return ret;
     }
 
+    /**
+     * @return cache of policy evaluation results used to authorize records; null if the cache is disabled
+     */
+    public FieldAccessPlanCache getFieldAccessPlanCache() {
+        return planCache;
+    }
+
     /**
      *
      * @param schema atlas schema name
@@ -110,39 +120,19 @@ public AccessResult authorize(String schema, String user, Set<String> userGroups
     }
 
     private AccessResult privateAuthorize(String schema, String user, Set<String> userGroups, String json, NestedStructureAccessType accessType, NestedStructureAuditHandler auditHandler) {
-        final AccessResult ret;
+        final AccessResult    ret;
+        final FieldAccessPlan plan = planCache != null ? planCache.getPlan(schema, user, userGroups, accessType) : null;
 
-        if (!hasAccessToSchemaOrAnyField(schema, user, userGroups, accessType, auditHandler)) {
+        if (!hasAccessToSchemaOrAnyField(schema, user, userGroups, accessType, plan, auditHandler)) {
             ret = new AccessResult(false, null);
-        } else if (!hasAccessToRecord(schema, user, userGroups, json, accessType, auditHandler)) {
+        } else if (!hasAccessToRecord(schema, user, userGroups, json, accessType, plan, auditHandler)) {
             ret = new AccessResult(false, null);
         } else {
-            boolean                accessDenied    = false;
-            JsonManipulator        jsonManipulator = new JsonManipulator(json);
-            List<FieldLevelAccess> fieldResults    = new ArrayList<>();
-
             //check each field individually - both if the user has access and if so, what masking is required
-            for (String field : jsonManipulator.getFields()) {
-                FieldLevelAccess fieldAccess = hasFieldAccess(schema, user, userGroups, field, accessType, auditHandler);
-
-                fieldResults.add(fieldAccess);
+            //the user must have access to all fields; if the user doesn't have access to one of the fields, null is returned
+            String maskedJson = JsonFieldMasker.mask(json, field -> hasFieldAccess(schema, user, userGroups, field, accessType, plan, auditHandler));
 
-                if (!fieldAccess.hasAccess) {
-                    accessDenied = true;
-
-                    break;
-                }
-            }
-
-            //the user must have access to all fields.
-            // if the user doesn't have access to one of the fields return an empty/false AccessResult
-            if (accessDenied) {
-                ret = new AccessResult(false, null);
-            } else {
-                jsonManipulator.maskFields(fieldResults);
-
-                ret = new AccessResult(true, jsonManipulator.getJsonString());
-            }
+            ret = new AccessResult(maskedJson != null, maskedJson);
         }
 
         return ret;
@@ -155,9 +145,29 @@ private AccessResult privateAuthorize(String schema, String user, Set<String> us
      * @param userGroups atlas user groups
      * @param fld field name
      * @param accessType access type requested; must be included in NestedStructureAccessType.
+     * @param plan results of earlier evaluations for the schema, user and access type; null if not cached
      * @return a pojo describing access level and masking
      */
-    private FieldLevelAccess hasFieldAccess(String schema, String user, Set<String> userGroups, String fld, NestedStructureAccessType accessType, NestedStructureAuditHandler auditHandler) {
+    private FieldLevelAccess hasFieldAccess(String schema, String user, Set<String> userGroups, String fld, NestedStructureAccessType accessType, FieldAccessPlan plan, NestedStructureAuditHandler auditHandler) {
+        FieldAccessPlan.FieldAccess cached = plan != null ? plan.getFieldAccess(fld) : null;
+        FieldLevelAccess            ret;
+
+        if (cached != null) {
+            auditHandler.processResult(FieldAccessPlan.copyForAudit(cached.accessResult));
+
+            if (cached.maskResult != null) {
+                auditHandler.processResult(FieldAccessPlan.copyForAudit(cached.maskResult));
+            }
+
+            ret = cached.access;
+        } else {
+            ret = evalFieldAccess(schema, user, userGroups, fld, accessType, plan, auditHandler);
+        }
+
+        return ret;
+    }
+
+    private FieldLevelAccess evalFieldAccess(String schema, String user, Set<String> userGroups, String fld, NestedStructureAccessType accessType, FieldAccessPlan plan, NestedStructureAuditHandler auditHandler) {
         String atlasString = fld.replaceAll("\\.\\[\\*\\]\\.'", ".") //removes ".[*]."
                 .replaceAll("\\.\\*\\.", "."); //removes ".*."
 
@@ -196,6 +206,10 @@ private FieldLevelAccess hasFieldAccess(String schema, String user, Set<String>
             logger.debug("attribute {} as {} masked ? {}{}", fld, atlasString, isMasked ? "yes" : "no", maskPolicy);
 
             ret = new FieldLevelAccess(fld, hasAccess, maskPolicyId, isMasked, maskResult.getMaskType(), maskResult.getMaskedValue());
+
+            if (plan != null && isCacheableResult(request)) {
+                plan.addFieldAccess(fld, ret, result, isMasked ? maskResult : null);
+            }
         }
 
         return ret;
@@ -211,17 +225,27 @@ private FieldLevelAccess hasFieldAccess(String schema, String user, Set<String>
      * @param userGroups atlas user groups
      * @param jsonString the json payload that needs to be evaluated
      * @param accessType access type requested; must be included in NestedStructureAccessType.
+     * @param plan results of earlier evaluations for the schema, user and access type; null if not cached
      * @return if the user is authorized to view this particular record
      */
 
-    private boolean hasAccessToRecord(String schema, String user, Set<String> userGroups, String jsonString, NestedStructureAccessType accessType, NestedStructureAuditHandler auditHandler) {
-        boolean                 ret      = true;
-        NestedStructureResource resource = new NestedStructureResource(Optional.of(schema));
-        RangerAccessRequest     request  = new RangerAccessRequestImpl(resource, accessType.getValue(), user, userGroups, null);
-        RangerAccessResult      result   = plugin.evalRowFilterPolicies(request, null);
+    private boolean hasAccessToRecord(String schema, String user, Set<String> userGroups, String jsonString, NestedStructureAccessType accessType, FieldAccessPlan plan, NestedStructureAuditHandler auditHandler) {
+        boolean            ret    = true;
+        RangerAccessResult result = plan != null ? plan.getRowFilterResult() : null;
 
         if (result == null) {
-            throw new MaskingException("unable to determine access");
+            NestedStructureResource resource = new NestedStructureResource(Optional.of(schema));
+            RangerAccessRequest     request  = new RangerAccessRequestImpl(resource, accessType.getValue(), user, userGroups, null);
+
+            result = plugin.evalRowFilterPolicies(request, null);
+
+            if (result == null) {
+                throw new MaskingException("unable to determine access");
+            }
+
+            if (plan != null && isCacheableResult(request)) {
+                plan.setRowFilterResult(result);
+            }
         }
 
         if (result.isRowFilterEnabled()) {
@@ -233,9 +257,11 @@ private boolean hasAccessToRecord(String schema, String user, Set<String> userGr
 
             // generate audit log only when row-filter denies access to the record
             if (!ret) {
-                result.setIsAllowed(false);
+                RangerAccessResult auditResult = FieldAccessPlan.copyForAudit(result);
 
-                auditHandler.processResult(result);
+                auditResult.setIsAllowed(false);
+
+                auditHandler.processResult(auditResult);
             }
         }
 
@@ -247,29 +273,45 @@ private boolean hasAccessToRecord(String schema, String user, Set<String> userGr
      * @param schema atlas schema name
      * @param user atlas user name
      * @param accessType access type requested; must be included in NestedStructureAccessType.
+     * @param plan results of earlier evaluations for the schema, user and access type; null if not cached
      * @return if the user has access to this schema
      */
-    private boolean hasAccessToSchemaOrAnyField(String schema, String user, Set<String> userGroups, NestedStructureAccessType accessType, NestedStructureAuditHandler auditHandler) {
-        NestedStructureResource resource = new NestedStructureResource(Optional.of(schema));
-        RangerAccessRequestImpl request  = new RangerAccessRequestImpl(resource, accessType.getValue(), user, userGroups, null);
+    private boolean hasAccessToSchemaOrAnyField(String schema, String user, Set<String> userGroups, NestedStructureAccessType accessType, FieldAccessPlan plan, NestedStructureAuditHandler auditHandler) {
+        boolean ret;
 
-        request.setResourceMatchingScope(RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS);
+        if (plan != null && plan.isSchemaAccessAllowed()) {
+            ret = true;
+        } else {
+            NestedStructureResource resource = new NestedStructureResource(Optional.of(schema));
+            RangerAccessRequestImpl request  = new RangerAccessRequestImpl(resource, accessType.getValue(), user, userGroups, null);
 
-        RangerAccessResult result = plugin.isAccessAllowed(request, null);
+            request.setResourceMatchingScope(RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS);
 
-        if (result == null) {
-            throw new MaskingException("unable to determine access");
-        }
+            RangerAccessResult result = plugin.isAccessAllowed(request, null);
 
-        boolean ret = result.getIsAccessDetermined() && result.getIsAllowed();
+            if (result == null) {
+                throw new MaskingException("unable to determine access");
+            }
 
-        // generate audit log when the user doesn't have access to any field within the schema
-        if (!ret) {
-            auditHandler.processResult(result);
-        }
+            ret = result.getIsAccessDetermined() && result.getIsAllowed();
+
+            // generate audit log when the user doesn't have access to any field within the schema
+            if (!ret) {
+                auditHandler.processResult(result);
+            } else if (plan != null && isCacheableResult(request)) {
+                plan.setSchemaAccessAllowed();
+            }
 
-        logger.debug("checking LINE 202 {} access to {} for user: {} has access ? {} policyId:  {}", accessType, schema, user, ret ? "yes" : "no", result.getPolicyId());
+            logger.debug("checking LINE 202 {} access to {} for user: {} has access ? {} policyId:  {}", accessType, schema, user, ret ? "yes" : "no", result.getPolicyId());
+        }
 
         return ret;
     }
+
+    /**
+     * results that depend on anything other than the schema, user and access type - like policy conditions - are not kept in the plan
+     */
+    private static boolean isCacheableResult(RangerAccessRequest request) {
+        return !RangerAccessRequestUtil.getIsResultConditional(request.getContext());
+    }
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2022 Comcast Cable Communications Management, LLC
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the ""License"");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an ""AS IS"" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or   implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.apache.ranger.authorization.nestedstructure.authorizer;
+
+import com.google.gson.JsonParser;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.ranger.authorization.nestedstructure.authorizer.MaskTypes.CUSTOM;
+import static org.apache.ranger.authorization.nestedstructure.authorizer.MaskTypes.MASK;
+import static org.apache.ranger.authorization.nestedstructure.authorizer.MaskTypes.MASK_NULL;
+import static org.apache.ranger.authorization.nestedstructure.authorizer.MaskTypes.MASK_SHOW_LAST_4;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestJsonFieldMasker {
+    @Test
+    public void testFieldNamesSameAsJsonManipulator() {
+        List<String> fields = new ArrayList<>();
+        String       json   = JsonFieldMasker.mask(TestJsonManipulator.bigTester, field -> allow(fields, field));
+
+        assertEquals(new HashSet<>(fields), new JsonManipulator(TestJsonManipulator.bigTester).getFields());
+        assertEquals(fields.size(), new HashSet<>(fields).size()); // access is looked up once per field
+        assertEquals(json, JsonParser.parseString(TestJsonManipulator.bigTester).toString());
+    }
+
+    @Test
+    public void testMask() {
+        Map<String, FieldLevelAccess> masks = Collections.singletonMap("aMap.mapMap.mapMapString", mask("aMap.mapMap.mapMapString", MASK_SHOW_LAST_4, null));
+        String                        json  = JsonFieldMasker.mask(TestJsonManipulator.bigTester, field -> masks.getOrDefault(field, allow(null, field)));
+
+        assertEquals(new JsonManipulator(json).readString("$.aMap.mapMap.mapMapString"), "x9019");
+        assertEquals(new JsonManipulator(json).readString("$.someString"), "42207ad4-590e-4d5d-a65f-6a4ccddca9e3002");
+    }
+
+    @Test
+    public void testMaskArrayElements() {
+        String json = "{\"orders\":[{\"id\":1,\"date\":\"2022-06-14\",\"paid\":true},{\"id\":2,\"date\":\"2022-06-06\",\"paid\":false}]}";
+
+        assertEquals(JsonFieldMasker.mask(json, field -> "orders.*.date".equals(field) ? mask(field, MASK_NULL, null) : allow(null, field)),
+                "{\"orders\":[{\"id\":1,\"date\":null,\"paid\":true},{\"id\":2,\"date\":null,\"paid\":false}]}");
+        assertEquals(JsonFieldMasker.mask(json, field -> "orders.*.id".equals(field) ? mask(field, CUSTOM, "0") : allow(null, field)),
+                "{\"orders\":[{\"id\":0,\"date\":\"2022-06-14\",\"paid\":true},{\"id\":0,\"date\":\"2022-06-06\",\"paid\":false}]}");
+        assertEquals(JsonFieldMasker.mask(json, field -> "orders.*.paid".equals(field) ? mask(field, MASK, null) : allow(null, field)),
+                "{\"orders\":[{\"id\":1,\"date\":\"2022-06-14\",\"paid\":false},{\"id\":2,\"date\":\"2022-06-06\",\"paid\":false}]}");
+    }
+
+    @Test
+    public void testDeny() {
+        List<String> fields = new ArrayList<>();
+
+        assertNull(JsonFieldMasker.mask(TestJsonManipulator.bigTester, field -> "numberArray.*".equals(field) ? deny(field) : allow(fields, field)));
+        assertEquals(fields.size(), 4); // no lookups after the denied field
+    }
+
+    @Test
+    public void testLenientJson() {
+        assertEquals(JsonFieldMasker.mask("{foo: 'bar'}", field -> allow(null, field)), "{\"foo\":\"bar\"}");
+    }
+
+    @Test(expectedExceptions = MaskingException.class)
+    public void testInvalidJson() {
+        JsonFieldMasker.mask("{foo:\"bar\"", field -> allow(null, field));
+    }
+
+    @Test(expectedExceptions = MaskingException.class)
+    public void testTrailingContent() {
+        JsonFieldMasker.mask("{\"foo\":\"bar\"} x", field -> allow(null, field));
+    }
+
+    @Test(expectedExceptions = MaskingException.class)
+    public void testMaskEmptyObject() {
+        JsonFieldMasker.mask("{\"foo\":{}}", field -> mask(field, MASK, null));
+    }
+
+    private static FieldLevelAccess allow(List<String> fields, String field) {
+        if (fields != null) {
+            fields.add(field);
+        }
+
+        return new FieldLevelAccess(field, true, null, false, null, null);
+    }
+
+    private static FieldLevelAccess deny(String field) {
+        return new FieldLevelAccess(field, false, -1L, true, null, null);
+    }
+
+    private static FieldLevelAccess mask(String field, String maskType, String customMaskedValue) {
+        return new FieldLevelAccess(field, true, 1L, true, maskType, customMaskedValue);
+    }
+}
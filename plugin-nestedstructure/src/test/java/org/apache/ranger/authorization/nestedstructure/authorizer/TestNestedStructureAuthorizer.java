@@ -36,6 +36,7 @@
 import java.util.Set;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 public class TestNestedStructureAuthorizer {
@@ -51,15 +52,45 @@ public void test_customer_records() {
         runTestsFromResourceFile("/test_customer_records.json");
     }
 
+    @Test
+    public void test_customer_records_with_cached_plans() {
+        NestedStructureTestCase   testCase   = readTestCase("/test_customer_records.json");
+        NestedStructureAuthorizer authorizer = new NestedStructureAuthorizer(testCase.policies, testCase.tags, testCase.roles);
+        FieldAccessPlanCache      planCache  = authorizer.getFieldAccessPlanCache();
+
+        assertNotNull(planCache);
+
+        runTests(authorizer, testCase);
+
+        long missCount = planCache.getMissCount();
+        long hitCount  = planCache.getHitCount();
+
+        // the second run should use plans created in the first run, and get the same results
+        runTests(authorizer, testCase);
+
+        assertEquals(missCount, planCache.getMissCount());
+        assertEquals(testCase.tests.size(), planCache.getHitCount() - hitCount);
+    }
+
     private void runTestsFromResourceFile(String resourceName) {
+        NestedStructureTestCase testCase = readTestCase(resourceName);
+
+        runTests(new NestedStructureAuthorizer(testCase.policies, testCase.tags, testCase.roles), testCase);
+    }
+
+    private NestedStructureTestCase readTestCase(String resourceName) {
+        NestedStructureTestCase ret = null;
+
         try (InputStream inStream = this.getClass().getResourceAsStream(resourceName);
                 InputStreamReader reader = new InputStreamReader(inStream)) {
-            runTests(reader, resourceName);
+            ret = readTestCase(reader, resourceName);
         } catch (IOException ignored) {
         }
+
+        return ret;
     }
 
-    private void runTests(InputStreamReader reader, String testName) {
+    private NestedStructureTestCase readTestCase(InputStreamReader reader, String testName) {
         NestedStructureTestCase testCase = gsonBuilder.fromJson(reader, NestedStructureTestCase.class);
 
         assertTrue("invalid input: " + testName, testCase != null && testCase.policies != null && testCase.tests != null);
@@ -72,8 +103,10 @@ private void runTests(InputStreamReader reader, String testName) {
             }
         }
 
-        NestedStructureAuthorizer authorizer = new NestedStructureAuthorizer(testCase.policies, testCase.tags, testCase.roles);
+        return testCase;
+    }
 
+    private void runTests(NestedStructureAuthorizer authorizer, NestedStructureTestCase testCase) {
         for (NestedStructureTestCase.TestData test : testCase.tests) {
             AccessResult expected = test.result;
             AccessResult result   = authorizer.authorize(test.schema, test.user, test.userGroups, test.json, NestedStructureAccessType.getAccessType(test.accessType));
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test data shared by the benchmarks: policies and requests are generated by RangerPolicyFactory,
+ * from the templates used by the perftest v2 tests, so that results are comparable with those tests.
+ */
+final class BenchmarkUtil {
+    static final String APP_ID       = "ranger-benchmarks";
+    static final String SERVICE_TYPE = "hive";
+
+    static final int DATABASE_COUNT = 10;
+    static final int TABLE_COUNT    = 100;
+    static final int COLUMN_COUNT   = 1000;
+
+    private BenchmarkUtil() {
+        // to block instantiation
+    }
+
+    static RangerPolicyEngineOptions createPolicyEngineOptions() {
+        RangerPolicyEngineOptions ret = RangerPolicyFactory.createPolicyEngineOption();
+
+        ret.disableTrieLookupPrefilter = false; // measure the lookups as done in production
+        ret.disablePolicyRefresher     = true;
+        ret.disableTagRetriever        = true;
+        ret.disableUserStoreRetriever  = true;
+        ret.disableGdsInfoRetriever    = true;
+
+        return ret;
+    }
+
+    static RangerPluginConfig createPluginConfig(String serviceName, RangerPolicyEngineOptions options) {
+        return new RangerPluginConfig(SERVICE_TYPE, serviceName, APP_ID, null, null, options);
+    }
+
+    static List<RangerPolicyEvaluator> createPolicyEvaluators(List<RangerPolicy> policies, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
+        RangerPolicyEngineOptions   evalOptions   = new RangerPolicyEngineOptions(options, new RangerServiceDefHelper(serviceDef, false));
+        RangerPluginContext         pluginContext = new RangerPluginContext(createPluginConfig(APP_ID, options));
+        List<RangerPolicyEvaluator> ret           = new ArrayList<>(policies.size());
+
+        for (RangerPolicy policy : policies) {
+            RangerOptimizedPolicyEvaluator evaluator = new RangerOptimizedPolicyEvaluator();
+
+            evaluator.setPluginContext(pluginContext);
+            evaluator.init(policy, serviceDef, evalOptions);
+
+            ret.add(evaluator);
+        }
+
+        return ret;
+    }
+
+    /*
+     * requests are rebuilt for each invocation from these templates, as evaluation caches state in the
+     * request (like the preprocessed flag and matched tags) that would otherwise short-circuit later calls
+     */
+    static RangerAccessRequest[] createRequestTemplates(int count) {
+        List<RangerAccessRequest> requests = RangerPolicyFactory.createAccessRequests(count);
+
+        return requests.toArray(new RangerAccessRequest[0]);
+    }
+
+    static RangerAccessRequestImpl copyOf(RangerAccessRequest template) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(template.getResource().getAsMap());
+
+        return new RangerAccessRequestImpl(resource, template.getAccessType(), template.getUser(), template.getUserGroups(), template.getUserRoles());
+    }
+
+    /*
+     * resource values used by RangerPolicyFactory in generated policies and requests
+     */
+    static Map<String, Object> createResourceElements(Random random) {
+        Map<String, Object> ret = new HashMap<>();
+
+        ret.put("database", "database_" + random.nextInt(DATABASE_COUNT));
+        ret.put("table", "tables_" + random.nextInt(TABLE_COUNT));
+        ret.put("column", "column_" + random.nextInt(COLUMN_COUNT));
+
+        return ret;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end authorization: RangerBasePlugin.isAccessAllowed(), including request pre-processing by
+ * context enrichers, trie lookup, policy evaluation and the default result processor.
+ *
+ * Run with -t N to measure the throughput with N concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RangerBasePluginBenchmark {
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({"1000", "10000", "100000", "500000"})
+    public int policyCount;
+
+    private RangerBasePlugin      plugin;
+    private RangerAccessRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void init() {
+        ServicePolicies           servicePolicies = RangerPolicyFactory.createServicePolicy(policyCount);
+        RangerPolicyEngineOptions options         = BenchmarkUtil.createPolicyEngineOptions();
+
+        plugin   = new RangerBasePlugin(BenchmarkUtil.createPluginConfig(servicePolicies.getServiceName(), options), servicePolicies, null, null);
+        requests = BenchmarkUtil.createRequestTemplates(REQUEST_COUNT);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() {
+        if (plugin != null) {
+            plugin.cleanup();
+        }
+    }
+
+    @Benchmark
+    public RangerAccessResult isAccessAllowed(RequestIndex index) {
+        return plugin.isAccessAllowed(BenchmarkUtil.copyOf(requests[index.next(REQUEST_COUNT)]));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerDefaultPolicyEvaluator.evaluate() - resource match, followed by policy-item evaluation on a match -
+ * of generated hive policies against generated requests. Cost of a single evaluation doesn't depend on the
+ * number of policies in the service, hence a fixed set of policies is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RangerPolicyEvaluatorBenchmark {
+    private static final int POLICY_COUNT  = 1000;
+    private static final int REQUEST_COUNT = 1024;
+
+    private RangerServiceDef        serviceDef;
+    private String                  serviceName;
+    private RangerPolicyEvaluator[] evaluators;
+    private RangerAccessRequest[]   requests; // templates, copied for each invocation
+
+    @Setup(Level.Trial)
+    public void init() {
+        ServicePolicies             servicePolicies = RangerPolicyFactory.createServicePolicy(POLICY_COUNT);
+        RangerPolicyEngineOptions   options         = BenchmarkUtil.createPolicyEngineOptions();
+        List<RangerPolicyEvaluator> policyEvaluators;
+
+        serviceDef       = servicePolicies.getServiceDef();
+        serviceName      = servicePolicies.getServiceName();
+        policyEvaluators = BenchmarkUtil.createPolicyEvaluators(servicePolicies.getPolicies(), serviceDef, options);
+        evaluators       = policyEvaluators.toArray(new RangerPolicyEvaluator[0]);
+        requests         = BenchmarkUtil.createRequestTemplates(REQUEST_COUNT);
+    }
+
+    @Benchmark
+    public RangerAccessResult evaluate(RequestIndex index) {
+        int                 i       = index.next(POLICY_COUNT * REQUEST_COUNT); // every policy against every request
+        RangerAccessRequest request = BenchmarkUtil.copyOf(requests[i / POLICY_COUNT]);
+        RangerAccessResult  result  = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, serviceName, serviceDef, request);
+
+        evaluators[i % POLICY_COUNT].evaluate(request, result);
+
+        return result;
+    }
+}
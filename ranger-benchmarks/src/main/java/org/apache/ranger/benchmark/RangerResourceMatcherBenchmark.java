@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wildcard matching by RangerPathResourceMatcher (hdfs path, recursive and non-recursive) and
+ * RangerDefaultResourceMatcher (hive table), for policy resources with the given number of values.
+ * Resources are chosen to match only the last value, which is the worst case for these matchers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RangerResourceMatcherBenchmark {
+    @Param({"1", "10", "100"})
+    public int valueCount;
+
+    private final Map<String, Object> evalContext = Collections.emptyMap();
+
+    private RangerResourceMatcher pathMatcher;
+    private RangerResourceMatcher recursivePathMatcher;
+    private RangerResourceMatcher tableMatcher;
+    private String                path;
+    private String                table;
+
+    @Setup(Level.Trial)
+    public void init() throws Exception {
+        List<String> pathValues  = new ArrayList<>(valueCount);
+        List<String> tableValues = new ArrayList<>(valueCount);
+
+        for (int i = 0; i < valueCount; i++) {
+            pathValues.add("/data/project_" + i + "/*/part-*.orc");
+            tableValues.add("tbl_" + i + "_*");
+        }
+
+        RangerResourceDef pathDef  = getResourceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HDFS_NAME, "path");
+        RangerResourceDef tableDef = getResourceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME, "table");
+
+        pathMatcher          = createMatcher(new RangerPathResourceMatcher(), pathDef, new RangerPolicyResource(pathValues, false, false));
+        recursivePathMatcher = createMatcher(new RangerPathResourceMatcher(), pathDef, new RangerPolicyResource(pathValues, false, true));
+        tableMatcher         = createMatcher(new RangerDefaultResourceMatcher(), tableDef, new RangerPolicyResource(tableValues, false, false));
+        path                 = "/data/project_" + (valueCount - 1) + "/2024/part-0001.orc";
+        table                = "tbl_" + (valueCount - 1) + "_sales";
+
+        if (!pathMatcher.isMatch(path, ResourceElementMatchingScope.SELF, evalContext) || !tableMatcher.isMatch(table, ResourceElementMatchingScope.SELF, evalContext)) {
+            throw new IllegalStateException("resource matchers are not setup as expected");
+        }
+    }
+
+    @Benchmark
+    public boolean pathWildcard() {
+        return pathMatcher.isMatch(path, ResourceElementMatchingScope.SELF, evalContext);
+    }
+
+    @Benchmark
+    public boolean recursivePathWildcard() {
+        return recursivePathMatcher.isMatch(path, ResourceElementMatchingScope.SELF, evalContext);
+    }
+
+    @Benchmark
+    public boolean tableWildcard() {
+        return tableMatcher.isMatch(table, ResourceElementMatchingScope.SELF, evalContext);
+    }
+
+    private static RangerResourceDef getResourceDef(String serviceType, String resourceName) throws Exception {
+        RangerServiceDef serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(serviceType);
+
+        for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+            if (resourceDef.getName().equals(resourceName)) {
+                return resourceDef;
+            }
+        }
+
+        throw new IllegalArgumentException(resourceName + ": resource not found in service-def " + serviceType);
+    }
+
+    private static RangerResourceMatcher createMatcher(RangerResourceMatcher matcher, RangerResourceDef resourceDef, RangerPolicyResource policyResource) {
+        matcher.setResourceDef(resourceDef);
+        matcher.setPolicyResource(policyResource);
+        matcher.init();
+
+        return matcher;
+    }
+}
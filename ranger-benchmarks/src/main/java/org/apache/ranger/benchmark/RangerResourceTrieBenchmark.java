@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerResourceTrie.getEvaluatorsForResource() for one resource-def of the hive service-def, with
+ * a trie built the way RangerPolicyRepository builds it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RangerResourceTrieBenchmark {
+    private static final int LOOKUP_COUNT = 1024;
+
+    @Param({"1000", "10000", "100000", "500000"})
+    public int policyCount;
+
+    @Param({"database", "table", "column"})
+    public String resourceName;
+
+    private RangerResourceTrie<RangerPolicyResourceEvaluator> trie;
+    private String[]                                          lookupValues;
+
+    @Setup(Level.Trial)
+    public void init() {
+        ServicePolicies                     servicePolicies    = RangerPolicyFactory.createServicePolicy(policyCount);
+        RangerServiceDef                    serviceDef         = servicePolicies.getServiceDef();
+        RangerPolicyEngineOptions           options            = BenchmarkUtil.createPolicyEngineOptions();
+        List<RangerPolicyEvaluator>         policyEvaluators   = BenchmarkUtil.createPolicyEvaluators(servicePolicies.getPolicies(), serviceDef, options);
+        List<RangerPolicyResourceEvaluator> resourceEvaluators = new ArrayList<>();
+        RangerResourceDef                   resourceDef        = null;
+
+        for (RangerPolicyEvaluator policyEvaluator : policyEvaluators) {
+            resourceEvaluators.addAll(policyEvaluator.getResourceEvaluators());
+        }
+
+        for (RangerResourceDef def : serviceDef.getResources()) {
+            if (def.getName().equals(resourceName)) {
+                resourceDef = def;
+            }
+        }
+
+        if (resourceDef == null) {
+            throw new IllegalArgumentException(resourceName + ": resource not found in service-def " + serviceDef.getName());
+        }
+
+        RangerPluginContext pluginContext = new RangerPluginContext(BenchmarkUtil.createPluginConfig(servicePolicies.getServiceName(), options));
+        Random              random        = new Random(0);
+
+        trie         = new RangerResourceTrie<>(resourceDef, resourceEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, pluginContext);
+        lookupValues = new String[LOOKUP_COUNT];
+
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            lookupValues[i] = (String) BenchmarkUtil.createResourceElements(random).get(resourceName);
+        }
+    }
+
+    @Benchmark
+    public Set<RangerPolicyResourceEvaluator> getEvaluatorsForResource(RequestIndex index) {
+        return trie.getEvaluatorsForResource(lookupValues[index.next(LOOKUP_COUNT)]);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerTagEnricher.enrich() with the given number of tagged hive columns. Requests are for
+ * random columns from the same namespace, so only some of them find tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RangerTagEnricherBenchmark {
+    private static final String[] TAG_TYPES     = {"PII", "PCI", "PHI", "EXPIRES_ON", "RESTRICTED"};
+    private static final int      REQUEST_COUNT = 1024;
+
+    @Param({"1000", "10000", "100000", "500000"})
+    public int taggedResourceCount;
+
+    private RangerTagEnricher          tagEnricher;
+    private RangerAccessResourceImpl[] resources;
+
+    @Setup(Level.Trial)
+    public void init() {
+        ServicePolicies  servicePolicies = RangerPolicyFactory.createServicePolicy(1);
+        RangerServiceDef serviceDef      = servicePolicies.getServiceDef();
+        Random           random          = new Random(0);
+
+        tagEnricher = new RangerTagEnricher();
+
+        tagEnricher.setServiceName(servicePolicies.getServiceName());
+        tagEnricher.setServiceDef(serviceDef);
+        tagEnricher.setAppId(BenchmarkUtil.APP_ID);
+        tagEnricher.init();
+        tagEnricher.setServiceTags(createServiceTags(servicePolicies.getServiceName()));
+
+        resources = new RangerAccessResourceImpl[REQUEST_COUNT];
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            resources[i] = new RangerAccessResourceImpl(BenchmarkUtil.createResourceElements(random));
+
+            resources[i].setServiceDef(serviceDef);
+        }
+    }
+
+    @Benchmark
+    public Object enrich(RequestIndex index) {
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resources[index.next(REQUEST_COUNT)], "select", "user_0", null, null);
+
+        tagEnricher.enrich(request);
+
+        return request.getContext();
+    }
+
+    /*
+     * tagged resources are unique (database, table, column) combinations, spread across all databases and tables
+     */
+    private ServiceTags createServiceTags(String serviceName) {
+        Map<Long, RangerTagDef>     tagDefs          = new HashMap<>();
+        Map<Long, RangerTag>        tags             = new HashMap<>();
+        List<RangerServiceResource> serviceResources = new ArrayList<>(taggedResourceCount);
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+        for (int i = 0; i < TAG_TYPES.length; i++) {
+            RangerTagDef tagDef = new RangerTagDef(TAG_TYPES[i]);
+            RangerTag    tag    = new RangerTag(TAG_TYPES[i], Collections.emptyMap());
+
+            tagDef.setId((long) i);
+            tag.setId((long) i);
+
+            tagDefs.put(tagDef.getId(), tagDef);
+            tags.put(tag.getId(), tag);
+        }
+
+        for (int i = 0; i < taggedResourceCount; i++) {
+            Map<String, RangerPolicyResource> elements = new HashMap<>();
+
+            elements.put("database", new RangerPolicyResource("database_" + (i % BenchmarkUtil.DATABASE_COUNT)));
+            elements.put("table", new RangerPolicyResource("tables_" + ((i / BenchmarkUtil.DATABASE_COUNT) % BenchmarkUtil.TABLE_COUNT)));
+            elements.put("column", new RangerPolicyResource("column_" + ((i / (BenchmarkUtil.DATABASE_COUNT * BenchmarkUtil.TABLE_COUNT)) % BenchmarkUtil.COLUMN_COUNT)));
+
+            RangerServiceResource serviceResource = new RangerServiceResource(serviceName, elements);
+
+            serviceResource.setId((long) i);
+
+            serviceResources.add(serviceResource);
+            resourceToTagIds.put(serviceResource.getId(), Collections.singletonList((long) (i % TAG_TYPES.length)));
+        }
+
+        ServiceTags ret = new ServiceTags();
+
+        ret.setServiceName(serviceName);
+        ret.setTagVersion(1L);
+        ret.setTagDefinitions(tagDefs);
+        ret.setTags(tags);
+        ret.setServiceResources(serviceResources);
+        ret.setResourceToTagIds(resourceToTagIds);
+
+        return ret;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compares throughput of the audit-result caches used by RangerPolicyRepository -
+ * Collections.synchronizedMap(new CacheMap()) and ConcurrentCacheMap - with an increasing
+ * number of threads doing get(), followed by put() on a miss, like accessAuditCache is used.
+ *
+ * 80% of lookups are for 20% of the keys, to let the LRU/CLOCK policies keep the hot keys.
+ */
+public class RangerAuditCachePerfTester {
+    private final int         capacity;
+    private final int         keyCount;
+    private final int[]       threadCounts;
+    private final int         durationSec;
+    private final String[]    keys;
+    private final PrintStream out = System.out;
+
+    public RangerAuditCachePerfTester(CommandLine cmdLine) {
+        this.capacity     = Integer.parseInt(cmdLine.getOptionValue('c', "65536"));
+        this.keyCount     = Integer.parseInt(cmdLine.getOptionValue('k', Integer.toString(capacity * 2)));
+        this.threadCounts = parseThreadCounts(cmdLine.getOptionValue('t', "1,4,16,64"));
+        this.durationSec  = Integer.parseInt(cmdLine.getOptionValue('d', "10"));
+        this.keys         = new String[keyCount];
+
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "/data/warehouse/db" + (i % 100) + "/table" + i + "/part=" + (i % 7);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine cmdLine = parseArgs(args);
+
+        if (cmdLine != null) {
+            new RangerAuditCachePerfTester(cmdLine).run();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        out.println("capacity=" + capacity + ", keys=" + keyCount + ", duration=" + durationSec + "s");
+        out.println();
+        out.println(String.format("%-8s %26s %26s %10s", "threads", "CacheMap(ops/s)", "ConcurrentCacheMap(ops/s)", "speedup"));
+
+        for (int threadCount : threadCounts) {
+            double syncOps       = measure(() -> Collections.synchronizedMap(new CacheMap<>(capacity)), threadCount);
+            double concurrentOps = measure(() -> new ConcurrentCacheMap<>(capacity), threadCount);
+
+            out.println(String.format("%-8d %26.0f %26.0f %10.2f", threadCount, syncOps, concurrentOps, concurrentOps / syncOps));
+        }
+    }
+
+    private double measure(Supplier<Map<String, Boolean>> cacheSupplier, int threadCount) throws InterruptedException {
+        Map<String, Boolean> cache = cacheSupplier.get();
+
+        runClients(cache, threadCount, 1, new LongAdder()); // warm-up
+
+        LongAdder opsCount = new LongAdder();
+
+        runClients(cache, threadCount, durationSec, opsCount);
+
+        return opsCount.doubleValue() / durationSec;
+    }
+
+    private void runClients(Map<String, Boolean> cache, int threadCount, int runSec, LongAdder opsCount) throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch  = new CountDownLatch(threadCount);
+        long           endTimeNs  = System.nanoTime() + TimeUnit.SECONDS.toNanos(runSec);
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random   = ThreadLocalRandom.current();
+                int               hotCount = Math.max(1, keyCount / 5);
+                long              count    = 0;
+
+                try {
+                    startLatch.await();
+
+                    while ((count & 0x3ff) != 0 || System.nanoTime() < endTimeNs) {
+                        String key = random.nextInt(10) < 8 ? keys[random.nextInt(hotCount)] : keys[random.nextInt(keyCount)];
+
+                        if (cache.get(key) == null) {
+                            cache.put(key, Boolean.TRUE);
+                        }
+
+                        count++;
+                    }
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    opsCount.add(count);
+                    doneLatch.countDown();
+                }
+            }, "cache-client-" + i);
+
+            client.setDaemon(true);
+            client.start();
+        }
+
+        startLatch.countDown();
+        doneLatch.await();
+    }
+
+    private static int[] parseThreadCounts(String value) {
+        String[] values = value.split(",");
+        int[]    ret    = new int[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            ret[i] = Integer.parseInt(values[i].trim());
+        }
+
+        return ret;
+    }
+
+    private static CommandLine parseArgs(String[] args) {
+        Option help        = new Option("h", "help", false, "show help");
+        Option capacity    = new Option("c", "capacity", true, "cache capacity; default 65536");
+        Option keyCount    = new Option("k", "keys", true, "number of distinct keys; default 2 * capacity");
+        Option threads     = new Option("t", "threads", true, "comma separated list of thread counts; default 1,4,16,64");
+        Option durationSec = new Option("d", "duration", true, "duration of each run, in seconds; default 10");
+
+        Options options = new Options();
+
+        options.addOption(help);
+        options.addOption(capacity);
+        options.addOption(keyCount);
+        options.addOption(threads);
+        options.addOption(durationSec);
+
+        try {
+            CommandLine cmdLine = new DefaultParser().parse(options, args);
+
+            if (!cmdLine.hasOption("h")) {
+                return cmdLine;
+            }
+
+            new HelpFormatter().printHelp("RangerAuditCachePerfTester", options);
+        } catch (ParseException excp) {
+            System.out.println("Failed to parse arguments");
+            excp.printStackTrace(System.out);
+        }
+
+        return null;
+    }
+}
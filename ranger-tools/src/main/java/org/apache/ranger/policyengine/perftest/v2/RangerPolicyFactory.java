@@ -29,7 +29,7 @@
 import org.apache.hadoop.thirdparty.com.google.common.collect.Iterables;
 import org.apache.hadoop.thirdparty.com.google.common.collect.Lists;
 import org.apache.hadoop.thirdparty.com.google.common.collect.Sets;
-import org.apache.hadoop.thirdparty.com.google.common.io.Files;
+import org.apache.hadoop.thirdparty.com.google.common.io.CharStreams;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
@@ -44,7 +44,8 @@
 import org.apache.ranger.policyengine.RangerAccessRequestDeserializer;
 import org.apache.ranger.policyengine.RangerResourceDeserializer;
 
-import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collection;
@@ -107,12 +108,11 @@ public static List<RangerAccessRequest> createAccessRequests(int nubmerOfRequest
     }
 
     public static String readResourceFile(String fileName) {
-        try {
-            File f = new File(RangerPolicyFactory.class.getResource(fileName).toURI());
-
-            checkState(f.exists() && f.isFile() && f.canRead());
+        // read as stream, not as File, to load templates from a jar as well
+        try (InputStream inStream = RangerPolicyFactory.class.getResourceAsStream(fileName)) {
+            checkState(inStream != null, "resource not found: %s", fileName);
 
-            return Files.toString(f, Charsets.UTF_8);
+            return CharStreams.toString(new InputStreamReader(inStream, Charsets.UTF_8));
         } catch (Exception e) {
             throw Throwables.propagate(e);
         }
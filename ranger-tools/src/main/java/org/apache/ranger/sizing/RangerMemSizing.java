@@ -92,6 +92,7 @@ public class RangerMemSizing {
     private final boolean     deDupStrings;
     private final String      optimizationMode;
     private final boolean     reuseResourceMatchers;
+    private final boolean     compactTrieNodes;
     private final PrintStream out;
 
     public RangerMemSizing(CommandLine cmdLine) {
@@ -109,6 +110,7 @@ public RangerMemSizing(CommandLine cmdLine) {
         this.deDupStrings          = this.deDup;
         this.optimizationMode      = StringUtils.startsWithIgnoreCase(cmdLine.getOptionValue('o', "space"), "s") ? OPT_MODE_SPACE : OPT_MODEL_RETRIEVAL;
         this.reuseResourceMatchers = Boolean.parseBoolean(cmdLine.getOptionValue('m', "true"));
+        this.compactTrieNodes      = Boolean.parseBoolean(cmdLine.getOptionValue('n', "false"));
     }
 
     public static void main(String[] args) {
@@ -176,6 +178,7 @@ public void run() {
         out.println("  DeDup:         " + deDup);
         out.println("  OptMode:       " + optimizationMode);
         out.println("  ReuseMatchers: " + reuseResourceMatchers);
+        out.println("  CompactTrie:   " + compactTrieNodes);
         out.println();
 
         out.println("Results:");
@@ -573,6 +576,7 @@ private static CommandLine parseArgs(String[] args) {
         Option optimizeMode          = new Option("o", "optMode", true, "optimization mode: space|retrieval");
         Option reuseResourceMatchers = new Option("m", "reuseResourceMatchers", true, "reuse resource matchers: true|false");
         Option genResourceKeys       = new Option("k", "genResourceKeys", true, "list of resourceKeys (comma separated) to generate requests for");
+        Option compactTrieNodes      = new Option("n", "compactTrieNodes", true, "compact trie nodes: true|false");
 
         Options options = new Options();
 
@@ -589,6 +593,7 @@ private static CommandLine parseArgs(String[] args) {
         options.addOption(optimizeMode);
         options.addOption(reuseResourceMatchers);
         options.addOption(genResourceKeys);
+        options.addOption(compactTrieNodes);
 
         try {
             CommandLine cmdLine = new DefaultParser().parse(options, args);
@@ -628,6 +633,7 @@ private RangerPolicyEngineOptions getPolicyEngineOptions() {
         ret.optimizeTagTrieForSpace     = ret.optimizeTrieForSpace;
         ret.optimizeTagTrieForRetrieval = ret.optimizeTrieForRetrieval;
         ret.enableResourceMatcherReuse  = reuseResourceMatchers;
+        ret.compactTrieNodes            = compactTrieNodes;
 
         return ret;
     }
@@ -22,9 +22,11 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerCommonEnums;
+import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.common.db.RangerTransactionSynchronizationAdapter;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXAccessTypeDef;
+import org.apache.ranger.entity.XXDBBase;
 import org.apache.ranger.entity.XXDataMaskTypeDef;
 import org.apache.ranger.entity.XXGroup;
 import org.apache.ranger.entity.XXPolicy;
@@ -48,6 +50,7 @@
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.apache.ranger.security.context.RangerContextHolder;
 import org.apache.ranger.service.RangerAuditFields;
 import org.apache.ranger.service.XGroupService;
 import org.apache.ranger.view.VXGroup;
@@ -60,10 +63,15 @@
 
 import javax.servlet.http.HttpServletResponse;
 
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
 
@@ -71,6 +79,8 @@
 public class PolicyRefUpdater {
     private static final Logger LOG = LoggerFactory.getLogger(PolicyRefUpdater.class);
 
+    private static final int[] REF_TABLE_COLUMN_TYPES = {Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR};
+
     @Autowired
     RangerDaoManager daoMgr;
 
@@ -197,14 +207,15 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             xPolResources.add(xPolRes);
         }
 
-        daoMgr.getXXPolicyRefResource().batchCreate(xPolResources);
-
         if (createPrincipalsIfAbsent && !rangerBizUtil.checkAdminAccess()) {
             LOG.warn("policy={}: createPrincipalIfAbsent=true, but current user does not have admin privileges!", policy.getName());
 
             createPrincipalsIfAbsent = false;
         }
 
+        // principals are looked up with one query per principal type - or, in bulk mode, found in ids looked up earlier by
+        // resolvePrincipals(); principals not found, if any, are looked up (and created, if allowed) by PolicyPrincipalAssociator
+        Map<String, Long>     roleIds   = getPrincipalIds(PRINCIPAL_TYPE.ROLE, roleNames);
         List<XXPolicyRefRole> xPolRoles = new ArrayList<>();
 
         for (String role : roleNames) {
@@ -212,6 +223,20 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 continue;
             }
 
+            Long roleId = roleIds.get(role);
+
+            if (roleId != null) {
+                XXPolicyRefRole xPolRole = rangerAuditFields.populateAuditFields(new XXPolicyRefRole(), xPolicy);
+
+                xPolRole.setPolicyId(xPolicy.getId());
+                xPolRole.setRoleId(roleId);
+                xPolRole.setRoleName(role);
+
+                xPolRoles.add(xPolRole);
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.ROLE, role, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -230,13 +255,28 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
 
         RangerBizUtil.setBulkMode(oldBulkMode);
 
-        daoMgr.getXXPolicyRefRole().batchCreate(xPolRoles);
+        Map<String, Long>      groupIds   = getPrincipalIds(PRINCIPAL_TYPE.GROUP, groupNames);
+        List<XXPolicyRefGroup> xPolGroups = new ArrayList<>();
 
         for (String group : groupNames) {
             if (StringUtils.isBlank(group)) {
                 continue;
             }
 
+            Long groupId = groupIds.get(group);
+
+            if (groupId != null) {
+                XXPolicyRefGroup xPolGroup = rangerAuditFields.populateAuditFields(new XXPolicyRefGroup(), xPolicy);
+
+                xPolGroup.setPolicyId(xPolicy.getId());
+                xPolGroup.setGroupId(groupId);
+                xPolGroup.setGroupName(group);
+
+                xPolGroups.add(xPolGroup);
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.GROUP, group, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -253,11 +293,28 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             }
         }
 
+        Map<String, Long>     userIds   = getPrincipalIds(PRINCIPAL_TYPE.USER, userNames);
+        List<XXPolicyRefUser> xPolUsers = new ArrayList<>();
+
         for (String user : userNames) {
             if (StringUtils.isBlank(user)) {
                 continue;
             }
 
+            Long userId = userIds.get(user);
+
+            if (userId != null) {
+                XXPolicyRefUser xPolUser = rangerAuditFields.populateAuditFields(new XXPolicyRefUser(), xPolicy);
+
+                xPolUser.setPolicyId(xPolicy.getId());
+                xPolUser.setUserId(userId);
+                xPolUser.setUserName(user);
+
+                xPolUsers.add(xPolUser);
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.USER, user, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -295,8 +352,6 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             xPolAccesses.add(xPolAccess);
         }
 
-        daoMgr.getXXPolicyRefAccessType().batchCreate(xPolAccesses);
-
         List<XXPolicyRefCondition> xPolConds = new ArrayList<>();
 
         for (String condition : conditionTypes) {
@@ -319,8 +374,6 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             xPolConds.add(xPolCond);
         }
 
-        daoMgr.getXXPolicyRefCondition().batchCreate(xPolConds);
-
         List<XXPolicyRefDataMaskType> xxDataMaskInfos = new ArrayList<>();
 
         for (String dataMaskType : dataMaskTypes) {
@@ -339,7 +392,101 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             xxDataMaskInfos.add(xxDataMaskInfo);
         }
 
-        daoMgr.getXXPolicyRefDataMaskType().batchCreate(xxDataMaskInfos);
+        boolean isBatchInsert = RangerBizUtil.isBulkMode() && RangerBizUtil.BATCH_INSERT_ENABLED;
+
+        if (isBatchInsert) {
+            daoMgr.getXXPolicy().flush(); // rows inserted below refer to entities, like the policy, that might not be written to the database yet
+        }
+
+        createRefs(daoMgr.getXXPolicyRefResource(), xPolResources, isBatchInsert, "resource_def_id", "resource_name", ref -> new Object[] {ref.getPolicyId(), ref.getResourceDefId(), ref.getResourceName()});
+        createRefs(daoMgr.getXXPolicyRefRole(), xPolRoles, isBatchInsert, "role_id", "role_name", ref -> new Object[] {ref.getPolicyId(), ref.getRoleId(), ref.getRoleName()});
+        createRefs(daoMgr.getXXPolicyRefGroup(), xPolGroups, isBatchInsert, "group_id", "group_name", ref -> new Object[] {ref.getPolicyId(), ref.getGroupId(), ref.getGroupName()});
+        createRefs(daoMgr.getXXPolicyRefUser(), xPolUsers, isBatchInsert, "user_id", "user_name", ref -> new Object[] {ref.getPolicyId(), ref.getUserId(), ref.getUserName()});
+        createRefs(daoMgr.getXXPolicyRefAccessType(), xPolAccesses, isBatchInsert, "access_def_id", "access_type_name", ref -> new Object[] {ref.getPolicyId(), ref.getAccessDefId(), ref.getAccessTypeName()});
+        createRefs(daoMgr.getXXPolicyRefCondition(), xPolConds, isBatchInsert, "condition_def_id", "condition_name", ref -> new Object[] {ref.getPolicyId(), ref.getConditionDefId(), ref.getConditionName()});
+        createRefs(daoMgr.getXXPolicyRefDataMaskType(), xxDataMaskInfos, isBatchInsert, "datamask_def_id", "datamask_type_name", ref -> new Object[] {ref.getPolicyId(), ref.getDataMaskDefId(), ref.getDataMaskTypeName()});
+
+        if (isBatchInsert && RangerBizUtil.BATCH_CLEAR_ENABLED) {
+            // entities of this policy were written by the flush above; remaining steps of policy create/update reload what they need
+            daoMgr.getXXPolicy().clear();
+        }
+    }
+
+    /*
+     * in bulk mode, like import of policies, looks up ids of users, groups and roles referenced in the given policies
+     * with one query per principal type (per MAX_IN_LIST_SIZE names), instead of queries for each policy. The ids are
+     * saved in the operation context, for createNewPolMappingForRefTable() to use
+     */
+    public void resolvePrincipals(Collection<RangerPolicy> policies) {
+        if (!RangerBizUtil.isBulkMode() || CollectionUtils.isEmpty(policies)) {
+            return;
+        }
+
+        final Set<String> roleNames  = new HashSet<>();
+        final Set<String> groupNames = new HashSet<>();
+        final Set<String> userNames  = new HashSet<>();
+
+        for (RangerPolicy policy : policies) {
+            if (policy == null) {
+                continue;
+            }
+
+            for (List<? extends RangerPolicyItem> policyItems : getAllPolicyItems(policy)) {
+                for (RangerPolicyItem policyItem : policyItems) {
+                    roleNames.addAll(policyItem.getRoles());
+                    groupNames.addAll(policyItem.getGroups());
+                    userNames.addAll(policyItem.getUsers());
+                }
+            }
+        }
+
+        getPrincipalIds(PRINCIPAL_TYPE.ROLE, roleNames);
+        getPrincipalIds(PRINCIPAL_TYPE.GROUP, groupNames);
+        getPrincipalIds(PRINCIPAL_TYPE.USER, userNames);
+
+        LOG.debug("resolvePrincipals(policyCount={}): roleCount={}, groupCount={}, userCount={}", policies.size(), roleNames.size(), groupNames.size(), userNames.size());
+    }
+
+    /*
+     * returns {key: name, value: id} of principals of the given type; the value is null, or the name is absent, for
+     * principals not found. In bulk mode, only names not looked up earlier in the operation are queried
+     */
+    private Map<String, Long> getPrincipalIds(PRINCIPAL_TYPE type, Set<String> names) {
+        if (!RangerBizUtil.isBulkMode()) {
+            return findPrincipalIds(type, names);
+        }
+
+        Map<String, Long> ret      = RangerContextHolder.getOrCreateOpContext().getPrincipalIds(type.name());
+        Set<String>       newNames = new HashSet<>();
+
+        for (String name : names) {
+            if (StringUtils.isNotBlank(name) && !ret.containsKey(name)) {
+                newNames.add(name);
+            }
+        }
+
+        if (!newNames.isEmpty()) {
+            Map<String, Long> ids = findPrincipalIds(type, newNames);
+
+            for (String name : newNames) {
+                ret.put(name, ids.get(name));
+            }
+        }
+
+        return ret;
+    }
+
+    private Map<String, Long> findPrincipalIds(PRINCIPAL_TYPE type, Set<String> names) {
+        switch (type) {
+            case USER:
+                return daoMgr.getXXUser().findIdsByUserNames(names);
+            case GROUP:
+                return daoMgr.getXXGroup().findIdsByGroupNames(names);
+            case ROLE:
+                return daoMgr.getXXRole().findIdsByRoleNames(names);
+            default:
+                return new HashMap<>();
+        }
     }
 
     public Boolean cleanupRefTables(RangerPolicy policy) {
@@ -360,6 +507,41 @@ public Boolean cleanupRefTables(RangerPolicy policy) {
         return true;
     }
 
+    /*
+     * in bulk mode, like import of policies, ref-table rows are inserted with JDBC batches - to avoid the overhead of
+     * managing an entity for each row in the persistence context. Each ref-table has the same columns: audit fields,
+     * policy_id, id and name of the referenced object. toRefValues returns values of the last 3 columns for a row.
+     * The caller must flush the persistence context before the insert, as the rows refer to the policy.
+     */
+    private <T extends XXDBBase> void createRefs(BaseDao<T> dao, List<T> refs, boolean isBatchInsert, String refIdColumn, String refNameColumn, Function<T, Object[]> toRefValues) throws Exception {
+        if (refs.isEmpty()) {
+            return;
+        }
+
+        boolean isInserted = false;
+
+        if (isBatchInsert) {
+            String[]       columns = {"create_time", "update_time", "added_by_id", "upd_by_id", "policy_id", refIdColumn, refNameColumn};
+            List<Object[]> rows    = new ArrayList<>(refs.size());
+
+            for (T ref : refs) {
+                Object[] refValues = toRefValues.apply(ref);
+
+                rows.add(new Object[] {ref.getCreateTime(), ref.getUpdateTime(), ref.getAddedByUserId(), ref.getUpdatedByUserId(), refValues[0], refValues[1], refValues[2]});
+            }
+
+            isInserted = dao.batchInsert(columns, REF_TABLE_COLUMN_TYPES, rows);
+        }
+
+        if (!isInserted) {
+            dao.batchCreate(refs);
+
+            if (isBatchInsert) {
+                dao.flush(); // batchInsert() is not supported for the database: write the entities before the persistence context is cleared
+            }
+        }
+    }
+
     public enum PRINCIPAL_TYPE { USER, GROUP, ROLE }
 
     private class PolicyPrincipalAssociator implements Runnable {
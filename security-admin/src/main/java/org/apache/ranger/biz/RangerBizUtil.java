@@ -90,6 +90,7 @@ public class RangerBizUtil {
     public static final  boolean BATCH_CLEAR_ENABLED        = PropertiesUtil.getBooleanProperty("ranger.jpa.jdbc.batch-clear.enable", true);
     public static final  int     POLICY_BATCH_SIZE          = PropertiesUtil.getIntProperty("ranger.jpa.jdbc.batch-clear.size", 10);
     public static final  int     BATCH_PERSIST_SIZE         = PropertiesUtil.getIntProperty("ranger.jpa.jdbc.batch-persist.size", 500);
+    public static final  boolean BATCH_INSERT_ENABLED       = PropertiesUtil.getBooleanProperty("ranger.jpa.jdbc.batch-insert.enable", true);
 
     private static final String PATH_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrst0123456789-_.";
 
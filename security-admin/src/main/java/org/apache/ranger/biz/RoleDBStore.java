@@ -254,6 +254,29 @@ public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion) throw
         return ret;
     }
 
+    public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion, boolean supportsDeltas) throws Exception {
+        RangerRoles     ret       = null;
+        RangerRoleCache roleCache = RangerRoleCache.getInstance();
+
+        if (supportsDeltas && roleCache.isSupportsDeltas()) {
+            Long rangerRoleVersionInDB = getRoleVersion(serviceName);
+
+            LOG.debug("==> RoleDBStore.getRoles(supportsDeltas=true) lastKnownRoleVersion= {} rangerRoleVersionInDB= {}", lastKnownRoleVersion, rangerRoleVersionInDB);
+
+            if (rangerRoleVersionInDB != null) {
+                String cacheKey = ServiceDBStore.isSupportsRolesDownloadByService() ? serviceName : "";
+
+                ret = roleCache.getLatestRangerRolesOrDelta(cacheKey, this, lastKnownRoleVersion, rangerRoleVersionInDB);
+            }
+
+            LOG.debug("<= RoleDBStore.getRoles(supportsDeltas=true) lastKnownRoleVersion= {} rangerRoleVersionInDB= {} RangerRoles= {}", lastKnownRoleVersion, rangerRoleVersionInDB, ret);
+        } else {
+            ret = getRoles(serviceName, lastKnownRoleVersion);
+        }
+
+        return ret;
+    }
+
     @Override
     public Long getRoleVersion(String serviceName) {
         Long ret;
@@ -2331,6 +2331,18 @@ public RangerPolicy createPolicy(RangerPolicy policy, boolean createPrincipalsIf
         return createdPolicy;
     }
 
+    /*
+     * in bulk mode, like import of policies, looks up users, groups and roles referenced in the given policies in one go,
+     * before the policies are created/updated
+     */
+    public void resolvePolicyPrincipals(Collection<RangerPolicy> policies) {
+        LOG.debug("==> ServiceDBStore.resolvePolicyPrincipals()");
+
+        policyRefUpdater.resolvePrincipals(policies);
+
+        LOG.debug("<== ServiceDBStore.resolvePolicyPrincipals()");
+    }
+
     public void createOrMapLabels(XXPolicy xPolicy, Set<String> uniquePolicyLabels) {
         LOG.debug("==> ServiceDBStore.createOrMapLabels()");
 
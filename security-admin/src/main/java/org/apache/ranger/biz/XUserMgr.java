@@ -2807,15 +2807,26 @@ public Map<String, Set<String>> getUserGroups() {
     }
 
     public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion) {
-        logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={})", lastKnownUserStoreVersion);
+        return getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, false);
+    }
+
+    public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion, boolean supportsDeltas) {
+        logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}, supportsDeltas={})", lastKnownUserStoreVersion, supportsDeltas);
 
-        RangerUserStore ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this);
+        RangerUserStoreCache userStoreCache = RangerUserStoreCache.getInstance();
+        RangerUserStore      ret            = userStoreCache.getLatestRangerUserStoreOrCached(this);
 
         if (ret != null && Objects.equals(ret.getUserStoreVersion(), lastKnownUserStoreVersion)) {
             ret = null;
+        } else if (ret != null && supportsDeltas && userStoreCache.isSupportsDeltas()) {
+            RangerUserStore delta = userStoreCache.getRangerUserStoreDelta(lastKnownUserStoreVersion);
+
+            if (delta != null && Objects.equals(delta.getUserStoreVersion(), ret.getUserStoreVersion())) {
+                ret = delta;
+            }
         }
 
-        logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}): ret={}", lastKnownUserStoreVersion, ret);
+        logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}, supportsDeltas={}): ret={}", lastKnownUserStoreVersion, supportsDeltas, ret);
 
         return ret;
     }
@@ -22,13 +22,20 @@
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.biz.RoleDBStore;
 import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesDeltaUtil;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -37,11 +44,15 @@ public class RangerRoleCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerRoleCache.class);
 
     private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int MAX_DELTA_VERSIONS       = 10;
 
     private static volatile RangerRoleCache sInstance;
 
-    private final int           waitTimeInSeconds;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final int                                  waitTimeInSeconds;
+    private final boolean                              supportsDeltas;
+    private final int                                  maxDeltaVersions;
+    private final ReentrantLock                        lock           = new ReentrantLock();
+    private final Map<String, RangerRolesDeltaHistory> deltaHistories = new HashMap<>();
 
     RangerRoleCacheWrapper roleCacheWrapper;
 
@@ -49,6 +60,10 @@ private RangerRoleCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
         waitTimeInSeconds = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+        supportsDeltas    = config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT);
+        maxDeltaVersions  = config.getInt("ranger.admin.role.deltas.max.versions", MAX_DELTA_VERSIONS);
+
+        LOG.info("ranger.admin{}={}", RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA, supportsDeltas);
     }
 
     public static RangerRoleCache getInstance() {
@@ -68,6 +83,10 @@ public static RangerRoleCache getInstance() {
         return me;
     }
 
+    public boolean isSupportsDeltas() {
+        return supportsDeltas;
+    }
+
     public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
         final RangerRoles ret;
 
@@ -81,6 +100,135 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
         return ret;
     }
 
+    /*
+     * Returns the changes since lastKnownRoleVersion when available, all roles otherwise. Roles of the latest version,
+     * and deltas between the last few versions, are retained for each cacheKey.
+     */
+    public RangerRoles getLatestRangerRolesOrDelta(String cacheKey, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
+        LOG.debug("==> RangerRoleCache.getLatestRangerRolesOrDelta(cacheKey={}, lastKnownRoleVersion={}, rangerRoleVersionInDB={})", cacheKey, lastKnownRoleVersion, rangerRoleVersionInDB);
+
+        RangerRoles ret = null;
+
+        if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
+            final RangerRolesDeltaHistory history;
+
+            synchronized (deltaHistories) {
+                history = deltaHistories.computeIfAbsent(cacheKey, k -> new RangerRolesDeltaHistory());
+            }
+
+            RangerRoles latestRoles = history.getLatestRoles(roleDBStore, rangerRoleVersionInDB);
+
+            if (latestRoles != null && !Objects.equals(latestRoles.getRoleVersion(), lastKnownRoleVersion)) {
+                RangerRoles delta = history.getDelta(lastKnownRoleVersion);
+
+                ret = copyOf(delta != null && Objects.equals(delta.getRoleVersion(), latestRoles.getRoleVersion()) ? delta : latestRoles);
+            }
+        }
+
+        LOG.debug("<== RangerRoleCache.getLatestRangerRolesOrDelta(cacheKey={}, lastKnownRoleVersion={}, rangerRoleVersionInDB={}): isDelta={}", cacheKey, lastKnownRoleVersion, rangerRoleVersionInDB, ret != null ? ret.getIsDelta() : null);
+
+        return ret;
+    }
+
+    private static RangerRoles loadRoles(RoleDBStore roleDBStore, Long rolesVersionInDB) throws Exception {
+        // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
+        final long            startTimeMs  = System.currentTimeMillis();
+        SearchFilter          searchFilter = null;
+        final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
+        final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
+        Date                  updateTime   = new Date();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
+        }
+
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRangerRoles(rolesInDB);
+        ret.setRoleUpdateTime(updateTime);
+        ret.setRoleVersion(rolesVersionInDB);
+
+        return ret;
+    }
+
+    // callers update serviceName in the returned roles; hence return a copy of the cached object
+    private static RangerRoles copyOf(RangerRoles roles) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName(roles.getServiceName());
+        ret.setRoleVersion(roles.getRoleVersion());
+        ret.setRoleUpdateTime(roles.getRoleUpdateTime());
+        ret.setRangerRoles(roles.getRangerRoles());
+        ret.setIsDelta(roles.getIsDelta());
+        ret.setDeletedRoles(roles.getDeletedRoles());
+
+        return ret;
+    }
+
+    private class RangerRolesDeltaHistory {
+        private final    Map<Long, RangerRoles> deltas = new LinkedHashMap<>(); // previous version => delta to the next version
+        private volatile RangerRoles            latestRoles;
+
+        RangerRoles getLatestRoles(RoleDBStore roleDBStore, Long rolesVersionInDB) throws Exception {
+            boolean lockResult = false;
+
+            try {
+                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+
+                if (lockResult) {
+                    RangerRoles prevRoles = latestRoles;
+
+                    if (prevRoles == null || !Objects.equals(prevRoles.getRoleVersion(), rolesVersionInDB)) {
+                        RangerRoles roles = loadRoles(roleDBStore, rolesVersionInDB);
+
+                        if (prevRoles != null) {
+                            addDelta(prevRoles, roles);
+                        }
+
+                        latestRoles = roles;
+                    }
+                } else {
+                    LOG.debug("Could not get lock in [{}] seconds, returning cached RangerRoles", waitTimeInSeconds);
+                }
+            } catch (InterruptedException exception) {
+                LOG.error("RangerRoleCache.getLatestRoles:lock got interrupted..", exception);
+            } finally {
+                if (lockResult) {
+                    lock.unlock();
+                }
+            }
+
+            return latestRoles;
+        }
+
+        synchronized RangerRoles getDelta(Long lastKnownRoleVersion) {
+            RangerRoles ret     = null;
+            Long        version = lastKnownRoleVersion;
+
+            for (RangerRoles delta = deltas.get(version); delta != null; delta = deltas.get(version)) {
+                ret     = ret == null ? delta : RangerRolesDeltaUtil.applyDelta(ret, delta);
+                version = delta.getRoleVersion();
+            }
+
+            return ret;
+        }
+
+        private synchronized void addDelta(RangerRoles from, RangerRoles to) {
+            RangerRoles delta = RangerRolesDeltaUtil.getRolesDelta(from, to);
+
+            if (delta != null) {
+                deltas.put(from.getRoleVersion(), delta);
+
+                LOG.info("RangerRoleCache: computed roles delta from version {} to {}: updatedRoles={}, deletedRoles={}", from.getRoleVersion(), to.getRoleVersion(), delta.getRangerRoles().size(), delta.getDeletedRoles().size());
+            }
+
+            for (Iterator<Long> iter = deltas.keySet().iterator(); deltas.size() > maxDeltaVersions && iter.hasNext(); ) {
+                iter.next();
+                iter.remove();
+            }
+        }
+    }
+
     private class RangerRoleCacheWrapper {
         RangerRoles roles;
         Long        rolesVersion;
@@ -108,22 +256,7 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
                 lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
 
                 if (lockResult) {
-                    // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
-                    final long            startTimeMs  = System.currentTimeMillis();
-                    SearchFilter          searchFilter = null;
-                    final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
-                    final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
-                    Date                  updateTime   = new Date();
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
-                    }
-
-                    ret = new RangerRoles();
-
-                    ret.setRangerRoles(rolesInDB);
-                    ret.setRoleUpdateTime(updateTime);
-                    ret.setRoleVersion(rolesVersionInDB);
+                    ret = loadRoles(roleDBStore, rolesVersionInDB);
 
                     rolesVersion = rolesVersionInDB;
                     roles        = ret;
@@ -23,10 +23,14 @@
 import org.apache.ranger.biz.XUserMgr;
 import org.apache.ranger.plugin.model.GroupInfo;
 import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -37,20 +41,28 @@ public class RangerUserStoreCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerUserStoreCache.class);
 
     private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int MAX_DELTA_VERSIONS       = 10;
 
     public static volatile RangerUserStoreCache sInstance;
 
-    private final int             waitTimeInSeconds;
-    private final boolean         dedupStrings;
-    private final ReentrantLock   lock = new ReentrantLock();
-    private       RangerUserStore rangerUserStore;
+    private final int                        waitTimeInSeconds;
+    private final boolean                    dedupStrings;
+    private final boolean                    supportsDeltas;
+    private final int                        maxDeltaVersions;
+    private final ReentrantLock              lock   = new ReentrantLock();
+    private final Map<Long, RangerUserStore> deltas = new LinkedHashMap<>(); // previous version => delta to the next version
+    private       RangerUserStore            rangerUserStore;
 
     private RangerUserStoreCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
         this.waitTimeInSeconds = config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
         this.dedupStrings      = config.getBoolean("ranger.admin.userstore.dedup.strings", Boolean.TRUE);
+        this.supportsDeltas    = config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT);
+        this.maxDeltaVersions  = config.getInt("ranger.admin.userstore.deltas.max.versions", MAX_DELTA_VERSIONS);
         this.rangerUserStore   = new RangerUserStore();
+
+        LOG.info("ranger.admin{}={}", RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA, supportsDeltas);
     }
 
     public static RangerUserStoreCache getInstance() {
@@ -74,6 +86,35 @@ public RangerUserStore getRangerUserStore() {
         return this.rangerUserStore;
     }
 
+    public boolean isSupportsDeltas() {
+        return supportsDeltas;
+    }
+
+    /*
+     * Returns the changes from lastKnownVersion to the latest version for which changes are available, or null if
+     * changes from lastKnownVersion are not available.
+     */
+    public RangerUserStore getRangerUserStoreDelta(Long lastKnownVersion) {
+        LOG.debug("==> RangerUserStoreCache.getRangerUserStoreDelta(lastKnownVersion={})", lastKnownVersion);
+
+        RangerUserStore ret = null;
+
+        if (supportsDeltas && lastKnownVersion != null) {
+            synchronized (deltas) {
+                Long version = lastKnownVersion;
+
+                for (RangerUserStore delta = deltas.get(version); delta != null; delta = deltas.get(version)) {
+                    ret     = ret == null ? delta : RangerUserStoreDeltaUtil.applyDelta(ret, delta);
+                    version = delta.getUserStoreVersion();
+                }
+            }
+        }
+
+        LOG.debug("<== RangerUserStoreCache.getRangerUserStoreDelta(lastKnownVersion={}): ret={}", lastKnownVersion, ret);
+
+        return ret;
+    }
+
     public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
         LOG.debug("==> RangerUserStoreCache.getLatestRangerUserStoreOrCached()");
 
@@ -108,6 +149,10 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
                         rangerUserStore.dedupStrings();
                     }
 
+                    if (supportsDeltas) {
+                        addDelta(this.rangerUserStore, rangerUserStore);
+                    }
+
                     this.rangerUserStore = rangerUserStore;
 
                     LOG.info("RangerUserStoreCache refreshed from version {} to {}: users={}, groups={}, userGroupMappings={}", cachedUserStoreVersion, dbUserStoreVersion, rangerUsersInDB.size(), rangerGroupsInDB.size(), userGroups.size());
@@ -129,4 +174,24 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
 
         return ret;
     }
+
+    private void addDelta(RangerUserStore from, RangerUserStore to) {
+        RangerUserStore delta = from.getUserStoreVersion() != null && from.getUserStoreVersion() != -1L ? RangerUserStoreDeltaUtil.getUserStoreDelta(from, to) : null;
+
+        synchronized (deltas) {
+            if (delta != null) {
+                deltas.put(from.getUserStoreVersion(), delta);
+
+                LOG.info("RangerUserStoreCache: computed userstore delta from version {} to {}", from.getUserStoreVersion(), to.getUserStoreVersion());
+                LOG.debug("RangerUserStoreCache: userstore delta={}", delta);
+            } else {
+                deltas.clear();
+            }
+
+            for (Iterator<Long> iter = deltas.keySet().iterator(); deltas.size() > maxDeltaVersions && iter.hasNext(); ) {
+                iter.next();
+                iter.remove();
+            }
+        }
+    }
 }
@@ -31,22 +31,30 @@
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.TypedQuery;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class BaseDao<T> {
     private static final Logger logger = LoggerFactory.getLogger(BaseDao.class);
 
     private static final String PROP_BATCH_DELETE_BATCH_SIZE    = "ranger.admin.dao.batch.delete.batch.size";
     private static final int    DEFAULT_BATCH_DELETE_BATCH_SIZE = 1000;
+    private static final int    MAX_IN_LIST_SIZE                = 1000; // Oracle doesn't support more values in an IN list
     private static final String NOT_AVAILABLE                   = "Not Available";
     private static final String GDS_TABLES                      = "x_gds_";
     private static       int    BATCH_DELETE_BATCH_SIZE;
@@ -127,6 +135,85 @@ public void batchDeleteByIds(String namedQuery, List<Long> ids, String paramName
         }
     }
 
+    /*
+     * inserts rows into the table of this entity with JDBC batches of RangerBizUtil.BATCH_PERSIST_SIZE rows. Unlike
+     * batchCreate(), rows are written directly in the current transaction, bypassing the persistence context - so no
+     * entity is created or managed for the inserted rows.
+     *
+     * id column must not be included in columns; its value is assigned by the database in the insert statement: by the
+     * table's sequence in Oracle, by identity/default value of the column in MySQL, Postgres and SQL Server.
+     *
+     * returns false, without inserting any row, if the database flavor is not supported; the caller should then use
+     * batchCreate().
+     */
+    public boolean batchInsert(String[] columns, int[] sqlTypes, List<Object[]> rows) throws SQLException {
+        Table table = tClass.getAnnotation(Table.class);
+
+        if (table == null) {
+            throw new NullPointerException("Required annotation `Table` not found");
+        }
+
+        final String sql;
+
+        switch (RangerBizUtil.getDBFlavor()) {
+            case AppConstants.DB_FLAVOR_MYSQL:
+            case AppConstants.DB_FLAVOR_POSTGRES:
+            case AppConstants.DB_FLAVOR_SQLSERVER:
+                sql = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES (" + StringUtils.repeat("?", ", ", columns.length) + ")";
+                break;
+            case AppConstants.DB_FLAVOR_ORACLE: {
+                String sequenceName = getSequenceName();
+
+                if (sequenceName == null) {
+                    return false;
+                }
+
+                sql = "INSERT INTO " + table.name() + " (id, " + String.join(", ", columns) + ") VALUES (" + sequenceName + ".NEXTVAL, " + StringUtils.repeat("?", ", ", columns.length) + ")";
+            }
+            break;
+            default:
+                return false;
+        }
+
+        if (rows.isEmpty()) {
+            return true;
+        }
+
+        logger.debug("batchInsert(table={}, rowCount={}): {}", table.name(), rows.size(), sql);
+
+        try (PreparedStatement st = getEntityManager().unwrap(Connection.class).prepareStatement(sql)) {
+            int batchCount = 0;
+
+            for (Object[] row : rows) {
+                for (int i = 0; i < columns.length; i++) {
+                    Object value = row[i];
+
+                    if (value == null) {
+                        st.setNull(i + 1, sqlTypes[i]);
+                    } else if (value instanceof Date && !(value instanceof Timestamp)) {
+                        st.setTimestamp(i + 1, new Timestamp(((Date) value).getTime()));
+                    } else {
+                        st.setObject(i + 1, value, sqlTypes[i]);
+                    }
+                }
+
+                st.addBatch();
+
+                if (++batchCount == RangerBizUtil.BATCH_PERSIST_SIZE) {
+                    st.executeBatch();
+
+                    batchCount = 0;
+                }
+            }
+
+            if (batchCount > 0) {
+                st.executeBatch();
+            }
+        }
+
+        return true;
+    }
+
     public T update(T obj) {
         em.merge(obj);
 
@@ -241,6 +328,31 @@ public List<T> findByNamedQuery(String namedQuery, String paramName, Object refI
         return ret;
     }
 
+    /*
+     * runs the given named query, which returns name and id of entities having name in :names, for the given names - at
+     * most MAX_IN_LIST_SIZE names per query. Returns {key: name, value: id} of entities found
+     */
+    public Map<String, Long> findIdsByNames(String namedQuery, Collection<String> names) {
+        Map<String, Long> ret = new HashMap<>();
+
+        if (names == null || names.isEmpty()) {
+            return ret;
+        }
+
+        List<String> nameList = new ArrayList<>(names);
+
+        for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += MAX_IN_LIST_SIZE) {
+            List<String>   subList = nameList.subList(fromIndex, Math.min(fromIndex + MAX_IN_LIST_SIZE, nameList.size()));
+            List<Object[]> rows    = em.createNamedQuery(namedQuery, Object[].class).setParameter("names", subList).getResultList();
+
+            for (Object[] row : rows) {
+                ret.put((String) row[0], (Long) row[1]);
+            }
+        }
+
+        return ret;
+    }
+
     public List<T> findByParentId(Long parentId) {
         String namedQuery = tClass.getSimpleName() + ".findByParentId";
 
@@ -362,6 +474,20 @@ public String getDBVersion() {
         return dbVersion;
     }
 
+    private String getSequenceName() {
+        for (Class<?> clz = tClass; clz != null; clz = clz.getSuperclass()) {
+            for (Field field : clz.getDeclaredFields()) {
+                SequenceGenerator sequenceGenerator = field.getAnnotation(SequenceGenerator.class);
+
+                if (sequenceGenerator != null) {
+                    return sequenceGenerator.sequenceName();
+                }
+            }
+        }
+
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     private void init(EntityManager em) {
         this.em = em;
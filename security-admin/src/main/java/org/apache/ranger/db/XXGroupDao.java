@@ -32,6 +32,7 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,13 @@ public XXGroup findByGroupName(String groupName) {
         }
     }
 
+    /*
+     * returns {key: group name, value: group id} of groups having one of the given names
+     */
+    public Map<String, Long> findIdsByGroupNames(Collection<String> names) {
+        return findIdsByNames("XXGroup.findIdsByNames", names);
+    }
+
     public Map<Long, String> getAllGroupIdNames() {
         Map<Long, String> groups = new HashMap<>();
 
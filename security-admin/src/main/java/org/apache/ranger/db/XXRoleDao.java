@@ -25,8 +25,10 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class XXRoleDao extends BaseDao<XXRole> {
@@ -61,6 +63,13 @@ public XXRole findByRoleName(String roleName) {
         }
     }
 
+    /*
+     * returns {key: role name, value: role id} of roles having one of the given names
+     */
+    public Map<String, Long> findIdsByRoleNames(Collection<String> names) {
+        return findIdsByNames("XXRole.findIdsByNames", names);
+    }
+
     public List<XXRole> findByServiceId(Long serviceId) {
         List<XXRole> ret;
 
@@ -33,6 +33,7 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -68,6 +69,13 @@ public XXUser findByUserName(String name) {
         return null;
     }
 
+    /*
+     * returns {key: user name, value: user id} of users having one of the given names
+     */
+    public Map<String, Long> findIdsByUserNames(Collection<String> names) {
+        return findIdsByNames("XXUser.findIdsByNames", names);
+    }
+
     public XXUser findByPortalUserId(Long portalUserId) {
         if (portalUserId == null) {
             return null;
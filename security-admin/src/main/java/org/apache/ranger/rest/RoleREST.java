@@ -55,6 +55,8 @@
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerPluginCapability;
+import org.apache.ranger.plugin.util.RangerPluginCapability.RangerPluginFeature;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.SearchFilter;
@@ -985,7 +987,7 @@ public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serv
 
         if (isValid) {
             try {
-                RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                RangerRoles roles = isRoleDeltasSupported(pluginCapabilities) ? roleStore.getRoles(serviceName, lastKnownRoleVersion, true) : roleStore.getRoles(serviceName, lastKnownRoleVersion);
 
                 if (roles == null) {
                     downloadedVersion = lastKnownRoleVersion;
@@ -1073,7 +1075,7 @@ public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") Strin
                 }
 
                 if (isAllowed) {
-                    RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                    RangerRoles roles = isRoleDeltasSupported(pluginCapabilities) ? roleStore.getRoles(serviceName, lastKnownRoleVersion, true) : roleStore.getRoles(serviceName, lastKnownRoleVersion);
                     if (roles == null) {
                         downloadedVersion = lastKnownRoleVersion;
                         httpCode          = HttpServletResponse.SC_NOT_MODIFIED;
@@ -1163,6 +1165,10 @@ protected List<RangerRole> getAllFilteredRoleList(HttpServletRequest request) th
         return roleLists;
     }
 
+    private static boolean isRoleDeltasSupported(String pluginCapabilities) {
+        return RangerPluginCapability.isSupported(pluginCapabilities, RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_ROLE_DELTAS);
+    }
+
     private void ensureAdminAccess(String serviceName, String userName) throws Exception {
         /* If userName (execUser) is not same as logged in user then check
          * If logged-in user is not ranger admin/service admin/service user, then deny the operation
@@ -3401,6 +3401,8 @@ private int createPolicesBasedOnPolicyMap(HttpServletRequest request, Map<String
         boolean deleteIfExists = "true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_DELETE_IF_EXISTS)));
 
         if (!CollectionUtils.sizeIsEmpty(policiesMap.entrySet())) {
+            svcStore.resolvePolicyPrincipals(policiesMap.values());
+
             for (Entry<String, RangerPolicy> entry : policiesMap.entrySet()) {
                 RangerPolicy policy = entry.getValue();
 
@@ -45,6 +45,8 @@
 import org.apache.ranger.plugin.model.RangerPrincipal;
 import org.apache.ranger.plugin.model.RangerService;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerPluginCapability;
+import org.apache.ranger.plugin.util.RangerPluginCapability.RangerPluginFeature;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.security.context.RangerAPIList;
@@ -1401,7 +1403,7 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
                 XXService xService = rangerDaoManager.getXXService().findByName(serviceName);
 
                 if (xService != null) {
-                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, RangerPluginCapability.isSupported(pluginCapabilities, RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
 
                     if (rangerUserStore == null) {
                         downloadedVersion = lastKnownUserStoreVersion;
@@ -1485,7 +1487,7 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
                 }
 
                 if (isAllowed) {
-                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, RangerPluginCapability.isSupported(pluginCapabilities, RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_USERSTORE_DELTAS));
 
                     if (rangerUserStore == null) {
                         downloadedVersion = lastKnownUserStoreVersion;
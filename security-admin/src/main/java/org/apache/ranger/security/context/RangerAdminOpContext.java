@@ -20,6 +20,8 @@
 package org.apache.ranger.security.context;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 public class RangerAdminOpContext implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -27,6 +29,9 @@ public class RangerAdminOpContext implements Serializable {
     private boolean bulkModeContext;
     private Boolean createPrincipalsIfAbsent;
 
+    // ids of users, groups and roles looked up in this operation: {key: principal-type, value: {key: name, value: id}}; null id: not found
+    private final Map<String, Map<String, Long>> principalIds = new HashMap<>();
+
     public boolean isBulkModeContext() {
         return bulkModeContext;
     }
@@ -42,4 +47,8 @@ public Boolean getCreatePrincipalsIfAbsent() {
     public void setCreatePrincipalsIfAbsent(Boolean createPrincipalsIfAbsent) {
         this.createPrincipalsIfAbsent = createPrincipalsIfAbsent;
     }
+
+    public Map<String, Long> getPrincipalIds(String principalType) {
+        return principalIds.computeIfAbsent(principalType, k -> new HashMap<>());
+    }
 }
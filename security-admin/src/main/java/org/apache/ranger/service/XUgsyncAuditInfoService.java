@@ -19,6 +19,7 @@
 
 package org.apache.ranger.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.JSONUtil;
@@ -31,18 +32,29 @@
 import org.apache.ranger.entity.XXUgsyncAuditInfo;
 import org.apache.ranger.view.VXUgsyncAuditInfo;
 import org.apache.ranger.view.VXUgsyncAuditInfoList;
+import org.apache.ranger.view.VXUploadChunkInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Scope("singleton")
 public class XUgsyncAuditInfoService extends XUgsyncAuditInfoServiceBase<XXUgsyncAuditInfo, VXUgsyncAuditInfo> {
     public static final String NAME = "XUgsyncAuditInfo";
 
+    // upload metrics are saved in syncSourceInfo, to avoid schema changes to x_ugsync_audit_info
+    private static final String NO_OF_UPLOAD_CHUNKS        = "noOfUploadChunks";
+    private static final String NO_OF_FAILED_UPLOAD_CHUNKS = "noOfFailedUploadChunks";
+    private static final String AVG_UPLOAD_CHUNK_TIME_MS   = "avgUploadChunkTimeMs";
+    private static final String MAX_UPLOAD_CHUNK_TIME_MS   = "maxUploadChunkTimeMs";
+    private static final String UPLOAD_CHUNKS              = "uploadChunks";
+
     @Autowired
     JSONUtil jsonUtil;
 
@@ -123,6 +135,8 @@ public VXUgsyncAuditInfo createUgsyncAuditInfo(VXUgsyncAuditInfo vxUgsyncAuditIn
             vxUgsyncAuditInfo.setSyncSourceInfo(jsonUtil.jsonToMap(vxUgsyncAuditInfo.getLdapSyncSourceInfo().toString()));
         }
 
+        addUploadMetricsToSyncSourceInfo(vxUgsyncAuditInfo);
+
         return createResource(vxUgsyncAuditInfo);
     }
 
@@ -154,6 +168,47 @@ protected VXUgsyncAuditInfo mapEntityToViewBean(VXUgsyncAuditInfo vObj, XXUgsync
         vObj.setSyncSourceInfo(jsonUtil.jsonToMap(jsonString));
         vObj.setSessionId(mObj.getSessionId());
 
+        setUploadMetricsFromSyncSourceInfo(vObj);
+
         return vObj;
     }
+
+    private void addUploadMetricsToSyncSourceInfo(VXUgsyncAuditInfo vxUgsyncAuditInfo) {
+        if (vxUgsyncAuditInfo.getNoOfUploadChunks() == null) { // not sent by older versions of usersync
+            return;
+        }
+
+        Map<String, String> syncSourceInfo = vxUgsyncAuditInfo.getSyncSourceInfo() != null ? vxUgsyncAuditInfo.getSyncSourceInfo() : new HashMap<>();
+
+        syncSourceInfo.put(NO_OF_UPLOAD_CHUNKS, String.valueOf(vxUgsyncAuditInfo.getNoOfUploadChunks()));
+        syncSourceInfo.put(NO_OF_FAILED_UPLOAD_CHUNKS, String.valueOf(vxUgsyncAuditInfo.getNoOfFailedUploadChunks()));
+        syncSourceInfo.put(AVG_UPLOAD_CHUNK_TIME_MS, String.valueOf(vxUgsyncAuditInfo.getAvgUploadChunkTimeMs()));
+        syncSourceInfo.put(MAX_UPLOAD_CHUNK_TIME_MS, String.valueOf(vxUgsyncAuditInfo.getMaxUploadChunkTimeMs()));
+
+        if (vxUgsyncAuditInfo.getUploadChunks() != null) {
+            syncSourceInfo.put(UPLOAD_CHUNKS, jsonUtil.readListToString(vxUgsyncAuditInfo.getUploadChunks()));
+        }
+
+        vxUgsyncAuditInfo.setSyncSourceInfo(syncSourceInfo);
+    }
+
+    private void setUploadMetricsFromSyncSourceInfo(VXUgsyncAuditInfo vObj) {
+        Map<String, String> syncSourceInfo = vObj.getSyncSourceInfo();
+
+        vObj.setNoOfUploadChunks(toLong(syncSourceInfo.get(NO_OF_UPLOAD_CHUNKS)));
+        vObj.setNoOfFailedUploadChunks(toLong(syncSourceInfo.get(NO_OF_FAILED_UPLOAD_CHUNKS)));
+        vObj.setAvgUploadChunkTimeMs(toLong(syncSourceInfo.get(AVG_UPLOAD_CHUNK_TIME_MS)));
+        vObj.setMaxUploadChunkTimeMs(toLong(syncSourceInfo.get(MAX_UPLOAD_CHUNK_TIME_MS)));
+
+        // per-chunk metrics are returned in uploadChunks, instead of as a JSON string in syncSourceInfo
+        String uploadChunks = syncSourceInfo.remove(UPLOAD_CHUNKS);
+
+        if (StringUtils.isNotEmpty(uploadChunks)) {
+            vObj.setUploadChunks(Arrays.asList(jsonUtil.writeJsonToJavaObject(uploadChunks, VXUploadChunkInfo[].class)));
+        }
+    }
+
+    private static Long toLong(String value) {
+        return StringUtils.isNumeric(value) ? Long.valueOf(value) : null;
+    }
 }
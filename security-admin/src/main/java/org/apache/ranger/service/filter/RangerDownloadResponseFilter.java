@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ServiceGdsInfo;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Writes policies, tags, roles, userstore and gdsInfo downloaded by plugins directly to the response with a Jackson
+ * generator, gzip-compressed when the client accepts it. Objects in these responses are usually shared from caches
+ * (like RangerServicePoliciesCache), and are serialized without being copied.
+ */
+public class RangerDownloadResponseFilter implements ContainerResponseFilter {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerDownloadResponseFilter.class);
+
+    public static final String PROP_STREAMING_ENABLED = "ranger.admin.download.response.streaming.enabled";
+    public static final String PROP_GZIP_ENABLED      = "ranger.admin.download.response.gzip.enabled";
+    public static final String ENCODING_GZIP          = "gzip";
+
+    private static volatile Boolean isStreamingEnabled;
+    private static volatile Boolean isGzipEnabled;
+
+    @Override
+    public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+        Object entity = response.getEntity();
+
+        if (response.getStatus() == HttpServletResponse.SC_OK && isDownloadEntity(entity) && isStreamingEnabled()) {
+            boolean useGzip = isGzipEnabled() && acceptsGzip(request);
+
+            LOG.debug("RangerDownloadResponseFilter: streaming {} response (gzip={})", entity.getClass().getSimpleName(), useGzip);
+
+            response.setEntity(new JsonStreamingOutput(entity, useGzip));
+
+            response.getHttpHeaders().putSingle(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_TYPE);
+            response.getHttpHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (useGzip) {
+                response.getHttpHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+            }
+        }
+
+        return response;
+    }
+
+    static boolean isDownloadEntity(Object entity) {
+        return entity instanceof ServicePolicies || entity instanceof ServiceTags || entity instanceof RangerRoles || entity instanceof RangerUserStore || entity instanceof ServiceGdsInfo;
+    }
+
+    static boolean acceptsGzip(ContainerRequest request) {
+        boolean      ret             = false;
+        List<String> acceptEncodings = request.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        for (String acceptEncoding : acceptEncodings != null ? acceptEncodings : Collections.<String>emptyList()) {
+            for (String encoding : StringUtils.split(acceptEncoding, ',')) {
+                String[] nameAndParams = StringUtils.split(encoding, ';');
+
+                if (nameAndParams.length > 0 && ENCODING_GZIP.equalsIgnoreCase(nameAndParams[0].trim())) {
+                    ret = nameAndParams.length == 1 || !StringUtils.deleteWhitespace(nameAndParams[1]).matches("q=0(\\.0*)?");
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isStreamingEnabled() {
+        Boolean ret = isStreamingEnabled;
+
+        if (ret == null) {
+            ret = PropertiesUtil.getBooleanProperty(PROP_STREAMING_ENABLED, true);
+
+            isStreamingEnabled = ret;
+        }
+
+        return ret;
+    }
+
+    private static boolean isGzipEnabled() {
+        Boolean ret = isGzipEnabled;
+
+        if (ret == null) {
+            ret = PropertiesUtil.getBooleanProperty(PROP_GZIP_ENABLED, true);
+
+            isGzipEnabled = ret;
+        }
+
+        return ret;
+    }
+
+    static class JsonStreamingOutput implements StreamingOutput {
+        private final Object  entity;
+        private final boolean useGzip;
+
+        JsonStreamingOutput(Object entity, boolean useGzip) {
+            this.entity  = entity;
+            this.useGzip = useGzip;
+        }
+
+        @Override
+        public void write(OutputStream output) throws IOException {
+            ObjectMapper     mapper  = JsonUtilsV2.getMapper();
+            GZIPOutputStream gzipOut = useGzip ? new GZIPOutputStream(output, 64 * 1024) : null;
+
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(gzipOut != null ? gzipOut : output, JsonEncoding.UTF8)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                mapper.writeValue(generator, entity);
+            }
+
+            if (gzipOut != null) {
+                gzipOut.finish();
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @JsonAutoDetect(getterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE, fieldVisibility = Visibility.ANY)
@@ -43,17 +44,22 @@ public class VXUgsyncAuditInfo extends VXDataObject implements java.io.Serializa
     @JsonSerialize(using = JsonDateSerializer.class)
     private Date eventTime;
 
-    private String               userName;
-    private Long                 noOfNewUsers;
-    private Long                 noOfNewGroups;
-    private Long                 noOfModifiedUsers;
-    private Long                 noOfModifiedGroups;
-    private String               syncSource;
-    private String               sessionId;
-    private Map<String, String>  syncSourceInfo;
-    private VXLdapSyncSourceInfo ldapSyncSourceInfo;
-    private VXFileSyncSourceInfo fileSyncSourceInfo;
-    private VXUnixSyncSourceInfo unixSyncSourceInfo;
+    private String                  userName;
+    private Long                    noOfNewUsers;
+    private Long                    noOfNewGroups;
+    private Long                    noOfModifiedUsers;
+    private Long                    noOfModifiedGroups;
+    private Long                    noOfUploadChunks;
+    private Long                    noOfFailedUploadChunks;
+    private Long                    avgUploadChunkTimeMs;
+    private Long                    maxUploadChunkTimeMs;
+    private List<VXUploadChunkInfo> uploadChunks;
+    private String                  syncSource;
+    private String                  sessionId;
+    private Map<String, String>     syncSourceInfo;
+    private VXLdapSyncSourceInfo    ldapSyncSourceInfo;
+    private VXFileSyncSourceInfo    fileSyncSourceInfo;
+    private VXUnixSyncSourceInfo    unixSyncSourceInfo;
 
     public VXUgsyncAuditInfo() {
     }
@@ -106,6 +112,46 @@ public void setNoOfModifiedGroups(Long noOfModifiedGroups) {
         this.noOfModifiedGroups = noOfModifiedGroups;
     }
 
+    public Long getNoOfUploadChunks() {
+        return noOfUploadChunks;
+    }
+
+    public void setNoOfUploadChunks(Long noOfUploadChunks) {
+        this.noOfUploadChunks = noOfUploadChunks;
+    }
+
+    public Long getNoOfFailedUploadChunks() {
+        return noOfFailedUploadChunks;
+    }
+
+    public void setNoOfFailedUploadChunks(Long noOfFailedUploadChunks) {
+        this.noOfFailedUploadChunks = noOfFailedUploadChunks;
+    }
+
+    public Long getAvgUploadChunkTimeMs() {
+        return avgUploadChunkTimeMs;
+    }
+
+    public void setAvgUploadChunkTimeMs(Long avgUploadChunkTimeMs) {
+        this.avgUploadChunkTimeMs = avgUploadChunkTimeMs;
+    }
+
+    public Long getMaxUploadChunkTimeMs() {
+        return maxUploadChunkTimeMs;
+    }
+
+    public void setMaxUploadChunkTimeMs(Long maxUploadChunkTimeMs) {
+        this.maxUploadChunkTimeMs = maxUploadChunkTimeMs;
+    }
+
+    public List<VXUploadChunkInfo> getUploadChunks() {
+        return uploadChunks;
+    }
+
+    public void setUploadChunks(List<VXUploadChunkInfo> uploadChunks) {
+        this.uploadChunks = uploadChunks;
+    }
+
     public String getSyncSource() {
         return syncSource;
     }
@@ -887,6 +887,10 @@ export const UsersyncDetailsKeyDisplayMap = {
   totalGroupsSynced: "Total number of groups synced",
   totalUsersDeleted: "Total number of users marked for delete",
   totalGroupsDeleted: "Total number of groups marked for delete",
+  noOfUploadChunks: "Number of chunks uploaded",
+  noOfFailedUploadChunks: "Number of chunks failed to upload",
+  avgUploadChunkTimeMs: "Average chunk upload time (ms)",
+  maxUploadChunkTimeMs: "Maximum chunk upload time (ms)",
   ldapUrl: "Ldap url",
   isIncrementalSync: "Incremental sync",
   userSearchEnabled: "User search enabled",
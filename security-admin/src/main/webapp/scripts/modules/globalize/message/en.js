@@ -272,6 +272,10 @@ define(function(require) {
                 totalGroupsSynced               : 'Total number of groups synced',
                 totalUsersDeleted               : 'Total number of users marked for delete',
                 totalGroupsDeleted              : 'Total number of groups marked for delete',
+                noOfUploadChunks                : 'Number of chunks uploaded',
+                noOfFailedUploadChunks          : 'Number of chunks failed to upload',
+                avgUploadChunkTimeMs            : 'Average chunk upload time (ms)',
+                maxUploadChunkTimeMs            : 'Maximum chunk upload time (ms)',
                 addPolicyCondition              : 'Add Policy Condition',
                 editPolicyCondition             : 'Edit Policy Condition',
                 agentHost	                    :'Agent Host Name',
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.biz;
+
+import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.common.db.RangerTransactionSynchronizationAdapter;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXAccessTypeDefDao;
+import org.apache.ranger.db.XXGroupDao;
+import org.apache.ranger.db.XXPolicyDao;
+import org.apache.ranger.db.XXPolicyRefAccessTypeDao;
+import org.apache.ranger.db.XXPolicyRefConditionDao;
+import org.apache.ranger.db.XXPolicyRefDataMaskTypeDao;
+import org.apache.ranger.db.XXPolicyRefGroupDao;
+import org.apache.ranger.db.XXPolicyRefResourceDao;
+import org.apache.ranger.db.XXPolicyRefRoleDao;
+import org.apache.ranger.db.XXPolicyRefUserDao;
+import org.apache.ranger.db.XXResourceDefDao;
+import org.apache.ranger.db.XXRoleDao;
+import org.apache.ranger.db.XXUserDao;
+import org.apache.ranger.entity.XXAccessTypeDef;
+import org.apache.ranger.entity.XXPolicy;
+import org.apache.ranger.entity.XXPolicyRefUser;
+import org.apache.ranger.entity.XXResourceDef;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.entity.XXUser;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.security.context.RangerContextHolder;
+import org.apache.ranger.service.RangerAuditFields;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.ws.rs.WebApplicationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestPolicyRefUpdater {
+    private static final Long SERVICE_ID = 1L;
+
+    @InjectMocks
+    PolicyRefUpdater policyRefUpdater;
+
+    @Mock
+    RangerDaoManager daoMgr;
+
+    @Mock
+    RangerBizUtil rangerBizUtil;
+
+    @Mock
+    RESTErrorUtil restErrorUtil;
+
+    @Mock
+    RangerTransactionSynchronizationAdapter rangerTransactionSynchronizationAdapter;
+
+    @Mock
+    XXPolicyDao xxPolicyDao;
+
+    @Mock
+    XXUserDao xxUserDao;
+
+    @Mock
+    XXGroupDao xxGroupDao;
+
+    @Mock
+    XXRoleDao xxRoleDao;
+
+    @Mock
+    XXResourceDefDao xxResourceDefDao;
+
+    @Mock
+    XXAccessTypeDefDao xxAccessTypeDefDao;
+
+    @Mock
+    XXPolicyRefResourceDao xxPolicyRefResourceDao;
+
+    @Mock
+    XXPolicyRefRoleDao xxPolicyRefRoleDao;
+
+    @Mock
+    XXPolicyRefGroupDao xxPolicyRefGroupDao;
+
+    @Mock
+    XXPolicyRefUserDao xxPolicyRefUserDao;
+
+    @Mock
+    XXPolicyRefAccessTypeDao xxPolicyRefAccessTypeDao;
+
+    @Mock
+    XXPolicyRefConditionDao xxPolicyRefConditionDao;
+
+    @Mock
+    XXPolicyRefDataMaskTypeDao xxPolicyRefDataMaskTypeDao;
+
+    @Before
+    public void setUp() throws Exception {
+        policyRefUpdater.rangerAuditFields = new RangerAuditFields<>();
+
+        XXResourceDef   xResourceDef   = new XXResourceDef();
+        XXAccessTypeDef xAccessTypeDef = new XXAccessTypeDef();
+
+        xResourceDef.setId(1L);
+        xAccessTypeDef.setId(1L);
+
+        Mockito.lenient().when(daoMgr.getXXPolicy()).thenReturn(xxPolicyDao);
+        Mockito.lenient().when(daoMgr.getXXUser()).thenReturn(xxUserDao);
+        Mockito.lenient().when(daoMgr.getXXGroup()).thenReturn(xxGroupDao);
+        Mockito.lenient().when(daoMgr.getXXRole()).thenReturn(xxRoleDao);
+        Mockito.lenient().when(daoMgr.getXXResourceDef()).thenReturn(xxResourceDefDao);
+        Mockito.lenient().when(daoMgr.getXXAccessTypeDef()).thenReturn(xxAccessTypeDefDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefResource()).thenReturn(xxPolicyRefResourceDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefRole()).thenReturn(xxPolicyRefRoleDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefGroup()).thenReturn(xxPolicyRefGroupDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefUser()).thenReturn(xxPolicyRefUserDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefAccessType()).thenReturn(xxPolicyRefAccessTypeDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefCondition()).thenReturn(xxPolicyRefConditionDao);
+        Mockito.lenient().when(daoMgr.getXXPolicyRefDataMaskType()).thenReturn(xxPolicyRefDataMaskTypeDao);
+        Mockito.lenient().when(xxResourceDefDao.findByNameAndPolicyId(Mockito.eq("path"), Mockito.anyLong())).thenReturn(xResourceDef);
+        Mockito.lenient().when(xxAccessTypeDefDao.findByNameAndServiceId("read", SERVICE_ID)).thenReturn(xAccessTypeDef);
+        Mockito.lenient().when(xxPolicyRefResourceDao.batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList())).thenReturn(true);
+        Mockito.lenient().when(xxPolicyRefGroupDao.batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList())).thenReturn(true);
+        Mockito.lenient().when(xxPolicyRefUserDao.batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList())).thenReturn(true);
+        Mockito.lenient().when(xxPolicyRefAccessTypeDao.batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList())).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        RangerContextHolder.resetOpContext();
+    }
+
+    @Test
+    public void testResolvePrincipalsOnceInBulkMode() throws Exception {
+        RangerBizUtil.setBulkMode(true);
+
+        RangerPolicy policy1 = createPolicy(1L, Arrays.asList("user1", "user2"), Collections.emptyList());
+        RangerPolicy policy2 = createPolicy(2L, Arrays.asList("user2", "user3", "user9"), Collections.singletonList("group1"));
+
+        Mockito.when(xxUserDao.findIdsByUserNames(Mockito.anyCollection())).thenReturn(ids("user1", 1L, "user2", 2L, "user3", 3L));
+        Mockito.when(xxGroupDao.findIdsByGroupNames(Mockito.anyCollection())).thenReturn(ids("group1", 10L));
+        Mockito.when(xxUserDao.findByUserName("user9")).thenReturn(createUser(9L)); // not found by findIdsByUserNames, like a name differing in case
+
+        policyRefUpdater.resolvePrincipals(Arrays.asList(policy1, policy2));
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy1, createXXPolicy(1L), new XXServiceDef(), false);
+        policyRefUpdater.createNewPolMappingForRefTable(policy2, createXXPolicy(2L), new XXServiceDef(), false);
+
+        // principals of all policies are looked up once, by resolvePrincipals()
+        Mockito.verify(xxUserDao).findIdsByUserNames(new HashSet<>(Arrays.asList("user1", "user2", "user3", "user9")));
+        Mockito.verify(xxGroupDao).findIdsByGroupNames(Collections.singleton("group1"));
+        Mockito.verify(xxRoleDao, Mockito.never()).findIdsByRoleNames(Mockito.anyCollection());
+
+        // unresolved name is looked up by PolicyPrincipalAssociator
+        ArgumentCaptor<XXPolicyRefUser> refCaptor = ArgumentCaptor.forClass(XXPolicyRefUser.class);
+
+        Mockito.verify(xxPolicyRefUserDao).create(refCaptor.capture());
+
+        Assert.assertEquals(Long.valueOf(9L), refCaptor.getValue().getUserId());
+        Assert.assertEquals("user9", refCaptor.getValue().getUserName());
+
+        // ref rows are inserted with JDBC batches, after one flush per policy; the persistence context is then cleared
+        Mockito.verify(xxPolicyRefUserDao, Mockito.times(2)).batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList());
+        Mockito.verify(xxPolicyRefGroupDao).batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList());
+        Mockito.verify(xxPolicyRefUserDao, Mockito.never()).batchCreate(Mockito.anyList());
+        Mockito.verify(xxPolicyRefUserDao, Mockito.never()).flush();
+        Mockito.verify(xxPolicyDao, Mockito.times(2)).flush();
+        Mockito.verify(xxPolicyDao, Mockito.times(2)).clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFallbackToPolicyPrincipalAssociator() throws Exception {
+        RangerPolicy policy = createPolicy(1L, Arrays.asList("user1", "user2"), Collections.emptyList());
+
+        Mockito.when(xxUserDao.findIdsByUserNames(Mockito.anyCollection())).thenReturn(ids("user1", 1L));
+        Mockito.when(xxUserDao.findByUserName("user2")).thenReturn(createUser(2L));
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy, createXXPolicy(1L), new XXServiceDef(), false);
+
+        ArgumentCaptor<List<XXPolicyRefUser>> refsCaptor = ArgumentCaptor.forClass((Class) List.class);
+        ArgumentCaptor<XXPolicyRefUser>       refCaptor  = ArgumentCaptor.forClass(XXPolicyRefUser.class);
+
+        Mockito.verify(xxPolicyRefUserDao).batchCreate(refsCaptor.capture());
+        Mockito.verify(xxPolicyRefUserDao).create(refCaptor.capture());
+
+        Assert.assertEquals(1, refsCaptor.getValue().size());
+        Assert.assertEquals("user1", refsCaptor.getValue().get(0).getUserName());
+        Assert.assertEquals(Long.valueOf(2L), refCaptor.getValue().getUserId());
+
+        // not in bulk mode: refs are created as entities
+        Mockito.verify(xxPolicyRefUserDao, Mockito.never()).batchInsert(Mockito.any(), Mockito.any(), Mockito.anyList());
+        Mockito.verify(xxPolicyDao, Mockito.never()).clear();
+    }
+
+    @Test(expected = WebApplicationException.class)
+    public void testUnresolvedPrincipalIsRejected() throws Exception {
+        RangerPolicy policy = createPolicy(1L, Collections.singletonList("unknownUser"), Collections.emptyList());
+
+        Mockito.when(xxUserDao.findIdsByUserNames(Mockito.anyCollection())).thenReturn(new HashMap<>());
+        Mockito.when(restErrorUtil.generateRESTException(Mockito.any())).thenReturn(new WebApplicationException());
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy, createXXPolicy(1L), new XXServiceDef(), false);
+    }
+
+    @Test
+    public void testUnresolvedPrincipalIsCreatedOnCommit() throws Exception {
+        RangerPolicy policy = createPolicy(1L, Collections.singletonList("unknownUser"), Collections.emptyList());
+
+        Mockito.when(rangerBizUtil.checkAdminAccess()).thenReturn(true);
+        Mockito.when(xxUserDao.findIdsByUserNames(Mockito.anyCollection())).thenReturn(new HashMap<>());
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy, createXXPolicy(1L), new XXServiceDef(), true);
+
+        Mockito.verify(rangerTransactionSynchronizationAdapter).executeOnTransactionCommit(Mockito.any(Runnable.class));
+        Mockito.verify(xxPolicyRefUserDao, Mockito.never()).create(Mockito.any());
+    }
+
+    private RangerPolicy createPolicy(Long id, List<String> users, List<String> groups) {
+        RangerPolicy     policy     = new RangerPolicy();
+        RangerPolicyItem policyItem = new RangerPolicyItem(Collections.singletonList(new RangerPolicyItemAccess("read")), users, groups, null, null, false);
+
+        policy.setId(id);
+        policy.setName("policy-" + id);
+        policy.setService("hdfsdev");
+        policy.setResources(Collections.singletonMap("path", new RangerPolicyResource("/data")));
+        policy.setPolicyItems(Collections.singletonList(policyItem));
+
+        return policy;
+    }
+
+    private XXPolicy createXXPolicy(Long id) {
+        XXPolicy ret = new XXPolicy();
+
+        ret.setId(id);
+        ret.setService(SERVICE_ID);
+        ret.setCreateTime(new Date());
+        ret.setUpdateTime(new Date());
+        ret.setAddedByUserId(1L);
+        ret.setUpdatedByUserId(1L);
+
+        return ret;
+    }
+
+    private XXUser createUser(Long id) {
+        XXUser ret = new XXUser();
+
+        ret.setId(id);
+
+        return ret;
+    }
+
+    private Map<String, Long> ids(Object... nameIds) {
+        Map<String, Long> ret = new HashMap<>();
+
+        for (int i = 0; i < nameIds.length; i += 2) {
+            ret.put((String) nameIds[i], (Long) nameIds[i + 1]);
+        }
+
+        return ret;
+    }
+}
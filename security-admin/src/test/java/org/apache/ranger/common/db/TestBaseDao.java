@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ranger.common.db;
+
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXPolicyRefUserDao;
+import org.apache.ranger.db.XXUserDao;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestBaseDao {
+    private static final String   PROP_DB_FLAVOR = "xa.db.flavor";
+    private static final String[] COLUMNS        = {"create_time", "update_time", "added_by_id", "upd_by_id", "policy_id", "user_id", "user_name"};
+    private static final int[]    COLUMN_TYPES   = {Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR};
+
+    @Mock
+    RangerDaoManager daoManager;
+
+    @Mock
+    EntityManager em;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PreparedStatement statement;
+
+    @After
+    public void tearDown() {
+        PropertiesUtil.getPropertiesMap().remove(PROP_DB_FLAVOR);
+    }
+
+    @Test
+    public void testBatchInsert() throws Exception {
+        PropertiesUtil.getPropertiesMap().put(PROP_DB_FLAVOR, "MYSQL");
+
+        Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+        Mockito.when(em.unwrap(Connection.class)).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+
+        Date           now  = new Date();
+        List<Object[]> rows = new ArrayList<>();
+
+        rows.add(new Object[] {now, now, 1L, 1L, 10L, 100L, "user1"});
+        rows.add(new Object[] {now, now, null, null, 10L, 101L, "user2"});
+
+        XXPolicyRefUserDao dao = new XXPolicyRefUserDao(daoManager);
+
+        Assert.assertTrue(dao.batchInsert(COLUMNS, COLUMN_TYPES, rows));
+
+        Mockito.verify(connection).prepareStatement("INSERT INTO x_policy_ref_user (create_time, update_time, added_by_id, upd_by_id, policy_id, user_id, user_name) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        Mockito.verify(statement, Mockito.times(2)).setTimestamp(1, new Timestamp(now.getTime()));
+        Mockito.verify(statement).setObject(6, 100L, Types.BIGINT);
+        Mockito.verify(statement).setObject(7, "user2", Types.VARCHAR);
+        Mockito.verify(statement).setNull(3, Types.BIGINT);
+        Mockito.verify(statement, Mockito.times(2)).addBatch();
+        Mockito.verify(statement).executeBatch(); // 2 rows: a single batch
+        Mockito.verify(statement).close();
+    }
+
+    @Test
+    public void testBatchInsertEmbeddedDb() throws Exception {
+        PropertiesUtil.getPropertiesMap().put(PROP_DB_FLAVOR, "MYSQL"); // same INSERT as for Postgres and SQL Server
+
+        try (Connection conn = DriverManager.getConnection("jdbc:derby:memory:testBatchInsert;create=true")) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE x_policy_ref_user (id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, guid VARCHAR(1024),"
+                        + " create_time TIMESTAMP, update_time TIMESTAMP, added_by_id BIGINT, upd_by_id BIGINT,"
+                        + " policy_id BIGINT NOT NULL, user_id BIGINT, user_name VARCHAR(767))");
+            }
+
+            Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+            Mockito.when(em.unwrap(Connection.class)).thenReturn(conn);
+
+            Date           now      = new Date();
+            int            rowCount = RangerBizUtil.BATCH_PERSIST_SIZE + 5; // more than one JDBC batch
+            List<Object[]> rows     = new ArrayList<>();
+
+            for (int i = 0; i < rowCount; i++) {
+                rows.add(new Object[] {now, now, i % 2 == 0 ? 1L : null, null, 10L, 100L + i, "user" + i});
+            }
+
+            XXPolicyRefUserDao dao = new XXPolicyRefUserDao(daoManager);
+
+            Assert.assertTrue(dao.batchInsert(COLUMNS, COLUMN_TYPES, rows));
+
+            try (Statement st = conn.createStatement();
+                    ResultSet rs = st.executeQuery("SELECT create_time, added_by_id, upd_by_id, policy_id, user_id, user_name FROM x_policy_ref_user ORDER BY user_id")) {
+                int i = 0;
+
+                while (rs.next()) {
+                    Assert.assertEquals(new Timestamp(now.getTime()), rs.getTimestamp(1));
+                    Assert.assertEquals(i % 2 == 0 ? 1L : 0L, rs.getLong(2));
+                    Assert.assertEquals(i % 2 != 0, rs.wasNull());
+                    Assert.assertNull(rs.getObject(3));
+                    Assert.assertEquals(10L, rs.getLong(4));
+                    Assert.assertEquals(100L + i, rs.getLong(5));
+                    Assert.assertEquals("user" + i, rs.getString(6));
+
+                    i++;
+                }
+
+                Assert.assertEquals(rowCount, i);
+            }
+        } finally {
+            try {
+                DriverManager.getConnection("jdbc:derby:memory:testBatchInsert;drop=true");
+            } catch (SQLException excp) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testBatchInsertOracle() throws Exception {
+        PropertiesUtil.getPropertiesMap().put(PROP_DB_FLAVOR, "ORACLE");
+
+        Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+        Mockito.when(em.unwrap(Connection.class)).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+
+        Date               now = new Date();
+        XXPolicyRefUserDao dao = new XXPolicyRefUserDao(daoManager);
+
+        Assert.assertTrue(dao.batchInsert(COLUMNS, COLUMN_TYPES, Collections.singletonList(new Object[] {now, now, 1L, 1L, 10L, 100L, "user1"})));
+
+        // id is assigned from the table's sequence
+        Mockito.verify(connection).prepareStatement("INSERT INTO x_policy_ref_user (id, create_time, update_time, added_by_id, upd_by_id, policy_id, user_id, user_name) VALUES (x_policy_ref_user_SEQ.NEXTVAL, ?, ?, ?, ?, ?, ?, ?)");
+        Mockito.verify(statement).executeBatch();
+    }
+
+    @Test
+    public void testBatchInsertUnsupportedDbFlavor() throws Exception {
+        PropertiesUtil.getPropertiesMap().put(PROP_DB_FLAVOR, "SQLANYWHERE");
+
+        Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+
+        Date               now = new Date();
+        XXPolicyRefUserDao dao = new XXPolicyRefUserDao(daoManager);
+
+        // caller should fall back to batchCreate()
+        Assert.assertFalse(dao.batchInsert(COLUMNS, COLUMN_TYPES, Collections.singletonList(new Object[] {now, now, 1L, 1L, 10L, 100L, "user1"})));
+
+        Mockito.verify(em, Mockito.never()).unwrap(Connection.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindIdsByNames() {
+        TypedQuery<Object[]> query = Mockito.mock(TypedQuery.class);
+
+        Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+        Mockito.when(em.createNamedQuery("XXUser.findIdsByNames", Object[].class)).thenReturn(query);
+        Mockito.when(query.setParameter(Mockito.eq("names"), Mockito.anyList())).thenReturn(query);
+        Mockito.when(query.getResultList()).thenReturn(Arrays.asList(new Object[] {"user0", 1L}, new Object[] {"user1", 2L}), Collections.singletonList(new Object[] {"user1200", 3L}));
+
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < 1500; i++) {
+            names.add("user" + i);
+        }
+
+        XXUserDao         dao = new XXUserDao(daoManager);
+        Map<String, Long> ret = dao.findIdsByNames("XXUser.findIdsByNames", names);
+
+        // names are queried in chunks of at most 1000
+        ArgumentCaptor<List> namesCaptor = ArgumentCaptor.forClass(List.class);
+
+        Mockito.verify(query, Mockito.times(2)).setParameter(Mockito.eq("names"), namesCaptor.capture());
+
+        Assert.assertEquals(1000, namesCaptor.getAllValues().get(0).size());
+        Assert.assertEquals(500, namesCaptor.getAllValues().get(1).size());
+        Assert.assertEquals(3, ret.size());
+        Assert.assertEquals(Long.valueOf(1L), ret.get("user0"));
+        Assert.assertEquals(Long.valueOf(2L), ret.get("user1"));
+        Assert.assertEquals(Long.valueOf(3L), ret.get("user1200"));
+        Assert.assertNull(ret.get("user2"));
+    }
+
+    @Test
+    public void testFindIdsByNamesEmpty() {
+        Mockito.when(daoManager.getEntityManager()).thenReturn(em);
+
+        XXUserDao dao = new XXUserDao(daoManager);
+
+        Assert.assertTrue(dao.findIdsByNames("XXUser.findIdsByNames", Collections.emptyList()).isEmpty());
+
+        Mockito.verify(em, Mockito.never()).createNamedQuery(Mockito.anyString(), Mockito.eq(Object[].class));
+    }
+}
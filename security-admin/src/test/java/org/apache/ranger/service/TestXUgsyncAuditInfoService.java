@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.service;
+
+import org.apache.ranger.common.JSONUtil;
+import org.apache.ranger.entity.XXUgsyncAuditInfo;
+import org.apache.ranger.view.VXFileSyncSourceInfo;
+import org.apache.ranger.view.VXUgsyncAuditInfo;
+import org.apache.ranger.view.VXUploadChunkInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+
+import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
+
+public class TestXUgsyncAuditInfoService {
+    private XUgsyncAuditInfoService xUgsyncAuditInfoService;
+
+    @Before
+    public void setUp() {
+        xUgsyncAuditInfoService = Mockito.spy(new XUgsyncAuditInfoService());
+
+        xUgsyncAuditInfoService.jsonUtil = new JSONUtil();
+
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(xUgsyncAuditInfoService).createResource(Mockito.any(VXUgsyncAuditInfo.class));
+    }
+
+    @Test
+    public void testUploadMetricsSavedInSyncSourceInfo() {
+        VXUgsyncAuditInfo vxUgsyncAuditInfo = createAuditInfo();
+
+        vxUgsyncAuditInfo.setNoOfUploadChunks(3L);
+        vxUgsyncAuditInfo.setNoOfFailedUploadChunks(1L);
+        vxUgsyncAuditInfo.setAvgUploadChunkTimeMs(20L);
+        vxUgsyncAuditInfo.setMaxUploadChunkTimeMs(40L);
+        vxUgsyncAuditInfo.setUploadChunks(Arrays.asList(createUploadChunkInfo("Users", 0, true), createUploadChunkInfo("Users", 10, true), createUploadChunkInfo("Users", 20, false)));
+
+        VXUgsyncAuditInfo created = xUgsyncAuditInfoService.createUgsyncAuditInfo(vxUgsyncAuditInfo);
+
+        Assert.assertEquals("file1", created.getSyncSourceInfo().get("fileName"));
+        Assert.assertEquals("3", created.getSyncSourceInfo().get("noOfUploadChunks"));
+        Assert.assertEquals("1", created.getSyncSourceInfo().get("noOfFailedUploadChunks"));
+        Assert.assertNotNull(created.getSyncSourceInfo().get("uploadChunks"));
+
+        XXUgsyncAuditInfo xxUgsyncAuditInfo = xUgsyncAuditInfoService.mapViewToEntityBean(created, new XXUgsyncAuditInfo(), OPERATION_CREATE_CONTEXT);
+        VXUgsyncAuditInfo ret               = xUgsyncAuditInfoService.mapEntityToViewBean(new VXUgsyncAuditInfo(), xxUgsyncAuditInfo);
+
+        Assert.assertEquals(Long.valueOf(3L), ret.getNoOfUploadChunks());
+        Assert.assertEquals(Long.valueOf(1L), ret.getNoOfFailedUploadChunks());
+        Assert.assertEquals(Long.valueOf(20L), ret.getAvgUploadChunkTimeMs());
+        Assert.assertEquals(Long.valueOf(40L), ret.getMaxUploadChunkTimeMs());
+        Assert.assertEquals(3, ret.getUploadChunks().size());
+        Assert.assertEquals(10, ret.getUploadChunks().get(1).getOffset());
+        Assert.assertFalse(ret.getUploadChunks().get(2).getIsSuccess());
+        Assert.assertFalse(ret.getSyncSourceInfo().containsKey("uploadChunks"));
+        Assert.assertEquals("file1", ret.getSyncSourceInfo().get("fileName"));
+    }
+
+    @Test
+    public void testNoUploadMetrics() {
+        VXUgsyncAuditInfo created = xUgsyncAuditInfoService.createUgsyncAuditInfo(createAuditInfo()); // as sent by older versions of usersync
+
+        Assert.assertFalse(created.getSyncSourceInfo().containsKey("noOfUploadChunks"));
+
+        XXUgsyncAuditInfo xxUgsyncAuditInfo = xUgsyncAuditInfoService.mapViewToEntityBean(created, new XXUgsyncAuditInfo(), OPERATION_CREATE_CONTEXT);
+        VXUgsyncAuditInfo ret               = xUgsyncAuditInfoService.mapEntityToViewBean(new VXUgsyncAuditInfo(), xxUgsyncAuditInfo);
+
+        Assert.assertNull(ret.getNoOfUploadChunks());
+        Assert.assertNull(ret.getUploadChunks());
+    }
+
+    private VXUgsyncAuditInfo createAuditInfo() {
+        VXUgsyncAuditInfo    ret                = new VXUgsyncAuditInfo();
+        VXFileSyncSourceInfo fileSyncSourceInfo = new VXFileSyncSourceInfo();
+
+        fileSyncSourceInfo.setFileName("file1");
+
+        ret.setSyncSource("File");
+        ret.setFileSyncSourceInfo(fileSyncSourceInfo);
+
+        return ret;
+    }
+
+    private VXUploadChunkInfo createUploadChunkInfo(String entityType, int offset, boolean isSuccess) {
+        VXUploadChunkInfo ret = new VXUploadChunkInfo();
+
+        ret.setEntityType(entityType);
+        ret.setOffset(offset);
+        ret.setNoOfRecords(10);
+        ret.setTimeTakenMs(20);
+        ret.setIsSuccess(isSuccess);
+
+        return ret;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.service.filter.RangerDownloadResponseFilter.JsonStreamingOutput;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRangerDownloadResponseFilter {
+    @Mock
+    ContainerRequest request;
+
+    @Mock
+    ContainerResponse response;
+
+    @Test
+    public void testStreamingOutput() throws Exception {
+        ServicePolicies policies = createServicePolicies();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new JsonStreamingOutput(policies, false).write(out);
+
+        Assert.assertEquals(JsonUtilsV2.objToJson(policies), out.toString("UTF-8"));
+
+        ByteArrayOutputStream gzipOut = new ByteArrayOutputStream();
+
+        new JsonStreamingOutput(policies, true).write(gzipOut);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipOut.toByteArray()))) {
+            ServicePolicies read = JsonUtilsV2.getMapper().readValue(in, ServicePolicies.class);
+
+            Assert.assertEquals(policies.getServiceName(), read.getServiceName());
+            Assert.assertEquals(policies.getPolicyVersion(), read.getPolicyVersion());
+            Assert.assertEquals(policies.getPolicies().size(), read.getPolicies().size());
+        }
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        when(request.getRequestHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(null, Collections.singletonList("gzip, deflate"), Collections.singletonList("deflate"), Collections.singletonList("deflate, gzip;q=0"), Collections.singletonList("GZIP;q=0.5"));
+
+        Assert.assertFalse(RangerDownloadResponseFilter.acceptsGzip(request));
+        Assert.assertTrue(RangerDownloadResponseFilter.acceptsGzip(request));
+        Assert.assertFalse(RangerDownloadResponseFilter.acceptsGzip(request));
+        Assert.assertFalse(RangerDownloadResponseFilter.acceptsGzip(request));
+        Assert.assertTrue(RangerDownloadResponseFilter.acceptsGzip(request));
+    }
+
+    @Test
+    public void testFilterDownloadResponse() {
+        OutBoundHeaders headers = new OutBoundHeaders();
+
+        when(response.getStatus()).thenReturn(200);
+        when(response.getEntity()).thenReturn(createServicePolicies());
+        when(response.getHttpHeaders()).thenReturn(headers);
+        when(request.getRequestHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(Collections.singletonList("gzip"));
+
+        new RangerDownloadResponseFilter().filter(request, response);
+
+        verify(response).setEntity(any(JsonStreamingOutput.class));
+        Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testFilterOtherResponse() {
+        when(response.getStatus()).thenReturn(200);
+        when(response.getEntity()).thenReturn(new RangerPolicy());
+
+        new RangerDownloadResponseFilter().filter(request, response);
+
+        verify(response, never()).setEntity(any());
+    }
+
+    private static ServicePolicies createServicePolicies() {
+        ServicePolicies ret    = new ServicePolicies();
+        RangerPolicy    policy = new RangerPolicy();
+
+        policy.setId(1L);
+        policy.setName("policy-1");
+        policy.setService("dev_hive");
+
+        ret.setServiceName("dev_hive");
+        ret.setPolicyVersion(10L);
+        ret.setPolicies(Collections.singletonList(policy));
+
+        return ret;
+    }
+}
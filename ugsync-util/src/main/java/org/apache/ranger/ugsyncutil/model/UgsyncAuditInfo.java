@@ -19,17 +19,24 @@
 
 package org.apache.ranger.ugsyncutil.model;
 
+import java.util.List;
+
 public class UgsyncAuditInfo {
-    private String             userName;
-    private Long               noOfNewUsers;
-    private Long               noOfNewGroups;
-    private Long               noOfModifiedUsers;
-    private Long               noOfModifiedGroups;
-    private String             syncSource;
-    private String             sessionId;
-    private LdapSyncSourceInfo ldapSyncSourceInfo;
-    private UnixSyncSourceInfo unixSyncSourceInfo;
-    private FileSyncSourceInfo fileSyncSourceInfo;
+    private String                userName;
+    private Long                  noOfNewUsers;
+    private Long                  noOfNewGroups;
+    private Long                  noOfModifiedUsers;
+    private Long                  noOfModifiedGroups;
+    private Long                  noOfUploadChunks;
+    private Long                  noOfFailedUploadChunks;
+    private Long                  avgUploadChunkTimeMs;
+    private Long                  maxUploadChunkTimeMs;
+    private List<UploadChunkInfo> uploadChunks;
+    private String                syncSource;
+    private String                sessionId;
+    private LdapSyncSourceInfo    ldapSyncSourceInfo;
+    private UnixSyncSourceInfo    unixSyncSourceInfo;
+    private FileSyncSourceInfo    fileSyncSourceInfo;
 
     public Long getNoOfNewUsers() {
         return noOfNewUsers;
@@ -95,6 +102,46 @@ public void setFileSyncSourceInfo(FileSyncSourceInfo fileSyncSourceInfo) {
         this.fileSyncSourceInfo = fileSyncSourceInfo;
     }
 
+    public Long getNoOfUploadChunks() {
+        return noOfUploadChunks;
+    }
+
+    public void setNoOfUploadChunks(Long noOfUploadChunks) {
+        this.noOfUploadChunks = noOfUploadChunks;
+    }
+
+    public Long getNoOfFailedUploadChunks() {
+        return noOfFailedUploadChunks;
+    }
+
+    public void setNoOfFailedUploadChunks(Long noOfFailedUploadChunks) {
+        this.noOfFailedUploadChunks = noOfFailedUploadChunks;
+    }
+
+    public Long getAvgUploadChunkTimeMs() {
+        return avgUploadChunkTimeMs;
+    }
+
+    public void setAvgUploadChunkTimeMs(Long avgUploadChunkTimeMs) {
+        this.avgUploadChunkTimeMs = avgUploadChunkTimeMs;
+    }
+
+    public Long getMaxUploadChunkTimeMs() {
+        return maxUploadChunkTimeMs;
+    }
+
+    public void setMaxUploadChunkTimeMs(Long maxUploadChunkTimeMs) {
+        this.maxUploadChunkTimeMs = maxUploadChunkTimeMs;
+    }
+
+    public List<UploadChunkInfo> getUploadChunks() {
+        return uploadChunks;
+    }
+
+    public void setUploadChunks(List<UploadChunkInfo> uploadChunks) {
+        this.uploadChunks = uploadChunks;
+    }
+
     public String getUserName() {
         return userName;
     }
@@ -123,6 +170,11 @@ public StringBuilder toString(StringBuilder sb) {
         sb.append(", No. of New groups= ").append(noOfNewGroups);
         sb.append(", No. of Modified users= ").append(noOfModifiedUsers);
         sb.append(", No. of Modified groups= ").append(noOfModifiedGroups);
+        sb.append(", No. of upload chunks= ").append(noOfUploadChunks);
+        sb.append(", No. of failed upload chunks= ").append(noOfFailedUploadChunks);
+        sb.append(", avg upload chunk time(ms)= ").append(avgUploadChunkTimeMs);
+        sb.append(", max upload chunk time(ms)= ").append(maxUploadChunkTimeMs);
+        sb.append(", upload chunks= ").append(uploadChunks);
         sb.append(", syncSource= ").append(syncSource);
         sb.append(", ldapSyncSourceInfo= ").append(ldapSyncSourceInfo);
         sb.append(", unixSyncSourceInfo= ").append(unixSyncSourceInfo);
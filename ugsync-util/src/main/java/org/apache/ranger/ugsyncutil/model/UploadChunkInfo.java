@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.ugsyncutil.model;
+
+public class UploadChunkInfo {
+    private String  entityType;
+    private int     offset;
+    private int     noOfRecords;
+    private long    timeTakenMs;
+    private boolean isSuccess;
+
+    public UploadChunkInfo() {
+    }
+
+    public UploadChunkInfo(String entityType, int offset, int noOfRecords, long timeTakenMs, boolean isSuccess) {
+        this.entityType  = entityType;
+        this.offset      = offset;
+        this.noOfRecords = noOfRecords;
+        this.timeTakenMs = timeTakenMs;
+        this.isSuccess   = isSuccess;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public int getNoOfRecords() {
+        return noOfRecords;
+    }
+
+    public void setNoOfRecords(int noOfRecords) {
+        this.noOfRecords = noOfRecords;
+    }
+
+    public long getTimeTakenMs() {
+        return timeTakenMs;
+    }
+
+    public void setTimeTakenMs(long timeTakenMs) {
+        this.timeTakenMs = timeTakenMs;
+    }
+
+    public boolean getIsSuccess() {
+        return isSuccess;
+    }
+
+    public void setIsSuccess(boolean isSuccess) {
+        this.isSuccess = isSuccess;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        toString(sb);
+        return sb.toString();
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        sb.append("UploadChunkInfo [entityType= ").append(entityType);
+        sb.append(", offset= ").append(offset);
+        sb.append(", noOfRecords= ").append(noOfRecords);
+        sb.append(", timeTakenMs= ").append(timeTakenMs);
+        sb.append(", isSuccess= ").append(isSuccess);
+        sb.append("]");
+        return sb;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.ldapusersync.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Group memberships read from LDAP in a sync cycle - i.e. members (DNs of users/groups, or user names) of each group.
+ *
+ * Names are mapped to int ids, and memberships are kept as int arrays in both directions - members of each group and
+ * groups of each member - along with a hash-set of long keys to ignore duplicate memberships. This takes a fraction
+ * of the memory needed for a table of names, which matters for directories with large number of nested groups.
+ *
+ * Instances are not thread-safe.
+ */
+final class LdapGroupMembershipGraph {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> ids          = new HashMap<>();
+    private final List<String>         names        = new ArrayList<>();
+    private final LongHashSet          memberships  = new LongHashSet();
+    private       int[][]              members      = new int[INITIAL_CAPACITY][];
+    private       int[]                memberCounts = new int[INITIAL_CAPACITY];
+    private       int[][]              groups       = new int[INITIAL_CAPACITY][];
+    private       int[]                groupCounts  = new int[INITIAL_CAPACITY];
+    private       int                  groupCount;
+
+    /*
+     * returns false if the member is already in the group
+     */
+    boolean addMember(String groupName, String memberName) {
+        int group  = getOrCreateId(groupName);
+        int member = getOrCreateId(memberName);
+
+        return addMember(group, member);
+    }
+
+    boolean isEmpty() {
+        return groupCount == 0;
+    }
+
+    boolean hasMembers(String groupName) {
+        Integer group = ids.get(groupName);
+
+        return group != null && memberCounts[group] > 0;
+    }
+
+    Set<String> getMembers(String groupName) {
+        Integer group = ids.get(groupName);
+
+        return group != null ? toNames(members[group], memberCounts[group]) : new HashSet<>();
+    }
+
+    Set<String> getGroups(String memberName) {
+        Integer member = ids.get(memberName);
+
+        return member != null ? toNames(groups[member], groupCounts[member]) : new HashSet<>();
+    }
+
+    Set<String> getGroupsWithMembers() {
+        Set<String> ret = new HashSet<>(groupCount);
+
+        for (int i = 0; i < names.size(); i++) {
+            if (memberCounts[i] > 0) {
+                ret.add(names.get(i));
+            }
+        }
+
+        return ret;
+    }
+
+    int getMembershipCount() {
+        return memberships.size();
+    }
+
+    /*
+     * adds users of each of the given groups to groups up to maxDepth levels above, i.e. to groups that contain the group
+     * as a member directly (depth 1) or via intermediate groups. Members that are groups themselves are not added, and
+     * only direct users of groups are propagated - so the result doesn't depend on the order of groups.
+     */
+    void addNestedMembers(Collection<String> groupNames, int maxDepth) {
+        if (maxDepth <= 0 || groupCount == 0) {
+            return;
+        }
+
+        int   nodeCount    = names.size();
+        int[] directCounts = Arrays.copyOf(memberCounts, nodeCount); // memberships are appended, so direct members are the first ones
+        int[] visitedBy    = new int[nodeCount];
+        int[] users        = new int[16];
+        int[] level        = new int[16];
+        int[] nextLevel    = new int[16];
+        int   visitId      = 0;
+
+        for (String groupName : groupNames) {
+            Integer group = ids.get(groupName);
+
+            if (group == null || directCounts[group] == 0) {
+                continue;
+            }
+
+            int userCount = 0;
+
+            for (int i = 0; i < directCounts[group]; i++) {
+                int member = members[group][i];
+
+                if (directCounts[member] == 0) { // not a group
+                    users = append(users, userCount++, member);
+                }
+            }
+
+            if (userCount == 0) {
+                continue;
+            }
+
+            int levelSize = 0;
+
+            visitId++;
+
+            visitedBy[group] = visitId;
+            level            = append(level, levelSize++, group);
+
+            for (int depth = 1; depth <= maxDepth && levelSize > 0; depth++) {
+                int nextLevelSize = 0;
+
+                for (int i = 0; i < levelSize; i++) {
+                    int   child       = level[i];
+                    int[] parents     = groups[child];
+                    int   parentCount = groupCounts[child];
+
+                    for (int j = 0; j < parentCount; j++) {
+                        int parent = parents[j];
+
+                        if (visitedBy[parent] == visitId) {
+                            continue;
+                        }
+
+                        visitedBy[parent] = visitId;
+                        nextLevel         = append(nextLevel, nextLevelSize++, parent);
+
+                        for (int k = 0; k < userCount; k++) {
+                            addMember(parent, users[k]);
+                        }
+                    }
+                }
+
+                int[] tmp = level;
+
+                level     = nextLevel;
+                nextLevel = tmp;
+                levelSize = nextLevelSize;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LdapGroupMembershipGraph={nodeCount=" + names.size() + ", groupCount=" + groupCount + ", membershipCount=" + memberships.size() + "}";
+    }
+
+    private int getOrCreateId(String name) {
+        Integer ret = ids.get(name);
+
+        if (ret == null) {
+            ret = names.size();
+
+            if (ret == memberCounts.length) {
+                int newCapacity = ret * 2;
+
+                members      = Arrays.copyOf(members, newCapacity);
+                memberCounts = Arrays.copyOf(memberCounts, newCapacity);
+                groups       = Arrays.copyOf(groups, newCapacity);
+                groupCounts  = Arrays.copyOf(groupCounts, newCapacity);
+            }
+
+            ids.put(name, ret);
+            names.add(name);
+        }
+
+        return ret;
+    }
+
+    private boolean addMember(int group, int member) {
+        boolean ret = memberships.add(((long) (group + 1) << Integer.SIZE) | member);
+
+        if (ret) {
+            if (memberCounts[group] == 0) {
+                groupCount++;
+            }
+
+            members[group] = append(members[group], memberCounts[group]++, member);
+            groups[member] = append(groups[member], groupCounts[member]++, group);
+        }
+
+        return ret;
+    }
+
+    private Set<String> toNames(int[] nodeIds, int count) {
+        Set<String> ret = new HashSet<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(names.get(nodeIds[i]));
+        }
+
+        return ret;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (array == null) {
+            array = new int[4];
+        } else if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+
+        array[size] = value;
+
+        return array;
+    }
+
+    /*
+     * open-addressing hash-set of non-zero long values
+     */
+    private static final class LongHashSet {
+        private long[] slots = new long[INITIAL_CAPACITY];
+        private int    size;
+
+        boolean add(long value) {
+            if ((size + 1) * 3 > slots.length * 2) {
+                rehash(slots.length * 2);
+            }
+
+            boolean ret = insert(slots, value);
+
+            if (ret) {
+                size++;
+            }
+
+            return ret;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void rehash(int newCapacity) {
+            long[] newSlots = new long[newCapacity];
+
+            for (long value : slots) {
+                if (value != 0) {
+                    insert(newSlots, value);
+                }
+            }
+
+            slots = newSlots;
+        }
+
+        private static boolean insert(long[] slots, long value) {
+            int mask = slots.length - 1;
+            int idx  = (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+
+            while (slots[idx] != 0) {
+                if (slots[idx] == value) {
+                    return false;
+                }
+
+                idx = (idx + 1) & mask;
+            }
+
+            slots[idx] = value;
+
+            return true;
+        }
+    }
+}
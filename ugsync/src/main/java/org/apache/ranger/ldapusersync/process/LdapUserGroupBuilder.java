@@ -19,10 +19,7 @@
 
 package org.apache.ranger.ldapusersync.process;
 
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.hadoop.thirdparty.com.google.common.collect.HashBasedTable;
-import org.apache.hadoop.thirdparty.com.google.common.collect.Table;
 import org.apache.ranger.ugsyncutil.model.LdapSyncSourceInfo;
 import org.apache.ranger.ugsyncutil.model.UgsyncAuditInfo;
 import org.apache.ranger.ugsyncutil.util.UgsyncCommonConstants;
@@ -50,9 +47,12 @@
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -60,8 +60,16 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LdapUserGroupBuilder implements UserGroupSource {
     private static final Logger LOG = LoggerFactory.getLogger(LdapUserGroupBuilder.class);
@@ -85,6 +93,8 @@ public class LdapUserGroupBuilder implements UserGroupSource {
     private boolean groupSearchEnabled      = true;
     private int     pagedResultsSize        = PAGE_SIZE;
     private int     groupHierarchyLevels;
+    private int     groupHierarchyBatchSize;
+    private int     ldapSearchThreads;
     private int     deleteCycles;
     private int     userSearchScope;
     private int     groupSearchScope;
@@ -119,11 +129,11 @@ public class LdapUserGroupBuilder implements UserGroupSource {
     private Set<String>    userGroupNameAttributeSet;
     private Set<String>    otherUserAttributes;
     private Set<String>    otherGroupAttributes;
-    private LdapContext    ldapContext;
     private SearchControls userSearchControls;
     private SearchControls groupSearchControls;
 
-    private Table<String, String, String> groupUserTable;
+    /* members of each group: DNs of users and groups, or user names */
+    private LdapGroupMembershipGraph groupMembers;
 
     /* { key = user DN, value = map of user attributes {original name, DN, etc.}} */
     private Map<String, Map<String, String>> sourceUsers;
@@ -134,7 +144,6 @@ public class LdapUserGroupBuilder implements UserGroupSource {
     /* { key = group DN, value = set of user DNs (members) } */
     private Map<String, Set<String>> sourceGroupUsers;
 
-    StartTlsResponse   tls;
     UgsyncAuditInfo    ugsyncAuditInfo;
     LdapSyncSourceInfo ldapSyncSourceInfo;
 
@@ -183,7 +192,7 @@ public void updateSink(UserGroupSink sink) throws Throwable {
 
         boolean computeDeletes = false;
 
-        groupUserTable   = HashBasedTable.create();
+        groupMembers     = new LdapGroupMembershipGraph();
         sourceGroups     = new HashMap<>();
         sourceUsers      = new HashMap<>();
         sourceGroupUsers = new HashMap<>();
@@ -215,24 +224,17 @@ public void updateSink(UserGroupSink sink) throws Throwable {
         if (groupHierarchyLevels > 0) {
             LOG.info("Going through group hierarchy for nested group evaluation");
 
-            Set<String> groupFullNames = sourceGroups.keySet();
+            groupMembers.addNestedMembers(sourceGroups.keySet(), groupHierarchyLevels - 1);
 
-            for (String group : groupFullNames) {
-                Set<String> nextLevelGroups = groupUserTable.column(group).keySet();
-
-                goUpGroupHierarchy(nextLevelGroups, groupHierarchyLevels - 1, group);
-            }
-
-            LOG.info("Completed group hierarchy computation");
+            LOG.info("Completed group hierarchy computation: {}", groupMembers);
         }
 
-        for (String groupName : groupUserTable.rowKeySet()) {
-            Map<String, String> groupUsersMap = groupUserTable.row(groupName);
-            Set<String>         userSet       = new HashSet<>();
+        for (String groupName : groupMembers.getGroupsWithMembers()) {
+            Set<String> userSet = new HashSet<>();
 
-            for (Map.Entry<String, String> entry : groupUsersMap.entrySet()) {
-                if (sourceUsers.containsKey(entry.getValue())) {
-                    userSet.add(entry.getValue());
+            for (String member : groupMembers.getMembers(groupName)) {
+                if (sourceUsers.containsKey(member)) {
+                    userSet.add(member);
                 }
             }
 
@@ -280,7 +282,7 @@ public void updateSink(UserGroupSink sink) throws Throwable {
         }
     }
 
-    private void createLdapContext() throws Throwable {
+    private LdapConnection createLdapConnection() throws NamingException, IOException {
         Properties env = new Properties();
 
         env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
@@ -318,7 +320,8 @@ private void createLdapContext() throws Throwable {
             }
         }
 
-        ldapContext = new InitialLdapContext(env, null);
+        LdapContext      ldapContext = new InitialLdapContext(env, null);
+        StartTlsResponse tls         = null;
 
         if (!ldapUrl.startsWith("ldaps")) {
             if (config.isStartTlsEnabled()) {
@@ -338,6 +341,8 @@ private void createLdapContext() throws Throwable {
         ldapContext.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
         ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
         ldapContext.addToEnvironment(Context.REFERRAL, ldapReferral);
+
+        return new LdapConnection(ldapContext, tls);
     }
 
     private void setConfig() throws Throwable {
@@ -386,6 +391,8 @@ private void setConfig() throws Throwable {
         groupNameAttribute       = config.getGroupNameAttribute();
         groupCloudIdAttribute    = config.getGroupCloudIdAttribute();
         groupHierarchyLevels     = config.getGroupHierarchyLevels();
+        groupHierarchyBatchSize  = config.getGroupHierarchyBatchSize();
+        ldapSearchThreads        = config.getLdapSearchThreads();
         extendedGroupSearchFilter = "(&" + extendedGroupSearchFilter + "(|(" + groupMemberAttributeName + "={0})(" + groupMemberAttributeName + "={1})))";
 
         groupSearchControls = new SearchControls();
@@ -439,477 +446,378 @@ private void setConfig() throws Throwable {
         }
 
         LOG.info("LdapUserGroupBuilder initialization completed with --  " +
-                "ldapUrl: {},  ldapBindDn: {},  ldapBindPassword: ***** ,  ldapAuthenticationMechanism: {},  searchBase: {},  userSearchBase: {},  userSearchScope: {},  userObjectClass: {},  userSearchFilter: {},  extendedUserSearchFilter: {},  userNameAttribute: {},  userSearchAttributes: {},  userGroupNameAttributeSet: {},  otherUserAttributes: {},  pagedResultsEnabled: {},  pagedResultsSize: {},  groupSearchEnabled: {},  groupSearchBase: {},  groupSearchScope: {},  groupObjectClass: {},  groupSearchFilter: {},  extendedGroupSearchFilter: {},  extendedAllGroupsSearchFilter: {},  groupMemberAttributeName: {},  groupNameAttribute: {},  groupSearchAttributes: {},  groupSearchFirstEnabled: {},  userSearchEnabled: {},  ldapReferral: {}",
-                ldapUrl, ldapBindDn, ldapAuthenticationMechanism, searchBase, Arrays.toString(userSearchBase), userSearchScope, userObjectClass, userSearchFilter, extendedUserSearchFilter, userNameAttribute, userSearchAttributes, userGroupNameAttributeSet, otherUserAttributes, pagedResultsEnabled, pagedResultsSize, groupSearchEnabled, Arrays.toString(groupSearchBase), groupSearchScope, groupObjectClass, groupSearchFilter, extendedGroupSearchFilter, extendedAllGroupsSearchFilter, groupMemberAttributeName, groupNameAttribute, groupSearchAttributes, groupSearchFirstEnabled, userSearchEnabled, ldapReferral);
+                "ldapUrl: {},  ldapBindDn: {},  ldapBindPassword: ***** ,  ldapAuthenticationMechanism: {},  searchBase: {},  userSearchBase: {},  userSearchScope: {},  userObjectClass: {},  userSearchFilter: {},  extendedUserSearchFilter: {},  userNameAttribute: {},  userSearchAttributes: {},  userGroupNameAttributeSet: {},  otherUserAttributes: {},  pagedResultsEnabled: {},  pagedResultsSize: {},  groupSearchEnabled: {},  groupSearchBase: {},  groupSearchScope: {},  groupObjectClass: {},  groupSearchFilter: {},  extendedGroupSearchFilter: {},  extendedAllGroupsSearchFilter: {},  groupMemberAttributeName: {},  groupNameAttribute: {},  groupSearchAttributes: {},  groupSearchFirstEnabled: {},  userSearchEnabled: {},  ldapReferral: {},  groupHierarchyBatchSize: {},  ldapSearchThreads: {}",
+                ldapUrl, ldapBindDn, ldapAuthenticationMechanism, searchBase, Arrays.toString(userSearchBase), userSearchScope, userObjectClass, userSearchFilter, extendedUserSearchFilter, userNameAttribute, userSearchAttributes, userGroupNameAttributeSet, otherUserAttributes, pagedResultsEnabled, pagedResultsSize, groupSearchEnabled, Arrays.toString(groupSearchBase), groupSearchScope, groupObjectClass, groupSearchFilter, extendedGroupSearchFilter, extendedAllGroupsSearchFilter, groupMemberAttributeName, groupNameAttribute, groupSearchAttributes, groupSearchFirstEnabled, userSearchEnabled, ldapReferral, groupHierarchyBatchSize, ldapSearchThreads);
     }
 
-    private void closeLdapContext() throws Throwable {
-        if (tls != null) {
-            tls.close();
-        }
+    /*
+     * searches each of the given search bases with each of the given filters, and calls the handler for every entry found.
+     *
+     * With more than one search thread configured, the searches run concurrently - each on an LdapContext from a pool of
+     * up to ldapSearchThreads contexts - while calls to the handler are serialized, so that handlers can update the
+     * collections of this builder without further synchronization. Failure of a search is logged and doesn't stop the
+     * other searches.
+     */
+    private void search(String caller, String[] searchBases, List<String> filters, SearchControls searchControls, SearchResultHandler handler) throws Throwable {
+        int searchCount = searchBases.length * filters.size();
+        int threadCount = Math.min(ldapSearchThreads, searchCount);
 
-        if (ldapContext != null) {
-            ldapContext.close();
-        }
-    }
+        LOG.debug("==> LdapUserGroupBuilder.search(caller={}, searchBases={}, filterCount={}, threadCount={})", caller, searchBases.length, filters.size(), threadCount);
 
-    private long getUsers(boolean computeDeletes) throws Throwable {
-        NamingEnumeration<SearchResult> userSearchResultEnum  = null;
-        NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-        long                            highestdeltaSyncUserTime;
+        if (threadCount <= 1) {
+            LdapConnection connection = createLdapConnection();
 
-        try {
-            createLdapContext();
-
-            int total;
-
-            // Activate paged results
-            if (pagedResultsEnabled) {
-                ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL)});
-            }
-
-            DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-
-            if (!groupUserTable.rowKeySet().isEmpty() || !config.isDeltaSyncEnabled() || (computeDeletes)) {
-                // Fix RANGER-1957: Perform full sync when there are updates to the groups or when incremental sync is not enabled
-                deltaSyncUserTime      = 0;
-                deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
-            }
-
-            extendedUserSearchFilter = "(objectclass=" + userObjectClass + ")(|(uSNChanged>=" + deltaSyncUserTime + ")(modifyTimestamp>=" + deltaSyncUserTimeStamp + "Z))";
-
-            if (userSearchFilter != null && !userSearchFilter.trim().isEmpty()) {
-                String customFilter = userSearchFilter.trim();
-
-                if (!customFilter.startsWith("(")) {
-                    customFilter = "(" + customFilter + ")";
+            try {
+                for (String filter : filters) {
+                    for (String searchBase : searchBases) {
+                        search(caller, connection.ldapContext, searchBase, filter, searchControls, handler);
+                    }
                 }
-
-                extendedUserSearchFilter = "(&" + extendedUserSearchFilter + customFilter + ")";
-            } else {
-                extendedUserSearchFilter = "(&" + extendedUserSearchFilter + ")";
+            } finally {
+                connection.close();
             }
+        } else {
+            Queue<LdapConnection> idleConnections = new ConcurrentLinkedQueue<>();
+            Queue<LdapConnection> allConnections  = new ConcurrentLinkedQueue<>();
+            AtomicInteger         threadIdx       = new AtomicInteger();
+            ExecutorService       executor        = Executors.newFixedThreadPool(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, "ranger-ugsync-ldap-search-" + threadIdx.incrementAndGet());
 
-            LOG.info("extendedUserSearchFilter = {}", extendedUserSearchFilter);
-
-            highestdeltaSyncUserTime = deltaSyncUserTime;
-
-            // When multiple OUs are configured, go through each OU as the user search base to search for users.
-            for (String s : userSearchBase) {
-                byte[] cookie  = null;
-                int    counter = 0;
-
-                try {
-                    int paged = 0;
-
-                    do {
-                        userSearchResultEnum = ldapContext.search(s, extendedUserSearchFilter, userSearchControls);
-
-                        while (userSearchResultEnum.hasMore()) {
-                            // searchResults contains all the user entries
-                            final SearchResult userEntry = userSearchResultEnum.next();
-
-                            if (userEntry == null)  {
-                                LOG.info("userEntry null, skipping sync for the entry");
-                                continue;
-                            }
+                thread.setDaemon(true);
 
-                            Attributes attributes = userEntry.getAttributes();
+                return thread;
+            });
 
-                            if (attributes == null)  {
-                                LOG.info("attributes  missing for entry {}, skipping sync", userEntry.getNameInNamespace());
-                                continue;
-                            }
+            try {
+                List<Future<?>> futures = new ArrayList<>(searchCount);
 
-                            Attribute userNameAttr = attributes.get(userNameAttribute);
+                for (String filter : filters) {
+                    for (String searchBase : searchBases) {
+                        futures.add(executor.submit(() -> {
+                            LdapConnection connection = idleConnections.poll();
 
-                            if (userNameAttr == null)  {
-                                LOG.info("{} missing for entry {}, skipping sync", userNameAttribute, userEntry.getNameInNamespace());
-                                continue;
-                            }
+                            if (connection == null) {
+                                connection = createLdapConnection();
 
-                            String userFullName = (userEntry.getNameInNamespace());
-                            String userName     = (String) userNameAttr.get();
-
-                            if (userName == null || userName.trim().isEmpty())  {
-                                LOG.info("{} empty for entry {}, skipping sync", userNameAttribute, userEntry.getNameInNamespace());
-                                continue;
+                                allConnections.add(connection);
                             }
 
-                            Attribute timeStampAttr = attributes.get("uSNChanged");
-
-                            if (timeStampAttr != null) {
-                                String uSNChangedVal        = (String) timeStampAttr.get();
-                                long   currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
-
-                                LOG.info("uSNChangedVal = {} and currentDeltaSyncTime = {}", uSNChangedVal, currentDeltaSyncTime);
-
-                                if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-                                    highestdeltaSyncUserTime = currentDeltaSyncTime;
-                                }
-                            } else {
-                                timeStampAttr = attributes.get("modifytimestamp");
-
-                                if (timeStampAttr != null) {
-                                    String timeStampVal         = (String) timeStampAttr.get();
-                                    Date   parseDate            = dateFormat.parse(timeStampVal);
-                                    long   currentDeltaSyncTime = parseDate.getTime();
-
-                                    LOG.info("timeStampVal = {} and currentDeltaSyncTime = {}", timeStampVal, currentDeltaSyncTime);
-
-                                    if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-                                        highestdeltaSyncUserTime = currentDeltaSyncTime;
-                                        deltaSyncUserTimeStamp   = timeStampVal;
-                                    }
-                                }
+                            try {
+                                search(caller, connection.ldapContext, searchBase, filter, searchControls, handler);
+                            } finally {
+                                idleConnections.add(connection);
                             }
 
-                            // Get all the groups from the group name attribute of the user only when group search is not enabled.
-                            if (!groupSearchEnabled) {
-                                for (String useGroupNameAttribute : userGroupNameAttributeSet) {
-                                    Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
-
-                                    if (userGroupfAttribute != null) {
-                                        NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
-
-                                        while (groupEnum.hasMore()) {
-                                            String groupDN = (String) groupEnum.next();
-
-                                            LOG.debug("Adding {} to {}", groupDN, userName);
-
-                                            Map<String, String> groupAttrMap = new HashMap<>();
-                                            String              groupName    = getShortName(groupDN);
-
-                                            groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, groupName);
-                                            groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupDN);
-                                            groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                                            groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
-
-                                            sourceGroups.put(groupDN, groupAttrMap);
+                            return null;
+                        }));
+                    }
+                }
 
-                                            LOG.debug("As groupsearch is disabled, adding group {} from user memberof attribute for user {}", groupName, userName);
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException excp) {
+                        throw excp.getCause();
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
 
-                                            groupUserTable.put(groupDN, userFullName, userFullName);
-                                        }
-                                    }
-                                }
-                            }
+                for (LdapConnection connection : allConnections) {
+                    connection.close();
+                }
+            }
+        }
 
-                            Map<String, String> userAttrMap = new HashMap<>();
+        LOG.debug("<== LdapUserGroupBuilder.search(caller={}, searchBases={}, filterCount={}, threadCount={})", caller, searchBases.length, filters.size(), threadCount);
+    }
 
-                            userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
-                            userAttrMap.put(UgsyncCommonConstants.FULL_NAME, userFullName);
-                            userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                            userAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
+    private void search(String caller, LdapContext ldapContext, String searchBase, String filter, SearchControls searchControls, SearchResultHandler handler) {
+        NamingEnumeration<SearchResult> searchResultEnum = null;
+        int                             counter          = 0;
 
-                            Attribute userCloudIdAttr = attributes.get(userCloudIdAttribute);
+        try {
+            byte[] cookie;
+            int    paged = 0;
 
-                            if (userCloudIdAttr != null) {
-                                addToAttrMap(userAttrMap, "cloud_id", userCloudIdAttr, config.getUserCloudIdAttributeDataType());
-                            }
+            // Activate paged results
+            if (pagedResultsEnabled) {
+                ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL)});
+            }
 
-                            for (String otherUserAttribute : otherUserAttributes) {
-                                if (attributes.get(otherUserAttribute) != null) {
-                                    String attrType = config.getOtherUserAttributeDataType(otherUserAttribute);
+            do {
+                searchResultEnum = ldapContext.search(searchBase, filter, searchControls);
 
-                                    addToAttrMap(userAttrMap, otherUserAttribute, attributes.get(otherUserAttribute), attrType);
-                                }
-                            }
+                while (searchResultEnum.hasMore()) {
+                    final SearchResult entry = searchResultEnum.next();
 
-                            sourceUsers.put(userFullName, userAttrMap);
+                    if (entry == null) {
+                        LOG.info("entry null, skipping sync for the entry");
+                        continue;
+                    }
 
-                            if ((groupUserTable.containsColumn(userFullName) || groupUserTable.containsColumn(userName))) {
-                                Map<String, String> userMap = groupUserTable.column(userFullName);
+                    counter++;
 
-                                if (MapUtils.isEmpty(userMap)) {
-                                    userMap = groupUserTable.column(userName);
-                                }
+                    synchronized (this) {
+                        handler.process(entry);
+                    }
+                }
 
-                                for (Map.Entry<String, String> entry : userMap.entrySet()) {
-                                    LOG.debug("Updating groupUserTable {} with: {} for {}", entry.getValue(), userName, entry.getKey());
+                searchResultEnum.close();
 
-                                    groupUserTable.put(entry.getKey(), userFullName, userFullName);
-                                }
-                            }
+                searchResultEnum = null;
+                cookie           = null;
 
-                            counter++;
+                // Examine the paged results control response
+                Control[] controls = ldapContext.getResponseControls();
 
-                            if (counter <= 2000) {
-                                LOG.info("Updating user count: {}, userName: {}", counter, userName);
+                if (controls != null) {
+                    for (Control control : controls) {
+                        if (control instanceof PagedResultsResponseControl) {
+                            PagedResultsResponseControl prrc  = (PagedResultsResponseControl) control;
+                            int                         total = prrc.getResultSize();
 
-                                if (counter == 2000) {
-                                    LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
-                                }
+                            if (total != 0) {
+                                LOG.debug("END-OF-PAGE total : {}", total);
                             } else {
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace("Updating user count: {}, userName: {}", counter, userName);
-                                } else if (counter % 100 == 0) {
-                                    LOG.info("Synced {} users till now", counter);
-                                }
+                                LOG.debug("END-OF-PAGE total : unknown");
                             }
-                        }
-
-                        // Examine the paged results control response
-                        Control[] controls = ldapContext.getResponseControls();
-
-                        if (controls != null) {
-                            for (Control control : controls) {
-                                if (control instanceof PagedResultsResponseControl) {
-                                    PagedResultsResponseControl prrc = (PagedResultsResponseControl) control;
 
-                                    total = prrc.getResultSize();
-
-                                    if (total != 0) {
-                                        LOG.debug("END-OF-PAGE total : {}", total);
-                                    } else {
-                                        LOG.debug("END-OF-PAGE total : unknown");
-                                    }
-
-                                    cookie = prrc.getCookie();
-                                }
-                            }
-                        } else {
-                            LOG.debug("No controls were sent from the server");
-                        }
-
-                        // Re-activate paged results
-                        if (pagedResultsEnabled) {
-                            LOG.debug("Fetched paged results round: {}", ++paged);
-
-                            ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL)});
+                            cookie = prrc.getCookie();
                         }
                     }
-                    while (cookie != null);
+                } else {
+                    LOG.debug("No controls were sent from the server");
+                }
 
-                    LOG.info("LdapUserGroupBuilder.getUsers() completed with user count: {}", counter);
-                } catch (Exception t) {
-                    LOG.error("LdapUserGroupBuilder.getUsers() failed with exception: ", t);
-                    LOG.info("LdapUserGroupBuilder.getUsers() user count: {}", counter);
+                // Re-activate paged results
+                if (pagedResultsEnabled) {
+                    LOG.debug("Fetched paged results round: {}", ++paged);
+
+                    ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL)});
                 }
             }
-        } finally {
-            if (userSearchResultEnum != null) {
-                userSearchResultEnum.close();
-            }
+            while (cookie != null);
 
-            if (groupSearchResultEnum != null) {
-                groupSearchResultEnum.close();
+            LOG.info("LdapUserGroupBuilder.{}() completed search of {} with entry count: {}", caller, searchBase, counter);
+        } catch (Exception t) {
+            LOG.error("LdapUserGroupBuilder.{}() failed with exception: ", caller, t);
+            LOG.info("LdapUserGroupBuilder.{}() search of {} entry count: {}", caller, searchBase, counter);
+        } finally {
+            if (searchResultEnum != null) {
+                try {
+                    searchResultEnum.close();
+                } catch (NamingException excp) {
+                    LOG.warn("LdapUserGroupBuilder.{}(): failed to close search results", caller, excp);
+                }
             }
-
-            closeLdapContext();
         }
-
-        LOG.debug("highestDeltaSyncUserTime = {}", highestdeltaSyncUserTime);
-
-        return highestdeltaSyncUserTime;
     }
 
-    private long getGroups(boolean computeDeletes) throws Throwable {
-        NamingEnumeration<SearchResult> groupSearchResultEnum     = null;
-        DateFormat                      dateFormat                = new SimpleDateFormat(DATE_FORMAT);
-        long                            highestdeltaSyncGroupTime = deltaSyncGroupTime;
+    private long getUsers(boolean computeDeletes) throws Throwable {
+        DateFormat    dateFormat               = new SimpleDateFormat(DATE_FORMAT);
+        AtomicInteger counter                  = new AtomicInteger();
+        AtomicLong    highestdeltaSyncUserTime = new AtomicLong();
+
+        if (!groupMembers.isEmpty() || !config.isDeltaSyncEnabled() || (computeDeletes)) {
+            // Fix RANGER-1957: Perform full sync when there are updates to the groups or when incremental sync is not enabled
+            deltaSyncUserTime      = 0;
+            deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
+        }
 
-        try {
-            createLdapContext();
+        extendedUserSearchFilter = "(objectclass=" + userObjectClass + ")(|(uSNChanged>=" + deltaSyncUserTime + ")(modifyTimestamp>=" + deltaSyncUserTimeStamp + "Z))";
 
-            int total;
+        if (userSearchFilter != null && !userSearchFilter.trim().isEmpty()) {
+            String customFilter = userSearchFilter.trim();
 
-            // Activate paged results
-            if (pagedResultsEnabled) {
-                ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL)});
+            if (!customFilter.startsWith("(")) {
+                customFilter = "(" + customFilter + ")";
             }
 
-            extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
+            extendedUserSearchFilter = "(&" + extendedUserSearchFilter + customFilter + ")";
+        } else {
+            extendedUserSearchFilter = "(&" + extendedUserSearchFilter + ")";
+        }
 
-            if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
-                String customFilter = groupSearchFilter.trim();
+        LOG.info("extendedUserSearchFilter = {}", extendedUserSearchFilter);
 
-                if (!customFilter.startsWith("(")) {
-                    customFilter = "(" + customFilter + ")";
-                }
+        highestdeltaSyncUserTime.set(deltaSyncUserTime);
 
-                extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
-            }
+        // When multiple OUs are configured, go through each OU as the user search base to search for users.
+        search("getUsers", userSearchBase, Collections.singletonList(extendedUserSearchFilter), userSearchControls, userEntry -> processUser(userEntry, dateFormat, highestdeltaSyncUserTime, counter));
 
-            if (!config.isDeltaSyncEnabled() || (computeDeletes)) {
-                // Perform full sync when incremental sync is not enabled
-                deltaSyncGroupTime      = 0;
-                deltaSyncGroupTimeStamp = dateFormat.format(new Date(0));
-            }
+        LOG.info("LdapUserGroupBuilder.getUsers() completed with user count: {}", counter.get());
 
-            extendedAllGroupsSearchFilter = "(&" + extendedGroupSearchFilter + "(|(uSNChanged>=" + deltaSyncGroupTime + ")(modifyTimestamp>=" + deltaSyncGroupTimeStamp + "Z)))";
+        LOG.debug("highestDeltaSyncUserTime = {}", highestdeltaSyncUserTime.get());
 
-            LOG.info("extendedAllGroupsSearchFilter = {}", extendedAllGroupsSearchFilter);
+        return highestdeltaSyncUserTime.get();
+    }
 
-            for (String s : groupSearchBase) {
-                byte[] cookie  = null;
-                int    counter = 0;
+    private void processUser(SearchResult userEntry, DateFormat dateFormat, AtomicLong highestdeltaSyncUserTime, AtomicInteger counter) throws Exception {
+        Attributes attributes = userEntry.getAttributes();
 
-                try {
-                    int paged = 0;
+        if (attributes == null)  {
+            LOG.info("attributes  missing for entry {}, skipping sync", userEntry.getNameInNamespace());
+            return;
+        }
 
-                    do {
-                        groupSearchResultEnum = ldapContext.search(s, extendedAllGroupsSearchFilter, groupSearchControls);
+        Attribute userNameAttr = attributes.get(userNameAttribute);
 
-                        while (groupSearchResultEnum.hasMore()) {
-                            final SearchResult groupEntry = groupSearchResultEnum.next();
+        if (userNameAttr == null)  {
+            LOG.info("{} missing for entry {}, skipping sync", userNameAttribute, userEntry.getNameInNamespace());
+            return;
+        }
 
-                            if (groupEntry == null) {
-                                LOG.info("groupEntry null, skipping sync for the entry");
-                                continue;
-                            }
+        String userFullName = (userEntry.getNameInNamespace());
+        String userName     = (String) userNameAttr.get();
 
-                            counter++;
+        if (userName == null || userName.trim().isEmpty())  {
+            LOG.info("{} empty for entry {}, skipping sync", userNameAttribute, userEntry.getNameInNamespace());
+            return;
+        }
 
-                            Attributes attributes    = groupEntry.getAttributes();
-                            Attribute  groupNameAttr = attributes.get(groupNameAttribute);
+        Attribute timeStampAttr = attributes.get("uSNChanged");
 
-                            if (groupNameAttr == null) {
-                                LOG.info("{} empty for entry {}, skipping sync", groupNameAttribute, groupEntry.getNameInNamespace());
-                                continue;
-                            }
+        if (timeStampAttr != null) {
+            String uSNChangedVal        = (String) timeStampAttr.get();
+            long   currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
 
-                            String              groupFullName = (groupEntry.getNameInNamespace());
-                            String              gName         = (String) groupNameAttr.get();
-                            Map<String, String> groupAttrMap  = new HashMap<>();
+            LOG.info("uSNChangedVal = {} and currentDeltaSyncTime = {}", uSNChangedVal, currentDeltaSyncTime);
 
-                            groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, gName);
-                            groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupFullName);
-                            groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                            groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
+            if (currentDeltaSyncTime > highestdeltaSyncUserTime.get()) {
+                highestdeltaSyncUserTime.set(currentDeltaSyncTime);
+            }
+        } else {
+            timeStampAttr = attributes.get("modifytimestamp");
 
-                            Attribute groupCloudIdAttr = attributes.get(groupCloudIdAttribute);
+            if (timeStampAttr != null) {
+                String timeStampVal         = (String) timeStampAttr.get();
+                Date   parseDate            = dateFormat.parse(timeStampVal);
+                long   currentDeltaSyncTime = parseDate.getTime();
 
-                            if (groupCloudIdAttr != null) {
-                                addToAttrMap(groupAttrMap, "cloud_id", groupCloudIdAttr, config.getGroupCloudIdAttributeDataType());
-                            }
+                LOG.info("timeStampVal = {} and currentDeltaSyncTime = {}", timeStampVal, currentDeltaSyncTime);
 
-                            for (String otherGroupAttribute : otherGroupAttributes) {
-                                if (attributes.get(otherGroupAttribute) != null) {
-                                    String attrType = config.getOtherGroupAttributeDataType(otherGroupAttribute);
+                if (currentDeltaSyncTime > highestdeltaSyncUserTime.get()) {
+                    highestdeltaSyncUserTime.set(currentDeltaSyncTime);
+                    deltaSyncUserTimeStamp = timeStampVal;
+                }
+            }
+        }
 
-                                    addToAttrMap(groupAttrMap, otherGroupAttribute, attributes.get(otherGroupAttribute), attrType);
-                                }
-                            }
+        // Get all the groups from the group name attribute of the user only when group search is not enabled.
+        if (!groupSearchEnabled) {
+            for (String useGroupNameAttribute : userGroupNameAttributeSet) {
+                Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
 
-                            sourceGroups.put(groupFullName, groupAttrMap);
+                if (userGroupfAttribute != null) {
+                    NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
 
-                            Attribute timeStampAttr = attributes.get("uSNChanged");
-                            if (timeStampAttr != null) {
-                                String uSNChangedVal        = (String) timeStampAttr.get();
-                                long   currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
+                    while (groupEnum.hasMore()) {
+                        String groupDN = (String) groupEnum.next();
 
-                                if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-                                    highestdeltaSyncGroupTime = currentDeltaSyncTime;
-                                }
-                            } else {
-                                timeStampAttr = attributes.get("modifytimestamp");
+                        LOG.debug("Adding {} to {}", groupDN, userName);
 
-                                if (timeStampAttr != null) {
-                                    String timeStampVal         = (String) timeStampAttr.get();
-                                    Date   parseDate            = dateFormat.parse(timeStampVal);
-                                    long   currentDeltaSyncTime = parseDate.getTime();
+                        Map<String, String> groupAttrMap = new HashMap<>();
+                        String              groupName    = getShortName(groupDN);
 
-                                    LOG.info("timeStampVal = {} and currentDeltaSyncTime = {}", timeStampVal, currentDeltaSyncTime);
+                        groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, groupName);
+                        groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupDN);
+                        groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+                        groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
 
-                                    if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-                                        highestdeltaSyncGroupTime = currentDeltaSyncTime;
-                                        deltaSyncGroupTimeStamp   = timeStampVal;
-                                    }
-                                }
-                            }
+                        sourceGroups.put(groupDN, groupAttrMap);
 
-                            Attribute groupMemberAttr = attributes.get(groupMemberAttributeName);
-                            int       userCount       = 0;
+                        LOG.debug("As groupsearch is disabled, adding group {} from user memberof attribute for user {}", groupName, userName);
 
-                            if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-                                try {
-                                    LOG.info("No members available for {}", gName);
-                                } catch (Exception e) {
-                                    throw new RuntimeException(e);
-                                }
+                        groupMembers.addMember(groupDN, userFullName);
+                    }
+                }
+            }
+        }
 
-                                sourceGroupUsers.put(groupFullName, new HashSet<>());
-                                continue;
-                            }
+        Map<String, String> userAttrMap = new HashMap<>();
 
-                            NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+        userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
+        userAttrMap.put(UgsyncCommonConstants.FULL_NAME, userFullName);
+        userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+        userAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
 
-                            while (userEnum.hasMore()) {
-                                String originalUserFullName = (String) userEnum.next();
+        Attribute userCloudIdAttr = attributes.get(userCloudIdAttribute);
 
-                                if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-                                    sourceGroupUsers.put(groupFullName, new HashSet<>());
-                                    continue;
-                                }
+        if (userCloudIdAttr != null) {
+            addToAttrMap(userAttrMap, "cloud_id", userCloudIdAttr, config.getUserCloudIdAttributeDataType());
+        }
 
-                                userCount++;
+        for (String otherUserAttribute : otherUserAttributes) {
+            if (attributes.get(otherUserAttribute) != null) {
+                String attrType = config.getOtherUserAttributeDataType(otherUserAttribute);
 
-                                if (!userSearchEnabled) {
-                                    Map<String, String> userAttrMap = new HashMap<>();
-                                    String              userName    = getShortName(originalUserFullName);
+                addToAttrMap(userAttrMap, otherUserAttribute, attributes.get(otherUserAttribute), attrType);
+            }
+        }
 
-                                    userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
-                                    userAttrMap.put(UgsyncCommonConstants.FULL_NAME, originalUserFullName);
-                                    userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                                    userAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
+        sourceUsers.put(userFullName, userAttrMap);
 
-                                    sourceUsers.put(originalUserFullName, userAttrMap);
+        Set<String> userGroups = groupMembers.getGroups(userFullName);
 
-                                    LOG.debug("As usersearch is disabled, adding user {} from group member attribute for group {}", userName, gName);
-                                }
+        if (userGroups.isEmpty()) {
+            userGroups = groupMembers.getGroups(userName);
+        }
 
-                                groupUserTable.put(groupFullName, originalUserFullName, originalUserFullName);
-                            }
+        for (String groupDN : userGroups) {
+            LOG.debug("Updating group members {} with: {} for {}", groupDN, userName, userFullName);
 
-                            LOG.info("No. of members in the group {} = {}", gName, userCount);
-                        }
+            groupMembers.addMember(groupDN, userFullName);
+        }
 
-                        // Examine the paged results control response
-                        Control[] controls = ldapContext.getResponseControls();
+        int count = counter.incrementAndGet();
 
-                        if (controls != null) {
-                            for (Control control : controls) {
-                                if (control instanceof PagedResultsResponseControl) {
-                                    PagedResultsResponseControl prrc = (PagedResultsResponseControl) control;
+        if (count <= 2000) {
+            LOG.info("Updating user count: {}, userName: {}", count, userName);
 
-                                    total = prrc.getResultSize();
+            if (count == 2000) {
+                LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
+            }
+        } else {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Updating user count: {}, userName: {}", count, userName);
+            } else if (count % 100 == 0) {
+                LOG.info("Synced {} users till now", count);
+            }
+        }
+    }
 
-                                    if (total != 0) {
-                                        LOG.debug("END-OF-PAGE total: {}", total);
-                                    } else {
-                                        LOG.debug("END-OF-PAGE total: unknown");
-                                    }
+    private long getGroups(boolean computeDeletes) throws Throwable {
+        DateFormat    dateFormat                = new SimpleDateFormat(DATE_FORMAT);
+        AtomicInteger counter                   = new AtomicInteger();
+        AtomicLong    highestdeltaSyncGroupTime = new AtomicLong(deltaSyncGroupTime);
 
-                                    cookie = prrc.getCookie();
-                                }
-                            }
-                        } else {
-                            LOG.debug("No controls were sent from the server");
-                        }
+        extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
 
-                        // Re-activate paged results
-                        if (pagedResultsEnabled) {
-                            LOG.debug("Fetched paged results round: {}", ++paged);
-                            ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL)});
-                        }
-                    }
-                    while (cookie != null);
+        if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
+            String customFilter = groupSearchFilter.trim();
 
-                    LOG.info("LdapUserGroupBuilder.getGroups() completed with group count: {}", counter);
-                } catch (Exception t) {
-                    LOG.error("LdapUserGroupBuilder.getGroups() failed with exception: ", t);
-                    LOG.info("LdapUserGroupBuilder.getGroups() group count: {}", counter);
-                }
-            }
-        } finally {
-            if (groupSearchResultEnum != null) {
-                groupSearchResultEnum.close();
+            if (!customFilter.startsWith("(")) {
+                customFilter = "(" + customFilter + ")";
             }
 
-            closeLdapContext();
+            extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
+        }
+
+        if (!config.isDeltaSyncEnabled() || (computeDeletes)) {
+            // Perform full sync when incremental sync is not enabled
+            deltaSyncGroupTime      = 0;
+            deltaSyncGroupTimeStamp = dateFormat.format(new Date(0));
         }
 
+        extendedAllGroupsSearchFilter = "(&" + extendedGroupSearchFilter + "(|(uSNChanged>=" + deltaSyncGroupTime + ")(modifyTimestamp>=" + deltaSyncGroupTimeStamp + "Z)))";
+
+        LOG.info("extendedAllGroupsSearchFilter = {}", extendedAllGroupsSearchFilter);
+
+        search("getGroups", groupSearchBase, Collections.singletonList(extendedAllGroupsSearchFilter), groupSearchControls, groupEntry -> processGroup(groupEntry, dateFormat, highestdeltaSyncGroupTime, counter));
+
+        LOG.info("LdapUserGroupBuilder.getGroups() completed with group count: {}", counter.get());
+
         if (groupHierarchyLevels > 0) {
             LOG.debug("deltaSyncGroupTime = {}", deltaSyncGroupTime);
 
@@ -920,226 +828,253 @@ private long getGroups(boolean computeDeletes) throws Throwable {
             }
         }
 
-        LOG.debug("highestdeltaSyncGroupTime = {}", highestdeltaSyncGroupTime);
+        LOG.debug("highestdeltaSyncGroupTime = {}", highestdeltaSyncGroupTime.get());
 
-        return highestdeltaSyncGroupTime;
+        return highestdeltaSyncGroupTime.get();
     }
 
-    private void goUpGroupHierarchy(Set<String> groups, int groupHierarchyLevels, String groupSName) {
-        if (groupHierarchyLevels <= 0 || groups.isEmpty()) {
+    private void processGroup(SearchResult groupEntry, DateFormat dateFormat, AtomicLong highestdeltaSyncGroupTime, AtomicInteger counter) throws Exception {
+        counter.incrementAndGet();
+
+        Attributes attributes    = groupEntry.getAttributes();
+        Attribute  groupNameAttr = attributes.get(groupNameAttribute);
+
+        if (groupNameAttr == null) {
+            LOG.info("{} empty for entry {}, skipping sync", groupNameAttribute, groupEntry.getNameInNamespace());
             return;
         }
 
-        LOG.info("nextLevelGroups = {} for group = {}", groups, groupSName);
+        String              groupFullName = (groupEntry.getNameInNamespace());
+        String              gName         = (String) groupNameAttr.get();
+        Map<String, String> groupAttrMap  = new HashMap<>();
+
+        groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, gName);
+        groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupFullName);
+        groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+        groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
 
-        Set<String> nextLevelGroups;
+        Attribute groupCloudIdAttr = attributes.get(groupCloudIdAttribute);
 
-        for (String group : groups) {
-            // Add all members of subgroup to the parent groups if the member is not a group in turn
-            Set<String> allMembers = groupUserTable.row(groupSName).keySet();
+        if (groupCloudIdAttr != null) {
+            addToAttrMap(groupAttrMap, "cloud_id", groupCloudIdAttr, config.getGroupCloudIdAttributeDataType());
+        }
 
-            LOG.info("members of {} = {}", groupSName, allMembers);
+        for (String otherGroupAttribute : otherGroupAttributes) {
+            if (attributes.get(otherGroupAttribute) != null) {
+                String attrType = config.getOtherGroupAttributeDataType(otherGroupAttribute);
 
-            for (String member : allMembers) {
-                if (!groupUserTable.containsRow(member)) { //Check if the member of a group is in turn a group
-                    LOG.info("Adding {} to {}", member, group);
+                addToAttrMap(groupAttrMap, otherGroupAttribute, attributes.get(otherGroupAttribute), attrType);
+            }
+        }
 
-                    String userSName = groupUserTable.get(groupSName, member);
+        sourceGroups.put(groupFullName, groupAttrMap);
 
-                    LOG.info("Short name of {} = {}", member, userSName);
+        Attribute timeStampAttr = attributes.get("uSNChanged");
+        if (timeStampAttr != null) {
+            String uSNChangedVal        = (String) timeStampAttr.get();
+            long   currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
 
-                    if (userSName != null) {
-                        groupUserTable.put(group, member, userSName); //Add users from the nested group to parent group
-                    }
-                }
+            if (currentDeltaSyncTime > highestdeltaSyncGroupTime.get()) {
+                highestdeltaSyncGroupTime.set(currentDeltaSyncTime);
             }
+        } else {
+            timeStampAttr = attributes.get("modifytimestamp");
+
+            if (timeStampAttr != null) {
+                String timeStampVal         = (String) timeStampAttr.get();
+                Date   parseDate            = dateFormat.parse(timeStampVal);
+                long   currentDeltaSyncTime = parseDate.getTime();
 
-            nextLevelGroups = groupUserTable.column(group).keySet();
+                LOG.info("timeStampVal = {} and currentDeltaSyncTime = {}", timeStampVal, currentDeltaSyncTime);
 
-            goUpGroupHierarchy(nextLevelGroups, groupHierarchyLevels - 1, group);
+                if (currentDeltaSyncTime > highestdeltaSyncGroupTime.get()) {
+                    highestdeltaSyncGroupTime.set(currentDeltaSyncTime);
+                    deltaSyncGroupTimeStamp = timeStampVal;
+                }
+            }
         }
-    }
 
-    private void goUpGroupHierarchyLdap(Set<String> groupDNs, int groupHierarchyLevels) throws Throwable {
-        if (groupHierarchyLevels <= 0 || groupDNs.isEmpty()) {
+        Attribute groupMemberAttr = attributes.get(groupMemberAttributeName);
+        int       userCount       = 0;
+
+        if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
+            LOG.info("No members available for {}", gName);
+
+            sourceGroupUsers.put(groupFullName, new HashSet<>());
             return;
         }
 
-        Set<String>                     nextLevelGroups       = new HashSet<>();
-        NamingEnumeration<SearchResult> groupSearchResultEnum = null;
+        NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
 
-        try {
-            createLdapContext();
+        while (userEnum.hasMore()) {
+            String originalUserFullName = (String) userEnum.next();
 
-            int total;
-
-            // Activate paged results
-            if (pagedResultsEnabled) {
-                ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL)});
+            if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
+                sourceGroupUsers.put(groupFullName, new HashSet<>());
+                continue;
             }
 
-            String groupFilter = "(&(objectclass=" + groupObjectClass + ")";
+            userCount++;
 
-            if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
-                String customFilter = groupSearchFilter.trim();
+            if (!userSearchEnabled) {
+                Map<String, String> userAttrMap = new HashMap<>();
+                String              userName    = getShortName(originalUserFullName);
 
-                if (!customFilter.startsWith("(")) {
-                    customFilter = "(" + customFilter + ")";
-                }
+                userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
+                userAttrMap.put(UgsyncCommonConstants.FULL_NAME, originalUserFullName);
+                userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+                userAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
+
+                sourceUsers.put(originalUserFullName, userAttrMap);
 
-                groupFilter += customFilter + "(|";
+                LOG.debug("As usersearch is disabled, adding user {} from group member attribute for group {}", userName, gName);
             }
 
-            StringBuilder filter = new StringBuilder();
+            groupMembers.addMember(groupFullName, originalUserFullName);
+        }
 
-            for (String groupDN : groupDNs) {
-                filter.append("(").append(groupMemberAttributeName).append("=").append(groupDN).append(")");
-            }
+        LOG.info("No. of members in the group {} = {}", gName, userCount);
+    }
 
-            filter.append("))");
+    /*
+     * retrieves groups that have any of the given groups as member, level by level up to groupHierarchyLevels. Each level
+     * is retrieved with OR-filters on the member attribute of up to groupHierarchyBatchSize groups; groups already
+     * retrieved at a lower level are not searched again.
+     */
+    private void goUpGroupHierarchyLdap(Set<String> groupDNs, int groupHierarchyLevels) throws Throwable {
+        Set<String> visitedGroups = new HashSet<>(groupDNs);
+        Set<String> levelGroups   = new HashSet<>(groupDNs);
 
-            groupFilter += filter;
+        for (int level = groupHierarchyLevels; level > 0 && !levelGroups.isEmpty(); level--) {
+            Set<String>   nextLevelGroups = new HashSet<>();
+            List<String>  filters         = getGroupHierarchyFilters(levelGroups);
+            AtomicInteger counter         = new AtomicInteger();
 
-            LOG.info("extendedAllGroupsSearchFilter = {}", groupFilter);
+            LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap(): searching parents of {} groups with {} filters", levelGroups.size(), filters.size());
 
-            for (String s : groupSearchBase) {
-                byte[] cookie  = null;
-                int    counter = 0;
+            search("goUpGroupHierarchyLdap", groupSearchBase, filters, groupSearchControls, groupEntry -> processParentGroup(groupEntry, nextLevelGroups, counter));
 
-                try {
-                    do {
-                        groupSearchResultEnum = ldapContext.search(s, groupFilter, groupSearchControls);
+            LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap() completed with group count: {}", counter.get());
 
-                        while (groupSearchResultEnum.hasMore()) {
-                            final SearchResult groupEntry = groupSearchResultEnum.next();
+            nextLevelGroups.removeAll(visitedGroups);
+            visitedGroups.addAll(nextLevelGroups);
 
-                            if (groupEntry == null) {
-                                LOG.info("groupEntry null, skipping sync for the entry");
-                                continue;
-                            }
+            levelGroups = nextLevelGroups;
+        }
+    }
 
-                            counter++;
+    private List<String> getGroupHierarchyFilters(Set<String> groupDNs) {
+        List<String>  ret          = new ArrayList<>();
+        StringBuilder groupFilter  = new StringBuilder("(&(objectclass=").append(groupObjectClass).append(")");
+        StringBuilder filter       = null;
+        int           filterGroups = 0;
 
-                            Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
+        if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
+            String customFilter = groupSearchFilter.trim();
 
-                            if (groupNameAttr == null) {
-                                LOG.info("{} empty for entry {}, skipping sync", groupNameAttribute, groupEntry.getNameInNamespace());
-                                continue;
-                            }
+            if (!customFilter.startsWith("(")) {
+                customFilter = "(" + customFilter + ")";
+            }
 
-                            String groupFullName = (groupEntry.getNameInNamespace());
+            groupFilter.append(customFilter);
+        }
 
-                            nextLevelGroups.add(groupFullName);
+        groupFilter.append("(|");
 
-                            String    gName           = (String) groupNameAttr.get();
-                            Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
-                            int       userCount       = 0;
+        for (String groupDN : groupDNs) {
+            if (filter == null) {
+                filter = new StringBuilder(groupFilter);
+            }
 
-                            if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-                                LOG.info("No members available for {}", gName);
-                                continue;
-                            }
+            filter.append("(").append(groupMemberAttributeName).append("=").append(escapeFilterValue(groupDN)).append(")");
 
-                            Map<String, String> groupAttrMap = new HashMap<>();
+            if (++filterGroups == groupHierarchyBatchSize) {
+                ret.add(filter.append("))").toString());
 
-                            groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, gName);
-                            groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupFullName);
-                            groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                            groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
+                filter       = null;
+                filterGroups = 0;
+            }
+        }
 
-                            for (String otherGroupAttribute : otherGroupAttributes) {
-                                Attribute otherGroupAttr = groupEntry.getAttributes().get(otherGroupAttribute);
+        if (filter != null) {
+            ret.add(filter.append("))").toString());
+        }
 
-                                if (otherGroupAttr != null) {
-                                    groupAttrMap.put(otherGroupAttribute, (String) otherGroupAttr.get());
-                                }
-                            }
+        LOG.debug("groupHierarchyFilters = {}", ret);
 
-                            sourceGroups.put(groupFullName, groupAttrMap);
+        return ret;
+    }
 
-                            NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+    private void processParentGroup(SearchResult groupEntry, Set<String> nextLevelGroups, AtomicInteger counter) throws Exception {
+        counter.incrementAndGet();
 
-                            while (userEnum.hasMore()) {
-                                String originalUserFullName = (String) userEnum.next();
+        Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
 
-                                if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-                                    continue;
-                                }
+        if (groupNameAttr == null) {
+            LOG.info("{} empty for entry {}, skipping sync", groupNameAttribute, groupEntry.getNameInNamespace());
+            return;
+        }
 
-                                userCount++;
+        String groupFullName = (groupEntry.getNameInNamespace());
 
-                                if (!userSearchEnabled && !sourceGroups.containsKey(originalUserFullName)) {
-                                    Map<String, String> userAttrMap = new HashMap<>();
-                                    String              userName    = getShortName(originalUserFullName);
+        nextLevelGroups.add(groupFullName);
 
-                                    userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
-                                    userAttrMap.put(UgsyncCommonConstants.FULL_NAME, originalUserFullName);
-                                    userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
-                                    userAttrMap.put(UgsyncCommonConstants.LDAP_URL, config.getLdapUrl());
+        String    gName           = (String) groupNameAttr.get();
+        Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
+        int       userCount       = 0;
 
-                                    sourceUsers.put(originalUserFullName, userAttrMap);
-                                }
+        if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
+            LOG.info("No members available for {}", gName);
+            return;
+        }
 
-                                groupUserTable.put(groupFullName, originalUserFullName, originalUserFullName);
-                            }
+        Map<String, String> groupAttrMap = new HashMap<>();
 
-                            LOG.info("No. of members in the group {} = {}", gName, userCount);
-                        }
+        groupAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, gName);
+        groupAttrMap.put(UgsyncCommonConstants.FULL_NAME, groupFullName);
+        groupAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+        groupAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
 
-                        // Examine the paged results control response
-                        Control[] controls = ldapContext.getResponseControls();
+        for (String otherGroupAttribute : otherGroupAttributes) {
+            Attribute otherGroupAttr = groupEntry.getAttributes().get(otherGroupAttribute);
 
-                        if (controls != null) {
-                            for (Control control : controls) {
-                                if (control instanceof PagedResultsResponseControl) {
-                                    PagedResultsResponseControl prrc = (PagedResultsResponseControl) control;
+            if (otherGroupAttr != null) {
+                groupAttrMap.put(otherGroupAttribute, (String) otherGroupAttr.get());
+            }
+        }
 
-                                    total = prrc.getResultSize();
+        sourceGroups.put(groupFullName, groupAttrMap);
 
-                                    if (total != 0) {
-                                        LOG.debug("END-OF-PAGE total : {}", total);
-                                    } else {
-                                        LOG.debug("END-OF-PAGE total : unknown");
-                                    }
+        NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
 
-                                    cookie = prrc.getCookie();
-                                }
-                            }
-                        } else {
-                            LOG.debug("No controls were sent from the server");
-                        }
+        while (userEnum.hasMore()) {
+            String originalUserFullName = (String) userEnum.next();
 
-                        // Re-activate paged results
-                        if (pagedResultsEnabled) {
-                            ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL)});
-                        }
-                    }
-                    while (cookie != null);
-
-                    LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap() completed with group count: {}", counter);
-                } catch (RuntimeException re) {
-                    LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with runtime exception: ", re);
-                    throw re;
-                } catch (Exception t) {
-                    LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", t);
-                    LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap() group count: {}", counter);
-                }
+            if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
+                continue;
             }
-        } catch (RuntimeException re) {
-            LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", re);
-            throw re;
-        } finally {
-            if (groupSearchResultEnum != null) {
-                groupSearchResultEnum.close();
+
+            userCount++;
+
+            if (!userSearchEnabled && !sourceGroups.containsKey(originalUserFullName)) {
+                Map<String, String> userAttrMap = new HashMap<>();
+                String              userName    = getShortName(originalUserFullName);
+
+                userAttrMap.put(UgsyncCommonConstants.ORIGINAL_NAME, userName);
+                userAttrMap.put(UgsyncCommonConstants.FULL_NAME, originalUserFullName);
+                userAttrMap.put(UgsyncCommonConstants.SYNC_SOURCE, currentSyncSource);
+                userAttrMap.put(UgsyncCommonConstants.LDAP_URL, ldapUrl);
+
+                sourceUsers.put(originalUserFullName, userAttrMap);
             }
 
-            closeLdapContext();
+            groupMembers.addMember(groupFullName, originalUserFullName);
         }
 
-        goUpGroupHierarchyLdap(nextLevelGroups, groupHierarchyLevels - 1);
+        LOG.info("No. of members in the group {} = {}", gName, userCount);
     }
 
-    private void addToAttrMap(Map<String, String> userAttrMap, String attrName, Attribute attr, String attrType) throws Throwable {
+    private void addToAttrMap(Map<String, String> userAttrMap, String attrName, Attribute attr, String attrType) throws NamingException {
         if (attrType.equals(DATA_TYPE_BYTEARRAY)) {
             try {
                 byte[] otherUserAttrBytes = (byte[]) attr.get();
@@ -1253,135 +1188,135 @@ private String getFirstRDN(String name) {
     }
 
     private String getDNForMemberOf(String searchFilter) throws Throwable {
-        NamingEnumeration<SearchResult> userSearchResultEnum = null;
-
         LOG.debug("getDNForMemberOf({})", searchFilter);
 
-        String computedSearchFilter = "";
-
-        try {
-            createLdapContext();
-
-            SearchControls searchControls    = new SearchControls();
-            Set<String>    searchAttributes  = new HashSet<>();
-            int            total;
-
-            if (pagedResultsEnabled) { // Activate paged results
-                ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL)});
-            }
+        StringBuilder  computedSearchFilter = new StringBuilder();
+        SearchControls searchControls       = new SearchControls();
+        Set<String>    searchAttributes     = new HashSet<>();
+        AtomicInteger  counter              = new AtomicInteger();
+        String         filter               = String.format("(&(objectclass=%s)(%s))", groupObjectClass, searchFilter);
 
-            searchControls.setSearchScope(groupSearchScope);
+        searchControls.setSearchScope(groupSearchScope);
 
-            searchAttributes.add(groupNameAttribute);
+        searchAttributes.add(groupNameAttribute);
 
-            searchControls.setReturningAttributes(searchAttributes.toArray(new String[searchAttributes.size()]));
+        searchControls.setReturningAttributes(searchAttributes.toArray(new String[searchAttributes.size()]));
 
-            // When multiple OUs are configured, go through each OU as the user search base to search for users.
-            for (String s : groupSearchBase) {
-                byte[] cookie  = null;
-                int    counter = 0;
+        // When multiple OUs are configured, go through each OU as the group search base to search for groups.
+        search("getDNForMemberOf", groupSearchBase, Collections.singletonList(filter), searchControls, groupEntry -> {
+            Attributes attributes = groupEntry.getAttributes();
 
-                try {
-                    int paged = 0;
+            if (attributes == null) {
+                LOG.info("attributes  missing for entry {}, skipping sync", groupEntry.getNameInNamespace());
+                return;
+            }
 
-                    do {
-                        String filter = String.format("(&(objectclass=%s)(%s))", groupObjectClass, searchFilter);
+            Attribute groupNameAttr = attributes.get(groupNameAttribute);
 
-                        userSearchResultEnum = ldapContext.search(s, filter, searchControls);
+            if (groupNameAttr == null) {
+                LOG.info("{} missing for entry {}, skipping sync", groupNameAttribute, groupEntry.getNameInNamespace());
+                return;
+            }
 
-                        while (userSearchResultEnum.hasMore()) {
-                            // searchResults contains all the user entries
-                            final SearchResult userEntry = userSearchResultEnum.next();
+            String groupFullName = groupEntry.getNameInNamespace();
 
-                            if (userEntry == null) {
-                                LOG.info("userEntry null, skipping sync for the entry");
-                                continue;
-                            }
+            LOG.info("groupFullName = {}", groupFullName);
 
-                            Attributes attributes = userEntry.getAttributes();
+            computedSearchFilter.append("(").append(MEMBER_OF_ATTR).append(groupFullName).append(")");
 
-                            if (attributes == null) {
-                                LOG.info("attributes  missing for entry {}, skipping sync", userEntry.getNameInNamespace());
-                                continue;
-                            }
+            int count = counter.incrementAndGet();
 
-                            Attribute groupNameAttr = attributes.get(groupNameAttribute);
+            if (count <= 2000) {
+                LOG.info("Updating group count: {}, groupName: {}", count, groupFullName);
 
-                            if (groupNameAttr == null) {
-                                LOG.info("{} missing for entry {}, skipping sync", groupNameAttribute, userEntry.getNameInNamespace());
-                                continue;
-                            }
+                if (count == 2000) {
+                    LOG.info("===> 2000 group records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
+                }
+            } else {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Updating group count: {}, groupName: {}", count, groupFullName);
+                } else if (count % 100 == 0) {
+                    LOG.info("Synced {} groups till now", count);
+                }
+            }
+        });
 
-                            String groupFullName = userEntry.getNameInNamespace();
+        LOG.info("LdapUserGroupBuilder.getDNForMemberOf() completed with group count: {}", counter.get());
 
-                            LOG.info("groupFullName = {}", groupFullName);
+        LOG.debug("computedSearchFilter = {}", computedSearchFilter);
 
-                            computedSearchFilter += "(" + MEMBER_OF_ATTR + groupFullName + ")";
-                            counter++;
+        return computedSearchFilter.toString();
+    }
 
-                            if (counter <= 2000) {
-                                LOG.info("Updating group count: {}, groupName: {}", counter, groupFullName);
+    /*
+     * escapes special characters in a value used in a search filter, as per RFC 4515
+     */
+    static String escapeFilterValue(String value) {
+        StringBuilder ret = null;
 
-                                if (counter == 2000) {
-                                    LOG.info("===> 2000 group records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
-                                }
-                            } else {
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace("Updating group count: {}, groupName: {}", counter, groupFullName);
-                                } else if (counter % 100 == 0) {
-                                    LOG.info("Synced {} groups till now", counter);
-                                }
-                            }
-                        }
+        for (int i = 0; i < value.length(); i++) {
+            char   c       = value.charAt(i);
+            String escaped = null;
 
-                        // Examine the paged results control response
-                        Control[] controls = ldapContext.getResponseControls();
+            switch (c) {
+                case '\\':
+                    escaped = "\\5c";
+                    break;
+                case '*':
+                    escaped = "\\2a";
+                    break;
+                case '(':
+                    escaped = "\\28";
+                    break;
+                case ')':
+                    escaped = "\\29";
+                    break;
+                case '\0':
+                    escaped = "\\00";
+                    break;
+            }
 
-                        if (controls != null) {
-                            for (Control control : controls) {
-                                if (control instanceof PagedResultsResponseControl) {
-                                    PagedResultsResponseControl prrc = (PagedResultsResponseControl) control;
+            if (escaped != null) {
+                if (ret == null) {
+                    ret = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
 
-                                    total = prrc.getResultSize();
+                ret.append(escaped);
+            } else if (ret != null) {
+                ret.append(c);
+            }
+        }
 
-                                    if (total != 0) {
-                                        LOG.debug("END-OF-PAGE total : {}", total);
-                                    } else {
-                                        LOG.debug("END-OF-PAGE total : unknown");
-                                    }
+        return ret != null ? ret.toString() : value;
+    }
 
-                                    cookie = prrc.getCookie();
-                                }
-                            }
-                        } else {
-                            LOG.debug("No controls were sent from the server");
-                        }
+    private interface SearchResultHandler {
+        void process(SearchResult entry) throws Exception;
+    }
 
-                        // Re-activate paged results
-                        if (pagedResultsEnabled) {
-                            LOG.debug("Fetched paged results round: {}", ++paged);
+    private static final class LdapConnection {
+        final LdapContext      ldapContext;
+        final StartTlsResponse tls;
 
-                            ldapContext.setRequestControls(new Control[] {new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL)});
-                        }
-                    }
-                    while (cookie != null);
+        LdapConnection(LdapContext ldapContext, StartTlsResponse tls) {
+            this.ldapContext = ldapContext;
+            this.tls         = tls;
+        }
 
-                    LOG.info("LdapUserGroupBuilder.getDNForMemberOf() completed with group count: {}", counter);
-                } catch (Exception t) {
-                    LOG.error("LdapUserGroupBuilder.getDNForMemberOf() failed with exception: ", t);
-                    LOG.info("LdapUserGroupBuilder.getDNForMemberOf() group count: {}", counter);
+        void close() {
+            if (tls != null) {
+                try {
+                    tls.close();
+                } catch (IOException excp) {
+                    LOG.warn("failed to close TLS session", excp);
                 }
             }
-        } finally {
-            if (userSearchResultEnum != null) {
-                userSearchResultEnum.close();
-            }
 
-            closeLdapContext();
+            try {
+                ldapContext.close();
+            } catch (NamingException excp) {
+                LOG.warn("failed to close LDAP context", excp);
+            }
         }
-
-        LOG.debug("computedSearchFilter = {}", computedSearchFilter);
-
-        return computedSearchFilter;
     }
 }
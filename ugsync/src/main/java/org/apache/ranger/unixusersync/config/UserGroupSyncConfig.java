@@ -96,6 +96,8 @@ public class UserGroupSyncConfig {
     private static final String LGSYNC_GROUP_CLOUDID_ATTRIBUTE_DATATYPE                              = "ranger.usersync.ldap.group.cloudid.attribute.datatype";
     private static final String UGSYNC_GROUPNAME_CASE_CONVERSION_PARAM                               = "ranger.usersync.ldap.groupname.caseconversion";
     private static final String LGSYNC_GROUP_HIERARCHY_LEVELS                                        = "ranger.usersync.ldap.grouphierarchylevels";
+    private static final String LGSYNC_GROUP_HIERARCHY_BATCH_SIZE                                    = "ranger.usersync.ldap.grouphierarchy.batch.size";
+    private static final String LGSYNC_SEARCH_THREADS                                                = "ranger.usersync.ldap.search.threads";
 
     private static final String LGSYNC_LDAP_BIND_KEYSTORE                                            = "ranger.usersync.credstore.filename";
     private static final String LGSYNC_LDAP_DELTASYNC_ENABLED                                        = "ranger.usersync.ldap.deltasync";
@@ -125,6 +127,8 @@ public class UserGroupSyncConfig {
     private static final String  DEFAULT_UGSYNC_GROUPNAME_CASE_CONVERSION_VALUE                      = UGSYNC_NONE_CASE_CONVERSION_VALUE;
     private static final String  DEFAULT_LGSYNC_REFERRAL                                             = "ignore";
     private static final int     DEFAULT_LGSYNC_GROUP_HIERARCHY_LEVELS                               = 0;
+    private static final int     DEFAULT_LGSYNC_GROUP_HIERARCHY_BATCH_SIZE                           = 100;
+    private static final int     DEFAULT_LGSYNC_SEARCH_THREADS                                       = 1;
     private static final int     DEFAULT_LGSYNC_PAGED_RESULTS_SIZE                                   = 500;
     private static final boolean DEFAULT_LGSYNC_LDAP_DELTASYNC_ENABLED                               = false;
     private static final boolean DEFAULT_LGSYNC_LDAP_STARTTLS_ENABLED                                = false;
@@ -202,6 +206,8 @@ public class UserGroupSyncConfig {
     private static final String SYNC_POLICY_MGR_USERNAME                                             = "ranger.usersync.policymgr.username";
     private static final String SYNC_POLICY_MGR_MAX_RETRY_ATTEMPTS                                   = "ranger.usersync.policymgr.max.retry.attempts";
     private static final String SYNC_POLICY_MGR_RETRY_INTERVAL_MS                                    = "ranger.usersync.policymgr.retry.interval.ms";
+    private static final String SYNC_POLICY_MGR_UPLOAD_THREADS                                       = "ranger.usersync.policymgr.upload.threads";
+    private static final int    DEFAULT_POLICY_MGR_UPLOAD_THREADS                                    = 1;
     private static final String DEFAULT_POLICYMGR_USERNAME                                           = "rangerusersync";
 
     /* Other Configs */
@@ -1009,6 +1015,18 @@ public int getGroupHierarchyLevels() {
         return groupHierarchyLevels;
     }
 
+    public int getGroupHierarchyBatchSize() {
+        int ret = getIntProperty(prop, LGSYNC_GROUP_HIERARCHY_BATCH_SIZE, DEFAULT_LGSYNC_GROUP_HIERARCHY_BATCH_SIZE);
+
+        return ret > 0 ? ret : DEFAULT_LGSYNC_GROUP_HIERARCHY_BATCH_SIZE;
+    }
+
+    public int getLdapSearchThreads() {
+        int ret = getIntProperty(prop, LGSYNC_SEARCH_THREADS, DEFAULT_LGSYNC_SEARCH_THREADS);
+
+        return ret > 0 ? ret : DEFAULT_LGSYNC_SEARCH_THREADS;
+    }
+
     public String getProperty(String aPropertyName) {
         return prop.getProperty(aPropertyName);
     }
@@ -1081,6 +1099,15 @@ public int getPolicyMgrRetryIntervalMs() {
         return getIntProperty(prop, SYNC_POLICY_MGR_RETRY_INTERVAL_MS, 1_000);
     }
 
+    /*
+     * number of chunks of users/groups/group-memberships uploaded to Ranger Admin concurrently
+     */
+    public int getPolicyMgrUploadThreads() {
+        int ret = getIntProperty(prop, SYNC_POLICY_MGR_UPLOAD_THREADS, DEFAULT_POLICY_MGR_UPLOAD_THREADS);
+
+        return ret > 0 ? ret : DEFAULT_POLICY_MGR_UPLOAD_THREADS;
+    }
+
     public String getSyncSource() {
         String syncSource = null;
 
@@ -24,9 +24,11 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.security.SecureClientLogin;
+import org.apache.hadoop.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.ugsyncutil.model.GroupUserInfo;
 import org.apache.ranger.ugsyncutil.model.UgsyncAuditInfo;
+import org.apache.ranger.ugsyncutil.model.UploadChunkInfo;
 import org.apache.ranger.ugsyncutil.model.UsersGroupRoleAssignments;
 import org.apache.ranger.ugsyncutil.model.XGroupInfo;
 import org.apache.ranger.ugsyncutil.model.XUserInfo;
@@ -46,7 +48,10 @@
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +61,18 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implements UserGroupSink {
@@ -91,6 +108,7 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
     private static final String  ISHIDDEN                            = "0";
     private static final Pattern USER_OR_GROUP_NAME_VALIDATION_REGEX = Pattern.compile("^([A-Za-z0-9_]|[\u00C0-\u017F])([a-zA-Z0-9\\s,._\\-+/@= ]|[\u00C0-\u017F])+$", Pattern.CASE_INSENSITIVE);
     private static final String  ERR_MSG_FOR_INACTIVE_SERVER         = "This userGroupSync server is not in active state. Cannot commit transaction!";
+    private static final int     MAX_UPLOAD_CHUNKS_IN_AUDIT          = 100;
 
     private static String  localHostname;
 
@@ -98,6 +116,8 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
     private final boolean groupNameCaseConversionFlag;
 
     private volatile RangerUgSyncRESTClient ldapUgSyncClient;
+    private volatile Cookie                 sessionId;
+    private volatile boolean                isValidRangerCookie;
 
     /* {key: user name in DB} */
     private Map<String, XUserInfo>   userCache;
@@ -121,8 +141,8 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
     private int     noOfModifiedGroups;
     private int     noOfDeletedUsers;
     private int     noOfDeletedGroups;
+    private int     uploadThreads;
     private boolean isStartupFlag;
-    private boolean isValidRangerCookie;
     private boolean isMockRun;
     private boolean userNameLowerCaseFlag;
     private boolean groupNameLowerCaseFlag;
@@ -135,7 +155,6 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
     private String  authenticationType;
     private String  rangerCookieName;
     private String  policyMgrBaseUrl;
-    private Cookie  sessionId;
 
     String              principal;
     String              keytab;
@@ -147,6 +166,13 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
     Map<String, String> whiteListUserMap  = new LinkedHashMap<>();
     Map<String, String> whiteListGroupMap = new LinkedHashMap<>();
 
+    private final AtomicLong uploadChunkCount       = new AtomicLong();
+    private final AtomicLong failedUploadChunkCount = new AtomicLong();
+    private final AtomicLong uploadChunkTimeMs      = new AtomicLong();
+    private final AtomicLong maxUploadChunkTimeMs   = new AtomicLong();
+
+    private final List<UploadChunkInfo> uploadChunks = Collections.synchronizedList(new ArrayList<>()); // per-chunk metrics of the current sync cycle
+
     public PolicyMgrUserGroupBuilder() {
         super();
 
@@ -169,6 +195,20 @@ public PolicyMgrUserGroupBuilder() {
         }
     }
 
+    @VisibleForTesting
+    PolicyMgrUserGroupBuilder(int uploadThreads, String recordsToPullPerCall) {
+        this();
+
+        this.uploadThreads        = uploadThreads;
+        this.recordsToPullPerCall = recordsToPullPerCall;
+        this.isMockRun            = true;
+        this.userCache            = new HashMap<>();
+        this.groupCache           = new HashMap<>();
+        this.groupUsersCache      = new HashMap<>();
+        this.userNameMap          = new HashMap<>();
+        this.groupNameMap         = new HashMap<>();
+    }
+
     public static void main(String[] args) throws Throwable {
         PolicyMgrUserGroupBuilder ugbuilder = new PolicyMgrUserGroupBuilder();
         ugbuilder.init();
@@ -178,6 +218,7 @@ public synchronized void init() throws Throwable {
         isUserSyncNameValidationEnabled = config.isUserSyncNameValidationEnabled();
         isSyncSourceValidationEnabled   = config.isSyncSourceValidationEnabled();
         recordsToPullPerCall            = config.getMaxRecordsPerAPICall();
+        uploadThreads                   = config.getPolicyMgrUploadThreads();
         policyMgrBaseUrl                = config.getPolicyManagerBaseURL();
         isMockRun                       = config.isMockRunEnabled();
         isRangerCookieEnabled           = config.isUserSyncRangerCookieEnabled();
@@ -249,6 +290,14 @@ public void postUserGroupAuditInfo(UgsyncAuditInfo ugsyncAuditInfo) {
         ugsyncAuditInfo.setNoOfModifiedUsers(Integer.toUnsignedLong(noOfModifiedUsers));
         ugsyncAuditInfo.setNoOfModifiedGroups(Integer.toUnsignedLong(noOfModifiedGroups));
 
+        long noOfUploadChunks = uploadChunkCount.get() + failedUploadChunkCount.get();
+
+        ugsyncAuditInfo.setNoOfUploadChunks(noOfUploadChunks);
+        ugsyncAuditInfo.setNoOfFailedUploadChunks(failedUploadChunkCount.get());
+        ugsyncAuditInfo.setAvgUploadChunkTimeMs(noOfUploadChunks > 0 ? uploadChunkTimeMs.get() / noOfUploadChunks : 0L);
+        ugsyncAuditInfo.setMaxUploadChunkTimeMs(maxUploadChunkTimeMs.get());
+        ugsyncAuditInfo.setUploadChunks(new ArrayList<>(uploadChunks));
+
         int noOfCachedUsers  = userCache.size();
         int noOfCachedGroups = groupCache.size();
 
@@ -291,6 +340,12 @@ public void addOrUpdateUsersGroups(Map<String, Map<String, String>> sourceGroups
         noOfModifiedGroups   = 0;
         computeRolesForUsers = new HashSet<>();
 
+        uploadChunkCount.set(0);
+        failedUploadChunkCount.set(0);
+        uploadChunkTimeMs.set(0);
+        maxUploadChunkTimeMs.set(0);
+        uploadChunks.clear();
+
         if (!isStartupFlag && computeDeletes) {
             LOG.info("Computing deleted users/groups");
 
@@ -1038,49 +1093,22 @@ private int addOrUpdateDeltaUsers() throws Throwable {
     private int getUsers(GetXUserListResponse xUserList) throws Throwable {
         LOG.debug("==> PolicyMgrUserGroupBuilder.getUsers()");
 
-        int ret           = 0;
-        int totalCount    = xUserList.getTotalCount();
-        int uploadedCount = 0;
-        int pageSize      = Integer.parseInt(recordsToPullPerCall);
-
-        while (uploadedCount < totalCount) {
-            checkStatus();
-
-            GetXUserListResponse pagedXUserList    = new GetXUserListResponse();
-            int                  pagedXUserListLen = uploadedCount + pageSize;
+        int ret = uploadInChunks(PM_ADD_USERS_URI, "Users", xUserList.getXuserInfoList(), chunk -> {
+            GetXUserListResponse pagedXUserList = new GetXUserListResponse();
 
-            pagedXUserList.setXuserInfoList(xUserList.getXuserInfoList().subList(uploadedCount, pagedXUserListLen > totalCount ? totalCount : pagedXUserListLen));
-            pagedXUserList.setTotalCount(pageSize);
+            pagedXUserList.setXuserInfoList(chunk);
+            pagedXUserList.setTotalCount(chunk.size());
 
-            if (pagedXUserList.getXuserInfoList().isEmpty()) {
-                LOG.info("PolicyMgrUserGroupBuilder.getUsers() done updating users");
-
-                return 1;
-            }
-
-            String response = getDataFromLdap(PM_ADD_USERS_URI, pagedXUserList);
-
-            if (StringUtils.isNotEmpty(response)) {
-                try {
-                    ret            = Integer.parseInt(response);
-                    uploadedCount += pageSize;
-                } catch (NumberFormatException e) {
-                    LOG.error("Failed to addOrUpdateUsers {}", uploadedCount, e);
-                    throw e;
-                }
-            } else {
-                LOG.error("Failed to addOrUpdateUsers {}", uploadedCount);
-                throw new Exception("Failed to addOrUpdateUsers" + uploadedCount);
-            }
-
-            LOG.info("API returned: {}, No. of users uploaded to ranger admin = {}", ret, (uploadedCount > totalCount ? totalCount : uploadedCount));
-        }
+            return pagedXUserList;
+        }, chunk -> chunk.forEach(userInfo -> userCache.put(userInfo.getName(), userInfo)));
 
         LOG.debug("<== PolicyMgrUserGroupBuilder.getUsers()");
+
         return ret;
     }
 
-    private String getDataFromLdap(String uri, Object pagedList) throws Exception {
+    @VisibleForTesting
+    String getDataFromLdap(String uri, Object pagedList) throws Exception {
         String response = null;
 
         if (isRangerCookieEnabled) {
@@ -1142,37 +1170,14 @@ private int addOrUpdateDeltaGroups() throws Throwable {
     private int getGroups(GetXGroupListResponse xGroupList) throws Throwable {
         LOG.debug("==> PolicyMgrUserGroupBuilder.getGroups()");
 
-        int ret           = 0;
-        int totalCount    = xGroupList.getTotalCount();
-        int uploadedCount = 0;
-        int pageSize      = Integer.parseInt(recordsToPullPerCall);
-
-        while (uploadedCount < totalCount) {
-            checkStatus();
+        int ret = uploadInChunks(PM_ADD_GROUPS_URI, "Groups", xGroupList.getXgroupInfoList(), chunk -> {
+            GetXGroupListResponse pagedXGroupList = new GetXGroupListResponse();
 
-            GetXGroupListResponse pagedXGroupList    = new GetXGroupListResponse();
-            int                   pagedXGroupListLen = uploadedCount + pageSize;
+            pagedXGroupList.setXgroupInfoList(chunk);
+            pagedXGroupList.setTotalCount(chunk.size());
 
-            pagedXGroupList.setXgroupInfoList(xGroupList.getXgroupInfoList().subList(uploadedCount, pagedXGroupListLen > totalCount ? totalCount : pagedXGroupListLen));
-            pagedXGroupList.setTotalCount(pageSize);
-
-            String response = getDataFromLdap(PM_ADD_GROUPS_URI, pagedXGroupList);
-
-            if (StringUtils.isNotEmpty(response)) {
-                try {
-                    ret            = Integer.parseInt(response);
-                    uploadedCount += pageSize;
-                } catch (NumberFormatException e) {
-                    LOG.error("Failed to addOrUpdateGroups {}", uploadedCount, e);
-                    throw e;
-                }
-            } else {
-                LOG.error("Failed to addOrUpdateGroups {}", uploadedCount);
-                throw new Exception("Failed to addOrUpdateGroups " + uploadedCount);
-            }
-
-            LOG.info("API returned: {}, No. of groups uploaded to ranger admin = {}", ret, (uploadedCount > totalCount ? totalCount : uploadedCount));
-        }
+            return pagedXGroupList;
+        }, chunk -> chunk.forEach(groupInfo -> groupCache.put(groupInfo.getName(), groupInfo)));
 
         LOG.debug("<== PolicyMgrUserGroupBuilder.getGroups()");
 
@@ -1214,39 +1219,191 @@ private int addOrUpdateDeltaGroupUsers(List<GroupUserInfo> groupUserInfoList) th
     private int getGroupUsers(List<GroupUserInfo> groupUserInfoList) throws Throwable {
         LOG.debug("==> PolicyMgrUserGroupBuilder.getGroupUsers()");
 
+        int ret = uploadInChunks(PM_ADD_GROUP_USER_LIST_URI, "GroupUsers", groupUserInfoList, chunk -> chunk, chunk -> {
+            for (GroupUserInfo groupUserInfo : chunk) {
+                Set<String> groupUsers = deltaGroupUsers.get(groupUserInfo.getGroupName());
+
+                if (groupUsers != null) {
+                    groupUsersCache.put(groupUserInfo.getGroupName(), groupUsers);
+                }
+            }
+        });
+
+        LOG.debug("<== PolicyMgrUserGroupBuilder.getGroupUsers()");
+
+        return ret;
+    }
+
+    /*
+     * uploads records to Ranger Admin in chunks of recordsToPullPerCall records, with up to uploadThreads chunks in flight.
+     * Each chunk carries complete records to add or update, hence uploading a chunk again is harmless.
+     *
+     * checkpoint is called, in the calling thread, for each chunk acknowledged by Ranger Admin to record its records in
+     * caches. When the upload fails, the next sync cycle computes the delta against these caches - i.e. it resumes with
+     * records not acknowledged yet, instead of uploading all records again.
+     */
+    private <T> int uploadInChunks(String apiURL, String entityType, List<T> records, Function<List<T>, Object> toPayload, Consumer<List<T>> checkpoint) throws Throwable {
+        int totalCount    = records.size();
+        int chunkSize     = Integer.parseInt(recordsToPullPerCall);
+        int chunkCount    = (totalCount + chunkSize - 1) / chunkSize;
+        int threadCount   = Math.min(uploadThreads, chunkCount);
         int ret           = 0;
-        int totalCount    = groupUserInfoList.size();
         int uploadedCount = 0;
-        int pageSize      = Integer.parseInt(recordsToPullPerCall);
 
-        while (uploadedCount < totalCount) {
-            checkStatus();
+        LOG.debug("==> PolicyMgrUserGroupBuilder.uploadInChunks(apiURL={}, totalCount={}, chunkSize={}, threadCount={})", apiURL, totalCount, chunkSize, threadCount);
 
-            int pagedGroupUserInfoListLen              = uploadedCount + pageSize;
-            List<GroupUserInfo> pagedGroupUserInfoList = groupUserInfoList.subList(uploadedCount, pagedGroupUserInfoListLen > totalCount ? totalCount : pagedGroupUserInfoListLen);
-            String response                            = getDataFromLdap(PM_ADD_GROUP_USER_LIST_URI, pagedGroupUserInfoList);
+        if (threadCount <= 1) {
+            for (int i = 0; i < chunkCount; i++) {
+                checkStatus();
 
-            if (StringUtils.isNotEmpty(response)) {
-                try {
-                    ret            = Integer.parseInt(response);
-                    uploadedCount += pageSize;
-                } catch (NumberFormatException e) {
-                    LOG.error("Failed to addOrUpdateGroupUsers {}", uploadedCount, e);
-                    throw e;
+                List<T> chunk = getChunk(records, i, chunkSize);
+
+                ret = uploadChunk(apiURL, entityType, toPayload.apply(chunk), i * chunkSize, chunk.size());
+
+                checkpoint.accept(chunk);
+
+                uploadedCount += chunk.size();
+
+                LOG.info("API returned: {}, No. of records uploaded to ranger admin by addOrUpdate{} = {}", ret, entityType, uploadedCount);
+            }
+        } else {
+            Subject                       subject           = Subject.getSubject(AccessController.getContext());
+            ExecutorService               executor          = Executors.newFixedThreadPool(threadCount, createUploadThreadFactory());
+            CompletionService<Integer>    completionService = new ExecutorCompletionService<>(executor);
+            Map<Future<Integer>, Integer> inFlightChunks    = new HashMap<>();
+            Throwable                     failure           = null;
+            int                           nextChunk         = 0;
+
+            try {
+                while (nextChunk < chunkCount || !inFlightChunks.isEmpty()) {
+                    while (failure == null && nextChunk < chunkCount && inFlightChunks.size() < threadCount) {
+                        checkStatus();
+
+                        int               chunkIdx = nextChunk++;
+                        List<T>           chunk    = getChunk(records, chunkIdx, chunkSize);
+                        Object            payload  = toPayload.apply(chunk);
+                        Callable<Integer> upload   = () -> uploadChunk(apiURL, entityType, payload, chunkIdx * chunkSize, chunk.size());
+
+                        if (subject != null) {
+                            Callable<Integer> uploadAsUser = upload;
+
+                            upload = () -> Subject.doAs(subject, (PrivilegedExceptionAction<Integer>) uploadAsUser::call);
+                        }
+
+                        inFlightChunks.put(completionService.submit(upload), chunkIdx);
+                    }
+
+                    if (inFlightChunks.isEmpty()) { // upload failed, and no chunk is in flight
+                        break;
+                    }
+
+                    Future<Integer> future   = completionService.take();
+                    int             chunkIdx = inFlightChunks.remove(future);
+
+                    try {
+                        int     chunkRet = future.get();
+                        List<T> chunk    = getChunk(records, chunkIdx, chunkSize);
+
+                        checkpoint.accept(chunk);
+
+                        uploadedCount += chunk.size();
+
+                        if (chunkIdx == chunkCount - 1) {
+                            ret = chunkRet;
+                        }
+
+                        LOG.info("API returned: {}, No. of records uploaded to ranger admin by addOrUpdate{} = {}", chunkRet, entityType, uploadedCount);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause() instanceof PrivilegedActionException ? e.getCause().getCause() : e.getCause();
+
+                        if (failure == null) {
+                            failure = cause;
+                        } else {
+                            LOG.error("Failed to addOrUpdate{}", entityType, cause);
+                        }
+                    }
                 }
-            } else {
-                LOG.error("Failed to addOrUpdateGroupUsers {}", uploadedCount);
-                throw new Exception("Failed to addOrUpdateGroupUsers " + uploadedCount);
+            } finally {
+                executor.shutdownNow();
             }
 
-            LOG.info("API returned: {}, No. of group memberships uploaded to ranger admin = {}", ret, (uploadedCount > totalCount ? totalCount : uploadedCount));
+            if (failure != null) {
+                throw failure;
+            }
         }
 
-        LOG.debug("<== PolicyMgrUserGroupBuilder.getGroupUsers()");
+        LOG.debug("<== PolicyMgrUserGroupBuilder.uploadInChunks(apiURL={}, totalCount={}): ret={}", apiURL, totalCount, ret);
 
         return ret;
     }
 
+    private int uploadChunk(String apiURL, String entityType, Object payload, int offset, int noOfRecords) throws Exception {
+        long    startTimeMs = System.currentTimeMillis();
+        boolean isSuccess   = false;
+
+        try {
+            String response = getDataFromLdap(apiURL, payload);
+
+            if (StringUtils.isEmpty(response)) {
+                LOG.error("Failed to addOrUpdate{} {}", entityType, offset);
+
+                throw new Exception("Failed to addOrUpdate" + entityType + " " + offset);
+            }
+
+            int ret;
+
+            try {
+                ret = Integer.parseInt(response);
+            } catch (NumberFormatException e) {
+                LOG.error("Failed to addOrUpdate{} {}", entityType, offset, e);
+
+                throw e;
+            }
+
+            isSuccess = true;
+
+            return ret;
+        } finally {
+            long timeTakenMs = System.currentTimeMillis() - startTimeMs;
+
+            if (isSuccess) {
+                uploadChunkCount.incrementAndGet();
+            } else {
+                failedUploadChunkCount.incrementAndGet();
+            }
+
+            uploadChunkTimeMs.addAndGet(timeTakenMs);
+            maxUploadChunkTimeMs.accumulateAndGet(timeTakenMs, Math::max);
+
+            synchronized (uploadChunks) {
+                // failed chunks are always recorded; their number is bounded by uploadThreads, as upload stops on failure
+                if (!isSuccess || uploadChunks.size() < MAX_UPLOAD_CHUNKS_IN_AUDIT) {
+                    uploadChunks.add(new UploadChunkInfo(entityType, offset, noOfRecords, timeTakenMs, isSuccess));
+                }
+            }
+
+            LOG.debug("uploadChunk(apiURL={}, offset={}, noOfRecords={}): isSuccess={}, timeTakenMs={}", apiURL, offset, noOfRecords, isSuccess, timeTakenMs);
+        }
+    }
+
+    private static <T> List<T> getChunk(List<T> records, int chunkIdx, int chunkSize) {
+        int fromIdx = chunkIdx * chunkSize;
+
+        return records.subList(fromIdx, Math.min(fromIdx + chunkSize, records.size()));
+    }
+
+    private static ThreadFactory createUploadThreadFactory() {
+        AtomicInteger threadIdx = new AtomicInteger();
+
+        return r -> {
+            Thread ret = new Thread(r, "ranger-ugsync-upload-" + threadIdx.incrementAndGet());
+
+            ret.setDaemon(true);
+
+            return ret;
+        };
+    }
+
     private String updateRoles(UsersGroupRoleAssignments ugRoleAssignments) {
         LOG.debug("==> PolicyMgrUserGroupBuilder.updateUserRole({})", ugRoleAssignments.getUsers());
 
@@ -1397,9 +1554,10 @@ private String cookieBasedUploadEntity(Object obj, String apiURL) {
         LOG.debug("==> PolicyMgrUserGroupBuilder.cookieBasedUploadEntity()");
 
         String response;
+        Cookie cookie = sessionId; // sessionId can be updated by concurrent uploads
 
-        if (sessionId != null && isValidRangerCookie) {
-            response = tryUploadEntityWithCookie(obj, apiURL);
+        if (cookie != null && isValidRangerCookie) {
+            response = tryUploadEntityWithCookie(obj, apiURL, cookie);
         } else {
             response = tryUploadEntityWithCred(obj, apiURL);
         }
@@ -1425,14 +1583,14 @@ private String cookieBasedGetEntity(String apiURL, int retrievedCount) {
         return response;
     }
 
-    private String tryUploadEntityWithCookie(Object obj, String apiURL) {
+    private String tryUploadEntityWithCookie(Object obj, String apiURL, Cookie sessionCookie) {
         LOG.debug("==> PolicyMgrUserGroupBuilder.tryUploadEntityWithCookie()");
 
         String         response   = null;
         ClientResponse clientResp = null;
 
         try {
-            clientResp = ldapUgSyncClient.post(apiURL, null, obj, sessionId);
+            clientResp = ldapUgSyncClient.post(apiURL, null, obj, sessionCookie);
         } catch (Throwable t) {
             LOG.error("Failed to get response, Error is : ", t);
         }
@@ -1451,7 +1609,7 @@ private String tryUploadEntityWithCookie(Object obj, String apiURL) {
 
                 for (NewCookie cookie : respCookieList) {
                     if (cookie.getName().equalsIgnoreCase(rangerCookieName)) {
-                        if (!(sessionId.getValue().equalsIgnoreCase(cookie.toCookie().getValue()))) {
+                        if (!(sessionCookie.getValue().equalsIgnoreCase(cookie.toCookie().getValue()))) {
                             sessionId = cookie.toCookie();
                         }
 
@@ -1937,6 +2095,16 @@ private int getDeletedUsers() throws Throwable {
         return ret;
     }
 
+    @VisibleForTesting
+    Map<String, XUserInfo> getUserCache() {
+        return userCache;
+    }
+
+    @VisibleForTesting
+    Map<String, XGroupInfo> getGroupCache() {
+        return groupCache;
+    }
+
     // This will throw RuntimeException if Server is not Active
     private void checkStatus() {
         if (!UserGroupSyncConfig.isUgsyncServiceActive()) {
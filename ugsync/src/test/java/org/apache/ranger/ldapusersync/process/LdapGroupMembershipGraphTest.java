@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.ldapusersync.process;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LdapGroupMembershipGraphTest {
+    @Test
+    public void testMembers() {
+        LdapGroupMembershipGraph graph = new LdapGroupMembershipGraph();
+
+        assertTrue(graph.isEmpty());
+
+        assertTrue(graph.addMember("cn=g1", "cn=u1"));
+        assertTrue(graph.addMember("cn=g1", "cn=u2"));
+        assertFalse(graph.addMember("cn=g1", "cn=u1"));
+        assertTrue(graph.addMember("cn=g2", "cn=u1"));
+
+        // more names than the initial capacity
+        for (int i = 0; i < 3000; i++) {
+            graph.addMember("cn=g3", "cn=user" + i);
+        }
+
+        assertFalse(graph.isEmpty());
+        assertTrue(graph.hasMembers("cn=g1"));
+        assertFalse(graph.hasMembers("cn=u1"));
+        assertFalse(graph.hasMembers("cn=unknown"));
+        assertEquals(set("cn=u1", "cn=u2"), graph.getMembers("cn=g1"));
+        assertEquals(set("cn=g1", "cn=g2"), graph.getGroups("cn=u1"));
+        assertEquals(set(), graph.getGroups("cn=unknown"));
+        assertEquals(set("cn=g1", "cn=g2", "cn=g3"), graph.getGroupsWithMembers());
+        assertEquals(3000, graph.getMembers("cn=g3").size());
+        assertEquals(3003, graph.getMembershipCount());
+    }
+
+    @Test
+    public void testNestedMembers() {
+        LdapGroupMembershipGraph graph = new LdapGroupMembershipGraph();
+
+        // u1 -> g1 -> g2 -> g3 -> g4; g2 -> g1 (cycle); u3 -> g3
+        graph.addMember("cn=g1", "cn=u1");
+        graph.addMember("cn=g2", "cn=g1");
+        graph.addMember("cn=g2", "cn=u2");
+        graph.addMember("cn=g1", "cn=g2");
+        graph.addMember("cn=g3", "cn=g2");
+        graph.addMember("cn=g3", "cn=u3");
+        graph.addMember("cn=g4", "cn=g3");
+
+        graph.addNestedMembers(Arrays.asList("cn=g1", "cn=g2", "cn=g3", "cn=g4"), 2);
+
+        assertEquals(set("cn=u1", "cn=g2", "cn=u2"), graph.getMembers("cn=g1"));
+        assertEquals(set("cn=u1", "cn=g1", "cn=u2"), graph.getMembers("cn=g2"));
+        assertEquals(set("cn=u1", "cn=g2", "cn=u2", "cn=u3"), graph.getMembers("cn=g3"));
+        assertEquals(set("cn=g3", "cn=u2", "cn=u3"), graph.getMembers("cn=g4")); // u1 is 3 levels below g4
+    }
+
+    @Test
+    public void testEscapeFilterValue() {
+        assertEquals("cn=sales,dc=example", LdapUserGroupBuilder.escapeFilterValue("cn=sales,dc=example"));
+        assertEquals("cn=sales \\28eu\\29\\2a\\5c,dc=example", LdapUserGroupBuilder.escapeFilterValue("cn=sales (eu)*\\,dc=example"));
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
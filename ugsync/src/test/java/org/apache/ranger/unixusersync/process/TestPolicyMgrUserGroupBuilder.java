@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.unixusersync.process;
+
+import org.apache.ranger.ugsyncutil.model.FileSyncSourceInfo;
+import org.apache.ranger.ugsyncutil.model.UgsyncAuditInfo;
+import org.apache.ranger.ugsyncutil.model.UploadChunkInfo;
+import org.apache.ranger.ugsyncutil.model.XGroupInfo;
+import org.apache.ranger.ugsyncutil.model.XUserInfo;
+import org.apache.ranger.ugsyncutil.util.UgsyncCommonConstants;
+import org.apache.ranger.unixusersync.model.GetXGroupListResponse;
+import org.apache.ranger.unixusersync.model.GetXUserListResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPolicyMgrUserGroupBuilder {
+    @Test
+    public void testUploadStopsOnFailure() throws Throwable {
+        // 10 users, 1 user per chunk, 3 chunks in flight: first 2 uploads complete only after the 3rd upload fails
+        MockPolicyMgrUserGroupBuilder builder = new MockPolicyMgrUserGroupBuilder(3, "1");
+
+        builder.failAtCall   = 3;
+        builder.blockedCalls = 2;
+
+        try {
+            builder.addOrUpdateUsersGroups(Collections.emptyMap(), createSourceEntities("user", 10), Collections.emptyMap(), false);
+
+            fail("upload of 3rd chunk should have failed");
+        } catch (Exception excp) {
+            assertTrue(excp.getMessage().startsWith("Failed to addOrUpdateUsers"));
+        }
+
+        // no chunk is uploaded after the failure, and chunks in flight at the time of failure are drained and recorded in userCache
+        Set<String> acknowledgedUsers = new HashSet<>(builder.uploadedNames);
+
+        acknowledgedUsers.removeAll(builder.failedNames);
+
+        assertEquals(3, builder.uploadedNames.size());
+        assertEquals(1, builder.failedNames.size());
+        assertEquals(acknowledgedUsers, builder.getUserCache().keySet());
+
+        UgsyncAuditInfo auditInfo = createAuditInfo();
+
+        builder.postUserGroupAuditInfo(auditInfo);
+
+        assertEquals(Long.valueOf(3), auditInfo.getNoOfUploadChunks());
+        assertEquals(Long.valueOf(1), auditInfo.getNoOfFailedUploadChunks());
+        assertEquals(3, auditInfo.getUploadChunks().size());
+        assertEquals(1, auditInfo.getUploadChunks().stream().filter(chunkInfo -> !chunkInfo.getIsSuccess()).count());
+
+        for (UploadChunkInfo chunkInfo : auditInfo.getUploadChunks()) {
+            assertEquals("Users", chunkInfo.getEntityType());
+            assertEquals(1, chunkInfo.getNoOfRecords());
+        }
+    }
+
+    @Test
+    public void testSequentialUploadStopsOnFailure() throws Throwable {
+        // 5 groups, 2 groups per chunk, 1 chunk in flight: upload of the 2nd chunk fails
+        MockPolicyMgrUserGroupBuilder builder = new MockPolicyMgrUserGroupBuilder(1, "2");
+
+        builder.failAtCall = 2;
+
+        try {
+            builder.addOrUpdateUsersGroups(createSourceEntities("group", 5), Collections.emptyMap(), Collections.emptyMap(), false);
+
+            fail("upload of 2nd chunk should have failed");
+        } catch (Exception excp) {
+            assertTrue(excp.getMessage().startsWith("Failed to addOrUpdateGroups"));
+        }
+
+        // the 3rd chunk is not uploaded, and only the groups in the 1st chunk are recorded in groupCache
+        assertEquals(4, builder.uploadedNames.size());
+        assertEquals(2, builder.failedNames.size());
+        assertEquals(new HashSet<>(builder.uploadedNames.subList(0, 2)), builder.getGroupCache().keySet());
+    }
+
+    @Test
+    public void testUploadResumesAfterFailure() throws Throwable {
+        MockPolicyMgrUserGroupBuilder    builder     = new MockPolicyMgrUserGroupBuilder(2, "2");
+        Map<String, Map<String, String>> sourceUsers = createSourceEntities("user", 10);
+
+        builder.failAtCall = 3;
+
+        try {
+            builder.addOrUpdateUsersGroups(Collections.emptyMap(), sourceUsers, Collections.emptyMap(), false);
+
+            fail("upload of 3rd chunk should have failed");
+        } catch (Exception excp) {
+            assertTrue(excp.getMessage().startsWith("Failed to addOrUpdateUsers"));
+        }
+
+        Set<String> acknowledgedUsers = new HashSet<>(builder.getUserCache().keySet());
+
+        assertTrue(acknowledgedUsers.containsAll(builder.uploadedNames.subList(0, 4)));
+        assertTrue(Collections.disjoint(acknowledgedUsers, builder.failedNames));
+        assertTrue(acknowledgedUsers.size() < sourceUsers.size());
+
+        // next sync cycle uploads only the users not acknowledged by Ranger Admin in the previous cycle
+        builder.failAtCall = 0;
+        builder.uploadedNames.clear();
+
+        builder.addOrUpdateUsersGroups(Collections.emptyMap(), sourceUsers, Collections.emptyMap(), false);
+
+        assertEquals(sourceUsers.size() - acknowledgedUsers.size(), builder.uploadedNames.size());
+        assertTrue(Collections.disjoint(acknowledgedUsers, builder.uploadedNames));
+        assertEquals(sourceUsers.keySet(), builder.getUserCache().keySet());
+    }
+
+    private static Map<String, Map<String, String>> createSourceEntities(String namePrefix, int count) {
+        Map<String, Map<String, String>> ret = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            String              name  = namePrefix + i;
+            Map<String, String> attrs = new HashMap<>();
+
+            attrs.put(UgsyncCommonConstants.ORIGINAL_NAME, name);
+            attrs.put(UgsyncCommonConstants.FULL_NAME, name);
+            attrs.put(UgsyncCommonConstants.SYNC_SOURCE, "File");
+
+            ret.put(name, attrs);
+        }
+
+        return ret;
+    }
+
+    private static UgsyncAuditInfo createAuditInfo() {
+        UgsyncAuditInfo ret = new UgsyncAuditInfo();
+
+        ret.setSyncSource("File");
+        ret.setFileSyncSourceInfo(new FileSyncSourceInfo());
+
+        return ret;
+    }
+
+    private static class MockPolicyMgrUserGroupBuilder extends PolicyMgrUserGroupBuilder {
+        final List<String>   uploadedNames = Collections.synchronizedList(new ArrayList<>());
+        final Set<String>    failedNames   = Collections.synchronizedSet(new HashSet<>());
+        final AtomicInteger  calls         = new AtomicInteger();
+        final CountDownLatch failed        = new CountDownLatch(1);
+        volatile int         failAtCall;   // upload call to fail, 0 for none
+        volatile int         blockedCalls; // number of first upload calls to complete only after failAtCall fails
+
+        MockPolicyMgrUserGroupBuilder(int uploadThreads, String recordsToPullPerCall) {
+            super(uploadThreads, recordsToPullPerCall);
+        }
+
+        @Override
+        String getDataFromLdap(String uri, Object pagedList) throws Exception {
+            int          callIdx;
+            List<String> names = new ArrayList<>();
+
+            if (pagedList instanceof GetXUserListResponse) {
+                for (XUserInfo userInfo : ((GetXUserListResponse) pagedList).getXuserInfoList()) {
+                    names.add(userInfo.getName());
+                }
+            } else if (pagedList instanceof GetXGroupListResponse) {
+                for (XGroupInfo groupInfo : ((GetXGroupListResponse) pagedList).getXgroupInfoList()) {
+                    names.add(groupInfo.getName());
+                }
+            }
+
+            synchronized (uploadedNames) {
+                callIdx = calls.incrementAndGet();
+
+                uploadedNames.addAll(names);
+            }
+
+            if (callIdx == failAtCall) {
+                failedNames.addAll(names);
+                failed.countDown();
+
+                return null; // Ranger Admin failed to add or update the chunk
+            }
+
+            if (callIdx <= blockedCalls) {
+                assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+                Thread.sleep(200); // let the failure reach uploadInChunks() before this chunk completes
+            }
+
+            return Integer.toString(names.size());
+        }
+    }
+}